@@ -0,0 +1,143 @@
+package backend;
+
+import backend.resource.TurboIssue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Changes to the labels, milestone, assignee and state of an issue, to be made on the server.
+ * Fields which are not changed are absent. Edits are combined with {@link #then}, with later
+ * changes to a field replacing earlier ones.
+ */
+public final class IssueEdit {
+
+    // Each field is null if it is not changed
+    private final List<String> labels;
+    private final Optional<Integer> milestone;
+    private final Optional<String> assignee;
+    private final Boolean isOpen;
+
+    private IssueEdit(List<String> labels, Optional<Integer> milestone, Optional<String> assignee, Boolean isOpen) {
+        this.labels = labels == null ? null : new ArrayList<>(labels);
+        this.milestone = milestone;
+        this.assignee = assignee;
+        this.isOpen = isOpen;
+    }
+
+    public static IssueEdit labels(List<String> labels) {
+        return new IssueEdit(labels, null, null, null);
+    }
+
+    public static IssueEdit milestone(Optional<Integer> milestone) {
+        return new IssueEdit(null, milestone, null, null);
+    }
+
+    public static IssueEdit assignee(Optional<String> assigneeLoginName) {
+        return new IssueEdit(null, null, assigneeLoginName, null);
+    }
+
+    public static IssueEdit state(boolean isOpen) {
+        return new IssueEdit(null, null, null, isOpen);
+    }
+
+    /**
+     * @param later an edit made after this one
+     * @return an edit with the changes of both, where those of {@code later} take precedence
+     */
+    public IssueEdit then(IssueEdit later) {
+        return new IssueEdit(later.labels == null ? labels : later.labels,
+                             later.milestone == null ? milestone : later.milestone,
+                             later.assignee == null ? assignee : later.assignee,
+                             later.isOpen == null ? isOpen : later.isOpen);
+    }
+
+    /**
+     * @param issue the issue before this edit
+     * @return an edit which changes the fields changed by this edit back to their values in {@code issue}
+     */
+    public IssueEdit getOriginalValues(TurboIssue issue) {
+        return new IssueEdit(hasLabels() ? issue.getLabels() : null,
+                             hasMilestone() ? issue.getMilestone() : null,
+                             hasAssignee() ? issue.getAssignee() : null,
+                             hasState() ? issue.isOpen() : null);
+    }
+
+    public boolean hasLabels() {
+        return labels != null;
+    }
+
+    public boolean hasMilestone() {
+        return milestone != null;
+    }
+
+    public boolean hasAssignee() {
+        return assignee != null;
+    }
+
+    public boolean hasState() {
+        return isOpen != null;
+    }
+
+    /**
+     * @return the number of fields changed
+     */
+    public int getChangeCount() {
+        return (hasLabels() ? 1 : 0) + (hasMilestone() ? 1 : 0) + (hasAssignee() ? 1 : 0) + (hasState() ? 1 : 0);
+    }
+
+    /**
+     * Should only be called if {@link #hasLabels()}
+     */
+    public List<String> getLabels() {
+        assert hasLabels();
+        return new ArrayList<>(labels);
+    }
+
+    /**
+     * Should only be called if {@link #hasMilestone()}
+     *
+     * @return the new milestone, or empty to remove the milestone
+     */
+    public Optional<Integer> getMilestone() {
+        assert hasMilestone();
+        return milestone;
+    }
+
+    /**
+     * Should only be called if {@link #hasAssignee()}
+     *
+     * @return the login name of the new assignee, or empty to remove the assignee
+     */
+    public Optional<String> getAssignee() {
+        assert hasAssignee();
+        return assignee;
+    }
+
+    /**
+     * Should only be called if {@link #hasState()}
+     */
+    public boolean isOpen() {
+        assert hasState();
+        return isOpen;
+    }
+
+    @Override
+    public String toString() {
+        List<String> changes = new ArrayList<>();
+        if (hasLabels()) {
+            changes.add("labels " + labels);
+        }
+        if (hasMilestone()) {
+            changes.add("milestone " + milestone.map(String::valueOf).orElse("none"));
+        }
+        if (hasAssignee()) {
+            changes.add("assignee " + assignee.orElse("none"));
+        }
+        if (hasState()) {
+            changes.add(isOpen ? "open" : "closed");
+        }
+        return String.join(", ", changes);
+    }
+}
@@ -32,12 +32,16 @@ public final class IssueMetadata {
     private final String eventsETag; // Only modified in the DownloadMetadataTask constructor
     private final String commentsETag;
 
+    // Instances are immutable, so all issues without metadata share this one
+    private static final IssueMetadata EMPTY =
+            new IssueMetadata(new ArrayList<>(), new ArrayList<>(), false, "", "");
+
     /**
      * Factory method for the empty metadata instance. This is used as the default for
      * new issues.
      */
     public static IssueMetadata empty() {
-        return new IssueMetadata(new ArrayList<>(), new ArrayList<>(), false, "", "");
+        return EMPTY;
     }
 
     /**
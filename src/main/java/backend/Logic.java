@@ -25,6 +25,10 @@ import util.events.testevents.ClearLogicModelEventHandler;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static util.Futures.withResult;
@@ -33,6 +37,9 @@ public class Logic {
 
     private static final Logger logger = HTLog.get(Logic.class);
 
+    // The number of seconds to wait for queued repository operations when quitting
+    private static final int QUIT_TIMEOUT = 3;
+
     private final MultiModel models;
     private final UIManager uiManager;
     protected final Preferences prefs;
@@ -46,7 +53,7 @@ public class Logic {
         this.uiManager = uiManager;
         this.prefs = prefs;
         this.models = models.orElse(new MultiModel(prefs));
-        this.repoIO = repoIO.orElseGet(TestController::createApplicationRepoIO);
+        this.repoIO = repoIO.orElseGet(() -> TestController.createApplicationRepoIO(prefs));
 
         repoOpControl = new RepoOpControl(this.repoIO, this.models);
         this.repoIO.setRepoOpControl(repoOpControl);
@@ -76,25 +83,66 @@ public class Logic {
         openPrimaryRepository(e.repoId);
     }
 
+    /**
+     * Gives queued repository operations, e.g. local edits which are yet to be stored, a few seconds
+     * to complete before the application exits, then stops the threads used for filtering.
+     */
+    public void onAppQuit() {
+        try {
+            repoOpControl.shutdown().get(QUIT_TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            logger.warn("Quitting before all repository operations completed");
+        }
+        updateController.shutdown();
+    }
+
     public CompletableFuture<Boolean> isRepositoryValid(String repoId) {
         return repoIO.isRepositoryValid(repoId);
     }
 
     public void refresh() {
-        String message = "Refreshing " + models.toModels().stream()
+        refresh(getOpenRepositories());
+    }
+
+    /**
+     * Refreshes the given repositories, if they are open.
+     *
+     * @param repoIds
+     * @return whether each refreshed repository was found to have changed, by repoId
+     */
+    public CompletableFuture<Map<String, Boolean>> refresh(Collection<String> repoIds) {
+        Set<String> toRefresh = Utility.convertSetToLowerCase(new HashSet<>(repoIds));
+        List<Model> modelsToRefresh = models.toModels().stream()
+                .filter(model -> toRefresh.contains(model.getRepoId().toLowerCase()))
+                .collect(Collectors.toList());
+        String message = "Refreshing " + modelsToRefresh.stream()
                 .map(Model::getRepoId)
                 .collect(Collectors.joining(", "));
 
         logger.info(message);
         UI.status.displayMessage(message);
 
-        Futures.sequence(models.toModels().stream()
-                                 .map((model) -> repoIO.updateModel(model, true))
-                                 .collect(Collectors.toList()))
-                .thenRun(this::refreshUI)
+        CompletableFuture<Map<String, Boolean>> changes = Futures.sequence(modelsToRefresh.stream()
+                .map(model -> repoIO.updateModel(model, true)
+                        .thenApply(newModel -> new ImmutablePair<>(model.getRepoId(), hasChanged(model, newModel))))
+                .collect(Collectors.toList()))
+                .thenApply(results -> results.stream()
+                        .collect(Collectors.toMap(ImmutablePair::getLeft, ImmutablePair::getRight)));
+
+        changes.thenRun(this::refreshUI)
                 .thenCompose(n -> getRateLimitResetTime())
                 .thenApply(this::updateRemainingRate)
                 .exceptionally(Futures::log);
+        return changes;
+    }
+
+    /**
+     * A model is considered changed by an update if the update returned new ETags. Failed updates,
+     * which result in empty models, are not considered changes.
+     */
+    private static boolean hasChanged(Model model, Model newModel) {
+        return !newModel.getUpdateSignature().isEmpty()
+                && !newModel.getUpdateSignature().equals(model.getUpdateSignature());
     }
 
     /**
@@ -226,6 +274,7 @@ public class Logic {
      * - using Utility.convertSetToLowerCase()
      */
     public void removeUnusedModels(Set<String> reposInUse) {
+        repoIO.setUsedRepos(reposInUse);
         models.toModels().stream().map(Model::getRepoId)
                 .filter(repoId -> !reposInUse.contains(repoId.toLowerCase()))
                 .forEach(models::removeRepoModelById);
@@ -258,20 +307,18 @@ public class Logic {
      */
     public CompletableFuture<Boolean> replaceIssueLabels(TurboIssue issue, List<String> newLabels) {
         CompletableFuture<Boolean> result = new CompletableFuture<>();
-        List<String> originalLabels = issue.getLabels();
 
         logger.info("Changing labels for " + issue + " on UI");
         CompletableFuture<Optional<TurboIssue>> localLabelsReplaceFuture =
                 repoOpControl.replaceIssueLabelsLocally(issue, newLabels);
         localLabelsReplaceFuture.thenRun(this::refreshUI);
 
-        updateIssueLabelsOnServer(issue, newLabels)
+        updateIssueLabelsOnServer(issue, newLabels, original -> revertLocalEdit(localLabelsReplaceFuture, original))
                 .exceptionally((e) -> {
                     result.completeExceptionally(e);
                     return false;
                 })
-                .thenCombine(localLabelsReplaceFuture, (isUpdateSuccessful, locallyModifiedIssue) ->
-                        handleIssueLabelsUpdateResult(isUpdateSuccessful, locallyModifiedIssue, originalLabels))
+                .thenCombine(localLabelsReplaceFuture, this::handleIssueLabelsUpdateResult)
                 .thenAccept(result::complete);
 
         return result;
@@ -289,19 +336,17 @@ public class Logic {
         CompletableFuture<Boolean> result = new CompletableFuture<>();
 
         logger.info("Changing milestone for " + issue + " in models");
-        Optional<Integer> oldMilestone = issue.getMilestone();
         CompletableFuture<Optional<TurboIssue>> localMilestoneReplaceFuture =
                 repoOpControl.replaceIssueMilestoneLocally(issue, newMilestone);
         localMilestoneReplaceFuture.thenRun(this::refreshUI);
 
-        updateIssueMilestonesOnServer(issue, newMilestone)
+        updateIssueMilestonesOnServer(issue, newMilestone,
+                                      original -> revertLocalEdit(localMilestoneReplaceFuture, original))
                 .exceptionally((e) -> {
                     result.completeExceptionally(e);
                     return false;
                 })
-                .thenCombine(localMilestoneReplaceFuture, (isUpdateSuccessful, locallyModifiedIssue) ->
-                        handleIssueMilestoneUpdateOnServerResult(
-                                isUpdateSuccessful, locallyModifiedIssue, oldMilestone))
+                .thenCombine(localMilestoneReplaceFuture, this::handleIssueMilestoneUpdateOnServerResult)
                 .thenAccept(result::complete);
 
         return result;
@@ -322,7 +367,8 @@ public class Logic {
                 repoOpControl.replaceIssueAssigneeLocally(issue, newAssigneeLoginName);
         localAssigneeReplaceFuture.thenRun(this::refreshUI);
 
-        updateIssueAssigneesOnServer(issue, newAssigneeLoginName)
+        updateIssueAssigneesOnServer(issue, newAssigneeLoginName,
+                                     original -> revertLocalEdit(localAssigneeReplaceFuture, original))
                 .exceptionally((e) -> {
                     result.completeExceptionally(e);
                     return false;
@@ -348,34 +394,35 @@ public class Logic {
         );
     }
 
-    private CompletableFuture<Boolean> updateIssueLabelsOnServer(TurboIssue issue, List<String> newLabels) {
+    private CompletableFuture<Boolean> updateIssueLabelsOnServer(TurboIssue issue, List<String> newLabels,
+                                                                 Consumer<IssueEdit> revert) {
         logger.info("Changing labels for " + issue + " on GitHub");
-        return repoOpControl.replaceIssueLabelsOnServer(issue, newLabels);
+        return repoOpControl.replaceIssueLabelsOnServer(issue, newLabels, revert);
     }
 
-    private CompletableFuture<Boolean> updateIssueMilestonesOnServer(TurboIssue issue, Optional<Integer> milestone) {
+    private CompletableFuture<Boolean> updateIssueMilestonesOnServer(TurboIssue issue, Optional<Integer> milestone,
+                                                                     Consumer<IssueEdit> revert) {
         logger.info("Changing milestone for " + issue + " on GitHub");
-        return repoOpControl.replaceIssueMilestoneOnServer(issue, milestone);
+        return repoOpControl.replaceIssueMilestoneOnServer(issue, milestone, revert);
     }
 
     private CompletableFuture<Boolean> updateIssueAssigneesOnServer(TurboIssue issue,
-                                                                    Optional<String> newAssigneeLoginName) {
+                                                                    Optional<String> newAssigneeLoginName,
+                                                                    Consumer<IssueEdit> revert) {
         logger.info("Changing assignee for " + issue + " on GitHub");
-        return repoOpControl.replaceIssueAssigneeOnServer(issue, newAssigneeLoginName);
+        return repoOpControl.replaceIssueAssigneeOnServer(issue, newAssigneeLoginName, revert);
     }
 
     /**
-     * Handles the result of updating an issue's labels on server. Current implementation includes
-     * reverting back to the original labels locally if the server update failed.
+     * Handles the result of updating an issue's labels on server. The local edit is reverted by the
+     * server operation itself if the update failed (see {@link #revertLocalEdit}).
      *
      * @param isUpdateSuccessful
      * @param locallyModifiedIssue
-     * @param originalLabels
      * @return true if the server update is successful
      */
     private boolean handleIssueLabelsUpdateResult(boolean isUpdateSuccessful,
-                                                  Optional<TurboIssue> locallyModifiedIssue,
-                                                  List<String> originalLabels) {
+                                                  Optional<TurboIssue> locallyModifiedIssue) {
         if (!locallyModifiedIssue.isPresent()) {
             logger.error("Unable to replace issue labels locally");
             return false;
@@ -384,21 +431,19 @@ public class Logic {
             return true;
         }
         logger.error("Unable to update model on server");
-        revertLocalLabelsReplace(locallyModifiedIssue.get(), originalLabels);
         return false;
     }
 
     /**
      * Handles the result of updating an issue's milestone on server.
-     * Locally reverts back to the original milestone if the server update fails.
+     * The local edit is reverted by the server operation itself if the update failed.
      *
      * @param isUpdateSuccessful
      * @param originalIssue
      * @return true if the server update is successful
      */
     private boolean handleIssueMilestoneUpdateOnServerResult(boolean isUpdateSuccessful,
-                                                             Optional<TurboIssue> originalIssue,
-                                                             Optional<Integer> oldMilestone) {
+                                                             Optional<TurboIssue> originalIssue) {
         if (!originalIssue.isPresent()) {
             logger.error("Unable to replace issue milestone locally");
             return false;
@@ -406,13 +451,12 @@ public class Logic {
         if (isUpdateSuccessful) return true;
 
         logger.error("Unable to update model on server");
-        revertLocalMilestoneReplace(originalIssue.get(), oldMilestone);
         return false;
     }
 
     /**
-     * Handles the result of updating an issue's assignee on server. Current implementation includes
-     * reverting back to the original assignee locally if the server update failed.
+     * Handles the result of updating an issue's assignee on server.
+     * The local edit is reverted by the server operation itself if the update failed.
      * @param isUpdateSuccessful
      * @param originalIssue
      * @return true if the server update is successful
@@ -428,10 +472,35 @@ public class Logic {
         }
 
         logger.error("Unable to update model on server");
-        revertLocalAssigneeReplace(originalIssue.get());
         return false;
     }
 
+    /**
+     * Reverts the local edits of an issue whose update on the server failed. Each field in {@code original}
+     * is reverted only if it was last modified by the edit that produced {@code localEditFuture}, i.e. it has
+     * not been edited again since. Coalesced edits are reverted once, through the latest of them, to the
+     * values before the earliest (see {@link backend.control.operations.EditIssueOnServerOp}).
+     *
+     * @param localEditFuture the result of the latest local edit of the issue
+     * @param original        the values of the edited fields before the edits
+     */
+    private void revertLocalEdit(CompletableFuture<Optional<TurboIssue>> localEditFuture, IssueEdit original) {
+        localEditFuture.thenAccept(locallyModifiedIssue -> locallyModifiedIssue.ifPresent(modifiedIssue -> {
+            if (original.hasLabels()) {
+                revertLocalLabelsReplace(modifiedIssue, original.getLabels());
+            }
+            if (original.hasMilestone()) {
+                revertLocalMilestoneReplace(modifiedIssue, original.getMilestone());
+            }
+            if (original.hasAssignee()) {
+                revertLocalAssigneeReplace(modifiedIssue, original.getAssignee());
+            }
+            if (original.hasState()) {
+                revertLocalStateEdit(modifiedIssue, original.isOpen());
+            }
+        }));
+    }
+
     /**
      * Replaces labels of the issue in the {@link Logic#models} corresponding to {@code modifiedIssue} with
      * {@code originalLabels} if the current labels on the issue is assigned at the same time as {@code modifiedIssue}
@@ -454,13 +523,14 @@ public class Logic {
 
     /**
      * Replaces assignee of the issue in the {@link Logic#models} corresponding to {@code modifiedIssue} with
-     * {@code originalAssigneeLoginName} if the current assignee on the issue is assigned at
+     * {@code originalAssignee} if the current assignee on the issue is assigned at
      * the same time as {@code modifiedIssue}
-     * @param originalIssue
+     * @param modifiedIssue
+     * @param originalAssignee
      */
-    private void revertLocalAssigneeReplace(TurboIssue originalIssue) {
-        TurboIssue currentIssue = getIssue(originalIssue.getRepoId(), originalIssue.getId()).orElse(originalIssue);
-        LocalDateTime originalAssigneeModifiedAt = originalIssue.getAssigneeLastModifiedAt();
+    private void revertLocalAssigneeReplace(TurboIssue modifiedIssue, Optional<String> originalAssignee) {
+        TurboIssue currentIssue = getIssue(modifiedIssue.getRepoId(), modifiedIssue.getId()).orElse(modifiedIssue);
+        LocalDateTime originalAssigneeModifiedAt = modifiedIssue.getAssigneeLastModifiedAt();
         LocalDateTime currentAssigneeAssignedAt = currentIssue.getAssigneeLastModifiedAt();
         boolean isCurrentAssigneeModifiedFromOriginalAssignee = originalAssigneeModifiedAt.isEqual(
                 currentAssigneeAssignedAt);
@@ -470,19 +540,20 @@ public class Logic {
         }
 
         logger.info("Reverting assignee for issue " + currentIssue);
-        models.replaceIssueAssignee(currentIssue.getRepoId(), currentIssue.getId(), originalIssue.getAssignee());
+        models.replaceIssueAssignee(currentIssue.getRepoId(), currentIssue.getId(), originalAssignee);
         refreshUI();
     }
 
     /**
-     * Replaces the milestone of the issue in the {@link Logic#models} corresponding to {@code originalIssue}
-     * with originalIssue's milestone if both issues have the same last modified LocalDateTime
+     * Replaces the milestone of the issue in the {@link Logic#models} corresponding to {@code modifiedIssue}
+     * with {@code oldMilestone} if both issues have the same last modified LocalDateTime
      *
-     * @param originalIssue
+     * @param modifiedIssue
+     * @param oldMilestone
      */
-    private void revertLocalMilestoneReplace(TurboIssue originalIssue, Optional<Integer> oldMilestone) {
-        TurboIssue currentIssue = getIssue(originalIssue.getRepoId(), originalIssue.getId()).orElse(originalIssue);
-        LocalDateTime originalMilestoneModifiedAt = originalIssue.getMilestoneLastModifiedAt();
+    private void revertLocalMilestoneReplace(TurboIssue modifiedIssue, Optional<Integer> oldMilestone) {
+        TurboIssue currentIssue = getIssue(modifiedIssue.getRepoId(), modifiedIssue.getId()).orElse(modifiedIssue);
+        LocalDateTime originalMilestoneModifiedAt = modifiedIssue.getMilestoneLastModifiedAt();
         LocalDateTime currentMilestoneAssignedAt = currentIssue.getMilestoneLastModifiedAt();
         boolean isCurrentMilestoneModifiedFromOriginalMilestone = originalMilestoneModifiedAt
                 .isEqual(currentMilestoneAssignedAt);
@@ -495,16 +566,15 @@ public class Logic {
     }
 
     /**
-     * Reverting back to the original state locally if the server update failed.
+     * Handles the result of updating an issue's state on server.
+     * The local edit is reverted by the server operation itself if the update failed.
      *
      * @param isUpdateSuccessful
      * @param locallyModifiedIssue
-     * @param isOpenOriginally
      * @return
      */
     private boolean handleIssueStateUpdateResult(boolean isUpdateSuccessful,
-                                                 Optional<TurboIssue> locallyModifiedIssue,
-                                                 boolean isOpenOriginally) {
+                                                 Optional<TurboIssue> locallyModifiedIssue) {
         if (!locallyModifiedIssue.isPresent()) {
             logger.error("Unable to edit issue state locally");
             return false;
@@ -515,7 +585,6 @@ public class Logic {
         }
 
         logger.error("Unable to update model on server");
-        revertLocalStateEdit(locallyModifiedIssue.get(), isOpenOriginally);
         return false;
     }
 
@@ -552,7 +621,6 @@ public class Logic {
      */
     public CompletableFuture<Boolean> editIssueState(TurboIssue issue, boolean isOpen) {
         CompletableFuture<Boolean> result = new CompletableFuture<>();
-        boolean isOpenOriginally = issue.isOpen();
 
         String action = isOpen ? "Reopening" : "Closing";
         logger.info(String.format("%s %s on GitHub", action, issue));
@@ -561,13 +629,12 @@ public class Logic {
                 repoOpControl.editIssueStateLocally(issue, isOpen);
         localStateEditFuture.thenRun(this::refreshUI);
 
-        repoOpControl.editIssueStateOnServer(issue, isOpen)
+        repoOpControl.editIssueStateOnServer(issue, isOpen, original -> revertLocalEdit(localStateEditFuture, original))
                 .exceptionally((e) -> {
                     result.completeExceptionally(e);
                     return false;
                 })
-                .thenCombine(localStateEditFuture, (isUpdateSuccessful, locallyModifiedIssue) ->
-                    handleIssueStateUpdateResult(isUpdateSuccessful, locallyModifiedIssue, isOpenOriginally))
+                .thenCombine(localStateEditFuture, this::handleIssueStateUpdateResult)
                 .thenAccept(result::complete);
 
         return result;
@@ -610,20 +677,57 @@ public class Logic {
      * @return True if metadata retrieval was a success, false otherwise.
      */
     public CompletableFuture<Boolean> getIssueMetadata(String repoId, List<TurboIssue> issues) {
+        return getIssueMetadata(repoId, issues, () -> {});
+    }
+
+    /**
+     * Retrieves metadata for given issues like {@link #getIssueMetadata(String, List)}, inserting it
+     * in batches as it arrives so that the issues can be shown with their metadata before all of it
+     * has been retrieved.
+     *
+     * @param onBatchInserted Called after each batch of metadata is inserted.
+     */
+    public CompletableFuture<Boolean> getIssueMetadata(String repoId, List<TurboIssue> issues,
+                                                       Runnable onBatchInserted) {
         String message = "Getting metadata for " + repoId + "...";
         logger.info("Getting metadata for issues " + issues);
         UI.status.displayMessage(message);
 
-        return repoIO.getIssueMetadata(repoId, issues).thenApply(this::processUpdates)
-                .thenApply(metadata -> insertMetadata(metadata, repoId, prefs.getLastLoginUsername()))
-                .exceptionally(withResult(false));
+        String currentUser = prefs.getLastLoginUsername();
+        return repoIO.loadStoredMetadata(repoId)
+                .thenCompose(stored -> {
+                    // Stored metadata is shown right away, and revalidated by the download,
+                    // which needs the issues with the stored ETags to do so
+                    List<TurboIssue> toRetrieve = issues;
+                    if (!stored.isEmpty()) {
+                        toRetrieve = withStoredMetadata(issues,
+                                                        models.insertStoredMetadata(repoId, stored, currentUser));
+                        onBatchInserted.run();
+                    }
+                    return repoIO.getIssueMetadata(repoId, toRetrieve, batch -> {
+                        insertMetadata(processUpdates(batch), repoId, currentUser);
+                        onBatchInserted.run();
+                    });
+                }).thenApply(metadata -> {
+                    UI.status.displayMessage("Received metadata from " + repoId + "!");
+                    models.getModelById(repoId).ifPresent(repoIO::saveMetadata);
+                    return true;
+                }).exceptionally(withResult(false));
+    }
+
+    /**
+     * Replaces issues in {@code issues} by those in {@code updatedIssues} with the same ids.
+     */
+    private static List<TurboIssue> withStoredMetadata(List<TurboIssue> issues, List<TurboIssue> updatedIssues) {
+        Map<Integer, TurboIssue> updatedById = updatedIssues.stream()
+                .collect(Collectors.toMap(TurboIssue::getId, issue -> issue));
+        return issues.stream()
+                .map(issue -> updatedById.getOrDefault(issue.getId(), issue))
+                .collect(Collectors.toList());
     }
 
-    private boolean insertMetadata(Map<Integer, IssueMetadata> metadata, String repoId, String currentUser) {
-        String updatedMessage = "Received metadata from " + repoId + "!";
-        UI.status.displayMessage(updatedMessage);
+    private void insertMetadata(Map<Integer, IssueMetadata> metadata, String repoId, String currentUser) {
         models.insertMetadata(repoId, metadata, currentUser);
-        return true;
     }
 
     // Adds update times to the metadata map
@@ -0,0 +1,252 @@
+package backend;
+
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Refreshes each open repository at its own interval, in place of refreshing all of them at a fixed period.
+ * <p>
+ * The base interval of a repository halves whenever a refresh finds that it changed (i.e. its UpdateSignature
+ * has new ETags) and grows by half whenever it did not, within bounds, so that busy repositories are
+ * refreshed more often than dormant ones. The interval is then stretched for repositories which no panel
+ * refers to, while the application is idle, and when refreshing at the current rate would use up more than
+ * a share of the API requests remaining until the rate limit resets.
+ */
+public class RefreshScheduler {
+
+    private static final Logger logger = HTLog.get(RefreshScheduler.class);
+
+    // Intervals are in seconds
+    public static final int DEFAULT_INTERVAL = 60;
+    private static final int MIN_INTERVAL = 20;
+    private static final int MAX_INTERVAL = 15 * 60;
+    private static final int MAX_STRETCHED_INTERVAL = 60 * 60;
+
+    private static final double SPEEDUP_ON_CHANGE = 0.5;
+    private static final double SLOWDOWN_ON_NO_CHANGE = 1.5;
+    private static final int UNUSED_REPO_FACTOR = 4;
+    private static final int IDLE_FACTOR = 3;
+
+    // The requests made by refreshing a repository: issues, labels, milestones and collaborators
+    private static final int REQUESTS_PER_REFRESH = 4;
+    // The share of the remaining requests which refreshes may use, leaving the rest for other operations
+    private static final double REFRESH_BUDGET_SHARE = 0.5;
+
+    private static final int TICK_PERIOD = 1;
+
+    private final Supplier<Collection<String>> openRepos;
+    private final Function<Collection<String>, CompletableFuture<Map<String, Boolean>>> refresher;
+    private final Consumer<Integer> onTick;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    // Mutable state -- all access to these fields must be synchronized!
+    // Schedules of open repositories, by lowercased repoId
+    private final Map<String, RepoSchedule> schedules = new HashMap<>();
+    // Lowercased ids of the repositories referred to by panels, as last set by the UI
+    private Set<String> usedRepos = new HashSet<>();
+    private boolean isIdle = false;
+    private int remainingRequests = -1;
+    private long rateLimitResetTime = 0;
+
+    private static class RepoSchedule {
+        private double baseInterval = DEFAULT_INTERVAL;
+        private long nextRefreshTime;
+        private boolean isRefreshing = false;
+
+        private RepoSchedule(long nextRefreshTime) {
+            this.nextRefreshTime = nextRefreshTime;
+        }
+    }
+
+    /**
+     * @param openRepos supplies the ids of the repositories to be refreshed
+     * @param refresher refreshes the given repositories, completing with whether each of them changed
+     * @param onTick    called every second with the number of seconds until the next refresh
+     */
+    public RefreshScheduler(Supplier<Collection<String>> openRepos,
+                            Function<Collection<String>, CompletableFuture<Map<String, Boolean>>> refresher,
+                            Consumer<Integer> onTick) {
+        this.openRepos = openRepos;
+        this.refresher = refresher;
+        this.onTick = onTick;
+    }
+
+    public void start() {
+        executor.scheduleWithFixedDelay(() -> {
+            // An exception would cancel all further ticks
+            try {
+                tick();
+            } catch (RuntimeException e) {
+                logger.error(e.getLocalizedMessage(), e);
+            }
+        }, TICK_PERIOD, TICK_PERIOD, TimeUnit.SECONDS);
+        logger.info("Started refresh scheduler");
+    }
+
+    public void stop() {
+        executor.shutdown();
+        logger.info("Stopped refresh scheduler");
+    }
+
+    /**
+     * Refreshes all open repositories now, rescheduling them from when the refresh completes.
+     */
+    public void refreshNow() {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            updateSchedules(now);
+            schedules.values().forEach(schedule -> schedule.nextRefreshTime = now);
+        }
+        tick();
+    }
+
+    public synchronized void setIdle(boolean isIdle) {
+        this.isIdle = isIdle;
+    }
+
+    /**
+     * @param remainingRequests  the number of API requests remaining
+     * @param rateLimitResetTime the time the rate limit resets at, in epoch milliseconds
+     */
+    public synchronized void updateRateLimits(int remainingRequests, long rateLimitResetTime) {
+        this.remainingRequests = remainingRequests;
+        this.rateLimitResetTime = rateLimitResetTime;
+    }
+
+    /**
+     * Refreshes the repositories which are due. Called every second once the scheduler is started.
+     */
+    public void tick() {
+        long now = System.currentTimeMillis();
+        List<String> dueRepos;
+        int secondsToNextRefresh;
+        synchronized (this) {
+            updateSchedules(now);
+            dueRepos = schedules.entrySet().stream()
+                    .filter(entry -> !entry.getValue().isRefreshing && entry.getValue().nextRefreshTime <= now)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            dueRepos.forEach(repoId -> schedules.get(repoId).isRefreshing = true);
+            secondsToNextRefresh = (int) Math.max(0, schedules.values().stream()
+                    .filter(schedule -> !schedule.isRefreshing)
+                    .mapToLong(schedule -> (schedule.nextRefreshTime - now) / 1000)
+                    .min()
+                    .orElse(DEFAULT_INTERVAL));
+        }
+
+        onTick.accept(secondsToNextRefresh);
+        if (dueRepos.isEmpty()) {
+            return;
+        }
+
+        logger.info("Refreshing " + dueRepos);
+        CompletableFuture<Map<String, Boolean>> refresh;
+        try {
+            refresh = refresher.apply(dueRepos);
+        } catch (RuntimeException e) {
+            dueRepos.forEach(repoId -> recordRefresh(repoId, false));
+            throw e;
+        }
+        refresh.whenComplete((changes, e) -> {
+            if (e != null) {
+                logger.error(e.getLocalizedMessage(), e);
+            }
+            Set<String> changedRepos = changes == null ? new HashSet<>() : toLowerCase(
+                    changes.entrySet().stream()
+                            .filter(Map.Entry::getValue)
+                            .map(Map.Entry::getKey)
+                            .collect(Collectors.toList()));
+            dueRepos.forEach(repoId -> recordRefresh(repoId, changedRepos.contains(repoId)));
+        });
+    }
+
+    /**
+     * Adapts the interval of a repository to the result of refreshing it, and schedules its next refresh.
+     *
+     * @param repoId
+     * @param hasChanged whether the refresh found changes to the repository
+     */
+    public synchronized void recordRefresh(String repoId, boolean hasChanged) {
+        updateSchedules(System.currentTimeMillis());
+        RepoSchedule schedule = schedules.get(repoId.toLowerCase());
+        if (schedule == null) {
+            return;
+        }
+        double factor = hasChanged ? SPEEDUP_ON_CHANGE : SLOWDOWN_ON_NO_CHANGE;
+        schedule.baseInterval = Math.min(MAX_INTERVAL, Math.max(MIN_INTERVAL, schedule.baseInterval * factor));
+        schedule.isRefreshing = false;
+        schedule.nextRefreshTime = System.currentTimeMillis() + getRefreshInterval(repoId) * 1000;
+    }
+
+    /**
+     * Sets the repositories referred to by panels, which are refreshed more often than the other open
+     * repositories. Called by the UI whenever panels change, as panels may only be read on the UI thread.
+     *
+     * @param repoIds
+     */
+    public synchronized void setUsedRepos(Collection<String> repoIds) {
+        usedRepos = toLowerCase(repoIds);
+    }
+
+    /**
+     * @return the number of seconds between refreshes of an open repository under the current conditions
+     */
+    public synchronized long getRefreshInterval(String repoId) {
+        long now = System.currentTimeMillis();
+        updateSchedules(now);
+        Map<String, Double> intervals = new HashMap<>();
+        schedules.forEach((id, schedule) ->
+                intervals.put(id, schedule.baseInterval * (usedRepos.contains(id) ? 1 : UNUSED_REPO_FACTOR)
+                        * (isIdle ? IDLE_FACTOR : 1)));
+        Double interval = intervals.get(repoId.toLowerCase());
+        if (interval == null) {
+            return DEFAULT_INTERVAL;
+        }
+
+        if (remainingRequests < 0) {
+            return Math.round(interval);
+        }
+        long secondsToReset = Math.max(1, (rateLimitResetTime - now) / 1000);
+        if (remainingRequests == 0) {
+            return Math.max(Math.round(interval), secondsToReset);
+        }
+        double requestsNeeded = intervals.values().stream()
+                .mapToDouble(i -> secondsToReset / i * REQUESTS_PER_REFRESH)
+                .sum();
+        double budget = remainingRequests * REFRESH_BUDGET_SHARE;
+        double stretch = Math.max(1, requestsNeeded / budget);
+        return Math.min(Math.max(MAX_STRETCHED_INTERVAL, Math.round(interval)), Math.round(interval * stretch));
+    }
+
+    /**
+     * Adds schedules for newly opened repositories, due one interval from now, and removes those of
+     * repositories which are no longer open.
+     */
+    private void updateSchedules(long now) {
+        Set<String> open = toLowerCase(openRepos.get());
+        schedules.keySet().retainAll(open);
+        open.stream()
+                .filter(repoId -> !schedules.containsKey(repoId))
+                .forEach(repoId -> schedules.put(repoId, new RepoSchedule(now + DEFAULT_INTERVAL * 1000)));
+    }
+
+    private static Set<String> toLowerCase(Collection<String> repoIds) {
+        return repoIds.stream().map(String::toLowerCase).collect(Collectors.toSet());
+    }
+}
@@ -7,9 +7,12 @@ import backend.interfaces.RepoSource;
 import backend.interfaces.RepoStore;
 import backend.json.JSONStore;
 import backend.resource.Model;
+import backend.resource.MultiModel;
 import backend.resource.TurboIssue;
 import backend.resource.TurboMilestone;
 import backend.resource.serialization.SerializableModel;
+import backend.resource.serialization.SerializableModelDelta;
+import backend.resource.serialization.SerializableRepoMetadata;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.egit.github.core.Issue;
@@ -19,11 +22,17 @@ import util.events.ShowErrorDialogEvent;
 import util.events.UpdateProgressEvent;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static util.Futures.withResult;
 
@@ -32,11 +41,17 @@ public class RepoIO {
     private static final Logger logger = HTLog.get(RepoIO.class);
 
     private final RepoSource repoSource;
-    private final JSONStore jsonStore;
+    private final RepoStore repoStore;
     private RepoOpControl repoOpControl;
 
     private final List<String> storedRepos;
 
+    // Repos whose stored copy is known to match the local model, so that changes can be journaled
+    private final Set<String> journaledRepos = Collections.synchronizedSet(new HashSet<>());
+
+    // Repos whose stored issue metadata has been requested from the store in this session
+    private final Set<String> metadataLoadedRepos = Collections.synchronizedSet(new HashSet<>());
+
     private static final int MAX_REDOWNLOAD_TRIES = 2;
 
     /**
@@ -44,15 +59,15 @@ public class RepoIO {
      * parameters for repos source and storage which are useful for testing purposes.
      *
      * @param repoSource     optional source of repos. Default to GitHubSource if not present
-     * @param jsonStore      optional storage for repos. Default to a new JSONStore if not present
+     * @param repoStore      optional storage for repos. Default to a new JSONStore if not present
      * @param storeDirectory optional directory for storing repos. Default value is in RepoStore.
      */
-    public RepoIO(Optional<RepoSource> repoSource, Optional<JSONStore> jsonStore,
+    public RepoIO(Optional<RepoSource> repoSource, Optional<RepoStore> repoStore,
                   Optional<String> storeDirectory) {
         this.repoSource = repoSource.orElseGet(() -> new GitHubSource());
         storeDirectory.ifPresent((dir) -> RepoStore.changeDirectory(dir));
-        this.jsonStore = jsonStore.orElseGet(() -> new JSONStore());
-        storedRepos = new ArrayList<>(this.jsonStore.getStoredRepos());
+        this.repoStore = repoStore.orElseGet(() -> new JSONStore());
+        storedRepos = new ArrayList<>(this.repoStore.getStoredRepos());
     }
 
     /**
@@ -90,17 +105,14 @@ public class RepoIO {
                                                                                 repoName.equalsIgnoreCase(repoId))
                 .findFirst();
         if (matchingRepoName.isPresent()) {
-            // TODO avoid CI deadlock in the .exceptionally call. Explanation:
-            /* loadRepoFromStoreAsync will execute in jsonStore's single thread pool, and if
-             it has an exception then downloadRepoFromSourceBlocking will also run there. Eventually,
-             this results in jsonStore.saveRepository in updateModel being placed as another Task on the
-             same thread pool. However, since the current task is still carrying out and waiting for the second
-             task to complete, the program gets deadlocked on the CI.
-             One example of how this can happen is when storedRepos contains the repo name but the json was
-             deleted while the program is still running. */
+            // The download fallback must not run on (and block) the store task which failed to load,
+            // as it saves the downloaded repository through the same store
             String repoToLoad = matchingRepoName.get();
             return loadRepoFromStoreAsync(repoToLoad)
-                    .exceptionally(e -> downloadRepoFromSourceBlocking(repoToLoad));
+                    .handleAsync((model, e) -> e == null
+                            ? CompletableFuture.completedFuture(model)
+                            : downloadRepoFromSourceAsync(repoToLoad))
+                    .thenCompose(Function.identity());
         } else {
             return downloadRepoFromSourceAsync(repoId);
         }
@@ -108,12 +120,17 @@ public class RepoIO {
 
     public CompletableFuture<Boolean> removeRepository(String repoId) {
         storedRepos.remove(repoId);
-        return jsonStore.removeStoredRepo(repoId);
+        journaledRepos.remove(repoId);
+        return repoStore.removeStoredRepo(repoId);
     }
 
     private CompletableFuture<Model> loadRepoFromStoreAsync(String repoId) {
-        return jsonStore.loadRepository(repoId)
-                .thenCompose((model) -> this.updateModel(model, false));
+        // Continued off the store's thread, as updateModel waits for the store to save the model
+        return repoStore.loadRepository(repoId)
+                .thenComposeAsync(model -> {
+                    journaledRepos.add(model.getRepoId());
+                    return this.updateModel(model, false);
+                });
     }
 
     private CompletableFuture<Model> downloadRepoFromSourceAsync(String repoID) {
@@ -131,17 +148,6 @@ public class RepoIO {
                 .exceptionally(withResult(new Model(repoId)));
     }
 
-    private Model downloadRepoFromSourceBlocking(String repoId) {
-        try {
-            return downloadRepoFromSourceAsync(repoId).get();
-        } catch (ExecutionException | InterruptedException e) {
-            logger.info("Error while downloading " + repoId);
-            logger.error(e.getLocalizedMessage());
-
-            return new Model(repoId);
-        }
-    }
-
     /**
      * Downloads updates for issues, pull requests, labels, milestones and users from server for a model.
      * Note that the result contains only new or modified data for the model and doesn't include existing data.
@@ -172,13 +178,7 @@ public class RepoIO {
                 .thenApply(newModel -> {
                     boolean corruptedJson = false;
                     if (!model.equals(newModel)) {
-                        try {
-                            corruptedJson =
-                                    jsonStore.saveRepository(newModel.getRepoId(), new SerializableModel(newModel))
-                                            .get();
-                        } catch (InterruptedException | ExecutionException ex) {
-                            corruptedJson = true;
-                        }
+                        corruptedJson = saveModel(model, newModel);
                     } else {
                         logger.info(HTLog.format(model.getRepoId(),
                                                  "Nothing changed; not writing to store"));
@@ -202,10 +202,87 @@ public class RepoIO {
                 }).exceptionally(withResult(new Model(model.getRepoId())));
     }
 
+    /**
+     * Stores an updated model, journaling only the changes from {@code oldModel} if the stored
+     * copy of the repository is known to match it.
+     *
+     * @return true on failure to store the model
+     */
+    private boolean saveModel(Model oldModel, Model newModel) {
+        String repoId = newModel.getRepoId();
+        boolean isJournaled = journaledRepos.contains(repoId);
+        boolean corrupted;
+        try {
+            corrupted = isJournaled
+                    ? repoStore.saveRepositoryChanges(repoId, SerializableModelDelta.between(oldModel, newModel),
+                                                      newModel).get()
+                    : repoStore.saveRepository(repoId, new SerializableModel(newModel)).get();
+        } catch (InterruptedException | ExecutionException ex) {
+            corrupted = true;
+        }
+        if (corrupted) {
+            journaledRepos.remove(repoId);
+        } else {
+            journaledRepos.add(repoId);
+        }
+        return corrupted;
+    }
+
+    /**
+     * Journals a local edit of an issue, so that it survives a restart before the next update
+     * is stored. Edits to repos which are not journaled are left to the next update.
+     *
+     * @param models the models holding the edited issue
+     * @param issue  the issue after the edit
+     */
+    public void saveIssueChange(MultiModel models, TurboIssue issue) {
+        String repoId = issue.getRepoId();
+        if (!journaledRepos.contains(repoId)) {
+            return;
+        }
+        models.getModelById(repoId).ifPresent(model ->
+            repoStore.saveRepositoryChanges(repoId, SerializableModelDelta.ofIssue(issue), model)
+                .thenAccept(failed -> {
+                    if (failed) {
+                        journaledRepos.remove(repoId);
+                    }
+                }));
+    }
+
+    /**
+     * Loads the issue metadata stored for a repository the first time it is requested. Metadata is
+     * only loaded when it is needed, as most panels do not use it.
+     *
+     * @return intermediate metadata by issue id, which is empty if it has been loaded before
+     */
+    public CompletableFuture<Map<Integer, IssueMetadata>> loadStoredMetadata(String repoId) {
+        if (!metadataLoadedRepos.add(repoId.toLowerCase())) {
+            return CompletableFuture.completedFuture(new HashMap<>());
+        }
+        return repoStore.loadMetadata(repoId).exceptionally(e -> {
+            logger.error(HTLog.format(repoId, "Unable to load stored metadata"), e);
+            return new HashMap<>();
+        });
+    }
+
+    /**
+     * Stores the metadata of the issues of a repository, replacing the metadata stored before.
+     *
+     * @return true on failure to store the metadata
+     */
+    public CompletableFuture<Boolean> saveMetadata(Model model) {
+        return repoStore.saveMetadata(model.getRepoId(), new SerializableRepoMetadata(model));
+    }
+
     public CompletableFuture<Map<Integer, IssueMetadata>> getIssueMetadata(String repoId, List<TurboIssue> issues) {
         return repoSource.downloadMetadata(repoId, issues);
     }
 
+    public CompletableFuture<Map<Integer, IssueMetadata>> getIssueMetadata(
+            String repoId, List<TurboIssue> issues, Consumer<Map<Integer, IssueMetadata>> onBatchDownloaded) {
+        return repoSource.downloadMetadata(repoId, issues, onBatchDownloaded);
+    }
+
     public CompletableFuture<Boolean> replaceIssueLabels(TurboIssue issue, List<String> labels) {
         return repoSource.replaceIssueLabels(issue, labels);
     }
@@ -222,6 +299,17 @@ public class RepoIO {
         return repoSource.editIssueState(issue, isOpen);
     }
 
+    public CompletableFuture<Boolean> editIssue(TurboIssue issue, IssueEdit edit) {
+        return repoSource.editIssue(issue, edit);
+    }
+
+    /**
+     * Lets the source schedule downloads for repositories which no panel refers to after the others.
+     */
+    public void setUsedRepos(Set<String> usedRepos) {
+        repoSource.setUsedRepos(usedRepos);
+    }
+
     public CompletableFuture<ImmutablePair<Integer, Long>> getRateLimitResetTime() {
         return repoSource.getRateLimitResetTime();
     }
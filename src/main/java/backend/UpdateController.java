@@ -1,15 +1,21 @@
 package backend;
 
+import backend.interfaces.IModel;
+import backend.resource.IssueChanges;
 import backend.resource.Model;
 import backend.resource.MultiModel;
+import backend.resource.MultiModelSnapshot;
 import backend.resource.TurboIssue;
 import filter.FilterException;
+import filter.expression.CompiledFilter;
 import filter.expression.FilterExpression;
+import filter.expression.IssueSortOrder;
 import filter.expression.Qualifier;
 import javafx.application.Platform;
 import org.apache.logging.log4j.Logger;
 import filter.expression.QualifierType;
 import ui.GuiElement;
+import ui.TestController;
 import ui.UI;
 import ui.issuepanel.FilterPanel;
 import util.Futures;
@@ -19,7 +25,11 @@ import util.events.FilterWarningEvent;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Manages the flow of logic during a data retrieval cycle from the repository source.
@@ -30,10 +40,50 @@ import java.util.stream.Collectors;
 public class UpdateController {
     private static final Logger logger = HTLog.get(UpdateController.class);
 
+    // Upper bound on the number of panels filtered concurrently
+    private static final int MAX_FILTER_THREADS = 4;
+
+    // Upper bound on the number of filter expressions whose results are kept for incremental refreshes
+    private static final int MAX_CACHED_RESULTS = 32;
+
     private final Logic logic;
 
+    // Empty when filters are processed on the calling thread
+    private final Optional<ForkJoinPool> filterPool;
+
+    // The last result of each filter expression, least recently used first
+    private final Map<FilterExpression, FilterResult> cachedResults =
+            Collections.synchronizedMap(new LinkedHashMap<FilterExpression, FilterResult>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<FilterExpression, FilterResult> eldest) {
+                    return size() > MAX_CACHED_RESULTS;
+                }
+            });
+
     public UpdateController(Logic logic) {
+        this(logic, TestController.isTestMode()
+                ? 1
+                : Math.min(MAX_FILTER_THREADS, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @param logic
+     * @param filterThreads the number of panels to filter concurrently. If this is 1 or less,
+     *                      all panels are filtered one after another on the calling thread.
+     */
+    public UpdateController(Logic logic, int filterThreads) {
         this.logic = logic;
+        this.filterPool = filterThreads > 1
+                ? Optional.of(new ForkJoinPool(filterThreads))
+                : Optional.empty();
+    }
+
+    /**
+     * Stops the filter pool, if there is one, when the application quits. Filters processed after this
+     * are processed on the calling thread.
+     */
+    public void shutdown() {
+        filterPool.ifPresent(ForkJoinPool::shutdown);
     }
 
     /**
@@ -64,10 +114,12 @@ public class UpdateController {
                         return;
                     }
 
-                    // If there are issues requiring metadata update, we dispatch the metadata requests...
+                    // If there are issues requiring metadata update, we dispatch the metadata requests,
+                    // refreshing the panels as each batch of metadata arrives...
                     ArrayList<CompletableFuture<Boolean>> metadataRetrievalTasks = new ArrayList<>();
                     toUpdate.forEach((repoId, issues) ->
-                            metadataRetrievalTasks.add(logic.getIssueMetadata(repoId, issues)));
+                            metadataRetrievalTasks.add(logic.getIssueMetadata(
+                                    repoId, issues, () -> logic.updateUI(processFilters(filterExprs)))));
                     // ...and then wait for all of them to complete.
                     Futures.sequence(metadataRetrievalTasks)
                             .thenAccept(results -> logger.info("Metadata retrieval successful for "
@@ -106,23 +158,32 @@ public class UpdateController {
      * @return Repo IDs and the corresponding issues in the repo requiring a metadata update.
      */
     private Map<String, List<TurboIssue>> tallyMetadataUpdate(List<FilterExpression> filterExprs) {
-        MultiModel models = logic.getModels();
-        List<TurboIssue> allModelIssues = models.getIssues();
+        MultiModelSnapshot snapshot = logic.getModels().getSnapshot();
+        List<TurboIssue> allModelIssues = snapshot.getIssues();
 
         return filterExprs.stream()
                 .filter(Qualifier::hasUpdatedQualifier)
-                .flatMap(filterExpr -> allModelIssues.stream()
-                        .filter(issue -> {
-                            try {
-                                return Qualifier.process(models, filterExpr,
-                                                         issue);
-                            } catch (FilterException e) {
-                                Platform.runLater(() -> UI.events.triggerEvent(
-                                        new FilterExceptionEvent(filterExpr, e
-                                                .getMessage())));
-                                return false;
-                            }
-                        }))
+                .flatMap(filterExpr -> {
+                    CompiledFilter compiledFilter;
+                    try {
+                        compiledFilter = CompiledFilter.compile(snapshot, filterExpr);
+                    } catch (FilterException e) {
+                        Platform.runLater(() -> UI.events.triggerEvent(
+                                new FilterExceptionEvent(filterExpr, e.getMessage())));
+                        return Stream.empty();
+                    }
+                    return allModelIssues.stream()
+                            .filter(issue -> {
+                                try {
+                                    return compiledFilter.test(issue);
+                                } catch (FilterException e) {
+                                    Platform.runLater(() -> UI.events.triggerEvent(
+                                            new FilterExceptionEvent(filterExpr, e
+                                                    .getMessage())));
+                                    return false;
+                                }
+                            });
+                })
                 .distinct()
                 .collect(Collectors.groupingBy(TurboIssue::getRepoId));
     }
@@ -130,62 +191,244 @@ public class UpdateController {
     /**
      * Filters, sorts and counts issues within the model according to the given filter expressions
      * In here, "processed" is equivalent to "filtered, sorted and counted".
+     * <p>
+     * Distinct filter expressions are processed concurrently on the filter pool, if there is one and it
+     * has not been shut down.
      *
      * @param filterExprs Filter expressions
      * @return Filter expressions and their corresponding issues after filtering, sorting and counting.
      */
-    private Map<FilterExpression, List<GuiElement>> processFilters(List<FilterExpression> filterExprs) {
+    public Map<FilterExpression, List<GuiElement>> processFilters(List<FilterExpression> filterExprs) {
         MultiModel models = logic.getModels();
-        List<TurboIssue> allModelIssues = models.getIssues();
+        MultiModelSnapshot snapshot = models.getSnapshot();
+        List<FilterExpression> distinctFilterExprs = filterExprs.stream()
+                .distinct()
+                .collect(Collectors.toList());
 
         Map<FilterExpression, List<GuiElement>> processed = new HashMap<>();
 
-        filterExprs.stream().distinct().forEach(filterExpr -> {
-            boolean hasUpdatedQualifier = Qualifier.hasUpdatedQualifier(filterExpr);
+        if (!filterPool.isPresent() || filterPool.get().isShutdown()) {
+            distinctFilterExprs.forEach(filterExpr ->
+                    processFilter(models, snapshot, filterExpr)
+                            .ifPresent(elements -> processed.put(filterExpr, elements)));
+            return processed;
+        }
 
-            try {
-                FilterExpression filterExprNoAlias = Qualifier.replaceMilestoneAliases(models, filterExpr);
+        List<Supplier<Optional<List<GuiElement>>>> results = distinctFilterExprs.stream()
+                .map(filterExpr -> submitFilter(models, snapshot, filterExpr))
+                .collect(Collectors.toList());
+        for (int i = 0; i < results.size(); i++) {
+            FilterExpression filterExpr = distinctFilterExprs.get(i);
+            results.get(i).get().ifPresent(elements -> processed.put(filterExpr, elements));
+        }
 
-                List<TurboIssue> processedIssues = allModelIssues.stream()
-                        .filter(issue -> Qualifier.process(models,
-                                                           filterExprNoAlias, issue))
-                        .sorted(determineComparator(filterExprNoAlias,
-                                                    hasUpdatedQualifier))
-                        .limit(Qualifier.determineCount(allModelIssues,
-                                                        filterExprNoAlias))
-                        .collect(Collectors.toList());
+        return processed;
+    }
 
-                List<GuiElement> processedElements = produceGuiElements(models, processedIssues);
+    /**
+     * Submits a filter expression to be processed on the filter pool. If the pool has been shut down
+     * in the meantime, the expression is processed on the calling thread instead, once its result is got.
+     *
+     * @return a supplier of the result of processing the filter expression
+     */
+    private Supplier<Optional<List<GuiElement>>> submitFilter(MultiModel models, MultiModelSnapshot snapshot,
+                                                              FilterExpression filterExpr) {
+        try {
+            return filterPool.get().submit(() -> processFilter(models, snapshot, filterExpr))::join;
+        } catch (RejectedExecutionException e) {
+            return () -> processFilter(models, snapshot, filterExpr);
+        }
+    }
+
+    /**
+     * Filters, sorts and counts issues according to a single filter expression, and reports warnings
+     * and errors in the expression through UI events.
+     * <p>
+     * If the expression was processed before and only some issues have changed since, only those issues
+     * are filtered again and inserted into the previous result. Otherwise all issues are filtered.
+     *
+     * @param models     The MultiModel the issues belong to.
+     * @param snapshot   The state of the MultiModel to process. All of the processing reads this state.
+     * @param filterExpr The filter expression to process.
+     * @return The processed issues, or empty if the filter expression is invalid.
+     */
+    private Optional<List<GuiElement>> processFilter(MultiModel models, MultiModelSnapshot snapshot,
+                                                     FilterExpression filterExpr) {
+        boolean hasUpdatedQualifier = Qualifier.hasUpdatedQualifier(filterExpr);
 
-                List<String> warnings = allModelIssues.stream()
-                        .map(issue -> filterExprNoAlias.getWarnings(models, issue))
-                        .flatMap(List::stream)
-                        .distinct()
-                        .collect(Collectors.toList());
+        try {
+            FilterExpression filterExprNoAlias = Qualifier.replaceMilestoneAliases(snapshot, filterExpr);
+            CompiledFilter compiledFilter = CompiledFilter.compile(snapshot, filterExprNoAlias);
+            IssueSortOrder comparator = determineComparator(snapshot, filterExprNoAlias, hasUpdatedQualifier);
+            int count = Qualifier.determineCount(snapshot.getIssues(), filterExprNoAlias);
 
-                if (!warnings.isEmpty()) {
-                    Platform.runLater(() -> UI.events.triggerEvent(new FilterWarningEvent(filterExpr, warnings)));
+            Optional<FilterResult> previousResult = Optional.ofNullable(cachedResults.get(filterExpr))
+                    .filter(result -> result.filterExprNoAlias.equals(filterExprNoAlias));
+            Optional<IssueChanges> changes = previousResult
+                    .filter(result -> isIncrementallyProcessable(filterExprNoAlias))
+                    .flatMap(result -> models.getChangesSince(result.version));
+
+            FilterResult result = changes.isPresent()
+                    ? updateResult(snapshot, previousResult.get(), changes.get(), compiledFilter, comparator, count)
+                    : computeResult(snapshot, filterExprNoAlias, compiledFilter, comparator, count);
+            cachedResults.put(filterExpr, result);
+
+            List<GuiElement> processedElements = produceGuiElements(snapshot, result.sortedIssues);
+
+            List<String> warnings = result.warnings;
+            if (!warnings.isEmpty()) {
+                Platform.runLater(() -> UI.events.triggerEvent(new FilterWarningEvent(filterExpr, warnings)));
+            }
+
+            return Optional.of(processedElements);
+        } catch (FilterException e) {
+            cachedResults.remove(filterExpr);
+            Platform.runLater(() -> UI.events.triggerEvent(new FilterExceptionEvent(filterExpr, e.getMessage())));
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Filters all issues in the snapshot, and finds the first {@code count} of them in sorted order.
+     * <p>
+     * If the models hold the sort order, each model is walked in that order until {@code count} matching
+     * issues are found. Otherwise the first issues are selected from all matching issues without sorting
+     * the rest. Long results are sorted on multiple threads if filters are processed concurrently.
+     */
+    private FilterResult computeResult(MultiModelSnapshot snapshot, FilterExpression filterExprNoAlias,
+                                       CompiledFilter compiledFilter, IssueSortOrder comparator, int count) {
+        List<TurboIssue> matchingIssues;
+        int matchCount;
+        if (comparator.isIndexed()) {
+            matchingIssues = new ArrayList<>();
+            matchCount = 0;
+            for (Model model : snapshot.getModels()) {
+                BitSet satisfying = compiledFilter.getSatisfyingPositions(model);
+                matchCount += satisfying.cardinality();
+                matchingIssues.addAll(comparator.selectFirst(model, satisfying, count));
+            }
+        } else {
+            matchingIssues = compiledFilter.filter(snapshot.getModels());
+            matchCount = matchingIssues.size();
+        }
+
+        // Warnings depend only on the repository of an issue, so one issue of each repository is checked
+        List<String> warnings = snapshot.getModels().stream()
+                .filter(model -> model.getIssueCount() > 0)
+                .map(model -> filterExprNoAlias.getWarnings(snapshot, model.getIssueAt(0)))
+                .flatMap(List::stream)
+                .distinct()
+                .collect(Collectors.toList());
+
+        List<TurboIssue> sortedIssues = comparator.selectFirst(matchingIssues, count, filterPool.isPresent());
+        return new FilterResult(snapshot.getVersion(), filterExprNoAlias, sortedIssues, warnings,
+                                matchCount > sortedIssues.size());
+    }
+
+    /**
+     * Updates a previous result of the same filter expression with the issues that changed since.
+     * Changed issues are removed from the previous result, then filtered again and inserted at their
+     * sorted positions. The remaining issues are replaced by their instances in the snapshot.
+     * <p>
+     * If the previous result was cut short by the count and any of its issues changed, issues left out of
+     * it may now belong in it, so the result is computed again from all issues instead.
+     * <p>
+     * The changes may extend past the version of the snapshot, if the MultiModel was changed after the
+     * snapshot was taken. Issues changed only after are then filtered again needlessly, but correctly.
+     */
+    private FilterResult updateResult(MultiModelSnapshot snapshot, FilterResult previousResult,
+                                      IssueChanges changes, CompiledFilter compiledFilter,
+                                      IssueSortOrder comparator, int count) {
+        if (changes.isEmpty() && previousResult.version == snapshot.getVersion()) {
+            return previousResult;
+        }
+
+        List<TurboIssue> sortedIssues = new ArrayList<>(previousResult.sortedIssues.size());
+        for (TurboIssue issue : previousResult.sortedIssues) {
+            if (!changes.isChanged(issue.getRepoId(), issue.getId())) {
+                snapshot.getIssue(issue.getRepoId(), issue.getId()).ifPresent(sortedIssues::add);
+            }
+        }
+        if (previousResult.isTruncated && sortedIssues.size() < previousResult.sortedIssues.size()) {
+            return computeResult(snapshot, previousResult.filterExprNoAlias, compiledFilter, comparator, count);
+        }
+
+        Set<String> warnings = new LinkedHashSet<>(previousResult.warnings);
+        for (String repoId : changes.getRepoIds()) {
+            Set<Integer> changedIds = new HashSet<>(changes.getAdded(repoId));
+            changedIds.addAll(changes.getModified(repoId));
+            for (int issueId : changedIds) {
+                Optional<TurboIssue> issue = snapshot.getIssue(repoId, issueId);
+                if (!issue.isPresent()) {
+                    continue;
                 }
+                warnings.addAll(previousResult.filterExprNoAlias.getWarnings(snapshot, issue.get()));
+                if (compiledFilter.test(issue.get())) {
+                    insertSorted(sortedIssues, issue.get(), comparator);
+                }
+            }
+        }
+
+        boolean isTruncated = previousResult.isTruncated || sortedIssues.size() > count;
+        if (sortedIssues.size() > count) {
+            sortedIssues.subList(Math.max(count, 0), sortedIssues.size()).clear();
+        }
+        return new FilterResult(snapshot.getVersion(), previousResult.filterExprNoAlias, sortedIssues,
+                                new ArrayList<>(warnings), isTruncated);
+    }
 
-                processed.put(filterExpr, processedElements);
-            } catch (FilterException e) {
-                Platform.runLater(() -> UI.events.triggerEvent(new FilterExceptionEvent(filterExpr, e.getMessage())));
+    /**
+     * Inserts an issue into a sorted list after all issues that compare equal to it.
+     */
+    private static void insertSorted(List<TurboIssue> sortedIssues, TurboIssue issue,
+                                     Comparator<TurboIssue> comparator) {
+        int low = 0;
+        int high = sortedIssues.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (comparator.compare(sortedIssues.get(mid), issue) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
             }
-        });
+        }
+        sortedIssues.add(low, issue);
+    }
 
-        return processed;
+    /**
+     * Determines if the result of a filter expression can be updated from the issues that changed.
+     * This is not the case for expressions whose result changes with the passage of time, or which
+     * depend on the read state of issues, which changes without going through the MultiModel.
+     */
+    private static boolean isIncrementallyProcessable(FilterExpression filterExpr) {
+        return filterExpr.find(UpdateController::isChangeableOutsideModel).isEmpty();
+    }
+
+    private static boolean isChangeableOutsideModel(Qualifier qualifier) {
+        switch (qualifier.getType()) {
+        case UPDATED:
+        case CREATED:
+            return true;
+        case IS:
+            return qualifier.getContent()
+                    .map(content -> Qualifier.expandKeywordAliases(content.toLowerCase()))
+                    .filter(content -> content.equals("read") || content.equals("unread"))
+                    .isPresent();
+        default:
+            return false;
+        }
     }
 
     /**
      * Produces a suitable comparator based on the given filter expression.
      *
+     * @param models              The state of the MultiModel to sort issues of.
      * @param filterExpr          The given filter expression.
      * @param hasUpdatedQualifier Determines the behaviour of the sort key "nonSelfUpdate".
      * @return The comparator to use.
      */
-    private Comparator<TurboIssue> determineComparator(FilterExpression filterExpr,
-                                                       boolean hasUpdatedQualifier) {
-        MultiModel models = logic.getModels();
+    private IssueSortOrder determineComparator(IModel models, FilterExpression filterExpr,
+                                               boolean hasUpdatedQualifier) {
         for (Qualifier metaQualifier : filterExpr.find(Qualifier::isMetaQualifier)) {
             // Only take into account the first sort qualifier found
             if (metaQualifier.getType() == QualifierType.SORT) {
@@ -206,11 +449,11 @@ public class UpdateController {
      * Constructs GuiElements (including all necessary references to labels/milestones/users to properly display
      * the issue) corresponding to a list of issues without changing the order.
      *
-     * @param models          The MultiModel from which necessary references are extracted.
+     * @param models          The state of the MultiModel from which necessary references are extracted.
      * @param processedIssues The list of issues to construct GUIElements for.
      * @return A list of GUIElements corresponding to the given list of issues.
      */
-    private List<GuiElement> produceGuiElements(MultiModel models, List<TurboIssue> processedIssues) {
+    private List<GuiElement> produceGuiElements(IModel models, List<TurboIssue> processedIssues) {
         return processedIssues.stream().map(issue -> {
             Optional<Model> modelOfIssue = models.getModelById(issue.getRepoId());
             assert modelOfIssue.isPresent();
@@ -223,4 +466,26 @@ public class UpdateController {
             );
         }).collect(Collectors.toList());
     }
+
+    /**
+     * The first issues in sorted order matching a filter expression at a version of the MultiModel,
+     * up to the count of the expression.
+     */
+    private static final class FilterResult {
+        private final long version;
+        private final FilterExpression filterExprNoAlias;
+        private final List<TurboIssue> sortedIssues;
+        private final List<String> warnings;
+        // Whether more issues matched than the count allowed
+        private final boolean isTruncated;
+
+        private FilterResult(long version, FilterExpression filterExprNoAlias,
+                             List<TurboIssue> sortedIssues, List<String> warnings, boolean isTruncated) {
+            this.version = version;
+            this.filterExprNoAlias = filterExprNoAlias;
+            this.sortedIssues = sortedIssues;
+            this.warnings = warnings;
+            this.isTruncated = isTruncated;
+        }
+    }
 }
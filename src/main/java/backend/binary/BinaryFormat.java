@@ -0,0 +1,370 @@
+package backend.binary;
+
+import backend.UpdateSignature;
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+import backend.resource.TurboLabel;
+import backend.resource.TurboMilestone;
+import backend.resource.TurboUser;
+import backend.resource.serialization.SerializableIssue;
+import backend.resource.serialization.SerializableLabel;
+import backend.resource.serialization.SerializableMilestone;
+import backend.resource.serialization.SerializableModel;
+import backend.resource.serialization.SerializableUser;
+import util.exceptions.BinaryLoadException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import static util.Utility.replaceNull;
+
+/**
+ * Reads and writes repository data in a compact binary format.
+ * <p>
+ * A file consists of a header (magic number, format version and repo id), the update signature,
+ * the issues, labels, milestones and users of the repository, and a CRC32 checksum of everything
+ * before it. Strings are stored as a byte length followed by UTF-8 bytes, with a length of -1 for null.
+ * Files are read whole into a heap buffer rather than mapped, as a mapped file cannot be replaced or deleted
+ * on Windows until the mapping is garbage collected.
+ */
+final class BinaryFormat {
+
+    private static final int MAGIC = 0x48544253; // "HTBS"
+    static final int VERSION = 1;
+
+    private static final int CHECKSUM_SIZE = Long.BYTES;
+
+    private BinaryFormat() {}
+
+    @SuppressWarnings("unused")
+    private void ______READING______() {}
+
+    /**
+     * Reads a repository from a file.
+     *
+     * @param file the file to read from
+     * @return a new Model containing the data in the file
+     * @throws BinaryLoadException when the file cannot be read, is of a different version, or is corrupted
+     */
+    static Model read(Path file) throws BinaryLoadException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("File is too large");
+            }
+            ByteBuffer buffer = readFully(channel, (int) size);
+            verifyChecksum(buffer);
+            String repoId = readHeader(buffer);
+            return readModel(repoId, buffer);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            throw new BinaryLoadException(e);
+        }
+    }
+
+    /**
+     * Reads only the repo id of a repository from a file, without reading or verifying the rest of it.
+     *
+     * @param file the file to read from
+     * @return the repo id of the repository in the file
+     * @throws BinaryLoadException when the file cannot be read or is of a different version
+     */
+    static String readRepoId(Path file) throws BinaryLoadException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The magic number, format version and length of the repo id come first
+            int prefixSize = 3 * Integer.BYTES;
+            ByteBuffer prefix = readFully(channel, prefixSize);
+            if (prefix.limit() < prefixSize) {
+                throw new IllegalArgumentException("File is too short");
+            }
+            int length = prefix.getInt(2 * Integer.BYTES);
+            if (length > channel.size() - prefixSize) {
+                throw new IllegalArgumentException("String length exceeds file size");
+            }
+            channel.position(0);
+            return readHeader(readFully(channel, prefixSize + Math.max(length, 0)));
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            throw new BinaryLoadException(e);
+        }
+    }
+
+    /**
+     * Reads {@code size} bytes from the current position of a channel, or fewer if it ends first.
+     *
+     * @return a heap buffer holding the bytes read, ready to be read from
+     */
+    private static ByteBuffer readFully(FileChannel channel, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // Keep reading until the buffer is full or the channel ends
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void verifyChecksum(ByteBuffer buffer) {
+        if (buffer.limit() < CHECKSUM_SIZE) {
+            throw new IllegalArgumentException("File is too short");
+        }
+        int contentSize = buffer.limit() - CHECKSUM_SIZE;
+
+        ByteBuffer content = buffer.duplicate();
+        content.limit(contentSize);
+        CRC32 crc = new CRC32();
+        crc.update(content);
+
+        if (crc.getValue() != buffer.getLong(contentSize)) {
+            throw new IllegalArgumentException("Checksum mismatch");
+        }
+        buffer.limit(contentSize);
+    }
+
+    private static String readHeader(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a repository file");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported format version " + version);
+        }
+        return readString(buffer);
+    }
+
+    private static Model readModel(String repoId, ByteBuffer buffer) {
+        UpdateSignature updateSignature = new UpdateSignature(readString(buffer), readString(buffer),
+                                                              readString(buffer), readString(buffer),
+                                                              new Date(buffer.getLong()));
+
+        int issueCount = buffer.getInt();
+        List<TurboIssue> issues = new ArrayList<>(issueCount);
+        for (int i = 0; i < issueCount; i++) {
+            issues.add(readIssue(repoId, buffer));
+        }
+
+        int labelCount = buffer.getInt();
+        List<TurboLabel> labels = new ArrayList<>(labelCount);
+        for (int i = 0; i < labelCount; i++) {
+            String fullName = readString(buffer);
+            String colour = readString(buffer);
+            labels.add(new TurboLabel(repoId, colour, fullName));
+        }
+
+        int milestoneCount = buffer.getInt();
+        List<TurboMilestone> milestones = new ArrayList<>(milestoneCount);
+        for (int i = 0; i < milestoneCount; i++) {
+            milestones.add(readMilestone(repoId, buffer));
+        }
+
+        int userCount = buffer.getInt();
+        List<TurboUser> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            users.add(new TurboUser(repoId, readString(buffer), readString(buffer), readString(buffer)));
+        }
+
+        return new Model(repoId, issues, labels, milestones, users, updateSignature);
+    }
+
+    private static TurboIssue readIssue(String repoId, ByteBuffer buffer) {
+        int id = buffer.getInt();
+        String title = readString(buffer);
+        String creator = readString(buffer);
+        LocalDateTime createdAt = readDateTime(buffer);
+        boolean isPullRequest = readBoolean(buffer);
+        String description = readString(buffer);
+        LocalDateTime updatedAt = readDateTime(buffer);
+        int commentCount = buffer.getInt();
+        boolean isOpen = readBoolean(buffer);
+        Optional<String> assignee = Optional.ofNullable(readString(buffer));
+
+        int labelCount = buffer.getInt();
+        List<String> labels = new ArrayList<>(labelCount);
+        for (int i = 0; i < labelCount; i++) {
+            labels.add(readString(buffer));
+        }
+
+        Optional<Integer> milestone = readBoolean(buffer) ? Optional.of(buffer.getInt()) : Optional.empty();
+
+        return new TurboIssue(repoId, id, title, creator, createdAt, isPullRequest, description,
+                              updatedAt, commentCount, isOpen, assignee, labels, milestone);
+    }
+
+    private static TurboMilestone readMilestone(String repoId, ByteBuffer buffer) {
+        TurboMilestone milestone = new TurboMilestone(repoId, buffer.getInt(), readString(buffer));
+        milestone.setDueDate(readBoolean(buffer)
+                                     ? Optional.of(LocalDate.ofEpochDay(buffer.getLong()))
+                                     : Optional.empty());
+        milestone.setDescription(readString(buffer));
+        milestone.setOpen(readBoolean(buffer));
+        milestone.setOpenIssues(buffer.getInt());
+        milestone.setClosedIssues(buffer.getInt());
+        return milestone;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        } else if (length > buffer.remaining()) {
+            throw new IllegalArgumentException("String length exceeds file size");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean readBoolean(ByteBuffer buffer) {
+        return buffer.get() != 0;
+    }
+
+    private static LocalDateTime readDateTime(ByteBuffer buffer) {
+        long epochSecond = buffer.getLong();
+        int nano = buffer.getInt();
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+
+    @SuppressWarnings("unused")
+    private void ______WRITING______() {}
+
+    /**
+     * Writes a repository to a stream.
+     *
+     * @param model the repository to write
+     * @param output the stream to write to
+     */
+    static void write(SerializableModel model, OutputStream output) throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(output);
+        CheckedOutputStream checked = new CheckedOutputStream(buffered, new CRC32());
+        DataOutputStream out = new DataOutputStream(checked);
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeString(out, model.repoId);
+
+        UpdateSignature updateSignature = replaceNull(model.updateSignature, UpdateSignature.EMPTY);
+        writeString(out, updateSignature.issuesETag);
+        writeString(out, updateSignature.labelsETag);
+        writeString(out, updateSignature.milestonesETag);
+        writeString(out, updateSignature.collaboratorsETag);
+        out.writeLong(updateSignature.lastCheckTime.getTime());
+
+        out.writeInt(model.issues.size());
+        for (SerializableIssue issue : model.issues) {
+            writeIssue(out, issue);
+        }
+
+        out.writeInt(model.labels.size());
+        for (SerializableLabel label : model.labels) {
+            writeString(out, label.getFullName());
+            writeString(out, label.getColour());
+        }
+
+        out.writeInt(model.milestones.size());
+        for (SerializableMilestone milestone : model.milestones) {
+            writeMilestone(out, milestone);
+        }
+
+        out.writeInt(model.users.size());
+        for (SerializableUser user : model.users) {
+            writeString(out, user.getLoginName());
+            writeString(out, user.getRealName());
+            writeString(out, user.getAvatarURL());
+        }
+
+        out.flush();
+        // The checksum itself is written past the checked stream
+        DataOutputStream checksumOut = new DataOutputStream(buffered);
+        checksumOut.writeLong(checked.getChecksum().getValue());
+        checksumOut.flush();
+    }
+
+    private static void writeIssue(DataOutputStream out, SerializableIssue issue) throws IOException {
+        out.writeInt(issue.getId());
+        writeString(out, issue.getTitle());
+        writeString(out, issue.getCreator());
+        writeDateTime(out, issue.getCreatedAt());
+        out.writeBoolean(issue.isPullRequest());
+        writeString(out, issue.getDescription());
+        writeDateTime(out, issue.getUpdatedAt() == null ? issue.getCreatedAt() : issue.getUpdatedAt());
+        out.writeInt(issue.getCommentCount());
+        out.writeBoolean(issue.isOpen());
+        writeString(out, replaceNull(issue.getAssignee(), Optional.<String>empty()).orElse(null));
+
+        List<String> labels = replaceNull(issue.getLabels(), new ArrayList<>());
+        out.writeInt(labels.size());
+        for (String label : labels) {
+            writeString(out, label);
+        }
+
+        Optional<Integer> milestone = replaceNull(issue.getMilestone(), Optional.empty());
+        out.writeBoolean(milestone.isPresent());
+        if (milestone.isPresent()) {
+            out.writeInt(milestone.get());
+        }
+    }
+
+    private static void writeMilestone(DataOutputStream out, SerializableMilestone milestone) throws IOException {
+        out.writeInt(milestone.getId());
+        writeString(out, milestone.getTitle());
+        Optional<LocalDate> dueDate = replaceNull(milestone.getDueDate(), Optional.empty());
+        out.writeBoolean(dueDate.isPresent());
+        if (dueDate.isPresent()) {
+            out.writeLong(dueDate.get().toEpochDay());
+        }
+        writeString(out, milestone.getDescription());
+        out.writeBoolean(milestone.isOpen());
+        out.writeInt(milestone.getOpenIssues());
+        out.writeInt(milestone.getClosedIssues());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime dateTime) throws IOException {
+        out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(dateTime.getNano());
+    }
+
+    /**
+     * Writes a repository to a file, replacing it only once the repository is fully written.
+     *
+     * @param model the repository to write
+     * @param file the file to write to
+     */
+    static void write(SerializableModel model, Path file) throws IOException {
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream output = Files.newOutputStream(temporaryFile)) {
+            write(model, output);
+        }
+        try {
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package backend.binary;
+
+import backend.interfaces.RepoJournal;
+import backend.interfaces.RepoStore;
+import backend.json.JSONModelReader;
+import backend.json.JSONStore;
+import backend.resource.Model;
+import backend.resource.serialization.SerializableModel;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+import util.exceptions.BinaryLoadException;
+import util.exceptions.JSONLoadException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static com.google.common.io.Files.getFileExtension;
+
+/**
+ * A RepoStore which keeps repositories in a compact binary format, see {@link BinaryFormat}.
+ * <p>
+ * Repositories stored as JSON are migrated the first time the stored repositories are listed, and
+ * their JSON files are then deleted, as they would go stale once the binary files are updated.
+ * A repository is loaded from its JSON file when its binary file cannot be loaded, if there is one.
+ */
+public class BinaryStore extends RepoStore {
+
+    private static final Logger logger = HTLog.get(BinaryStore.class);
+
+    static final String EXTENSION = "bin";
+
+    private final JSONStore fallbackStore;
+
+    public BinaryStore() {
+        this(new JSONStore());
+    }
+
+    public BinaryStore(JSONStore fallbackStore) {
+        this.fallbackStore = fallbackStore;
+    }
+
+    public BinaryStore(JSONStore fallbackStore, int ioThreads) {
+        super(ioThreads);
+        this.fallbackStore = fallbackStore;
+    }
+
+    @Override
+    public CompletableFuture<Model> loadRepository(String repoId) {
+        CompletableFuture<Model> response = new CompletableFuture<>();
+        addTask(new ReadTask(repoId, response));
+
+        CompletableFuture<Model> result = new CompletableFuture<>();
+        response.whenComplete((model, binaryError) -> {
+            if (binaryError == null) {
+                result.complete(model);
+                return;
+            }
+            logger.warn(HTLog.format(repoId, "Falling back to JSON store"));
+            discardBinary(repoId);
+            fallbackStore.loadRepository(repoId).whenComplete((jsonModel, jsonError) -> {
+                if (jsonError == null) {
+                    result.complete(jsonModel);
+                } else {
+                    result.completeExceptionally(jsonError);
+                }
+            });
+        });
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> saveRepository(String repoId, SerializableModel model) {
+        CompletableFuture<Boolean> response = new CompletableFuture<>();
+        addTask(new WriteTask(repoId, model, response));
+        return response;
+    }
+
+    @Override
+    public List<String> getStoredRepos() {
+        ensureDirectoryExists();
+        migrateJsonRepos();
+        try {
+            return Files.walk(Paths.get(RepoStore.directory), 1)
+                    .filter(Files::isRegularFile)
+                    .filter(p -> getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase(EXTENSION))
+                    .map(BinaryStore::getRepositoryIdFromBinary)
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            logger.error("Unable to open stored repository directory. ");
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> removeStoredRepo(String repoId) {
+        CompletableFuture<Boolean> response = new CompletableFuture<>();
+        addTask(new DeleteTask(repoId, response));
+        return response;
+    }
+
+    @Override
+    protected String getSnapshotExtension() {
+        return EXTENSION;
+    }
+
+    @Override
+    protected boolean hasSnapshot(String repoId) {
+        return Files.exists(getRepoPath(repoId));
+    }
+
+    @Override
+    protected boolean writeSnapshot(String repoId, SerializableModel model) {
+        return WriteTask.save(repoId, model);
+    }
+
+    /**
+     * Deletes an unreadable binary file along with its journal, so that changes are not journaled
+     * against it until the repository is written again.
+     */
+    private static void discardBinary(String repoId) {
+        try {
+            Files.deleteIfExists(getRepoPath(repoId));
+        } catch (IOException e) {
+            logger.error(e.getLocalizedMessage(), e);
+        }
+        RepoJournal.delete(RepoJournal.getPath(repoId, EXTENSION));
+    }
+
+    static Path getRepoPath(String repoId) {
+        return Paths.get(RepoStore.directory, escapeRepoName(repoId, EXTENSION)).toAbsolutePath();
+    }
+
+    static Path getJsonRepoPath(String repoId) {
+        return Paths.get(RepoStore.directory, escapeRepoName(repoId)).toAbsolutePath();
+    }
+
+    /**
+     * Migrates every repository stored as JSON to the binary format.
+     */
+    private static void migrateJsonRepos() {
+        try {
+            Files.walk(Paths.get(RepoStore.directory), 1)
+                    .filter(Files::isRegularFile)
+                    .filter(p -> getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase("json"))
+                    .forEach(BinaryStore::migrateJsonRepo);
+        } catch (IOException e) {
+            logger.error("Unable to open stored repository directory. ");
+        }
+    }
+
+    private static boolean hasReadableBinary(String repoId) {
+        Path binaryFile = getRepoPath(repoId);
+        if (!Files.exists(binaryFile)) {
+            return false;
+        }
+        try {
+            BinaryFormat.readRepoId(binaryFile);
+            return true;
+        } catch (BinaryLoadException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes a repository stored as JSON in the binary format, unless it already has a readable
+     * binary file, then deletes the JSON file and its journal.
+     */
+    private static void migrateJsonRepo(Path jsonFile) {
+        try {
+            String repoId = JSONModelReader.readRepoId(jsonFile);
+            if (!String.valueOf(jsonFile.getFileName()).equalsIgnoreCase(escapeRepoName(repoId))) {
+                return;
+            }
+            if (!hasReadableBinary(repoId)) {
+                Model model = JSONModelReader.read(jsonFile);
+                Model replayed = RepoJournal.replay(RepoJournal.getPath(repoId, "json"), model);
+                BinaryFormat.write(new SerializableModel(replayed), getRepoPath(repoId));
+                logger.info(HTLog.format(repoId, "Migrated from JSON store"));
+            }
+            Files.delete(jsonFile);
+            RepoJournal.delete(RepoJournal.getPath(repoId, "json"));
+        } catch (JSONLoadException | IOException e) {
+            logger.error("Unable to migrate repository from " + jsonFile.getFileName());
+        }
+    }
+
+    private static Optional<String> getRepositoryIdFromBinary(Path p) {
+        try {
+            String repoId = BinaryFormat.readRepoId(p);
+            if (String.valueOf(p.getFileName()).equalsIgnoreCase(escapeRepoName(repoId, EXTENSION))) {
+                logger.info("Adding " + p.getFileName() + " to stored repository list. ");
+                return Optional.of(repoId);
+            }
+        } catch (BinaryLoadException e) {
+            logger.error("Unable to load repository from " + p.getFileName());
+        }
+        return Optional.empty();
+    }
+}
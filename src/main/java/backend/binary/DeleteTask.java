@@ -0,0 +1,42 @@
+package backend.binary;
+
+import backend.interfaces.RepoJournal;
+import backend.interfaces.RepoMetadataFile;
+import backend.interfaces.StoreTask;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Deletes both the binary file of a repository and the JSON file it may have been migrated from,
+ * along with their journals.
+ */
+class DeleteTask extends StoreTask {
+
+    private static final Logger logger = HTLog.get(DeleteTask.class);
+
+    public final CompletableFuture<Boolean> response;
+
+    protected DeleteTask(String repoId, CompletableFuture<Boolean> response) {
+        super(repoId);
+        this.response = response;
+    }
+
+    @Override
+    public void run() {
+        try {
+            RepoJournal.delete(RepoJournal.getPath(repoId, "json"));
+            RepoJournal.delete(RepoJournal.getPath(repoId, BinaryStore.EXTENSION));
+            RepoMetadataFile.delete(repoId);
+            Files.deleteIfExists(BinaryStore.getJsonRepoPath(repoId));
+            Files.delete(BinaryStore.getRepoPath(repoId));
+            response.complete(false);
+        } catch (IOException e) {
+            logger.error(e.getLocalizedMessage(), e);
+            response.complete(true);
+        }
+    }
+}
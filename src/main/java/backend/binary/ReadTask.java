@@ -0,0 +1,35 @@
+package backend.binary;
+
+import backend.interfaces.RepoJournal;
+import backend.interfaces.StoreTask;
+import backend.resource.Model;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+import util.exceptions.BinaryLoadException;
+
+import java.util.concurrent.CompletableFuture;
+
+class ReadTask extends StoreTask {
+
+    private static final Logger logger = HTLog.get(ReadTask.class);
+
+    public final CompletableFuture<Model> response;
+
+    public ReadTask(String repoId, CompletableFuture<Model> response) {
+        super(repoId);
+        this.response = response;
+    }
+
+    @Override
+    public void run() {
+        try {
+            Model model = RepoJournal.replay(RepoJournal.getPath(repoId, BinaryStore.EXTENSION),
+                                             BinaryFormat.read(BinaryStore.getRepoPath(repoId)));
+            logger.info(HTLog.format(repoId, "Data loaded from binary store"));
+            response.complete(model);
+        } catch (BinaryLoadException e) {
+            logger.error(HTLog.format(repoId, "Unable to load from binary store"));
+            response.completeExceptionally(e);
+        }
+    }
+}
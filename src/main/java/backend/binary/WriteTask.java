@@ -0,0 +1,57 @@
+package backend.binary;
+
+import backend.interfaces.RepoJournal;
+import backend.interfaces.StoreTask;
+import backend.resource.serialization.SerializableModel;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+class WriteTask extends StoreTask {
+
+    private static final Logger logger = HTLog.get(WriteTask.class);
+
+    public final SerializableModel toSave;
+    public final CompletableFuture<Boolean> response;
+
+    public WriteTask(String repoName, SerializableModel toSave, CompletableFuture<Boolean> response) {
+        super(repoName);
+        this.toSave = toSave;
+        this.response = response;
+    }
+
+    @Override
+    public void run() {
+        response.complete(save(repoId, toSave));
+    }
+
+    /**
+     * A pending write is made redundant by a later one, which completes both responses.
+     */
+    @Override
+    protected boolean supersede(StoreTask pending) {
+        if (!(pending instanceof WriteTask)) {
+            return false;
+        }
+        response.thenAccept(((WriteTask) pending).response::complete);
+        return true;
+    }
+
+    /**
+     * Writes a repository to the binary store, replacing its journal if successful.
+     * Returns true on failure to write, in line with the corruption flag of RepoStore.write
+     */
+    static boolean save(String repoId, SerializableModel model) {
+        try {
+            BinaryFormat.write(model, BinaryStore.getRepoPath(repoId));
+            RepoJournal.delete(RepoJournal.getPath(repoId, BinaryStore.EXTENSION));
+            logger.info(HTLog.format(repoId, "Written to binary store"));
+            return false;
+        } catch (IOException e) {
+            logger.error(HTLog.format(repoId, "Unable to write to binary store"), e);
+            return true;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package backend.control;
 
+import backend.IssueEdit;
 import backend.RepoIO;
 import backend.control.operations.*;
 import backend.github.GitHubModelUpdatesData;
@@ -9,16 +10,27 @@ import backend.resource.TurboIssue;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
 /**
  * A means of repo-level synchronisation for select RepoIO operations. Only one instance of this class
  * is available at any time availabel through {@code getRepoOpControl}. A new instance can be created with
  * {@code createRepoOpControl} and will replace any existing instance
+ * <p>
+ * Operations on the same repository are performed one after another, and operations on different
+ * repositories concurrently, on a small shared pool of threads. A thread is only used to start an
+ * operation and not while it is in progress, so repositories without pending operations hold no thread.
  */
 public final class RepoOpControl {
 
@@ -27,8 +39,40 @@ public final class RepoOpControl {
     private final RepoIO repoIO;
     private final MultiModel models;
 
-    private final ExecutorService pool = Executors.newCachedThreadPool();
-    private final Map<String, BlockingQueue<RepoOp>> queues = new HashMap<>();
+    // Operations only take a thread while they start, so few threads serve all repositories
+    private static final int POOL_SIZE = 4;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(POOL_SIZE);
+    private final CompletableFuture<Void> terminated = new CompletableFuture<>();
+
+    // Mutable state -- all access to these fields must be synchronized!
+    // Queues of repositories with an operation queued or in progress, by lowercased repoId
+    private final Map<String, RepoQueue> queues = new HashMap<>();
+    private final Map<String, RepoOpTimes> opTimes = new HashMap<>();
+    private boolean isShutdown = false;
+
+    private static class QueuedOp {
+        private final RepoOp<?> op;
+        private final long enqueueTime;
+
+        private QueuedOp(RepoOp<?> op, long enqueueTime) {
+            this.op = op;
+            this.enqueueTime = enqueueTime;
+        }
+    }
+
+    private static class RepoQueue {
+        private final Deque<QueuedOp> pending = new ArrayDeque<>();
+        // Whether an operation has been taken off the queue to be performed and not completed yet
+        private boolean isInProgress = false;
+    }
+
+    private static class RepoOpTimes {
+        private long completedOps = 0;
+        private long totalWaitTime = 0;
+        private long totalRunTime = 0;
+        private long maxRunTime = 0;
+    }
 
     public RepoOpControl(RepoIO repoIO, MultiModel models) {
         this.repoIO = repoIO;
@@ -36,7 +80,6 @@ public final class RepoOpControl {
     }
 
     public CompletableFuture<Model> openRepository(String repoId) {
-        init(repoId);
         CompletableFuture<Model> result = new CompletableFuture<>();
         enqueue(new OpenRepoOp(repoId, repoIO, result));
         return result;
@@ -44,7 +87,7 @@ public final class RepoOpControl {
 
     /**
      * Updates repository stored locally with data from a GitHubModelUpdatesData object.
-     * Set syncOperation to queue this operation in the blocking queue for the updating repository
+     * Set syncOperation to queue this operation behind the other operations on the updating repository
      *
      * @param updates
      * @param syncOperation
@@ -52,7 +95,6 @@ public final class RepoOpControl {
      */
     public CompletableFuture<Model> updateLocalModel(GitHubModelUpdatesData updates,
                                                      boolean syncOperation) {
-        init(updates.getRepoId());
         CompletableFuture<Model> result = new CompletableFuture<>();
         UpdateLocalModelOp op = new UpdateLocalModelOp(models, updates, result);
         if (syncOperation) {
@@ -64,115 +106,215 @@ public final class RepoOpControl {
     }
 
     public CompletableFuture<Boolean> removeRepository(String repoId) {
-        init(repoId);
         CompletableFuture<Boolean> result = new CompletableFuture<>();
         enqueue(new RemoveRepoOp(repoId, repoIO, result));
         return result;
     }
 
-    public CompletableFuture<Boolean> editIssueStateOnServer(TurboIssue issue, boolean isOpen) {
-        init(issue.getRepoId());
+    public CompletableFuture<Boolean> editIssueStateOnServer(TurboIssue issue, boolean isOpen,
+                                                             Consumer<IssueEdit> revert) {
         CompletableFuture<Boolean> result = new CompletableFuture<>();
-        enqueue(new EditIssueStateOnServerOp(repoIO, result, issue, isOpen));
+        enqueue(new EditIssueOnServerOp(repoIO, result, issue, IssueEdit.state(isOpen), revert));
         return result;
     }
 
     public CompletableFuture<Optional<TurboIssue>> editIssueStateLocally(TurboIssue issue, boolean isOpen) {
-        init(issue.getRepoId());
         CompletableFuture<Optional<TurboIssue>> result = new CompletableFuture<>();
         enqueue(new EditIssueStateLocallyOp(models, result, issue, isOpen));
-        return result;
+        return journalLocalEdit(result);
     }
 
-    public CompletableFuture<Boolean> replaceIssueLabelsOnServer(TurboIssue issue, List<String> labels) {
-        init(issue.getRepoId());
+    public CompletableFuture<Boolean> replaceIssueLabelsOnServer(TurboIssue issue, List<String> labels,
+                                                                 Consumer<IssueEdit> revert) {
         CompletableFuture<Boolean> result = new CompletableFuture<>();
-        enqueue(new ReplaceIssueLabelsOnServerOp(repoIO, result, issue, labels));
+        enqueue(new EditIssueOnServerOp(repoIO, result, issue, IssueEdit.labels(labels), revert));
         return result;
     }
 
     public CompletableFuture<Optional<TurboIssue>> replaceIssueLabelsLocally(TurboIssue issue, List<String> labels) {
-        init(issue.getRepoId());
         CompletableFuture<Optional<TurboIssue>> result = new CompletableFuture<>();
         enqueue(new ReplaceIssueLabelsLocallyOp(models, issue, labels, result));
-        return result;
+        return journalLocalEdit(result);
     }
 
-    public CompletableFuture<Boolean> replaceIssueMilestoneOnServer(TurboIssue issue, Optional<Integer> milestone) {
-        init(issue.getRepoId());
+    public CompletableFuture<Boolean> replaceIssueMilestoneOnServer(TurboIssue issue,
+                                                                    Optional<Integer> milestone,
+                                                                    Consumer<IssueEdit> revert) {
         CompletableFuture<Boolean> result = new CompletableFuture<>();
-        enqueue(new ReplaceIssueMilestoneOnServerOp(repoIO, result, issue, milestone));
+        enqueue(new EditIssueOnServerOp(repoIO, result, issue, IssueEdit.milestone(milestone), revert));
         return result;
     }
 
     public CompletableFuture<Optional<TurboIssue>> replaceIssueMilestoneLocally(TurboIssue issue,
                                                                                 Optional<Integer> milestone) {
-        init(issue.getRepoId());
         CompletableFuture<Optional<TurboIssue>> result = new CompletableFuture<>();
         enqueue(new ReplaceIssueMilestoneLocallyOp(models, result, issue, milestone));
-        return result;
+        return journalLocalEdit(result);
     }
 
     public CompletableFuture<Boolean> replaceIssueAssigneeOnServer(TurboIssue issue,
-                                                                   Optional<String> assigneeLoginName) {
-        init(issue.getRepoId());
+                                                                   Optional<String> assigneeLoginName,
+                                                                   Consumer<IssueEdit> revert) {
         CompletableFuture<Boolean> result = new CompletableFuture<>();
-        enqueue(new ReplaceIssueAssigneeOnServerOp(repoIO, result, issue, assigneeLoginName));
+        enqueue(new EditIssueOnServerOp(repoIO, result, issue, IssueEdit.assignee(assigneeLoginName), revert));
         return result;
     }
 
     public CompletableFuture<Optional<TurboIssue>> replaceIssueAssigneeLocally(TurboIssue issue,
                                                                                Optional<String> assigneeLoginName) {
-        init(issue.getRepoId());
         CompletableFuture<Optional<TurboIssue>> result = new CompletableFuture<>();
         enqueue(new ReplaceIssueAssigneeLocallyOp(models, issue, assigneeLoginName, result));
-        return result;
+        return journalLocalEdit(result);
+    }
+
+    /**
+     * Journals the result of a local edit in the store once the edit is done.
+     */
+    private CompletableFuture<Optional<TurboIssue>> journalLocalEdit(CompletableFuture<Optional<TurboIssue>> result) {
+        return result.thenApply(issue -> {
+            issue.ifPresent(editedIssue -> repoIO.saveIssueChange(models, editedIssue));
+            return issue;
+        });
     }
 
     /**
-     * Ensures that repo-specific state is initialised. Should be called
-     * at the start of each operation method.
+     * Stops accepting operations. Operations which are already queued are still performed.
+     *
+     * @return a future which completes once all queued operations have completed
      */
-    private void init(String repoId) {
-        boolean isNewRepo = !queues.containsKey(repoId);
-        if (isNewRepo) {
-            // We want an unbounded deque so enqueueing will never block
-            // and can flexibly add and remove operations.
-            queues.put(repoId, new LinkedBlockingDeque<>());
-            pool.execute(() -> dequeue(repoId));
+    public CompletableFuture<Void> shutdown() {
+        synchronized (this) {
+            isShutdown = true;
+            if (queues.isEmpty()) {
+                terminate();
+            }
         }
+        return terminated;
     }
 
     /**
-     * Enqueues an operation to be handled later. Operations on the same repo
-     * (and in the same queue) are guaranteed to be handled by the same thread.
+     * @param repoId
+     * @return the queue depth and latencies of the operations on a repository
      */
-    private void enqueue(RepoOp op) {
-        BlockingQueue<RepoOp> q = queues.get(op.repoId());
+    public synchronized RepoOpStats getStats(String repoId) {
+        String key = getKey(repoId);
+        RepoQueue queue = queues.get(key);
+        int queueDepth = queue == null ? 0 : queue.pending.size() + (queue.isInProgress ? 1 : 0);
+        RepoOpTimes times = opTimes.get(key);
+        if (times == null || times.completedOps == 0) {
+            return new RepoOpStats(queueDepth, 0, 0, 0, 0);
+        }
+        return new RepoOpStats(queueDepth, times.completedOps,
+                               times.totalWaitTime / times.completedOps, times.totalRunTime / times.completedOps,
+                               times.maxRunTime);
+    }
 
-        // TODO scan queue for patterns
+    /**
+     * Enqueues an operation to be handled later. Operations on the same repo are performed
+     * one at a time, each starting once the previous one has completed. An operation takes over
+     * a pending operation which it can coalesce with (see {@link RepoOp#coalesce}), and then
+     * takes its place at the back of the queue.
+     */
+    private void enqueue(RepoOp<?> op) {
+        String key = getKey(op.repoId());
 
-        try {
-            q.put(op);
-        } catch (InterruptedException e) {
-            logger.error(e.getLocalizedMessage(), e);
+        synchronized (this) {
+            if (isShutdown) {
+                logger.warn("Rejecting operation on " + op.repoId() + " after shutdown");
+                op.reject(new RejectedExecutionException("Repository operations have been shut down"));
+                return;
+            }
+            RepoQueue queue = queues.get(key);
+            if (queue == null) {
+                queue = new RepoQueue();
+                queues.put(key, queue);
+            }
+            long enqueueTime = System.currentTimeMillis();
+            Iterator<QueuedOp> pending = queue.pending.iterator();
+            while (pending.hasNext()) {
+                QueuedOp queuedOp = pending.next();
+                if (op.coalesce(queuedOp.op)) {
+                    pending.remove();
+                    // The coalesced operation has waited since the earliest operation it does the work of
+                    enqueueTime = Math.min(enqueueTime, queuedOp.enqueueTime);
+                }
+            }
+            queue.pending.addLast(new QueuedOp(op, enqueueTime));
+            if (!queue.isInProgress) {
+                performNext(key, queue);
+            }
         }
     }
 
     /**
-     * Dequeues an operation to handle it. This method may block in two scenarios:
-     * if the queue is empty (in which case take blocks) or when waiting for a task
-     * (in which case get blocks).
+     * Takes the next operation of a repository off its queue and submits it to the pool.
+     */
+    private synchronized void performNext(String key, RepoQueue queue) {
+        QueuedOp next = queue.pending.pollFirst();
+        queue.isInProgress = true;
+        pool.execute(() -> perform(key, next));
+    }
+
+    /**
+     * Performs an operation of a repository. No thread is held while the operation is
+     * in progress: the operation after it is submitted to the pool once it completes.
      */
-    private void dequeue(String repoId) {
-        BlockingQueue<RepoOp> q = queues.get(repoId);
+    private void perform(String key, QueuedOp next) {
+        long startTime = System.currentTimeMillis();
+        CompletableFuture<?> done;
+        try {
+            done = next.op.perform();
+        } catch (RuntimeException e) {
+            logger.error(e.getLocalizedMessage(), e);
+            done = null;
+        }
+        if (done == null) {
+            done = CompletableFuture.completedFuture(null);
+        }
 
-        while (true) {
-            try {
-                q.take().perform().get();
-            } catch (ExecutionException | InterruptedException e) {
+        done.whenComplete((result, e) -> {
+            if (e != null) {
                 logger.error(e.getLocalizedMessage(), e);
             }
+            onOpCompleted(key, next.enqueueTime, startTime);
+        });
+    }
+
+    private synchronized void onOpCompleted(String key, long enqueueTime, long startTime) {
+        RepoOpTimes times = opTimes.get(key);
+        if (times == null) {
+            times = new RepoOpTimes();
+            opTimes.put(key, times);
+        }
+        long runTime = System.currentTimeMillis() - startTime;
+        times.completedOps++;
+        times.totalWaitTime += startTime - enqueueTime;
+        times.totalRunTime += runTime;
+        times.maxRunTime = Math.max(times.maxRunTime, runTime);
+
+        RepoQueue queue = queues.get(key);
+        queue.isInProgress = false;
+        if (!queue.pending.isEmpty()) {
+            performNext(key, queue);
+            return;
+        }
+        // Idle repositories hold no state other than their times
+        queues.remove(key);
+        if (isShutdown && queues.isEmpty()) {
+            terminate();
         }
     }
+
+    private void terminate() {
+        pool.shutdown();
+        terminated.complete(null);
+        logger.info("Shut down repository operations");
+    }
+
+    /**
+     * Repository ids are case-insensitive.
+     */
+    private static String getKey(String repoId) {
+        return repoId.toLowerCase();
+    }
 }
@@ -0,0 +1,36 @@
+package backend.control;
+
+/**
+ * A snapshot of the operations RepoOpControl has handled for a repository.
+ * Times are in milliseconds.
+ */
+public final class RepoOpStats {
+
+    public final int queueDepth;
+    public final long completedOps;
+    public final long averageWaitTime;
+    public final long averageRunTime;
+    public final long maxRunTime;
+
+    /**
+     * @param queueDepth      the number of operations waiting, including the one running
+     * @param completedOps    the number of operations which have completed
+     * @param averageWaitTime the time operations waited in the queue before they were performed
+     * @param averageRunTime  the time from performing an operation until it completed
+     * @param maxRunTime
+     */
+    public RepoOpStats(int queueDepth, long completedOps, long averageWaitTime, long averageRunTime,
+                       long maxRunTime) {
+        this.queueDepth = queueDepth;
+        this.completedOps = completedOps;
+        this.averageWaitTime = averageWaitTime;
+        this.averageRunTime = averageRunTime;
+        this.maxRunTime = maxRunTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d queued, %d completed, average wait %d ms, average run %d ms, max run %d ms",
+                             queueDepth, completedOps, averageWaitTime, averageRunTime, maxRunTime);
+    }
+}
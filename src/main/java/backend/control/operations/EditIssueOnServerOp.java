@@ -0,0 +1,112 @@
+package backend.control.operations;
+
+import backend.IssueEdit;
+import backend.RepoIO;
+import backend.resource.TurboIssue;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * This class represents a repository operation that changes the labels, milestone, assignee or state
+ * of an issue on the server.
+ * <p>
+ * Pending edits of the same issue are coalesced into one operation, with later changes to a field
+ * replacing earlier ones, so that a burst of edits results in a single request. The results of all
+ * coalesced edits are completed with the outcome of that request.
+ * <p>
+ * If the request fails, the local edits are reverted once, through the revert action of the latest
+ * edit, to the values the fields had before the earliest coalesced edit. The values in between were
+ * never sent to the server.
+ */
+public class EditIssueOnServerOp implements RepoOp<Boolean> {
+
+    private static final Logger logger = HTLog.get(EditIssueOnServerOp.class);
+
+    private final RepoIO repoIO;
+    private final TurboIssue issue;
+    private IssueEdit edit;
+    // The values of the edited fields before the earliest coalesced edit
+    private IssueEdit original;
+    private final Consumer<IssueEdit> revert;
+    private final List<CompletableFuture<Boolean>> results = new ArrayList<>();
+
+    /**
+     * @param issue  the issue before the edit
+     * @param revert reverts the local edits of the issue to the given values if the request fails
+     */
+    public EditIssueOnServerOp(RepoIO repoIO, CompletableFuture<Boolean> result, TurboIssue issue, IssueEdit edit,
+                               Consumer<IssueEdit> revert) {
+        this.repoIO = repoIO;
+        this.issue = issue;
+        this.edit = edit;
+        this.original = edit.getOriginalValues(issue);
+        this.revert = revert;
+        results.add(result);
+    }
+
+    @Override
+    public String repoId() {
+        return issue.getRepoId();
+    }
+
+    @Override
+    public boolean coalesce(RepoOp<?> pending) {
+        if (!(pending instanceof EditIssueOnServerOp)) {
+            return false;
+        }
+        EditIssueOnServerOp pendingEdit = (EditIssueOnServerOp) pending;
+        if (pendingEdit.issue.getId() != issue.getId()) {
+            return false;
+        }
+        edit = pendingEdit.edit.then(edit);
+        original = original.then(pendingEdit.original);
+        results.addAll(0, pendingEdit.results);
+        logger.info(HTLog.format(repoId(), "Coalesced pending edits of issue #" + issue.getId()));
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> perform() {
+        logger.info("Editing " + issue + " on GitHub: " + edit);
+        return getRequest()
+                .thenApply(isSuccessful -> {
+                    if (!isSuccessful) {
+                        revert.accept(original);
+                    }
+                    results.forEach(result -> result.complete(isSuccessful));
+                    return isSuccessful;
+                })
+                .exceptionally(e -> {
+                    revert.accept(original);
+                    results.forEach(result -> result.completeExceptionally(e));
+                    return false;
+                });
+    }
+
+    @Override
+    public void reject(Throwable reason) {
+        results.forEach(result -> result.completeExceptionally(reason));
+    }
+
+    /**
+     * Edits of a single field use the request specific to that field, e.g. replacing all labels.
+     */
+    private CompletableFuture<Boolean> getRequest() {
+        if (edit.getChangeCount() > 1) {
+            return repoIO.editIssue(issue, edit);
+        } else if (edit.hasLabels()) {
+            return repoIO.replaceIssueLabels(issue, edit.getLabels());
+        } else if (edit.hasMilestone()) {
+            return repoIO.replaceIssueMilestone(issue, edit.getMilestone());
+        } else if (edit.hasAssignee()) {
+            return repoIO.replaceIssueAssignee(issue, edit.getAssignee());
+        } else {
+            return repoIO.editIssueState(issue, edit.isOpen());
+        }
+    }
+}
@@ -42,4 +42,9 @@ public class EditIssueStateLocallyOp implements RepoOp<Optional<TurboIssue>> {
         result.complete(localEditResult);
         return result;
     }
+
+    @Override
+    public void reject(Throwable reason) {
+        result.completeExceptionally(reason);
+    }
 }
@@ -29,4 +29,9 @@ public class OpenRepoOp implements RepoOp<Model> {
         return repoIO.openRepository(repoId)
                 .thenApply(chain(result));
     }
+
+    @Override
+    public void reject(Throwable reason) {
+        result.completeExceptionally(reason);
+    }
 }
@@ -28,4 +28,9 @@ public class RemoveRepoOp implements RepoOp<Boolean> {
         return repoIO.removeRepository(repoId)
                 .thenApply(chain(result));
     }
+
+    @Override
+    public void reject(Throwable reason) {
+        result.completeExceptionally(reason);
+    }
 }
@@ -42,4 +42,9 @@ public class ReplaceIssueAssigneeLocallyOp implements RepoOp<Optional<TurboIssue
         return result;
     }
 
+    @Override
+    public void reject(Throwable reason) {
+        result.completeExceptionally(reason);
+    }
+
 }
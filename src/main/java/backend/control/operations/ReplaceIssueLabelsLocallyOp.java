@@ -41,4 +41,9 @@ public class ReplaceIssueLabelsLocallyOp implements RepoOp<Optional<TurboIssue>>
         result.complete(localReplaceResult);
         return result;
     }
+
+    @Override
+    public void reject(Throwable reason) {
+        result.completeExceptionally(reason);
+    }
 }
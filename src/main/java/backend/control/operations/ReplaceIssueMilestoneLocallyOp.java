@@ -39,4 +39,9 @@ public class ReplaceIssueMilestoneLocallyOp implements RepoOp<Optional<TurboIssu
         result.complete(localReplaceResult);
         return result;
     }
+
+    @Override
+    public void reject(Throwable reason) {
+        result.completeExceptionally(reason);
+    }
 }
@@ -17,4 +17,20 @@ public interface RepoOp<T> {
      * The operation's implementation.
      */
     CompletableFuture<T> perform();
+
+    /**
+     * Called instead of {@link #perform} when the operation is not accepted, e.g. after shutdown.
+     * Completes the result of the operation exceptionally with {@code reason}.
+     */
+    void reject(Throwable reason);
+
+    /**
+     * Called when this operation is enqueued while {@code pending}, an operation on the same repository
+     * which has not started yet, is queued. An operation which can do the work of {@code pending} as well
+     * takes it over, including passing on its result, and returns true, in which case {@code pending}
+     * is dropped.
+     */
+    default boolean coalesce(RepoOp<?> pending) {
+        return false;
+    }
 }
@@ -4,9 +4,9 @@ import backend.UpdateSignature;
 import backend.github.GitHubModelUpdatesData;
 import backend.resource.*;
 import org.apache.logging.log4j.Logger;
-import org.eclipse.egit.github.core.PullRequest;
 import util.HTLog;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -18,6 +18,7 @@ import java.util.concurrent.CompletableFuture;
 public class UpdateLocalModelOp implements RepoOp<Model> {
     private final MultiModel models;
     private Model oldModel;
+    private TurboIssue.MergeResult mergedIssues;
     private final CompletableFuture<Model> result;
     private final GitHubModelUpdatesData updates;
 
@@ -49,19 +50,39 @@ public class UpdateLocalModelOp implements RepoOp<Model> {
 
         logger.info(HTLog.format(updatedModel.getRepoId(), "Updated model with " + updatedModel.summarise()));
         if (oldModelOptional.isPresent()) {
-            models.replace(updatedModel);
+            if (hasRepoMetadataUpdates()) {
+                models.replace(updatedModel);
+            } else {
+                models.replace(updatedModel, getIssueChanges());
+            }
         }
         result.complete(updatedModel);
         return result;
     }
 
+    @Override
+    public void reject(Throwable reason) {
+        result.completeExceptionally(reason);
+    }
+
     private List<TurboIssue> getUpdateIssues() {
-        List<TurboIssue> existing = oldModel.getIssues();
-        List<TurboIssue> updatedIssues = updates.getIssues().items;
-        List<PullRequest> updatesPullRequests = updates.getPullRequests();
+        mergedIssues = TurboIssue.merge(oldModel.getIssues(), updates.getIssues().items, updates.getPullRequests());
+        return mergedIssues.issues;
+    }
+
+    /**
+     * Label, milestone or user updates may change how any issue of the repository is filtered,
+     * so they cannot be described by the issues they affect.
+     */
+    private boolean hasRepoMetadataUpdates() {
+        return !updates.getLabels().items.isEmpty()
+                || !updates.getMilestones().items.isEmpty()
+                || !updates.getUsers().items.isEmpty();
+    }
 
-        List<TurboIssue> updated = updatedIssues.isEmpty() ? existing : TurboIssue.reconcile(existing, updatedIssues);
-        return TurboIssue.combineWithPullRequests(updated, updatesPullRequests);
+    private IssueChanges getIssueChanges() {
+        return IssueChanges.of(updates.getRepoId(), mergedIssues.added, mergedIssues.modified,
+                               Collections.emptySet());
     }
 
     private List<TurboLabel> getUpdatedLabels() {
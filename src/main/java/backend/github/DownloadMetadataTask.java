@@ -2,52 +2,94 @@ package backend.github;
 
 import backend.IssueMetadata;
 import backend.interfaces.Repo;
+import backend.interfaces.TaskPriority;
 import backend.interfaces.TaskRunner;
 import backend.resource.TurboIssue;
+import github.ReviewComment;
 import github.TurboIssueEvent;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.egit.github.core.Comment;
 import util.HTLog;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+/**
+ * Downloads the events and comments of issues. The requests for all issues are spread over
+ * a bounded pool, and the metadata of finished issues is passed on in batches while the rest
+ * are still downloading. Every issue is part of exactly one batch.
+ */
 public class DownloadMetadataTask extends GitHubRepoTask<Map<Integer, IssueMetadata>> {
 
     private static final Logger logger = HTLog.get(DownloadMetadataTask.class);
 
+    public static final int DEFAULT_CONCURRENCY = 8;
+
+    // The number of issues whose metadata is passed on together
+    private static final int BATCH_SIZE = 20;
+
+    // Below this many remaining requests, requests are made one at a time
+    private static final int RATE_LIMIT_RESERVE = 100;
+
     private final String repoId;
     private final List<TurboIssue> issuesToUpdate;
+    private final int concurrency;
+    private final Consumer<Map<Integer, IssueMetadata>> onBatchDownloaded;
+
+    private final Object throttle = new Object();
+    private final Map<Integer, IssueMetadata> result = new HashMap<>();
+    private Map<Integer, IssueMetadata> batch = new HashMap<>();
 
     public DownloadMetadataTask(TaskRunner taskRunner, Repo repo, String repoId,
                                 List<TurboIssue> issuesToUpdate) {
+        this(taskRunner, repo, repoId, issuesToUpdate, DEFAULT_CONCURRENCY, downloadedBatch -> {});
+    }
+
+    /**
+     * @param concurrency       the maximum number of requests made at the same time
+     * @param onBatchDownloaded called with the metadata of each batch of issues as it is downloaded
+     */
+    public DownloadMetadataTask(TaskRunner taskRunner, Repo repo, String repoId,
+                                List<TurboIssue> issuesToUpdate, int concurrency,
+                                Consumer<Map<Integer, IssueMetadata>> onBatchDownloaded) {
         super(taskRunner, repo);
         this.repoId = repoId;
         this.issuesToUpdate = issuesToUpdate;
+        this.concurrency = concurrency;
+        this.onBatchDownloaded = onBatchDownloaded;
     }
 
     @Override
-    public void run() {
-        Map<Integer, IssueMetadata> result = new HashMap<>();
-
-        issuesToUpdate.forEach(issue -> {
-            String currEventsETag = issue.getMetadata().getEventsETag();
-            String currCommentsETag = issue.getMetadata().getCommentsETag();
-            int id = issue.getId();
-
-            ImmutablePair<List<TurboIssueEvent>, String> changes = repo.getUpdatedEvents(repoId, id, currEventsETag);
-
-            List<TurboIssueEvent> events = changes.getLeft();
-            String updatedEventsETag = changes.getRight();
+    public TaskPriority getPriority(Predicate<String> isRepoUsed) {
+        return isRepoUsed.test(repoId) ? TaskPriority.BACKGROUND : TaskPriority.HIDDEN;
+    }
 
-            List<Comment> comments = repo.getAllComments(repoId, issue);
+    @Override
+    public void run() {
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
 
-            IssueMetadata metadata = IssueMetadata.intermediate(events, comments, updatedEventsETag, currCommentsETag);
-            result.put(id, metadata);
-        });
+        List<CompletableFuture<Void>> downloads = issuesToUpdate.stream()
+                .map(issue -> downloadMetadata(issue, pool)
+                        .thenAccept(metadata -> addToBatch(issue.getId(), metadata))
+                        .exceptionally(e -> {
+                            logger.error(HTLog.format(repoId, "Unable to download metadata for #" + issue.getId()),
+                                         e);
+                            return null;
+                        }))
+                .collect(Collectors.toList());
+        CompletableFuture.allOf(downloads.toArray(new CompletableFuture<?>[0])).join();
+        pool.shutdown();
+        passOnBatch();
 
         logger.info(HTLog.format(repoId, "Downloaded " + result.entrySet().stream()
                 .map(entry -> "(" + entry.getValue().summarise() + ") " +
@@ -56,4 +98,93 @@ public class DownloadMetadataTask extends GitHubRepoTask<Map<Integer, IssueMetad
 
         response.complete(result);
     }
+
+    /**
+     * Requests the events, comments and (for pull requests) review comments of an issue concurrently.
+     * Events and comments are requested conditionally on their current ETags, and kept as they are
+     * if unchanged, e.g. after being loaded from the store.
+     */
+    private CompletableFuture<IssueMetadata> downloadMetadata(TurboIssue issue, ExecutorService pool) {
+        IssueMetadata current = issue.getMetadata();
+        int id = issue.getId();
+
+        CompletableFuture<ImmutablePair<List<TurboIssueEvent>, String>> events = CompletableFuture.supplyAsync(
+                () -> throttled(() -> repo.getUpdatedEvents(repoId, id, current.getEventsETag())), pool)
+                .thenApply(changes -> isUnchanged(changes.getRight(), current.getEventsETag())
+                        ? new ImmutablePair<>(current.getEvents(), changes.getRight())
+                        : changes);
+        CompletableFuture<ImmutablePair<List<Comment>, String>> comments = CompletableFuture.supplyAsync(
+                () -> throttled(() -> repo.getUpdatedComments(repoId, id, current.getCommentsETag())), pool)
+                .thenApply(changes -> isUnchanged(changes.getRight(), current.getCommentsETag())
+                        ? new ImmutablePair<>(withoutReviewComments(current.getComments()), changes.getRight())
+                        : changes);
+        CompletableFuture<List<ReviewComment>> reviewComments = issue.isPullRequest()
+                ? CompletableFuture.supplyAsync(() -> throttled(() -> repo.getReviewComments(repoId, id)), pool)
+                : CompletableFuture.completedFuture(new ArrayList<>());
+
+        CompletableFuture<ImmutablePair<List<Comment>, String>> allComments =
+                comments.thenCombine(reviewComments, (c, r) -> {
+                    List<Comment> all = new ArrayList<>(c.getLeft());
+                    all.addAll(r);
+                    return new ImmutablePair<>(all, c.getRight());
+                });
+        return events.thenCombine(allComments, (e, c) ->
+                IssueMetadata.intermediate(e.getLeft(), c.getLeft(), e.getRight(), c.getRight()));
+    }
+
+    private static boolean isUnchanged(String eTag, String currentETag) {
+        return !currentETag.isEmpty() && currentETag.equals(eTag);
+    }
+
+    private static List<Comment> withoutReviewComments(List<Comment> comments) {
+        return comments.stream()
+                .filter(comment -> !(comment instanceof ReviewComment))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Makes a request, one at a time with other throttled requests if the rate limit is low.
+     */
+    private <T> T throttled(Supplier<T> request) {
+        if (repo.isRateLimitLow(RATE_LIMIT_RESERVE)) {
+            synchronized (throttle) {
+                return request.get();
+            }
+        }
+        return request.get();
+    }
+
+    private void addToBatch(int issueId, IssueMetadata metadata) {
+        Map<Integer, IssueMetadata> fullBatch = null;
+        synchronized (this) {
+            result.put(issueId, metadata);
+            batch.put(issueId, metadata);
+            if (batch.size() >= BATCH_SIZE) {
+                fullBatch = batch;
+                batch = new HashMap<>();
+            }
+        }
+        if (fullBatch != null) {
+            passOn(fullBatch);
+        }
+    }
+
+    private void passOnBatch() {
+        Map<Integer, IssueMetadata> lastBatch;
+        synchronized (this) {
+            lastBatch = batch;
+            batch = new HashMap<>();
+        }
+        if (!lastBatch.isEmpty()) {
+            passOn(lastBatch);
+        }
+    }
+
+    private void passOn(Map<Integer, IssueMetadata> downloadedBatch) {
+        try {
+            onBatchDownloaded.accept(downloadedBatch);
+        } catch (RuntimeException e) {
+            logger.error(HTLog.format(repoId, "Unable to process downloaded metadata"), e);
+        }
+    }
 }
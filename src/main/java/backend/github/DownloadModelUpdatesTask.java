@@ -1,6 +1,7 @@
 package backend.github;
 
 import backend.interfaces.Repo;
+import backend.interfaces.TaskPriority;
 import backend.interfaces.TaskRunner;
 import backend.resource.*;
 import org.apache.logging.log4j.Logger;
@@ -9,6 +10,7 @@ import util.HTLog;
 
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
 
 /**
  * This class represents an async task that downloads updates for a repository represented as a Model
@@ -24,6 +26,11 @@ public class DownloadModelUpdatesTask extends GitHubRepoTask<GitHubModelUpdatesD
         this.model = new Model(model);
     }
 
+    @Override
+    public TaskPriority getPriority(Predicate<String> isRepoUsed) {
+        return isRepoUsed.test(model.getRepoId()) ? TaskPriority.VISIBLE : TaskPriority.HIDDEN;
+    }
+
     @Override
     public void run() {
         DownloadIssuesUpdatesTask issuesTask = new DownloadIssuesUpdatesTask(taskRunner, repo, model);
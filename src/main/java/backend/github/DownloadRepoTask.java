@@ -2,12 +2,14 @@ package backend.github;
 
 import backend.UpdateSignature;
 import backend.interfaces.Repo;
+import backend.interfaces.TaskPriority;
 import backend.interfaces.TaskRunner;
 import backend.resource.*;
 import org.apache.logging.log4j.Logger;
 import util.HTLog;
 
 import java.util.List;
+import java.util.function.Predicate;
 
 public class DownloadRepoTask extends GitHubRepoTask<Model> {
 
@@ -20,6 +22,11 @@ public class DownloadRepoTask extends GitHubRepoTask<Model> {
         this.repoId = repoId;
     }
 
+    @Override
+    public TaskPriority getPriority(Predicate<String> isRepoUsed) {
+        return TaskPriority.VISIBLE;
+    }
+
     @Override
     public void run() {
         List<TurboIssue> issues = repo.getIssues(repoId);
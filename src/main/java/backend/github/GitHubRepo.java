@@ -1,6 +1,8 @@
 package backend.github;
 
+import backend.IssueEdit;
 import backend.UserCredentials;
+import backend.interfaces.RateLimitBudget;
 import backend.interfaces.Repo;
 import backend.resource.TurboIssue;
 import backend.resource.TurboLabel;
@@ -41,6 +43,19 @@ public class GitHubRepo implements Repo {
     private final LabelServiceEx labelService = new LabelServiceEx(client);
     private final MilestoneService milestoneService = new MilestoneService(client);
 
+    private final int pageDownloadParallelism;
+
+    public GitHubRepo() {
+        this(ParallelPageFetcher.DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * @param pageDownloadParallelism the maximum number of pages of issues downloaded at the same time
+     */
+    public GitHubRepo(int pageDownloadParallelism) {
+        this.pageDownloadParallelism = pageDownloadParallelism;
+    }
+
     @Override
     public boolean login(UserCredentials credentials) {
         client.setCredentials(credentials.username, credentials.password);
@@ -152,48 +167,32 @@ public class GitHubRepo implements Repo {
         Map<String, String> filters = new HashMap<>();
         filters.put(IssueService.FIELD_FILTER, "all");
         filters.put(IssueService.FILTER_STATE, "all");
-        return getAll(issueService.pageIssues(RepositoryId.createFromId(repoId), filters), repoId).stream()
+        PagedRequest<Issue> request = issueService.pageIssues(RepositoryId.createFromId(repoId), filters)
+                .getRequest();
+        return getAll(request, repoId).stream()
                 .map(i -> new TurboIssue(repoId, i))
                 .collect(Collectors.toList());
     }
 
-    private List<Issue> getAll(PageIterator<Issue> iterator, String repoId) {
-        List<Issue> elements = new ArrayList<>();
-
-        // Assume there is at least one page
-        int knownLastPage = 1;
-
+    private List<Issue> getAll(PagedRequest<Issue> request, String repoId) {
+        ParallelPageFetcher<Issue> fetcher = new ParallelPageFetcher<>(client, pageDownloadParallelism);
         try {
-            while (iterator.hasNext()) {
-                Collection<Issue> additions = iterator.next();
-                elements.addAll(additions);
-
-                // Compute progress
-
-                // iterator.getLastPage() only has a value after iterator.next() is called,
-                // so it's used directly in this loop. It returns the 1-based index of the last
-                // page, except when we are actually on the last page, in which case it returns -1.
-                // This portion deals with all these quirks.
-
-                knownLastPage = Math.max(knownLastPage, iterator.getLastPage());
-                int totalIssueCount = knownLastPage * PagedRequest.PAGE_SIZE;
+            List<Issue> elements = fetcher.getAll(request, (loadedCount, lastPage) -> {
+                int totalIssueCount = lastPage * request.getPageSize();
                 // Total is approximate: always >= the actual amount
-                assert totalIssueCount >= elements.size();
+                assert totalIssueCount >= loadedCount;
 
-                float progress = (float) elements.size() / (float) totalIssueCount;
+                float progress = (float) loadedCount / (float) totalIssueCount;
                 UI.events.triggerEvent(new UpdateProgressEvent(repoId, progress));
                 logger.info(HTLog.format(repoId, "Loaded %d issues (%.0f%% done)",
-                                         elements.size(), progress * 100));
-            }
+                                         loadedCount, progress * 100));
+            });
             UI.events.triggerEvent(new UpdateProgressEvent(repoId));
-        } catch (NoSuchPageException pageException) {
-            try {
-                throw pageException.getCause();
-            } catch (IOException e) {
-                HTLog.error(logger, e);
-            }
+            return elements;
+        } catch (IOException e) {
+            HTLog.error(logger, e);
+            return new ArrayList<>();
         }
-        return elements;
     }
 
     @Override
@@ -220,6 +219,17 @@ public class GitHubRepo implements Repo {
         }
     }
 
+    @Override
+    public ImmutablePair<List<Comment>, String> getUpdatedComments(String repoId, int issueId,
+                                                                   String currentETag) {
+        try {
+            return issueService.getUpdatedComments(RepositoryId.createFromId(repoId), issueId, currentETag);
+        } catch (IOException e) {
+            HTLog.error(logger, e);
+            return new ImmutablePair<>(new ArrayList<>(), currentETag);
+        }
+    }
+
     @Override
     public List<ReviewComment> getReviewComments(String repoId, int pullRequestId) {
         try {
@@ -301,6 +311,62 @@ public class GitHubRepo implements Repo {
         return updatedIssue.getState().equals(isOpen ? IssueService.STATE_OPEN : IssueService.STATE_CLOSED);
     }
 
+    /**
+     * Calls GitHub to make all changes to an issue in one request.
+     */
+    @Override
+    public boolean editIssue(String repoId, int issueId, String issueTitle, IssueEdit edit) throws IOException {
+        // github api requires at least id and title
+        Issue createdIssue = new Issue();
+        createdIssue.setNumber(issueId);
+        createdIssue.setTitle(issueTitle);
+
+        if (edit.hasLabels()) {
+            createdIssue.setLabels(edit.getLabels().stream()
+                                           .map(labelName -> new Label().setName(labelName))
+                                           .collect(Collectors.toList()));
+        }
+        if (edit.hasMilestone()) {
+            // simply don't set a number to demilestone
+            Milestone gitHubMilestone = new Milestone();
+            edit.getMilestone().ifPresent(gitHubMilestone::setNumber);
+            createdIssue.setMilestone(gitHubMilestone);
+        }
+        if (edit.hasAssignee()) {
+            User issueAssignee = new User();
+            edit.getAssignee().ifPresent(issueAssignee::setLogin);
+            createdIssue.setAssignee(issueAssignee);
+        }
+        if (edit.hasState()) {
+            createdIssue.setState(edit.isOpen() ? IssueService.STATE_OPEN : IssueService.STATE_CLOSED);
+        }
+
+        Issue returnedIssue = issueService.editIssue(RepositoryId.createFromId(repoId), createdIssue);
+
+        boolean isEdited = true;
+        if (edit.hasLabels()) {
+            isEdited = returnedIssue.getLabels().stream()
+                    .map(Label::getName)
+                    .collect(Collectors.toList())
+                    .containsAll(edit.getLabels());
+        }
+        if (edit.hasMilestone()) {
+            isEdited &= Optional.ofNullable(returnedIssue.getMilestone())
+                    .map(Milestone::getNumber)
+                    .equals(edit.getMilestone());
+        }
+        if (edit.hasAssignee()) {
+            isEdited &= Optional.ofNullable(returnedIssue.getAssignee())
+                    .map(User::getLogin)
+                    .equals(edit.getAssignee());
+        }
+        if (edit.hasState()) {
+            isEdited &= returnedIssue.getState().equals(
+                    edit.isOpen() ? IssueService.STATE_OPEN : IssueService.STATE_CLOSED);
+        }
+        return isEdited;
+    }
+
     @Override
     public Optional<String> setAssignee(String repoId, int issueId, String issueTitle,
                                         Optional<String> issueAssigneeLoginName) throws IOException {
@@ -342,5 +408,15 @@ public class GitHubRepo implements Repo {
     public ImmutablePair<Integer, Long> getRateLimitResetTime() throws IOException {
         return client.getRateLimitResetTime();
     }
+
+    @Override
+    public boolean isRateLimitLow(int reserve) {
+        return client.isRateLimitLow(reserve);
+    }
+
+    @Override
+    public RateLimitBudget getRateLimitBudget() {
+        return client.getRateLimitBudget();
+    }
 }
 
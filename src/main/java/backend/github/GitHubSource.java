@@ -1,8 +1,10 @@
 package backend.github;
 
+import backend.IssueEdit;
 import backend.IssueMetadata;
 import backend.UserCredentials;
 import backend.interfaces.Repo;
+import backend.interfaces.RateLimitBudget;
 import backend.interfaces.RepoSource;
 import backend.resource.Model;
 import backend.resource.TurboIssue;
@@ -16,12 +18,30 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class GitHubSource extends RepoSource {
 
     private static final Logger logger = HTLog.get(GitHubSource.class);
 
-    private final Repo gitHub = new GitHubRepo();
+    private final Repo gitHub;
+    private final int metadataConcurrency;
+
+    public GitHubSource() {
+        gitHub = new GitHubRepo();
+        metadataConcurrency = DownloadMetadataTask.DEFAULT_CONCURRENCY;
+    }
+
+    /**
+     * @param pageDownloadParallelism the maximum number of pages downloaded at the same time
+     *                                for a repository
+     * @param metadataConcurrency     the maximum number of requests made at the same time
+     *                                when downloading the metadata of issues
+     */
+    public GitHubSource(int pageDownloadParallelism, int metadataConcurrency) {
+        gitHub = new GitHubRepo(pageDownloadParallelism);
+        this.metadataConcurrency = metadataConcurrency;
+    }
 
     @Override
     public String getName() {
@@ -53,8 +73,10 @@ public class GitHubSource extends RepoSource {
     }
 
     @Override
-    public CompletableFuture<Map<Integer, IssueMetadata>> downloadMetadata(String repoId, List<TurboIssue> issues) {
-        return addTask(new DownloadMetadataTask(this, gitHub, repoId, issues)).response;
+    public CompletableFuture<Map<Integer, IssueMetadata>> downloadMetadata(
+            String repoId, List<TurboIssue> issues, Consumer<Map<Integer, IssueMetadata>> onBatchDownloaded) {
+        return addTask(new DownloadMetadataTask(this, gitHub, repoId, issues, metadataConcurrency,
+                                                onBatchDownloaded)).response;
     }
 
     @Override
@@ -84,9 +106,20 @@ public class GitHubSource extends RepoSource {
         return addTask(new EditIssueStateTask(this, gitHub, issue.getRepoId(), issue.getId(), isOpen)).response;
     }
 
+    @Override
+    public CompletableFuture<Boolean> editIssue(TurboIssue issue, IssueEdit edit) {
+        return addTask(new EditIssueTask(this, gitHub, issue.getRepoId(), issue.getId(), issue.getTitle(),
+                                         edit)).response;
+    }
+
     @Override
     public CompletableFuture<ImmutablePair<Integer, Long>> getRateLimitResetTime() {
         return addTask(new CheckRateLimitTask(this, gitHub)).response;
     }
 
+    @Override
+    protected RateLimitBudget getRateLimitBudget() {
+        return gitHub.getRateLimitBudget();
+    }
+
 }
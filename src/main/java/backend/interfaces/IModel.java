@@ -14,8 +14,6 @@ import java.util.function.Predicate;
 public interface IModel extends IBaseModel {
     String getDefaultRepo();
 
-    void setDefaultRepo(String repoId);
-
     boolean isUserInRepo(String repoId, String userName);
 
     Optional<Model> getModelById(String repoId);
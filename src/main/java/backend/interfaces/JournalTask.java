@@ -0,0 +1,53 @@
+package backend.interfaces;
+
+import backend.resource.Model;
+import backend.resource.serialization.SerializableModel;
+import backend.resource.serialization.SerializableModelDelta;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+class JournalTask extends StoreTask {
+
+    private static final Logger logger = HTLog.get(JournalTask.class);
+
+    private final RepoStore store;
+    private final SerializableModelDelta changes;
+    private final Model model;
+    public final CompletableFuture<Boolean> response;
+
+    JournalTask(RepoStore store, String repoId, SerializableModelDelta changes, Model model,
+                CompletableFuture<Boolean> response) {
+        super(repoId);
+        this.store = store;
+        this.changes = changes;
+        this.model = model;
+        this.response = response;
+    }
+
+    @Override
+    public void run() {
+        if (!store.hasSnapshot(repoId)) {
+            logger.info(HTLog.format(repoId, "No snapshot to journal against; writing snapshot"));
+            response.complete(store.writeSnapshot(repoId, new SerializableModel(model)));
+            return;
+        }
+
+        Path journal = store.getJournalPath(repoId);
+        if (RepoJournal.append(journal, changes)) {
+            response.complete(store.writeSnapshot(repoId, new SerializableModel(model)));
+            return;
+        }
+        logger.info(HTLog.format(repoId, "Appended " + changes.issues.size() + " issue(s) to journal"));
+
+        // Compacted here rather than in a task of its own, as tasks queued behind this one may append
+        // further changes, which a later snapshot of this model would lose
+        if (RepoJournal.size(journal) > store.getJournalCompactionThreshold()) {
+            logger.info(HTLog.format(repoId, "Compacting journal into snapshot"));
+            store.writeSnapshot(repoId, new SerializableModel(model));
+        }
+        response.complete(false);
+    }
+}
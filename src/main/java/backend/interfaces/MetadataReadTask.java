@@ -0,0 +1,25 @@
+package backend.interfaces;
+
+import backend.IssueMetadata;
+import backend.resource.serialization.SerializableRepoMetadata;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+class MetadataReadTask extends StoreTask {
+
+    public final CompletableFuture<Map<Integer, IssueMetadata>> response;
+
+    public MetadataReadTask(String repoId, CompletableFuture<Map<Integer, IssueMetadata>> response) {
+        super(repoId);
+        this.response = response;
+    }
+
+    @Override
+    public void run() {
+        response.complete(RepoMetadataFile.read(repoId)
+                                  .map(SerializableRepoMetadata::toIntermediate)
+                                  .orElseGet(HashMap::new));
+    }
+}
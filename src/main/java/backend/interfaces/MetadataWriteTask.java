@@ -0,0 +1,34 @@
+package backend.interfaces;
+
+import backend.resource.serialization.SerializableRepoMetadata;
+
+import java.util.concurrent.CompletableFuture;
+
+class MetadataWriteTask extends StoreTask {
+
+    public final SerializableRepoMetadata toSave;
+    public final CompletableFuture<Boolean> response;
+
+    public MetadataWriteTask(String repoId, SerializableRepoMetadata toSave, CompletableFuture<Boolean> response) {
+        super(repoId);
+        this.toSave = toSave;
+        this.response = response;
+    }
+
+    @Override
+    public void run() {
+        response.complete(RepoMetadataFile.write(repoId, toSave));
+    }
+
+    /**
+     * A pending write of metadata is made redundant by a later one, which completes both responses.
+     */
+    @Override
+    protected boolean supersede(StoreTask pending) {
+        if (!(pending instanceof MetadataWriteTask)) {
+            return false;
+        }
+        response.thenAccept(((MetadataWriteTask) pending).response::complete);
+        return true;
+    }
+}
@@ -0,0 +1,163 @@
+package backend.interfaces;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Tracks the API requests a Repo may still make, as reported by the rate limit headers of its
+ * responses, and decides when a task of a given priority may start.
+ * <p>
+ * Tasks below {@link TaskPriority#INTERACTIVE} draw from a token bucket which refills at the rate
+ * that spreads the remaining requests evenly until the rate limit resets, so that background work
+ * cannot use up the whole budget in a burst. Each task takes one token however many requests it
+ * makes; on top of that, lower priorities leave a growing share of the rate limit in reserve for
+ * higher ones. After a response which indicates that the server is overloaded or that the rate
+ * limit was exceeded (403 or 5xx), such tasks are held back for an exponentially growing period
+ * with random jitter, so that retries from several tasks do not arrive at the same time.
+ * <p>
+ * Interactive tasks are never held back: the user is waiting on them, and a failure is reported to
+ * the user rather than retried.
+ */
+public class RateLimitBudget {
+
+    // The shares of the rate limit kept in reserve from tasks of each priority, by ordinal
+    private static final double[] RESERVED_SHARES = {0, 0.02, 0.1, 0.2};
+
+    private static final double BUCKET_CAPACITY = 10;
+
+    private static final long MIN_BACKOFF = 1000;
+    private static final long MAX_BACKOFF = 5 * 60 * 1000;
+
+    private final Random random = new Random();
+
+    // Mutable state -- all access to these fields must be synchronized!
+    // Unknown until the first response with rate limit headers
+    private int remainingRequests = -1;
+    private int requestLimit = -1;
+    // In epoch milliseconds; 0 if unknown
+    private long resetTime = 0;
+
+    private double tokens = BUCKET_CAPACITY;
+    private long lastRefillTime = 0;
+
+    private int consecutiveFailures = 0;
+    private long backoffUntil = 0;
+
+    /**
+     * Updates the budget from the rate limit headers of a response. Negative values are unknown.
+     *
+     * @param remainingRequests from X-RateLimit-Remaining
+     * @param requestLimit      from X-RateLimit-Limit
+     * @param resetTime         from X-RateLimit-Reset, in epoch milliseconds
+     */
+    public synchronized void update(int remainingRequests, int requestLimit, long resetTime) {
+        if (remainingRequests >= 0) {
+            this.remainingRequests = remainingRequests;
+        }
+        if (requestLimit >= 0) {
+            this.requestLimit = requestLimit;
+        }
+        if (resetTime > 0) {
+            this.resetTime = resetTime;
+        }
+    }
+
+    /**
+     * Starts or resets the back-off period depending on the status code of a response.
+     *
+     * @param code the HTTP status code
+     * @param now  the time of the response, in epoch milliseconds
+     */
+    public synchronized void recordResponse(int code, long now) {
+        if (code != 403 && code < 500) {
+            consecutiveFailures = 0;
+            backoffUntil = 0;
+            return;
+        }
+        consecutiveFailures++;
+        long maxBackoff = Math.min(MAX_BACKOFF, MIN_BACKOFF << Math.min(consecutiveFailures, 20));
+        // Half the period is fixed and the rest is jitter
+        long backoff = maxBackoff / 2 + (long) (random.nextDouble() * maxBackoff / 2);
+        if (code == 403 && remainingRequests == 0 && resetTime > now) {
+            // The rate limit was exceeded: nothing will succeed before it resets
+            backoff = Math.max(backoff, resetTime - now);
+        }
+        backoffUntil = Math.max(backoffUntil, now + backoff);
+    }
+
+    /**
+     * @param priority
+     * @param now      in epoch milliseconds
+     * @return the number of milliseconds until a task of the given priority may start, 0 if it may
+     * start now
+     */
+    public synchronized long getDelay(TaskPriority priority, long now) {
+        if (priority == TaskPriority.INTERACTIVE) {
+            return 0;
+        }
+        if (now < backoffUntil) {
+            return backoffUntil - now;
+        }
+        if (remainingRequests < 0 || resetTime <= now) {
+            // Nothing is known about the current rate limit window
+            return 0;
+        }
+
+        double reserve = Math.max(0, requestLimit) * RESERVED_SHARES[priority.ordinal()];
+        if (remainingRequests <= reserve) {
+            return resetTime - now;
+        }
+
+        refill(now);
+        if (tokens >= 1) {
+            return 0;
+        }
+        return Math.min(resetTime - now, (long) Math.ceil((1 - tokens) / getRefillRate(now)));
+    }
+
+    /**
+     * Takes a token for a task which is starting. Interactive tasks take none.
+     */
+    public synchronized void acquire(TaskPriority priority, long now) {
+        if (priority == TaskPriority.INTERACTIVE) {
+            return;
+        }
+        refill(now);
+        tokens = Math.max(0, tokens - 1);
+    }
+
+    /**
+     * @return the number of requests remaining and the time the rate limit resets at, in epoch
+     * milliseconds, if both have been reported by a response
+     */
+    public synchronized Optional<ImmutablePair<Integer, Long>> getRateLimits() {
+        if (remainingRequests < 0 || resetTime <= 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new ImmutablePair<>(remainingRequests, resetTime));
+    }
+
+    /**
+     * @return true if fewer than {@code reserve} requests remain. The rate limit is not considered
+     * low before it is known.
+     */
+    public synchronized boolean isLow(int reserve) {
+        return remainingRequests >= 0 && remainingRequests < reserve;
+    }
+
+    private void refill(long now) {
+        if (lastRefillTime > 0 && now > lastRefillTime) {
+            tokens = Math.min(BUCKET_CAPACITY, tokens + (now - lastRefillTime) * getRefillRate(now));
+        }
+        lastRefillTime = Math.max(lastRefillTime, now);
+    }
+
+    /**
+     * @return the number of tokens added per millisecond
+     */
+    private double getRefillRate(long now) {
+        return Math.max(1, remainingRequests) / (double) Math.max(1, resetTime - now);
+    }
+}
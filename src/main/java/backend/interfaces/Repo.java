@@ -1,5 +1,6 @@
 package backend.interfaces;
 
+import backend.IssueEdit;
 import backend.UserCredentials;
 import backend.resource.TurboIssue;
 import backend.resource.TurboLabel;
@@ -47,6 +48,12 @@ public interface Repo {
 
     List<Comment> getComments(String repoId, int issueId);
 
+    /**
+     * Returns the comments of an issue, not including review comments, with their new ETag if they
+     * changed since {@code eTag} was returned, or an empty list with {@code eTag} if they did not
+     */
+    ImmutablePair<List<Comment>, String> getUpdatedComments(String repoId, int issueId, String eTag);
+
     List<ReviewComment> getReviewComments(String repoId, int pullRequestId);
 
     List<Comment> getAllComments(String repoId, TurboIssue issue);
@@ -63,6 +70,24 @@ public interface Repo {
 
     boolean editIssueState(String repoId, int issueId, boolean isOpen) throws IOException;
 
+    /**
+     * Makes several changes to an issue at once.
+     *
+     * @return true if the issue reflects all changes afterwards
+     */
+    boolean editIssue(String repoId, int issueId, String issueTitle, IssueEdit edit) throws IOException;
+
     ImmutablePair<Integer, Long> getRateLimitResetTime() throws IOException;
 
+    /**
+     * Returns true if fewer than {@code reserve} requests remain in the current rate limit window,
+     * as reported by the last response
+     */
+    boolean isRateLimitLow(int reserve);
+
+    /**
+     * @return the budget of API requests, kept up to date from the responses of this Repo
+     */
+    RateLimitBudget getRateLimitBudget();
+
 }
@@ -0,0 +1,141 @@
+package backend.interfaces;
+
+import backend.resource.Model;
+import backend.resource.serialization.SerializableModelDelta;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An append-only journal of the changes made to a stored repository since its snapshot was written.
+ * Each line of the journal holds one {@link SerializableModelDelta} as JSON.
+ * <p>
+ * Journals are only accessed from tasks of the RepoStore they belong to, which run one at a time
+ * for each repository.
+ */
+public final class RepoJournal {
+
+    private static final Logger logger = HTLog.get(RepoJournal.class);
+
+    private static final String EXTENSION = "journal";
+
+    private RepoJournal() {}
+
+    /**
+     * @param repoId
+     * @param snapshotExtension the file extension of the snapshot the journal belongs to
+     * @return the path of the journal next to the snapshot of the repository
+     */
+    public static Path getPath(String repoId, String snapshotExtension) {
+        return Paths.get(RepoStore.directory,
+                         RepoStore.escapeRepoName(repoId, snapshotExtension + "." + EXTENSION)).toAbsolutePath();
+    }
+
+    /**
+     * Appends changes to a journal, creating it if it does not exist.
+     *
+     * @return true on failure to append
+     */
+    public static boolean append(Path journal, SerializableModelDelta changes) {
+        String line = new Gson().toJson(changes) + System.lineSeparator();
+        try {
+            Files.write(journal, line.getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            return false;
+        } catch (IOException e) {
+            logger.error(e.getLocalizedMessage(), e);
+            return true;
+        }
+    }
+
+    /**
+     * Applies the changes in a journal, if there is one, to the snapshot it belongs to.
+     * Changes are applied up to the first one that cannot be read, e.g. one that was cut off
+     * while being written. The journal is then truncated to the changes that were applied,
+     * so that changes appended later remain readable.
+     *
+     * @param journal
+     * @param snapshot the repository as stored in the snapshot
+     * @return the repository with all readable changes applied
+     */
+    public static Model replay(Path journal, Model snapshot) {
+        if (!Files.exists(journal)) {
+            return snapshot;
+        }
+
+        Model model = snapshot;
+        List<String> appliedLines = new ArrayList<>();
+        boolean isTruncated = false;
+        Gson gson = new Gson();
+
+        try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    SerializableModelDelta changes = gson.fromJson(line, SerializableModelDelta.class);
+                    model = changes.applyTo(model);
+                    appliedLines.add(line);
+                } catch (NullPointerException | JsonParseException e) {
+                    logger.warn(HTLog.format(snapshot.getRepoId(), "Discarding unreadable journal entries"));
+                    isTruncated = true;
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            logger.error(e.getLocalizedMessage(), e);
+            return model;
+        }
+
+        if (isTruncated) {
+            try {
+                Files.write(journal, appliedLines, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                logger.error(e.getLocalizedMessage(), e);
+            }
+        }
+
+        logger.info(HTLog.format(snapshot.getRepoId(), "Replayed " + appliedLines.size() + " journal entries"));
+        return model;
+    }
+
+    /**
+     * @return the size of a journal in bytes, or 0 if it does not exist
+     */
+    public static long size(Path journal) {
+        try {
+            return Files.exists(journal) ? Files.size(journal) : 0;
+        } catch (IOException e) {
+            logger.error(e.getLocalizedMessage(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * Deletes a journal if it exists. Called whenever a snapshot with all its changes is written.
+     *
+     * @return true on failure to delete
+     */
+    public static boolean delete(Path journal) {
+        try {
+            Files.deleteIfExists(journal);
+            return false;
+        } catch (IOException e) {
+            logger.error(e.getLocalizedMessage(), e);
+            return true;
+        }
+    }
+}
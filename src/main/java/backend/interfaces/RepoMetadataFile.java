@@ -0,0 +1,96 @@
+package backend.interfaces;
+
+import backend.resource.serialization.SerializableRepoMetadata;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.egit.github.core.client.GsonUtils;
+import util.HTLog;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+/**
+ * The file holding the metadata of the issues of a stored repository, kept next to the repository
+ * in the same format regardless of the store. Events and comments are written with the same Gson
+ * configuration they are downloaded with, so that their dates survive a round trip.
+ * <p>
+ * Metadata files are only accessed from tasks of the RepoStore they belong to.
+ */
+public final class RepoMetadataFile {
+
+    private static final Logger logger = HTLog.get(RepoMetadataFile.class);
+
+    private static final String EXTENSION = "metadata";
+
+    private RepoMetadataFile() {}
+
+    public static Path getPath(String repoId) {
+        return Paths.get(RepoStore.directory, RepoStore.escapeRepoName(repoId, EXTENSION)).toAbsolutePath();
+    }
+
+    /**
+     * @return the metadata stored for a repository, or an empty Optional if there is none
+     * or it cannot be read
+     */
+    public static Optional<SerializableRepoMetadata> read(String repoId) {
+        Path file = getPath(repoId);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return Optional.ofNullable(getGson().fromJson(reader, SerializableRepoMetadata.class));
+        } catch (IOException | JsonParseException e) {
+            logger.error(HTLog.format(repoId, "Unable to read stored metadata"), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Replaces the metadata stored for a repository. The metadata is written to a temporary file first,
+     * so that an interrupted write does not leave a partial file behind.
+     *
+     * @return true on failure to write
+     */
+    public static boolean write(String repoId, SerializableRepoMetadata metadata) {
+        if (!RepoStore.ensureDirectoryExists()) {
+            return true;
+        }
+        Path file = getPath(repoId);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                getGson().toJson(metadata, writer);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            return false;
+        } catch (IOException e) {
+            logger.error(HTLog.format(repoId, "Unable to write metadata"), e);
+            return true;
+        }
+    }
+
+    /**
+     * @return true on failure to delete
+     */
+    public static boolean delete(String repoId) {
+        try {
+            Files.deleteIfExists(getPath(repoId));
+            return false;
+        } catch (IOException e) {
+            logger.error(e.getLocalizedMessage(), e);
+            return true;
+        }
+    }
+
+    private static Gson getGson() {
+        return GsonUtils.getGson();
+    }
+}
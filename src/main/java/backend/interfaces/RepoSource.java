@@ -1,5 +1,6 @@
 package backend.interfaces;
 
+import backend.IssueEdit;
 import backend.IssueMetadata;
 import backend.UserCredentials;
 import backend.github.GitHubModelUpdatesData;
@@ -9,28 +10,57 @@ import backend.resource.TurboMilestone;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.eclipse.egit.github.core.Issue;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 public abstract class RepoSource implements TaskRunner {
 
-    private final ExecutorService pool = Executors.newCachedThreadPool();
+    // The maximum number of non-interactive tasks running at the same time
+    private static final int MAX_RUNNING_TASKS = 8;
+
+    private final TaskScheduler scheduler = new TaskScheduler(MAX_RUNNING_TASKS, this::getRateLimitBudget);
+
+    // Lowercased ids of the repositories referred to by panels, or null if not known yet
+    private volatile Set<String> usedRepos = null;
 
     @Override
     public <R> RepoTask<R> addTask(RepoTask<R> task) {
-        execute(task);
+        scheduler.submit(task, task.getPriority(this::isRepoUsed));
         return task;
     }
 
     @Override
     public void execute(Runnable r) {
-        pool.execute(r);
+        scheduler.submit(r, TaskPriority.INTERACTIVE);
+    }
+
+    /**
+     * Sets the repositories referred to by panels, so that tasks for other repositories are scheduled
+     * after theirs. All repositories are considered used until this is called.
+     *
+     * @param usedRepos the ids of the repositories
+     */
+    public void setUsedRepos(Set<String> usedRepos) {
+        Set<String> lowercased = new HashSet<>();
+        usedRepos.forEach(repoId -> lowercased.add(repoId.toLowerCase()));
+        this.usedRepos = lowercased;
+    }
+
+    private boolean isRepoUsed(String repoId) {
+        Set<String> used = usedRepos;
+        return used == null || used.contains(repoId.toLowerCase());
     }
 
+    /**
+     * @return the budget of API requests of the Repo that tasks of this source use
+     */
+    protected abstract RateLimitBudget getRateLimitBudget();
+
     public abstract String getName();
 
     public abstract CompletableFuture<Boolean> login(UserCredentials credentials);
@@ -39,8 +69,20 @@ public abstract class RepoSource implements TaskRunner {
 
     public abstract CompletableFuture<GitHubModelUpdatesData> downloadModelUpdates(Model model);
 
-    public abstract CompletableFuture<Map<Integer, IssueMetadata>> downloadMetadata(String repoId,
-                                                                                    List<TurboIssue> issues);
+    public CompletableFuture<Map<Integer, IssueMetadata>> downloadMetadata(String repoId,
+                                                                           List<TurboIssue> issues) {
+        return downloadMetadata(repoId, issues, batch -> {});
+    }
+
+    /**
+     * Downloads the metadata of issues, passing on the metadata of each batch of issues as soon
+     * as it is downloaded.
+     *
+     * @param onBatchDownloaded called with each batch, on a thread of the source
+     * @return the metadata of all issues
+     */
+    public abstract CompletableFuture<Map<Integer, IssueMetadata>> downloadMetadata(
+            String repoId, List<TurboIssue> issues, Consumer<Map<Integer, IssueMetadata>> onBatchDownloaded);
 
     public abstract CompletableFuture<Boolean> isRepositoryValid(String repoId);
 
@@ -52,6 +94,8 @@ public abstract class RepoSource implements TaskRunner {
 
     public abstract CompletableFuture<Boolean> editIssueState(TurboIssue issue, boolean isOpen);
 
+    public abstract CompletableFuture<Boolean> editIssue(TurboIssue issue, IssueEdit edit);
+
     public abstract CompletableFuture<ImmutablePair<Integer, Long>> getRateLimitResetTime();
 
 }
@@ -1,32 +1,127 @@
 package backend.interfaces;
 
+import backend.IssueMetadata;
 import backend.resource.Model;
 import backend.resource.serialization.SerializableModel;
+import backend.resource.serialization.SerializableModelDelta;
+import backend.resource.serialization.SerializableRepoMetadata;
 import util.Utility;
 
 import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public abstract class RepoStore {
     protected static String directory = "store";
     public static final String TEST_DIRECTORY = "store/test";
-    private final ExecutorService pool = Executors.newSingleThreadExecutor();
+    public static final int DEFAULT_IO_THREADS = 4;
+    private final StoreExecutor executor;
+
+    // Journals which grow beyond this many bytes are compacted into a new snapshot
+    private static final long DEFAULT_JOURNAL_COMPACTION_THRESHOLD = 1024 * 1024;
+    private long journalCompactionThreshold = DEFAULT_JOURNAL_COMPACTION_THRESHOLD;
+
+    protected RepoStore() {
+        this(DEFAULT_IO_THREADS);
+    }
+
+    /**
+     * @param ioThreads the maximum number of repositories read or written at the same time
+     */
+    protected RepoStore(int ioThreads) {
+        executor = new StoreExecutor(ioThreads);
+    }
 
     public static String escapeRepoName(String repoName) {
-        return repoName.replace("/", "-") + ".json";
+        return escapeRepoName(repoName, "json");
+    }
+
+    public static String escapeRepoName(String repoName, String extension) {
+        return repoName.replace("/", "-") + "." + extension;
     }
 
     protected void addTask(StoreTask task) {
-        pool.execute(task);
+        executor.execute(task);
     }
 
     public abstract CompletableFuture<Model> loadRepository(String repoId);
 
     public abstract CompletableFuture<Boolean> saveRepository(String repoId, SerializableModel model);
 
+    public abstract List<String> getStoredRepos();
+
+    /**
+     * Stores the changes made to a repository by appending them to its journal, instead of rewriting
+     * its snapshot. If the repository has no snapshot yet, or the changes cannot be appended, a snapshot
+     * of {@code model} is written instead. Once the journal grows past the compaction threshold,
+     * a snapshot of {@code model} replaces it before the changes are reported stored.
+     *
+     * @param repoId
+     * @param changes the changes to store
+     * @param model   the repository with the changes applied
+     * @return true on failure to store the changes, in line with {@link #saveRepository}
+     */
+    public CompletableFuture<Boolean> saveRepositoryChanges(String repoId, SerializableModelDelta changes,
+                                                            Model model) {
+        CompletableFuture<Boolean> response = new CompletableFuture<>();
+        addTask(new JournalTask(this, repoId, changes, model, response));
+        return response;
+    }
+
+    public void setJournalCompactionThreshold(long journalCompactionThreshold) {
+        this.journalCompactionThreshold = journalCompactionThreshold;
+    }
+
+    long getJournalCompactionThreshold() {
+        return journalCompactionThreshold;
+    }
+
+    /**
+     * @return the file extension of snapshots written by this store
+     */
+    protected abstract String getSnapshotExtension();
+
+    protected abstract boolean hasSnapshot(String repoId);
+
+    /**
+     * Writes a snapshot of a repository, replacing the existing snapshot and journal.
+     * Only to be called from a task of this store.
+     *
+     * @return true on failure to write
+     */
+    protected abstract boolean writeSnapshot(String repoId, SerializableModel model);
+
+    protected Path getJournalPath(String repoId) {
+        return RepoJournal.getPath(repoId, getSnapshotExtension());
+    }
+
+    public abstract CompletableFuture<Boolean> removeStoredRepo(String repoId);
+
+    /**
+     * Loads the metadata stored for the issues of a repository, see {@link RepoMetadataFile}.
+     *
+     * @return intermediate metadata by issue id, which is empty if none is stored
+     */
+    public CompletableFuture<Map<Integer, IssueMetadata>> loadMetadata(String repoId) {
+        CompletableFuture<Map<Integer, IssueMetadata>> response = new CompletableFuture<>();
+        addTask(new MetadataReadTask(repoId, response));
+        return response;
+    }
+
+    /**
+     * Replaces the metadata stored for the issues of a repository.
+     *
+     * @return true on failure to store the metadata
+     */
+    public CompletableFuture<Boolean> saveMetadata(String repoId, SerializableRepoMetadata metadata) {
+        CompletableFuture<Boolean> response = new CompletableFuture<>();
+        addTask(new MetadataWriteTask(repoId, metadata, response));
+        return response;
+    }
+
     private static Optional<String> getRepoPath(String repoId) {
         if (ensureDirectoryExists()) {
             String newRepoName = RepoStore.escapeRepoName(repoId);
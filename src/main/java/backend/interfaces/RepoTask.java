@@ -1,6 +1,7 @@
 package backend.interfaces;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
 
 public abstract class RepoTask<R> implements Runnable {
     public final Repo repo;
@@ -14,4 +15,14 @@ public abstract class RepoTask<R> implements Runnable {
     }
 
     public abstract void run();
+
+    /**
+     * Tasks are interactive unless they override this.
+     *
+     * @param isRepoUsed tests whether a repository is referred to by a panel
+     * @return the priority the task is scheduled with
+     */
+    public TaskPriority getPriority(Predicate<String> isRepoUsed) {
+        return TaskPriority.INTERACTIVE;
+    }
 }
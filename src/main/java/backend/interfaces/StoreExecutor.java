@@ -0,0 +1,84 @@
+package backend.interfaces;
+
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs StoreTasks on a bounded pool of I/O threads. Tasks for the same repository run one at a
+ * time in the order they were added, while tasks for different repositories run in parallel.
+ * <p>
+ * A task which is added right behind a pending task it supersedes (see {@link StoreTask#supersede})
+ * replaces that task, so that e.g. several pending saves of a repository result in one write.
+ */
+final class StoreExecutor {
+
+    private static final Logger logger = HTLog.get(StoreExecutor.class);
+
+    private final ExecutorService pool;
+
+    // Tasks which have not started yet, by repository. A repository has an entry
+    // for as long as one of its tasks is queued or running. Guarded by this.
+    private final Map<String, Deque<StoreTask>> pendingTasks = new HashMap<>();
+
+    StoreExecutor(int threads) {
+        pool = Executors.newFixedThreadPool(threads);
+    }
+
+    public void execute(StoreTask task) {
+        String key = getKey(task.repoId);
+        synchronized (this) {
+            Deque<StoreTask> pending = pendingTasks.get(key);
+            if (pending == null) {
+                pending = new ArrayDeque<>();
+                pendingTasks.put(key, pending);
+                pending.addLast(task);
+                pool.execute(() -> runNext(key));
+                return;
+            }
+            if (!pending.isEmpty() && task.supersede(pending.peekLast())) {
+                logger.info(HTLog.format(task.repoId, "Coalesced pending store task"));
+                pending.pollLast();
+            }
+            pending.addLast(task);
+        }
+    }
+
+    /**
+     * Runs the next task of a repository. Rather than draining the whole queue, the following task
+     * is resubmitted to the pool, so that a busy repository does not hold on to a thread.
+     */
+    private void runNext(String key) {
+        StoreTask task;
+        synchronized (this) {
+            task = pendingTasks.get(key).pollFirst();
+        }
+
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.error(e.getLocalizedMessage(), e);
+        }
+
+        synchronized (this) {
+            if (pendingTasks.get(key).isEmpty()) {
+                pendingTasks.remove(key);
+            } else {
+                pool.execute(() -> runNext(key));
+            }
+        }
+    }
+
+    /**
+     * Repositories are stored in files named after their ids, which may be case-insensitive.
+     */
+    private static String getKey(String repoId) {
+        return repoId.toLowerCase();
+    }
+}
@@ -8,5 +8,14 @@ public abstract class StoreTask implements Runnable {
     }
 
     public abstract void run();
+
+    /**
+     * Called when this task is added right behind {@code pending}, a task for the same repository
+     * which has not started yet. A task which makes {@code pending} redundant takes over its response
+     * and returns true, in which case {@code pending} is dropped.
+     */
+    protected boolean supersede(StoreTask pending) {
+        return false;
+    }
 }
 
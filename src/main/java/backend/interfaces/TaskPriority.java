@@ -0,0 +1,16 @@
+package backend.interfaces;
+
+/**
+ * The order in which a RepoSource starts its tasks, from first to last.
+ * See {@link TaskScheduler} for how each class of tasks is scheduled.
+ */
+public enum TaskPriority {
+    // Edits and other operations the user is waiting on
+    INTERACTIVE,
+    // Downloads and refreshes of repositories referred to by panels
+    VISIBLE,
+    // Downloads which fill in details, e.g. the metadata of issues
+    BACKGROUND,
+    // Refreshes of repositories which no panel refers to
+    HIDDEN
+}
@@ -0,0 +1,129 @@
+package backend.interfaces;
+
+import org.apache.logging.log4j.Logger;
+import util.HTLog;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Starts the tasks of a RepoSource in order of their priority, within the budget of API requests.
+ * <p>
+ * Interactive tasks start right away. Other tasks wait in a queue, ordered by priority and then by
+ * the order they were added, and start when fewer than the maximum number of them are running and
+ * the {@link RateLimitBudget} allows. Tasks added by a running task (e.g. the downloads a model
+ * update is made up of) also start right away, as the running task is already counted and waits
+ * for them to complete.
+ */
+final class TaskScheduler {
+
+    private static final Logger logger = HTLog.get(TaskScheduler.class);
+
+    private final int maxRunningTasks;
+    private final Supplier<RateLimitBudget> budget;
+
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "TaskScheduler timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Whether the current thread is running a task of this scheduler
+    private final ThreadLocal<Boolean> isRunningTask = ThreadLocal.withInitial(() -> false);
+
+    // Mutable state -- all access to these fields must be synchronized!
+    private final PriorityQueue<QueuedTask> queue = new PriorityQueue<>(
+            Comparator.<QueuedTask, TaskPriority>comparing(task -> task.priority)
+                    .thenComparingLong(task -> task.order));
+    private long addedTasks = 0;
+    private int runningTasks = 0;
+    private ScheduledFuture<?> wakeUp = null;
+
+    private static class QueuedTask {
+        private final Runnable task;
+        private final TaskPriority priority;
+        private final long order;
+
+        private QueuedTask(Runnable task, TaskPriority priority, long order) {
+            this.task = task;
+            this.priority = priority;
+            this.order = order;
+        }
+    }
+
+    /**
+     * @param maxRunningTasks the maximum number of non-interactive tasks running at the same time
+     * @param budget          supplies the budget of the Repo the tasks use
+     */
+    TaskScheduler(int maxRunningTasks, Supplier<RateLimitBudget> budget) {
+        this.maxRunningTasks = maxRunningTasks;
+        this.budget = budget;
+    }
+
+    public void submit(Runnable task, TaskPriority priority) {
+        if (priority == TaskPriority.INTERACTIVE || isRunningTask.get()) {
+            pool.execute(() -> run(task));
+            return;
+        }
+        synchronized (this) {
+            queue.add(new QueuedTask(task, priority, addedTasks++));
+        }
+        startTasks();
+    }
+
+    /**
+     * Starts queued tasks for as long as the limit on running tasks and the budget allow, and
+     * otherwise schedules another attempt for when the budget will allow the next task.
+     */
+    private synchronized void startTasks() {
+        long now = System.currentTimeMillis();
+        RateLimitBudget currentBudget = budget.get();
+        while (runningTasks < maxRunningTasks && !queue.isEmpty()) {
+            QueuedTask next = queue.peek();
+            long delay = currentBudget.getDelay(next.priority, now);
+            if (delay > 0) {
+                scheduleWakeUp(delay);
+                return;
+            }
+            queue.poll();
+            currentBudget.acquire(next.priority, now);
+            runningTasks++;
+            pool.execute(() -> {
+                run(next.task);
+                synchronized (this) {
+                    runningTasks--;
+                }
+                startTasks();
+            });
+        }
+    }
+
+    private void scheduleWakeUp(long delay) {
+        if (wakeUp != null && wakeUp.getDelay(TimeUnit.MILLISECONDS) <= delay && !wakeUp.isDone()) {
+            return;
+        }
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+        }
+        logger.info(String.format("Holding back %d tasks for %d ms", queue.size(), delay));
+        wakeUp = timer.schedule(this::startTasks, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void run(Runnable task) {
+        isRunningTask.set(true);
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.error(e.getLocalizedMessage(), e);
+        } finally {
+            isRunningTask.set(false);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package backend.json;
 
+import backend.interfaces.RepoJournal;
+import backend.interfaces.RepoMetadataFile;
 import backend.interfaces.RepoStore;
 import backend.interfaces.StoreTask;
 
@@ -20,6 +22,8 @@ class DeleteTask extends StoreTask {
 
     @Override
     public void run() {
+        RepoJournal.delete(RepoJournal.getPath(repoId, JSONStore.EXTENSION));
+        RepoMetadataFile.delete(repoId);
         response.complete(RepoStore.delete(repoId));
     }
 }
@@ -0,0 +1,260 @@
+package backend.json;
+
+import backend.UpdateSignature;
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+import backend.resource.TurboLabel;
+import backend.resource.TurboMilestone;
+import backend.resource.TurboUser;
+import backend.resource.serialization.SerializableIssue;
+import backend.resource.serialization.SerializableLabel;
+import backend.resource.serialization.SerializableMilestone;
+import backend.resource.serialization.SerializableUser;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import util.exceptions.JSONLoadException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Reads repositories in the format written by JSONStore (a SerializableModel as JSON) directly
+ * from a file stream, without holding the whole file in memory.
+ * <p>
+ * Issues are built as TurboIssues while they are read. This needs the repoId, which Gson writes
+ * before the issues; files where it comes later are read through SerializableIssue instead.
+ */
+public final class JSONModelReader {
+
+    private static final Gson gson = new Gson();
+
+    private JSONModelReader() {}
+
+    /**
+     * Reads the id of the repository stored in a file, skipping over everything before it
+     * without building any objects. As repoId is the first field written, the rest of the file
+     * is not read at all.
+     *
+     * @throws JSONLoadException if the file cannot be read or has no repoId
+     */
+    public static String readRepoId(Path file) throws JSONLoadException {
+        try (JsonReader reader = open(file)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("repoId") && reader.peek() == JsonToken.STRING) {
+                    return reader.nextString();
+                }
+                reader.skipValue();
+            }
+            throw new JSONLoadException();
+        } catch (IOException | IllegalStateException | JsonParseException e) {
+            throw new JSONLoadException(e);
+        }
+    }
+
+    /**
+     * Reads the repository stored in a file.
+     *
+     * @throws JSONLoadException if the file cannot be read or does not hold a complete repository
+     */
+    public static Model read(Path file) throws JSONLoadException {
+        try (JsonReader reader = open(file)) {
+            return readModel(reader);
+        } catch (IOException | IllegalStateException | NullPointerException | JsonParseException e) {
+            throw new JSONLoadException(e);
+        }
+    }
+
+    private static JsonReader open(Path file) throws IOException {
+        return new JsonReader(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+    }
+
+    private static Model readModel(JsonReader reader) throws IOException, JSONLoadException {
+        String repoId = null;
+        UpdateSignature updateSignature = null;
+        List<TurboIssue> issues = null;
+        List<SerializableIssue> issuesBeforeRepoId = null;
+        List<SerializableLabel> labels = null;
+        List<SerializableMilestone> milestones = null;
+        List<SerializableUser> users = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "repoId":
+                    repoId = reader.nextString();
+                    break;
+                case "updateSignature":
+                    updateSignature = gson.fromJson(reader, UpdateSignature.class);
+                    break;
+                case "issues":
+                    if (repoId == null) {
+                        issuesBeforeRepoId = readArray(reader, SerializableIssue.class);
+                    } else {
+                        issues = readIssues(reader, repoId);
+                    }
+                    break;
+                case "labels":
+                    labels = readArray(reader, SerializableLabel.class);
+                    break;
+                case "milestones":
+                    milestones = readArray(reader, SerializableMilestone.class);
+                    break;
+                case "users":
+                    users = readArray(reader, SerializableUser.class);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (repoId == null || (issues == null && issuesBeforeRepoId == null)
+                || labels == null || milestones == null || users == null) {
+            throw new JSONLoadException();
+        }
+        String id = repoId;
+        if (issues == null) {
+            issues = issuesBeforeRepoId.stream()
+                    .map(i -> new TurboIssue(id, i))
+                    .collect(Collectors.toList());
+        }
+        return new Model(repoId, issues,
+                         labels.stream().map(l -> new TurboLabel(id, l)).collect(Collectors.toList()),
+                         milestones.stream().map(m -> new TurboMilestone(id, m)).collect(Collectors.toList()),
+                         users.stream().map(u -> new TurboUser(id, u)).collect(Collectors.toList()),
+                         updateSignature);
+    }
+
+    private static <T> List<T> readArray(JsonReader reader, Class<T> type) throws IOException {
+        List<T> items = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            items.add(gson.fromJson(reader, type));
+        }
+        reader.endArray();
+        return items;
+    }
+
+    private static List<TurboIssue> readIssues(JsonReader reader, String repoId) throws IOException {
+        List<TurboIssue> issues = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            issues.add(readIssue(reader, repoId));
+        }
+        reader.endArray();
+        return issues;
+    }
+
+    /**
+     * Reads the fields of a SerializableIssue into a TurboIssue. Fields which are absent take
+     * the values TurboIssue gives them by default.
+     */
+    private static TurboIssue readIssue(JsonReader reader, String repoId) throws IOException {
+        int id = 0;
+        String title = "";
+        String creator = "";
+        LocalDateTime createdAt = null;
+        boolean isPullRequest = false;
+        String description = "";
+        LocalDateTime updatedAt = null;
+        int commentCount = 0;
+        boolean isOpen = true;
+        Optional<String> assignee = Optional.empty();
+        List<String> labels = new ArrayList<>();
+        Optional<Integer> milestone = Optional.empty();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    id = reader.nextInt();
+                    break;
+                case "title":
+                    title = reader.nextString();
+                    break;
+                case "creator":
+                    creator = reader.nextString();
+                    break;
+                case "createdAt":
+                    createdAt = gson.fromJson(reader, LocalDateTime.class);
+                    break;
+                case "isPullRequest":
+                    isPullRequest = reader.nextBoolean();
+                    break;
+                case "description":
+                    description = reader.nextString();
+                    break;
+                case "updatedAt":
+                    updatedAt = gson.fromJson(reader, LocalDateTime.class);
+                    break;
+                case "commentCount":
+                    commentCount = reader.nextInt();
+                    break;
+                case "isOpen":
+                    isOpen = reader.nextBoolean();
+                    break;
+                case "assignee":
+                    assignee = Optional.ofNullable(readOptionalValue(reader, String.class));
+                    break;
+                case "labels":
+                    labels = readStrings(reader);
+                    break;
+                case "milestone":
+                    milestone = Optional.ofNullable(readOptionalValue(reader, Integer.class));
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        return new TurboIssue(repoId, id, title, creator, createdAt, isPullRequest, description, updatedAt,
+                              commentCount, isOpen, assignee, labels, milestone);
+    }
+
+    /**
+     * Reads an Optional as serialized by Gson, i.e. {"value":...} or {} when empty.
+     *
+     * @return the value, or null if the Optional is empty
+     */
+    private static <T> T readOptionalValue(JsonReader reader, Class<T> type) throws IOException {
+        T value = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("value")) {
+                value = gson.fromJson(reader, type);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return value;
+    }
+
+    private static List<String> readStrings(JsonReader reader) throws IOException {
+        List<String> strings = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            strings.add(reader.nextString());
+        }
+        reader.endArray();
+        return strings;
+    }
+}
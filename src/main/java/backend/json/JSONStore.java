@@ -3,16 +3,12 @@ package backend.json;
 import backend.interfaces.RepoStore;
 import backend.resource.Model;
 import backend.resource.serialization.SerializableModel;
-import com.google.gson.Gson;
-import com.google.gson.JsonParseException;
-import com.google.gson.reflect.TypeToken;
 import org.apache.logging.log4j.Logger;
 import util.HTLog;
-import util.Utility;
+import util.exceptions.JSONLoadException;
 
 import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -27,6 +23,16 @@ public class JSONStore extends RepoStore {
 
     private static final Logger logger = HTLog.get(JSONStore.class);
 
+    static final String EXTENSION = "json";
+
+    public JSONStore() {
+        super();
+    }
+
+    public JSONStore(int ioThreads) {
+        super(ioThreads);
+    }
+
     @Override
     public CompletableFuture<Model> loadRepository(String repoId) {
         CompletableFuture<Model> response = new CompletableFuture<>();
@@ -41,12 +47,13 @@ public class JSONStore extends RepoStore {
         return response;
     }
 
+    @Override
     public List<String> getStoredRepos() {
         ensureDirectoryExists();
         try {
             return Files.walk(Paths.get(RepoStore.directory), 1)
                     .filter(Files::isRegularFile)
-                    .filter(p -> getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase("json"))
+                    .filter(p -> getFileExtension(String.valueOf(p.getFileName())).equalsIgnoreCase(EXTENSION))
                     .map(JSONStore::getRepositoryIdFromJson)
                     .filter(Optional::isPresent)
                     .map(Optional::get)
@@ -57,23 +64,44 @@ public class JSONStore extends RepoStore {
         }
     }
 
+    @Override
     public CompletableFuture<Boolean> removeStoredRepo(String repoId) {
         CompletableFuture<Boolean> response = new CompletableFuture<>();
         addTask(new DeleteTask(repoId, response));
         return response;
     }
 
+    @Override
+    protected String getSnapshotExtension() {
+        return EXTENSION;
+    }
+
+    @Override
+    protected boolean hasSnapshot(String repoId) {
+        return Files.exists(getRepoPath(repoId));
+    }
+
+    @Override
+    protected boolean writeSnapshot(String repoId, SerializableModel model) {
+        return WriteTask.save(repoId, model);
+    }
+
+    static Path getRepoPath(String repoId) {
+        return Paths.get(RepoStore.directory, escapeRepoName(repoId)).toAbsolutePath();
+    }
+
+    /**
+     * Reads only the repoId at the start of the file, so that listing stored repositories
+     * does not depend on their size.
+     */
     private static Optional<String> getRepositoryIdFromJson(Path p) {
         try {
-            String repoId = new Model(
-                    (SerializableModel) new Gson().fromJson(Utility.readFile(String.valueOf(p.toAbsolutePath())).get(),
-                                                            new TypeToken<SerializableModel>() {}.getType()))
-                    .getRepoId();
+            String repoId = JSONModelReader.readRepoId(p);
             if (String.valueOf(p.getFileName()).equalsIgnoreCase(escapeRepoName(repoId))) {
                 logger.info("Adding " + p.getFileName() + " to stored repository list. ");
                 return Optional.of(repoId);
             }
-        } catch (NullPointerException | JsonParseException e) {
+        } catch (JSONLoadException e) {
             logger.error("Unable to load repository from " + p.getFileName());
         }
         return Optional.empty();
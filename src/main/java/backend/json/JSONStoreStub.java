@@ -1,9 +1,15 @@
 package backend.json;
 
+import backend.IssueMetadata;
+import backend.resource.Model;
 import backend.resource.serialization.SerializableModel;
+import backend.resource.serialization.SerializableModelDelta;
+import backend.resource.serialization.SerializableRepoMetadata;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -21,6 +27,22 @@ public class JSONStoreStub extends JSONStore {
         return CompletableFuture.completedFuture(false);
     }
 
+    @Override
+    public CompletableFuture<Boolean> saveRepositoryChanges(String repoId, SerializableModelDelta changes,
+                                                            Model model) {
+        return CompletableFuture.completedFuture(false);
+    }
+
+    @Override
+    public CompletableFuture<Map<Integer, IssueMetadata>> loadMetadata(String repoId) {
+        return CompletableFuture.completedFuture(new HashMap<>());
+    }
+
+    @Override
+    public CompletableFuture<Boolean> saveMetadata(String repoId, SerializableRepoMetadata metadata) {
+        return CompletableFuture.completedFuture(false);
+    }
+
     @Override
     public List<String> getStoredRepos() {
         return new ArrayList<>();
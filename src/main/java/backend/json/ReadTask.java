@@ -1,18 +1,15 @@
 package backend.json;
 
-import backend.interfaces.RepoStore;
+import backend.interfaces.RepoJournal;
 import backend.interfaces.StoreTask;
 import backend.resource.Model;
-import backend.resource.serialization.SerializableModel;
-import com.google.gson.Gson;
-import com.google.gson.JsonParseException;
-import com.google.gson.reflect.TypeToken;
 import org.apache.logging.log4j.Logger;
 import util.HTLog;
 import util.exceptions.JSONLoadException;
 import util.exceptions.RepoStoreException;
 
-import java.util.Optional;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.concurrent.CompletableFuture;
 
 class ReadTask extends StoreTask {
@@ -46,23 +43,20 @@ class ReadTask extends StoreTask {
      *                           retrieved from the local store or is corrupted
      */
     private Model load(String repoId) throws RepoStoreException {
-        Optional<String> input = RepoStore.read(repoId);
+        Path repoPath = JSONStore.getRepoPath(repoId);
 
-        if (!input.isPresent()) {
+        if (!Files.exists(repoPath)) {
             logger.error("Unable to load " + repoId + " from JSON cache");
             throw new JSONLoadException();
-        } else {
-            logger.info(HTLog.format(repoId, "Data loaded from JSON cache"));
-
-            try {
-                SerializableModel sModel = new Gson().fromJson(input.get(),
-                                                               new TypeToken<SerializableModel>() {}.getType());
+        }
 
-                return new Model(sModel);
-            } catch (NullPointerException | JsonParseException e) {
-                logger.error(HTLog.format(repoId, "JSON data is corrupted"));
-                throw new JSONLoadException(e);
-            }
+        try {
+            Model model = JSONModelReader.read(repoPath);
+            logger.info(HTLog.format(repoId, "Data loaded from JSON cache"));
+            return RepoJournal.replay(RepoJournal.getPath(repoId, JSONStore.EXTENSION), model);
+        } catch (JSONLoadException e) {
+            logger.error(HTLog.format(repoId, "JSON data is corrupted"));
+            throw e;
         }
     }
 }
@@ -1,5 +1,6 @@
 package backend.json;
 
+import backend.interfaces.RepoJournal;
 import backend.interfaces.RepoStore;
 import backend.interfaces.StoreTask;
 import backend.resource.serialization.SerializableModel;
@@ -28,10 +29,30 @@ class WriteTask extends StoreTask {
         response.complete(save(repoId, toSave));
     }
 
-    private boolean save(String repoId, SerializableModel model) {
+    /**
+     * A pending write is made redundant by a later one, which completes both responses.
+     */
+    @Override
+    protected boolean supersede(StoreTask pending) {
+        if (!(pending instanceof WriteTask)) {
+            return false;
+        }
+        response.thenAccept(((WriteTask) pending).response::complete);
+        return true;
+    }
+
+    /**
+     * Writes a repository to the JSON store, replacing its journal if successful.
+     *
+     * @return true if the written JSON is corrupted
+     */
+    static boolean save(String repoId, SerializableModel model) {
         String output = new Gson().toJson(model);
         boolean corruptedJson = RepoStore.write(repoId, output, model.issues.size());
         logger.info(HTLog.format(repoId, "Written to JSON store"));
+        if (!corruptedJson) {
+            RepoJournal.delete(RepoJournal.getPath(repoId, JSONStore.EXTENSION));
+        }
         return corruptedJson;
     }
 }
@@ -0,0 +1,165 @@
+package backend.resource;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Indexes the issues of a model by label, milestone, assignee, repository, state and type. Issues are
+ * identified by their positions in the model's list of issues, and each value maps to the set of the
+ * positions of the issues with it.
+ * <p>
+ * Instances are immutable. The sets returned are new, and may be modified by callers.
+ */
+public final class IssueBitmapIndex {
+
+    private final int size;
+    private final Map<String, BitSet> byLabel;
+    private final Map<Integer, BitSet> byMilestone;
+    private final Map<String, BitSet> byAssignee;
+    private final Map<String, BitSet> byRepoId;
+    private final BitSet open;
+    private final BitSet pullRequests;
+
+    private IssueBitmapIndex(int size, Map<String, BitSet> byLabel, Map<Integer, BitSet> byMilestone,
+                             Map<String, BitSet> byAssignee, Map<String, BitSet> byRepoId,
+                             BitSet open, BitSet pullRequests) {
+        this.size = size;
+        this.byLabel = byLabel;
+        this.byMilestone = byMilestone;
+        this.byAssignee = byAssignee;
+        this.byRepoId = byRepoId;
+        this.open = open;
+        this.pullRequests = pullRequests;
+    }
+
+    public static IssueBitmapIndex build(List<TurboIssue> issues) {
+        IssueBitmapIndex index = new IssueBitmapIndex(issues.size(), new HashMap<>(), new HashMap<>(),
+                                                      new HashMap<>(), new HashMap<>(), new BitSet(), new BitSet());
+        for (int i = 0; i < issues.size(); i++) {
+            index.set(i, issues.get(i), true, null);
+        }
+        return index;
+    }
+
+    /**
+     * Creates an index of {@code issues}, which differ from the issues of this index only at
+     * {@code positions}. Only the sets of the values of the issues at those positions are copied.
+     *
+     * @param previousIssues the issues this index was built from
+     * @param issues
+     * @param positions
+     * @return the new index
+     */
+    public IssueBitmapIndex withReplacedIssues(List<TurboIssue> previousIssues, List<TurboIssue> issues,
+                                               Set<Integer> positions) {
+        assert previousIssues.size() == size && issues.size() == size;
+
+        IssueBitmapIndex index = new IssueBitmapIndex(size, new HashMap<>(byLabel), new HashMap<>(byMilestone),
+                                                      new HashMap<>(byAssignee), new HashMap<>(byRepoId),
+                                                      (BitSet) open.clone(), (BitSet) pullRequests.clone());
+        Set<BitSet> copied = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int position : positions) {
+            index.set(position, previousIssues.get(position), false, copied);
+            index.set(position, issues.get(position), true, copied);
+        }
+        return index;
+    }
+
+    /**
+     * Sets or clears the position of {@code issue} in the sets of its values.
+     *
+     * @param copied the sets already copied from another index, which may be modified,
+     *               or null if all sets belong to this index
+     */
+    private void set(int position, TurboIssue issue, boolean value, Set<BitSet> copied) {
+        for (String label : issue.getLabels()) {
+            getMutable(byLabel, label, copied).set(position, value);
+        }
+        getMutable(byMilestone, issue.getMilestone().orElse(null), copied).set(position, value);
+        getMutable(byAssignee, issue.getAssignee().orElse(null), copied).set(position, value);
+        getMutable(byRepoId, issue.getRepoId(), copied).set(position, value);
+        open.set(position, value && issue.isOpen());
+        pullRequests.set(position, value && issue.isPullRequest());
+    }
+
+    private static <K> BitSet getMutable(Map<K, BitSet> sets, K key, Set<BitSet> copied) {
+        BitSet set = sets.get(key);
+        if (set == null) {
+            set = new BitSet();
+        } else if (copied != null && !copied.contains(set)) {
+            set = (BitSet) set.clone();
+        } else {
+            return set;
+        }
+        sets.put(key, set);
+        if (copied != null) {
+            copied.add(set);
+        }
+        return set;
+    }
+
+    /**
+     * @return the number of issues indexed
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the positions of the issues with a label whose name satisfies {@code labelName}
+     */
+    public BitSet getWithLabels(Predicate<String> labelName) {
+        return union(byLabel, labelName);
+    }
+
+    /**
+     * @return the positions of the issues with a milestone whose id satisfies {@code milestoneId}
+     */
+    public BitSet getWithMilestones(Predicate<Integer> milestoneId) {
+        return union(byMilestone, id -> id != null && milestoneId.test(id));
+    }
+
+    /**
+     * @return the positions of the issues with an assignee whose login name satisfies {@code loginName}
+     */
+    public BitSet getWithAssignees(Predicate<String> loginName) {
+        return union(byAssignee, login -> login != null && loginName.test(login));
+    }
+
+    /**
+     * @return the positions of the issues in the repository {@code repoId}, ignoring case
+     */
+    public BitSet getInRepo(String repoId) {
+        return union(byRepoId, repoId::equalsIgnoreCase);
+    }
+
+    /**
+     * @return the positions of the open issues
+     */
+    public BitSet getOpen() {
+        return (BitSet) open.clone();
+    }
+
+    /**
+     * @return the positions of the pull requests
+     */
+    public BitSet getPullRequests() {
+        return (BitSet) pullRequests.clone();
+    }
+
+    private <K> BitSet union(Map<K, BitSet> sets, Predicate<K> key) {
+        BitSet result = new BitSet(size);
+        sets.forEach((k, set) -> {
+            if (key.test(k)) {
+                result.or(set);
+            }
+        });
+        return result;
+    }
+}
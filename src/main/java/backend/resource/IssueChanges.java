@@ -0,0 +1,150 @@
+package backend.resource;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records the ids of issues that were added, modified or removed in each repository
+ * by one or more changes to a MultiModel. Immutable.
+ */
+public final class IssueChanges {
+
+    public static final IssueChanges EMPTY = new IssueChanges(new HashMap<>(), new HashMap<>(), new HashMap<>());
+
+    private final Map<String, Set<Integer>> added;
+    private final Map<String, Set<Integer>> modified;
+    private final Map<String, Set<Integer>> removed;
+
+    private IssueChanges(Map<String, Set<Integer>> added,
+                         Map<String, Set<Integer>> modified,
+                         Map<String, Set<Integer>> removed) {
+        this.added = added;
+        this.modified = modified;
+        this.removed = removed;
+    }
+
+    public static IssueChanges of(String repoId, Collection<Integer> added, Collection<Integer> modified,
+                                  Collection<Integer> removed) {
+        return new IssueChanges(singleRepo(repoId, added), singleRepo(repoId, modified),
+                                singleRepo(repoId, removed));
+    }
+
+    public static IssueChanges modified(String repoId, Collection<Integer> issueIds) {
+        return of(repoId, Collections.emptySet(), issueIds, Collections.emptySet());
+    }
+
+    private static Map<String, Set<Integer>> singleRepo(String repoId, Collection<Integer> issueIds) {
+        Map<String, Set<Integer>> result = new HashMap<>();
+        if (!issueIds.isEmpty()) {
+            result.put(repoId, new HashSet<>(issueIds));
+        }
+        return result;
+    }
+
+    /**
+     * Combines these changes with changes that happened after them.
+     * An issue that is added and later modified counts as added, an issue that is added
+     * and later removed is dropped, and an issue that is removed and later added counts as modified.
+     *
+     * @param later changes that happened after these
+     * @return the combined changes
+     */
+    public IssueChanges merge(IssueChanges later) {
+        if (later.isEmpty()) return this;
+        if (isEmpty()) return later;
+
+        Map<String, Set<Integer>> mergedAdded = copy(added);
+        Map<String, Set<Integer>> mergedModified = copy(modified);
+        Map<String, Set<Integer>> mergedRemoved = copy(removed);
+
+        later.added.forEach((repoId, ids) -> ids.forEach(id -> {
+            if (remove(mergedRemoved, repoId, id)) {
+                put(mergedModified, repoId, id);
+            } else {
+                put(mergedAdded, repoId, id);
+            }
+        }));
+        later.modified.forEach((repoId, ids) -> ids.forEach(id -> {
+            if (!contains(mergedAdded, repoId, id)) {
+                put(mergedModified, repoId, id);
+            }
+        }));
+        later.removed.forEach((repoId, ids) -> ids.forEach(id -> {
+            remove(mergedModified, repoId, id);
+            if (!remove(mergedAdded, repoId, id)) {
+                put(mergedRemoved, repoId, id);
+            }
+        }));
+
+        return new IssueChanges(mergedAdded, mergedModified, mergedRemoved);
+    }
+
+    private static Map<String, Set<Integer>> copy(Map<String, Set<Integer>> idsByRepo) {
+        Map<String, Set<Integer>> result = new HashMap<>();
+        idsByRepo.forEach((repoId, ids) -> result.put(repoId, new HashSet<>(ids)));
+        return result;
+    }
+
+    private static void put(Map<String, Set<Integer>> idsByRepo, String repoId, int id) {
+        idsByRepo.computeIfAbsent(repoId, r -> new HashSet<>()).add(id);
+    }
+
+    private static boolean remove(Map<String, Set<Integer>> idsByRepo, String repoId, int id) {
+        Set<Integer> ids = idsByRepo.get(repoId);
+        if (ids == null || !ids.remove(id)) {
+            return false;
+        }
+        if (ids.isEmpty()) {
+            idsByRepo.remove(repoId);
+        }
+        return true;
+    }
+
+    private static boolean contains(Map<String, Set<Integer>> idsByRepo, String repoId, int id) {
+        return idsByRepo.getOrDefault(repoId, Collections.emptySet()).contains(id);
+    }
+
+    public Set<Integer> getAdded(String repoId) {
+        return Collections.unmodifiableSet(added.getOrDefault(repoId, Collections.emptySet()));
+    }
+
+    public Set<Integer> getModified(String repoId) {
+        return Collections.unmodifiableSet(modified.getOrDefault(repoId, Collections.emptySet()));
+    }
+
+    public Set<Integer> getRemoved(String repoId) {
+        return Collections.unmodifiableSet(removed.getOrDefault(repoId, Collections.emptySet()));
+    }
+
+    /**
+     * @return ids of repositories which have changed issues
+     */
+    public Set<String> getRepoIds() {
+        Set<String> result = new HashSet<>(added.keySet());
+        result.addAll(modified.keySet());
+        result.addAll(removed.keySet());
+        return result;
+    }
+
+    /**
+     * @return true if the issue with {@code issueId} in {@code repoId} was added, modified or removed
+     */
+    public boolean isChanged(String repoId, int issueId) {
+        return contains(added, repoId, issueId)
+                || contains(modified, repoId, issueId)
+                || contains(removed, repoId, issueId);
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && modified.isEmpty() && removed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "added: " + added + ", modified: " + modified + ", removed: " + removed;
+    }
+}
@@ -0,0 +1,258 @@
+package backend.resource;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * An inverted index over the titles and descriptions of issues, which finds the issues whose title or
+ * description contains a string, ignoring case, as {@code text.toLowerCase().contains(query)} does.
+ * <p>
+ * Lower-cased text is split into tokens, which are the runs of letters and digits, and each token maps
+ * to the issues containing it. The tokens themselves are indexed by their trigrams. Every run of letters
+ * and digits in a query must be part of a single token in matching text, so the issues with tokens
+ * containing all of the runs are candidates, and the candidates are then checked against their text.
+ * Matches are cached by query.
+ * <p>
+ * Instances are immutable, and are shared by successive versions of a Model. Issues whose title or
+ * description is not the one indexed, e.g. because the issue was changed after, are not answered for
+ * (see {@link #isTitleIndexed} and {@link #isDescriptionIndexed}) and must be checked directly.
+ */
+public final class IssueTextIndex {
+
+    private static final int NGRAM_LENGTH = 3;
+    private static final int MAX_CACHED_QUERIES = 64;
+
+    private final Map<Integer, Integer> positionsById;
+    private final TurboIssue[] issues;
+    // The text of the issues when they were indexed, compared by reference to detect changes
+    private final String[] titles;
+    private final Object[] descriptions;
+
+    private final TokenIndex titleTokens;
+    private final TokenIndex descriptionTokens;
+
+    private final Map<String, Set<Integer>> titleMatches = new ConcurrentHashMap<>();
+    private final Map<String, Set<Integer>> descriptionMatches = new ConcurrentHashMap<>();
+
+    private IssueTextIndex(List<TurboIssue> issues) {
+        int count = issues.size();
+        this.positionsById = new HashMap<>(count * 4 / 3 + 1);
+        this.issues = issues.toArray(new TurboIssue[count]);
+        this.titles = new String[count];
+        this.descriptions = new Object[count];
+        for (int i = 0; i < count; i++) {
+            TurboIssue issue = this.issues[i];
+            positionsById.putIfAbsent(issue.getId(), i);
+            titles[i] = issue.getTitle();
+            descriptions[i] = issue.getDescriptionContent();
+        }
+        this.titleTokens = new TokenIndex(count, this::getTitle);
+        this.descriptionTokens = new TokenIndex(count, this::getDescription);
+    }
+
+    public static IssueTextIndex build(List<TurboIssue> issues) {
+        return new IssueTextIndex(issues);
+    }
+
+    /**
+     * @return true if the title of {@code issue} is indexed as it is
+     */
+    public boolean isTitleIndexed(TurboIssue issue) {
+        Integer position = positionsById.get(issue.getId());
+        return position != null && titles[position] == issue.getTitle();
+    }
+
+    /**
+     * @return true if the description of {@code issue} is indexed as it is
+     */
+    public boolean isDescriptionIndexed(TurboIssue issue) {
+        Integer position = positionsById.get(issue.getId());
+        return position != null && descriptions[position] == issue.getDescriptionContent();
+    }
+
+    /**
+     * @param lowerCaseQuery
+     * @return the ids of the indexed issues whose title contains {@code lowerCaseQuery}, ignoring case
+     */
+    public Set<Integer> getTitleMatches(String lowerCaseQuery) {
+        return getMatches(titleMatches, titleTokens, lowerCaseQuery, this::getTitle);
+    }
+
+    /**
+     * @param lowerCaseQuery
+     * @return the ids of the indexed issues whose description contains {@code lowerCaseQuery}, ignoring case
+     */
+    public Set<Integer> getDescriptionMatches(String lowerCaseQuery) {
+        return getMatches(descriptionMatches, descriptionTokens, lowerCaseQuery, this::getDescription);
+    }
+
+    /**
+     * @return the number of indexed issues whose title or description is not that of the same issue
+     * in {@code currentIssues}
+     */
+    public int countUnindexed(List<TurboIssue> currentIssues) {
+        int count = 0;
+        for (TurboIssue issue : currentIssues) {
+            if (!isTitleIndexed(issue) || !isDescriptionIndexed(issue)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private String getTitle(int position) {
+        return titles[position] == null ? "" : titles[position];
+    }
+
+    private String getDescription(int position) {
+        String description = issues[position].getDescription();
+        return description == null ? "" : description;
+    }
+
+    private Set<Integer> getMatches(Map<String, Set<Integer>> cache, TokenIndex tokens, String lowerCaseQuery,
+                                    IntFunction<String> text) {
+        Set<Integer> matches = cache.get(lowerCaseQuery);
+        if (matches != null) {
+            return matches;
+        }
+
+        matches = new HashSet<>();
+        BitSet candidates = tokens.getCandidates(lowerCaseQuery);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (text.apply(i).toLowerCase().contains(lowerCaseQuery)) {
+                matches.add(issues[i].getId());
+            }
+        }
+        matches = Collections.unmodifiableSet(matches);
+
+        if (cache.size() >= MAX_CACHED_QUERIES) {
+            cache.clear();
+        }
+        cache.put(lowerCaseQuery, matches);
+        return matches;
+    }
+
+    /**
+     * @return the runs of letters and digits in {@code text}
+     */
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < text.length(); i++) {
+            boolean isTokenChar = Character.isLetterOrDigit(text.charAt(i));
+            if (isTokenChar && start < 0) {
+                start = i;
+            } else if (!isTokenChar && start >= 0) {
+                tokens.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            tokens.add(text.substring(start));
+        }
+        return tokens;
+    }
+
+    /**
+     * The tokens of one field of the issues, and the positions of the issues containing each.
+     */
+    private static final class TokenIndex {
+        private final int issueCount;
+        private final String[] vocabulary;
+        private final int[][] postings;
+        private final Map<String, int[]> tokensByNgram;
+
+        private TokenIndex(int issueCount, IntFunction<String> text) {
+            this.issueCount = issueCount;
+
+            Map<String, List<Integer>> positionsByToken = new HashMap<>();
+            for (int i = 0; i < issueCount; i++) {
+                for (String token : new HashSet<>(tokenize(text.apply(i).toLowerCase()))) {
+                    positionsByToken.computeIfAbsent(token, t -> new ArrayList<>()).add(i);
+                }
+            }
+
+            this.vocabulary = positionsByToken.keySet().toArray(new String[positionsByToken.size()]);
+            this.postings = new int[vocabulary.length][];
+            Map<String, List<Integer>> tokenIdsByNgram = new HashMap<>();
+            for (int tokenId = 0; tokenId < vocabulary.length; tokenId++) {
+                String token = vocabulary[tokenId];
+                postings[tokenId] = toArray(positionsByToken.get(token));
+                Set<String> ngrams = new HashSet<>();
+                for (int i = 0; i + NGRAM_LENGTH <= token.length(); i++) {
+                    ngrams.add(token.substring(i, i + NGRAM_LENGTH));
+                }
+                for (String ngram : ngrams) {
+                    tokenIdsByNgram.computeIfAbsent(ngram, n -> new ArrayList<>()).add(tokenId);
+                }
+            }
+
+            this.tokensByNgram = new HashMap<>(tokenIdsByNgram.size() * 4 / 3 + 1);
+            tokenIdsByNgram.forEach((ngram, tokenIds) -> tokensByNgram.put(ngram, toArray(tokenIds)));
+        }
+
+        /**
+         * @return the positions of the issues which may contain {@code lowerCaseQuery}
+         */
+        private BitSet getCandidates(String lowerCaseQuery) {
+            BitSet candidates = new BitSet(issueCount);
+            candidates.set(0, issueCount);
+            for (String run : tokenize(lowerCaseQuery)) {
+                BitSet containingRun = new BitSet(issueCount);
+                for (int tokenId : getTokensContaining(run)) {
+                    for (int position : postings[tokenId]) {
+                        containingRun.set(position);
+                    }
+                }
+                candidates.and(containingRun);
+            }
+            return candidates;
+        }
+
+        private List<Integer> getTokensContaining(String run) {
+            List<Integer> result = new ArrayList<>();
+            if (run.length() < NGRAM_LENGTH) {
+                for (int tokenId = 0; tokenId < vocabulary.length; tokenId++) {
+                    if (vocabulary[tokenId].contains(run)) {
+                        result.add(tokenId);
+                    }
+                }
+                return result;
+            }
+
+            // Start from the n-gram of the run found in the fewest tokens
+            int[] fewest = null;
+            for (int i = 0; i + NGRAM_LENGTH <= run.length(); i++) {
+                int[] tokenIds = tokensByNgram.get(run.substring(i, i + NGRAM_LENGTH));
+                if (tokenIds == null) {
+                    return result;
+                }
+                if (fewest == null || tokenIds.length < fewest.length) {
+                    fewest = tokenIds;
+                }
+            }
+            for (int tokenId : fewest) {
+                if (vocabulary[tokenId].contains(run)) {
+                    result.add(tokenId);
+                }
+            }
+            return result;
+        }
+
+        private static int[] toArray(List<Integer> values) {
+            int[] result = new int[values.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = values.get(i);
+            }
+            return result;
+        }
+    }
+}
@@ -8,8 +8,15 @@ import org.apache.logging.log4j.Logger;
 import util.Utility;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @SuppressWarnings("unused")
@@ -22,8 +29,29 @@ public class Model implements IBaseModel {
     private final List<TurboMilestone> milestones;
     private final List<TurboUser> users;
 
+    // Lookup indexes over the lists above, built once on construction. Neither the lists nor
+    // the TurboIssue instances in them are modified by operations on this model; edits return
+    // modified copies of issues, which replace the originals in a new model (see withIssues).
+    private final Map<Integer, TurboIssue> issuesById;
+    private final Map<String, TurboLabel> labelsByName;
+    private final Map<String, TurboUser> usersByLogin;
+    private final Map<Integer, TurboMilestone> milestonesById;
+    private final Map<String, TurboMilestone> milestonesByTitle;
+
+    // Built on first use, or inherited from an earlier version of this model (see inheritTextIndex).
+    // Racing readers may each build an index, but they are all equivalent.
+    private volatile IssueTextIndex textIndex = null;
+    // Built on first use, or updated from the index of the model this was derived from by withIssues
+    private volatile IssueBitmapIndex bitmapIndex = null;
+    // Positions of the issues in ascending order of id and of update time, built on first use
+    private volatile int[] positionsById = null;
+    private volatile int[] positionsByUpdatedAt = null;
+
     private static final Logger logger = LogManager.getLogger(Model.class);
 
+    // The number of changed issues an inherited text index tolerates, however few issues there are
+    private static final int MIN_UNINDEXED_ISSUES = 16;
+
     /**
      * Standard constructor.
      */
@@ -37,6 +65,12 @@ public class Model implements IBaseModel {
         this.labels = labels;
         this.milestones = milestones;
         this.users = users;
+
+        this.issuesById = index(issues, TurboIssue::getId);
+        this.labelsByName = index(labels, TurboLabel::getFullName);
+        this.usersByLogin = index(users, TurboUser::getLoginName);
+        this.milestonesById = index(milestones, TurboMilestone::getId);
+        this.milestonesByTitle = index(milestones, TurboMilestone::getTitle);
     }
 
     /**
@@ -46,53 +80,51 @@ public class Model implements IBaseModel {
     public Model(String repoId, List<TurboIssue> issues,
                  List<TurboLabel> labels, List<TurboMilestone> milestones, List<TurboUser> users) {
 
-        this.updateSignature = UpdateSignature.EMPTY;
-        this.repoId = repoId;
-        this.issues = issues;
-        this.labels = labels;
-        this.milestones = milestones;
-        this.users = users;
+        this(repoId, issues, labels, milestones, users, UpdateSignature.EMPTY);
     }
 
     /**
      * Constructor for the empty model.
      */
     public Model(String repoId) {
-        this.updateSignature = UpdateSignature.EMPTY;
-        this.repoId = repoId;
-        this.issues = new ArrayList<>();
-        this.labels = new ArrayList<>();
-        this.milestones = new ArrayList<>();
-        this.users = new ArrayList<>();
+        this(repoId, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
     }
 
     /**
      * Copy constructor.
      */
     public Model(Model model) {
-        this.updateSignature = model.updateSignature;
-        this.repoId = model.getRepoId();
-        this.issues = new ArrayList<>(model.getIssues());
-        this.labels = new ArrayList<>(model.getLabels());
-        this.milestones = new ArrayList<>(model.getMilestones());
-        this.users = new ArrayList<>(model.getUsers());
+        this(model.getRepoId(), model.getIssues(), model.getLabels(), model.getMilestones(), model.getUsers(),
+             model.updateSignature);
     }
 
     public Model(SerializableModel model) {
-        this.updateSignature = model.updateSignature;
-        this.repoId = model.repoId;
-        this.issues = model.issues.stream()
-                .map(i -> new TurboIssue(model.repoId, i))
-                .collect(Collectors.toList());
-        this.labels = model.labels.stream()
-                .map(l -> new TurboLabel(model.repoId, l))
-                .collect(Collectors.toList());
-        this.milestones = model.milestones.stream()
-                .map(m -> new TurboMilestone(model.repoId, m))
-                .collect(Collectors.toList());
-        this.users = model.users.stream()
-                .map(u -> new TurboUser(model.repoId, u))
-                .collect(Collectors.toList());
+        this(model.repoId,
+             model.issues.stream()
+                     .map(i -> new TurboIssue(model.repoId, i))
+                     .collect(Collectors.toList()),
+             model.labels.stream()
+                     .map(l -> new TurboLabel(model.repoId, l))
+                     .collect(Collectors.toList()),
+             model.milestones.stream()
+                     .map(m -> new TurboMilestone(model.repoId, m))
+                     .collect(Collectors.toList()),
+             model.users.stream()
+                     .map(u -> new TurboUser(model.repoId, u))
+                     .collect(Collectors.toList()),
+             model.updateSignature);
+    }
+
+    /**
+     * Builds a lookup table over {@code items} keyed by {@code key}. Where keys collide,
+     * the first item is kept, matching the result of a linear scan over the list.
+     */
+    private static <K, V> Map<K, V> index(List<V> items, Function<V, K> key) {
+        Map<K, V> result = new HashMap<>();
+        for (V item : items) {
+            result.putIfAbsent(key.apply(item), item);
+        }
+        return result;
     }
 
     public String getRepoId() {
@@ -104,7 +136,7 @@ public class Model implements IBaseModel {
     }
 
     @Override
-    public synchronized List<TurboIssue> getIssues() {
+    public List<TurboIssue> getIssues() {
         return new ArrayList<>(issues);
     }
 
@@ -128,52 +160,41 @@ public class Model implements IBaseModel {
 
     public Optional<TurboIssue> getIssueById(int issueId) {
         assert issueId >= 1 : "Invalid issue id " + issueId;
-        for (TurboIssue issue : getIssues()) {
-            if (issue.getId() == issueId) {
-                return Optional.of(issue);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(issuesById.get(issueId));
+    }
+
+    /**
+     * @return the number of issues, without copying them as {@link #getIssues()} does
+     */
+    public int getIssueCount() {
+        return issues.size();
+    }
+
+    /**
+     * @return the issue at {@code position} in {@link #getIssues()}, without copying the issues
+     */
+    public TurboIssue getIssueAt(int position) {
+        return issues.get(position);
     }
 
     public Optional<TurboLabel> getLabelByActualName(String labelName) {
         assert labelName != null && !labelName.isEmpty() : "Invalid label name " + labelName;
-        for (TurboLabel label : getLabels()) {
-            if (label.getFullName().equals(labelName)) {
-                return Optional.of(label);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(labelsByName.get(labelName));
     }
 
     public Optional<TurboUser> getUserByLogin(String login) {
         assert login != null && !login.isEmpty() : "Invalid user name " + login;
-        for (TurboUser user : getUsers()) {
-            if (user.getLoginName().equals(login)) {
-                return Optional.of(user);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(usersByLogin.get(login));
     }
 
     public Optional<TurboMilestone> getMilestoneByTitle(String title) {
         assert title != null && !title.isEmpty() : "Invalid milestone title " + title;
-        for (TurboMilestone milestone : getMilestones()) {
-            if (milestone.getTitle().equals(title)) {
-                return Optional.of(milestone);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(milestonesByTitle.get(title));
     }
 
     public Optional<TurboMilestone> getMilestoneById(int id) {
         assert id >= 1 : "Invalid milestone id " + id;
-        for (TurboMilestone milestone : getMilestones()) {
-            if (milestone.getId() == id) {
-                return Optional.of(milestone);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(milestonesById.get(id));
     }
 
     public Optional<TurboMilestone> getMilestoneOfIssue(TurboIssue issue) {
@@ -196,72 +217,198 @@ public class Model implements IBaseModel {
     }
 
     /**
-     * Replaces labels of an issue specified by {@code issueId} with {@code labels}
+     * @param issue
+     * @param lowerCaseQuery
+     * @return true if the title of {@code issue}, which is in this model, contains {@code lowerCaseQuery},
+     * ignoring case
+     */
+    public boolean isTitleMatch(TurboIssue issue, String lowerCaseQuery) {
+        IssueTextIndex index = getTextIndex();
+        if (index.isTitleIndexed(issue)) {
+            return index.getTitleMatches(lowerCaseQuery).contains(issue.getId());
+        }
+        return issue.getTitle().toLowerCase().contains(lowerCaseQuery);
+    }
+
+    /**
+     * @param issue
+     * @param lowerCaseQuery
+     * @return true if the description of {@code issue}, which is in this model, contains
+     * {@code lowerCaseQuery}, ignoring case
+     */
+    public boolean isDescriptionMatch(TurboIssue issue, String lowerCaseQuery) {
+        IssueTextIndex index = getTextIndex();
+        if (index.isDescriptionIndexed(issue)) {
+            return index.getDescriptionMatches(lowerCaseQuery).contains(issue.getId());
+        }
+        return issue.getDescription().toLowerCase().contains(lowerCaseQuery);
+    }
+
+    /**
+     * @return the index of the issues of this model by label, milestone, assignee, repository,
+     * state and type, by their positions in {@link #getIssues()}
+     */
+    public IssueBitmapIndex getBitmapIndex() {
+        if (bitmapIndex == null) {
+            bitmapIndex = IssueBitmapIndex.build(issues);
+        }
+        return bitmapIndex;
+    }
+
+    /**
+     * @return the positions in {@link #getIssues()} of the issues in ascending order of id. Must not be modified.
+     */
+    public int[] getPositionsById() {
+        if (positionsById == null) {
+            positionsById = positionsInOrder(TurboIssue::getId);
+        }
+        return positionsById;
+    }
+
+    /**
+     * @return the positions in {@link #getIssues()} of the issues in ascending order of update time,
+     * with issues updated at the same time in order of position. Must not be modified.
+     */
+    public int[] getPositionsByUpdatedAt() {
+        if (positionsByUpdatedAt == null) {
+            positionsByUpdatedAt = positionsInOrder(TurboIssue::getUpdatedAt);
+        }
+        return positionsByUpdatedAt;
+    }
+
+    private <T extends Comparable<? super T>> int[] positionsInOrder(Function<TurboIssue, T> value) {
+        List<T> values = issues.stream().map(value).collect(Collectors.toList());
+        Integer[] order = new Integer[issues.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        // The sort is stable, so equal values stay in order of position
+        Arrays.sort(order, (i, j) -> values.get(i).compareTo(values.get(j)));
+        int[] positions = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            positions[i] = order[i];
+        }
+        return positions;
+    }
+
+    private IssueTextIndex getTextIndex() {
+        if (textIndex == null) {
+            textIndex = IssueTextIndex.build(issues);
+        }
+        return textIndex;
+    }
+
+    /**
+     * Reuses the text index of {@code previous}, an earlier version of this model, if it was built
+     * and still covers most issues. Issues changed since are then matched directly, until there are
+     * enough of them that the index is rebuilt.
+     *
+     * @param previous
+     */
+    void inheritTextIndex(Model previous) {
+        IssueTextIndex previousIndex = previous.textIndex;
+        if (textIndex == null && previousIndex != null
+                && previousIndex.countUnindexed(issues) <= Math.max(MIN_UNINDEXED_ISSUES, issues.size() / 16)) {
+            textIndex = previousIndex;
+        }
+    }
+
+    /**
+     * Replaces labels of an issue specified by {@code issueId} with {@code labels}.
+     * This model is not modified.
      *
      * @param issueId
      * @param labels
-     * @return the modified TurboIssue if successful
+     * @return a modified copy of the TurboIssue if successful
      */
-    public synchronized Optional<TurboIssue> replaceIssueLabels(int issueId, List<String> labels) {
-        Optional<TurboIssue> issueLookUpResult = getIssueById(issueId);
-        return Utility.safeFlatMapOptional(issueLookUpResult, (issue) -> {
-            issue.setLabels(labels);
-            return Optional.of(new TurboIssue(issue));
-        }, () -> logger.error("Issue " + issueId + " not found in model for " + repoId));
+    public Optional<TurboIssue> replaceIssueLabels(int issueId, List<String> labels) {
+        return editIssue(issueId, issue -> issue.setLabels(labels));
     }
 
     /**
-     * Replaces the milestone of an issue specified by {@code issueId} with {@code milestone}
+     * Replaces the milestone of an issue specified by {@code issueId} with {@code milestone}.
+     * This model is not modified.
      *
      * @param issueId
      * @param milestone
-     * @return the modified TurboIssue if successful
+     * @return a modified copy of the TurboIssue if successful
      */
-    public synchronized Optional<TurboIssue> replaceIssueMilestone(int issueId, Optional<Integer> milestone) {
-        Optional<TurboIssue> issueLookUpResult = getIssueById(issueId);
-        return Utility.safeFlatMapOptional(issueLookUpResult, (issue) -> {
+    public Optional<TurboIssue> replaceIssueMilestone(int issueId, Optional<Integer> milestone) {
+        return editIssue(issueId, issue -> {
             if (!milestone.isPresent()) {
                 issue.removeMilestone();
             } else {
                 issue.setMilestoneById(milestone.get());
             }
-            return Optional.of(new TurboIssue(issue));
-        }, () -> logger.error("Issue " + issueId + " not found in model for " + repoId));
+        });
     }
 
     /**
-     * Sets the open/closed state of an issue specified by {@code issueId} with {@code isOpen}
+     * Sets the open/closed state of an issue specified by {@code issueId} with {@code isOpen}.
+     * This model is not modified.
      *
      * @param issueId
      * @param isOpen
-     * @return the modified TurboIssue if successful
+     * @return a modified copy of the TurboIssue if successful
      */
-    public synchronized Optional<TurboIssue> editIssueState(int issueId, boolean isOpen) {
-        Optional<TurboIssue> issueLookUpResult = getIssueById(issueId);
-        return Utility.safeFlatMapOptional(issueLookUpResult, issue -> {
-            issue.setOpen(isOpen);
-            return Optional.of(new TurboIssue(issue));
-        }, () -> logger.error("Issue " + issueId + " not found in model for " + repoId));
+    public Optional<TurboIssue> editIssueState(int issueId, boolean isOpen) {
+        return editIssue(issueId, issue -> issue.setOpen(isOpen));
     }
 
     /**
-     * Replaces assignee of an issue specified by {@code issueId} with {@code assigneeLoginName}
+     * Replaces assignee of an issue specified by {@code issueId} with {@code assigneeLoginName}.
+     * This model is not modified.
      * @param issueId
      * @param assigneeLoginName
-     * @return the modified TurboIssue if successful
+     * @return a modified copy of the TurboIssue if successful
      */
-    public synchronized Optional<TurboIssue> replaceIssueAssignee(int issueId, Optional<String> assigneeLoginName) {
+    public Optional<TurboIssue> replaceIssueAssignee(int issueId, Optional<String> assigneeLoginName) {
+        return editIssue(issueId, issue -> {
+            if (!assigneeLoginName.isPresent()) {
+                issue.removeAssignee();
+            } else {
+                issue.setAssignee(assigneeLoginName.get());
+            }
+        });
+    }
+
+    private Optional<TurboIssue> editIssue(int issueId, Consumer<TurboIssue> edit) {
         Optional<TurboIssue> issueLookUpResult = getIssueById(issueId);
-        return Utility.safeFlatMapOptional(issueLookUpResult,
-            (issue) -> {
-                if (!assigneeLoginName.isPresent()) {
-                    issue.removeAssignee();
-                } else {
-                    issue.setAssignee(assigneeLoginName.get());
-                }
-                return Optional.of(new TurboIssue(issue));
-            },
-            () -> logger.error("Issue " + issueId + " not found in model for " + repoId));
+        return Utility.safeFlatMapOptional(issueLookUpResult, issue -> {
+            TurboIssue editedIssue = new TurboIssue(issue);
+            edit.accept(editedIssue);
+            return Optional.of(editedIssue);
+        }, () -> logger.error("Issue " + issueId + " not found in model for " + repoId));
+    }
+
+    /**
+     * Creates a model in which the issues with the same ids as those in {@code replacements}
+     * are replaced by them. Other issues, labels, milestones and users are shared with this model.
+     *
+     * @param replacements
+     * @return the new model
+     */
+    public Model withIssues(List<TurboIssue> replacements) {
+        Map<Integer, TurboIssue> replacementsById = index(replacements, TurboIssue::getId);
+        List<TurboIssue> newIssues = new ArrayList<>(issues.size());
+        Set<Integer> replacedPositions = new HashSet<>();
+        for (TurboIssue issue : issues) {
+            TurboIssue newIssue = replacementsById.getOrDefault(issue.getId(), issue);
+            if (newIssue != issue) {
+                replacedPositions.add(newIssues.size());
+            }
+            newIssues.add(newIssue);
+        }
+
+        Model model = new Model(repoId, newIssues, labels, milestones, users, updateSignature);
+        model.inheritTextIndex(this);
+        IssueBitmapIndex index = bitmapIndex;
+        if (index != null) {
+            model.bitmapIndex = index.withReplacedIssues(issues, newIssues, replacedPositions);
+        }
+        // Replacements have the same ids as the issues they replace
+        model.positionsById = positionsById;
+        return model;
     }
 
     @SuppressWarnings("unused")
@@ -9,6 +9,8 @@ import util.Utility;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -17,29 +19,49 @@ import java.util.stream.Collectors;
  * of local repositories data but do not go through the methods in this class i.e. operating on
  * dangling references its sub-components are considered unsafe
  * Thread-safe. The only top-level state in the application.
+ * <p>
+ * The state is published as immutable {@link MultiModelSnapshot}s. Reads are served from the current
+ * snapshot without locking. Changes are serialized, and copy on write: a changed repository gets a new
+ * Model with copies of the changed issues, which shares everything else with the model it replaces,
+ * and the other repositories' models are shared with the previous snapshot.
  */
 @SuppressWarnings("unused")
 public class MultiModel implements IModel {
 
-    private final HashMap<String, Model> models;
     private final Preferences prefs;
 
+    private final AtomicReference<MultiModelSnapshot> snapshot =
+            new AtomicReference<>(new MultiModelSnapshot(0, new HashMap<>(), null));
+
+    // Mutable state -- all access to these fields must be synchronized!
+
     // A pending repository is one that has been requested to load but has
     // not finished loading. We keep track of it because we don't want repeated
     // requests for the same repository to load it multiple times.
     private final HashSet<String> pendingRepositories;
 
-    // Guaranteed to have a value throughout
-    private String defaultRepo = null;
+    // The version of the snapshot is incremented on every change to the state of local repositories
+    // data. Changes which can be described by the issues they affect are journaled so that consumers
+    // holding results computed at an older version can update them instead of recomputing them.
+    private static final int MAX_JOURNALED_CHANGES = 100;
+    private long oldestJournaledVersion = 0;
+    private final LinkedList<IssueChanges> journal = new LinkedList<>();
 
     private static final Logger logger = LogManager.getLogger(MultiModel.class.getName());
 
     public MultiModel(Preferences prefs) {
-        this.models = new HashMap<>();
         this.pendingRepositories = new HashSet<>();
         this.prefs = prefs;
     }
 
+    /**
+     * @return the current state of local repositories data, which stays consistent however the
+     * MultiModel is changed after
+     */
+    public MultiModelSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
     public synchronized MultiModel addPending(Model model) {
         String repoId = model.getRepoId();
         Optional<String> matchingRepoId = pendingRepositories.stream()
@@ -48,17 +70,20 @@ public class MultiModel implements IModel {
                 .findFirst();
         assert matchingRepoId.isPresent() : "No pending repository " + repoId + "!";
         pendingRepositories.remove(matchingRepoId.get());
-        add(model);
         preprocessNewIssues(model);
+        add(model);
         return this;
     }
 
     private synchronized MultiModel add(Model model) {
-        this.models.put(model.getRepoId(), model);
+        HashMap<String, Model> models = copyModels();
+        models.put(model.getRepoId(), withPreviousTextIndex(model));
+        publishUnjournaledChange(models, getDefaultRepo());
         return this;
     }
 
     public synchronized MultiModel removeRepoModelById(String repoId) {
+        HashMap<String, Model> models = copyModels();
         Optional<String> repoIdCorrectCase = models.keySet().stream()
                 .filter(key -> key.equalsIgnoreCase(repoId)).findFirst();
         if (!repoIdCorrectCase.isPresent()) {
@@ -67,24 +92,26 @@ public class MultiModel implements IModel {
 
         Optional<Model> repoModelToBeDeleted = getModelById(repoIdCorrectCase.get());
         if (repoModelToBeDeleted.isPresent()) {
-            this.models.remove(repoModelToBeDeleted.get().getRepoId());
+            models.remove(repoModelToBeDeleted.get().getRepoId());
+            publishUnjournaledChange(models, getDefaultRepo());
         } else {
             logger.error("RepoModel to be deleted does not exist.");
         }
         return this;
     }
 
-    public synchronized Model get(String repoId) {
-        return models.get(repoId);
+    public Model get(String repoId) {
+        return getSnapshot().get(repoId);
     }
 
-    public synchronized List<Model> toModels() {
-        return new ArrayList<>(models.values());
+    public List<Model> toModels() {
+        return new ArrayList<>(getSnapshot().getModels());
     }
 
     public synchronized MultiModel replace(List<Model> newModels) {
-        this.models.clear();
-        newModels.forEach(this::add);
+        HashMap<String, Model> models = new HashMap<>();
+        newModels.forEach(model -> models.put(model.getRepoId(), withPreviousTextIndex(model)));
+        publishUnjournaledChange(models, getDefaultRepo());
         return this;
     }
 
@@ -93,6 +120,36 @@ public class MultiModel implements IModel {
         return this;
     }
 
+    /**
+     * Replaces the model of a repository with {@code newModel}, which differs from the
+     * current one only in the issues described by {@code changes}.
+     *
+     * @param newModel
+     * @param changes the issues which were added, modified or removed by the replacement
+     * @return this
+     */
+    public synchronized MultiModel replace(Model newModel, IssueChanges changes) {
+        HashMap<String, Model> models = copyModels();
+        models.put(newModel.getRepoId(), withPreviousTextIndex(newModel));
+        publishChanges(models, changes);
+        return this;
+    }
+
+    /**
+     * Lets {@code model} reuse the text index of the model it replaces, so that the index is not
+     * rebuilt from scratch when a few issues of a repository change.
+     *
+     * @param model
+     * @return {@code model}
+     */
+    private Model withPreviousTextIndex(Model model) {
+        Model previous = getSnapshot().get(model.getRepoId());
+        if (previous != null && previous != model) {
+            model.inheritTextIndex(previous);
+        }
+        return model;
+    }
+
     /**
      * Replaces labels of an issue specified by {@code issueId} in {@code repoId} with {@code labels}
      *
@@ -102,10 +159,7 @@ public class MultiModel implements IModel {
      * @return the modified TurboIssue if successful
      */
     public synchronized Optional<TurboIssue> replaceIssueLabels(String repoId, int issueId, List<String> labels) {
-        Optional<Model> modelLookUpResult = getModelById(repoId);
-        return Utility.safeFlatMapOptional(modelLookUpResult, (model) -> {
-            return model.replaceIssueLabels(issueId, labels);
-        }, () -> logger.error("Model " + repoId + " not found in models"));
+        return editIssue(repoId, model -> model.replaceIssueLabels(issueId, labels));
     }
 
     /**
@@ -118,10 +172,7 @@ public class MultiModel implements IModel {
      */
     public synchronized Optional<TurboIssue> replaceIssueMilestone(String repoId, int issueId,
                                                                    Optional<Integer> milestone) {
-        Optional<Model> modelLookUpResult = getModelById(repoId);
-        return Utility.safeFlatMapOptional(modelLookUpResult, (model) -> {
-            return model.replaceIssueMilestone(issueId, milestone);
-        }, () -> logger.error("Model " + repoId + " not found in models"));
+        return editIssue(repoId, model -> model.replaceIssueMilestone(issueId, milestone));
     }
 
     /**
@@ -133,10 +184,7 @@ public class MultiModel implements IModel {
      * @return the modified TurboIssue if successful
      */
     public synchronized Optional<TurboIssue> editIssueState(String repoId, int issueId, boolean isOpen) {
-        Optional<Model> modelLookUpResult = getModelById(repoId);
-        return Utility.safeFlatMapOptional(modelLookUpResult,
-            (model) -> model.editIssueState(issueId, isOpen),
-            () -> logger.error("Model " + repoId + " not found in models"));
+        return editIssue(repoId, model -> model.editIssueState(issueId, isOpen));
     }
 
     /**
@@ -148,15 +196,33 @@ public class MultiModel implements IModel {
      */
     public synchronized Optional<TurboIssue> replaceIssueAssignee(String repoId, int issueId,
                                                                   Optional<String> assigneeLoginName) {
+        return editIssue(repoId, model -> model.replaceIssueAssignee(issueId, assigneeLoginName));
+    }
+
+    /**
+     * Publishes the issue edited by {@code edit} in a new model for {@code repoId}.
+     *
+     * @param edit returns a modified copy of an issue in the model, without modifying the model
+     * @return a copy of the modified TurboIssue if successful
+     */
+    private Optional<TurboIssue> editIssue(String repoId, Function<Model, Optional<TurboIssue>> edit) {
         Optional<Model> modelLookUpResult = getModelById(repoId);
-        return Utility.safeFlatMapOptional(modelLookUpResult,
-            (model) -> model.replaceIssueAssignee(issueId, assigneeLoginName),
-            () -> logger.error("Model " + repoId + " not found in models"));
+        return Utility.safeFlatMapOptional(modelLookUpResult, model -> {
+            Optional<TurboIssue> editedIssue = edit.apply(model);
+            if (!editedIssue.isPresent()) {
+                return Optional.empty();
+            }
+            replaceIssues(model, Collections.singletonList(editedIssue.get()));
+            return Optional.of(new TurboIssue(editedIssue.get()));
+        }, () -> logger.error("Model " + repoId + " not found in models"));
     }
 
     public synchronized void insertMetadata(String repoId, Map<Integer, IssueMetadata> metadata, String currentUser) {
-        models.get(repoId).getIssues().forEach(issue -> {
-            if (metadata.containsKey(issue.getId())) {
+        Model model = get(repoId);
+        List<TurboIssue> updatedIssues = new ArrayList<>();
+        model.getIssues().forEach(existingIssue -> {
+            if (metadata.containsKey(existingIssue.getId())) {
+                TurboIssue issue = new TurboIssue(existingIssue);
                 IssueMetadata toBeInserted = metadata.get(issue.getId());
 
                 // ETag comparison is based on IssueMetadata constructor for more granularity, so that we can choose
@@ -168,8 +234,59 @@ public class MultiModel implements IModel {
                 issue.setMetadata(toBeInserted.reconcile(nonSelfUpdatedAt,
                                                          issue.getMetadata().getEvents(), issue.getMetadata()
                                                                  .getEventsETag()));
+                updatedIssues.add(issue);
+            }
+        });
+        replaceIssues(model, updatedIssues);
+    }
+
+    /**
+     * Inserts metadata loaded from the store for issues which have not had their metadata retrieved
+     * in this session. It is not the latest, and is revalidated the next time the metadata
+     * of the issues is retrieved.
+     *
+     * @param metadata intermediate metadata by issue id
+     * @return copies of the issues which the metadata was inserted into
+     */
+    public synchronized List<TurboIssue> insertStoredMetadata(String repoId, Map<Integer, IssueMetadata> metadata,
+                                                              String currentUser) {
+        Model model = get(repoId);
+        if (model == null) {
+            return new ArrayList<>();
+        }
+        List<TurboIssue> updatedIssues = new ArrayList<>();
+        model.getIssues().forEach(existingIssue -> {
+            IssueMetadata stored = metadata.get(existingIssue.getId());
+            IssueMetadata current = existingIssue.getMetadata();
+            if (stored == null || !current.getEventsETag().isEmpty() || !current.getCommentsETag().isEmpty()) {
+                return;
             }
+            TurboIssue issue = new TurboIssue(existingIssue);
+            IssueMetadata toBeInserted = stored.full(currentUser).invalidate();
+            LocalDateTime nonSelfUpdatedAt = reconcileCreationDate(toBeInserted.getNonSelfUpdatedAt(),
+                                                                   issue.getCreatedAt(), currentUser,
+                                                                   issue.getCreator());
+            issue.setMetadata(toBeInserted.reconcile(nonSelfUpdatedAt, toBeInserted.getEvents(),
+                                                     toBeInserted.getEventsETag()));
+            updatedIssues.add(issue);
         });
+        replaceIssues(model, updatedIssues);
+        return updatedIssues.stream().map(TurboIssue::new).collect(Collectors.toList());
+    }
+
+    /**
+     * Publishes a copy of {@code model} in which issues are replaced by those in {@code updatedIssues}
+     * with the same ids.
+     */
+    private void replaceIssues(Model model, List<TurboIssue> updatedIssues) {
+        if (updatedIssues.isEmpty()) {
+            return;
+        }
+        HashMap<String, Model> models = copyModels();
+        models.put(model.getRepoId(), model.withIssues(updatedIssues));
+        publishChanges(models, IssueChanges.modified(model.getRepoId(), updatedIssues.stream()
+                .map(TurboIssue::getId)
+                .collect(Collectors.toList())));
     }
 
     private static LocalDateTime reconcileCreationDate(LocalDateTime lastNonSelfUpdate,
@@ -193,105 +310,133 @@ public class MultiModel implements IModel {
     }
 
     @Override
-    public synchronized String getDefaultRepo() {
-        return defaultRepo;
+    public String getDefaultRepo() {
+        return getSnapshot().getDefaultRepo();
     }
 
-    @Override
     public synchronized void setDefaultRepo(String repoId) {
-        this.defaultRepo = repoId;
+        if (!Objects.equals(getDefaultRepo(), repoId)) {
+            publishUnjournaledChange(copyModels(), repoId);
+        }
     }
 
     @Override
     public boolean isUserInRepo(String repoId, String userName) {
-        List<TurboUser> usersOfRepo = getUsersOfRepo(repoId);
-        return usersOfRepo.stream()
-                .filter(userOfRepo -> userOfRepo.getRealName().toLowerCase().contains(userName.toLowerCase()) ||
-                        userOfRepo.getLoginName().toLowerCase().contains(userName.toLowerCase()))
-                .findFirst()
-                .isPresent();
+        return getSnapshot().isUserInRepo(repoId, userName);
     }
 
     @Override
-    public synchronized List<TurboIssue> getIssues() {
-        List<TurboIssue> result = new ArrayList<>();
-        models.values().forEach(m -> result.addAll(m.getIssues()));
-        return result;
+    public List<TurboIssue> getIssues() {
+        return getSnapshot().getIssues();
     }
 
     @Override
-    public synchronized List<TurboLabel> getLabels() {
-        List<TurboLabel> result = new ArrayList<>();
-        models.values().forEach(m -> result.addAll(m.getLabels()));
-        return result;
+    public List<TurboLabel> getLabels() {
+        return getSnapshot().getLabels();
     }
 
     @Override
-    public synchronized List<TurboMilestone> getMilestones() {
-        List<TurboMilestone> result = new ArrayList<>();
-        models.values().forEach(m -> result.addAll(m.getMilestones()));
-        return result;
+    public List<TurboMilestone> getMilestones() {
+        return getSnapshot().getMilestones();
     }
 
     @Override
-    public synchronized List<TurboUser> getUsers() {
-        List<TurboUser> result = new ArrayList<>();
-        models.values().forEach(m -> result.addAll(m.getUsers()));
-        return result;
+    public List<TurboUser> getUsers() {
+        return getSnapshot().getUsers();
     }
 
     @Override
-    public synchronized Optional<Model> getModelById(String repoId) {
-        return models.containsKey(repoId)
-                ? Optional.of(models.get(repoId))
-                : Optional.empty();
+    public Optional<Model> getModelById(String repoId) {
+        return getSnapshot().getModelById(repoId);
     }
 
     @Override
     public Optional<TurboUser> getAssigneeOfIssue(TurboIssue issue) {
-        return getModelById(issue.getRepoId())
-                .flatMap(m -> m.getAssigneeOfIssue(issue));
+        return getSnapshot().getAssigneeOfIssue(issue);
     }
 
     @Override
     public Optional<TurboUser> getAuthorOfIssue(TurboIssue issue) {
-        return getModelById(issue.getRepoId())
-                .flatMap(m -> m.getCreatorOfIssue(issue));
+        return getSnapshot().getAuthorOfIssue(issue);
     }
 
     @Override
     public List<TurboLabel> getLabelsOfIssue(TurboIssue issue, Predicate<TurboLabel> predicate) {
-        return getModelById(issue.getRepoId())
-                .flatMap(m -> Optional.of(m.getLabelsOfIssue(issue)))
-                .get().stream()
-                .filter(predicate)
-                .collect(Collectors.toList());
+        return getSnapshot().getLabelsOfIssue(issue, predicate);
     }
 
     @Override
     public List<TurboUser> getUsersOfRepo(String repoId) {
-        Optional<Model> model = getModelById(repoId);
-        return model.isPresent() ? model.get().getUsers() : new ArrayList<>();
+        return getSnapshot().getUsersOfRepo(repoId);
     }
 
     @Override
     public List<TurboLabel> getLabelsOfIssue(TurboIssue issue) {
-        return getModelById(issue.getRepoId())
-                .flatMap(m -> Optional.of(m.getLabelsOfIssue(issue)))
-                .get();
+        return getSnapshot().getLabelsOfIssue(issue);
     }
 
     @Override
     public Optional<TurboMilestone> getMilestoneOfIssue(TurboIssue issue) {
-        return getModelById(issue.getRepoId())
-                .flatMap(m -> m.getMilestoneOfIssue(issue));
+        return getSnapshot().getMilestoneOfIssue(issue);
+    }
+
+    /**
+     * @return the version of the state of local repositories data, which increases on every change
+     */
+    public long getVersion() {
+        return getSnapshot().getVersion();
+    }
+
+    /**
+     * Gets the issues which have changed since {@code sinceVersion}.
+     *
+     * @param sinceVersion a version previously returned by {@link #getVersion()}
+     * @return the changes up to the current version, or empty if some change since that version cannot
+     * be described by the issues it affects, e.g. a repository was added, or the change is no longer journaled
+     */
+    public synchronized Optional<IssueChanges> getChangesSince(long sinceVersion) {
+        if (sinceVersion < oldestJournaledVersion || sinceVersion > getVersion()) {
+            return Optional.empty();
+        }
+        IssueChanges result = IssueChanges.EMPTY;
+        // The journal holds the changes from oldestJournaledVersion + 1 up to the current version
+        int skipped = (int) (sinceVersion - oldestJournaledVersion);
+        for (IssueChanges changes : journal.subList(skipped, journal.size())) {
+            result = result.merge(changes);
+        }
+        return Optional.of(result);
+    }
+
+    private HashMap<String, Model> copyModels() {
+        HashMap<String, Model> models = new HashMap<>();
+        getSnapshot().getModels().forEach(model -> models.put(model.getRepoId(), model));
+        return models;
+    }
+
+    private void publishChanges(HashMap<String, Model> models, IssueChanges changes) {
+        journal.add(changes);
+        if (journal.size() > MAX_JOURNALED_CHANGES) {
+            journal.removeFirst();
+            oldestJournaledVersion++;
+        }
+        publish(models, getDefaultRepo());
+    }
+
+    private void publishUnjournaledChange(HashMap<String, Model> models, String defaultRepo) {
+        journal.clear();
+        oldestJournaledVersion = getVersion() + 1;
+        publish(models, defaultRepo);
+    }
+
+    private void publish(HashMap<String, Model> models, String defaultRepo) {
+        snapshot.set(new MultiModelSnapshot(getVersion() + 1, models, defaultRepo));
     }
 
     public synchronized boolean isRepositoryPending(String repoId) {
         return pendingRepositories.stream().anyMatch(pendingRepo -> pendingRepo.equalsIgnoreCase(repoId));
     }
 
-    public void queuePendingRepository(String repoId) {
+    public synchronized void queuePendingRepository(String repoId) {
         pendingRepositories.add(repoId);
     }
 
@@ -317,12 +462,12 @@ public class MultiModel implements IModel {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         MultiModel that = (MultiModel) o;
-        return models.equals(that.models);
+        return copyModels().equals(that.copyModels());
     }
 
     @Override
     public int hashCode() {
-        return models.hashCode();
+        return copyModels().hashCode();
     }
 
 }
@@ -0,0 +1,167 @@
+package backend.resource;
+
+import backend.interfaces.IModel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * The state of a MultiModel at one version. Snapshots are immutable: MultiModel publishes a new
+ * snapshot on every change instead of modifying the current one, so a snapshot may be read from
+ * any thread without locking, and everything read from it is consistent with the same version.
+ * <p>
+ * The combined issues, labels, milestones and users of all repositories are gathered on first
+ * use and then shared by all readers of the snapshot.
+ */
+public final class MultiModelSnapshot implements IModel {
+
+    private final long version;
+    private final Map<String, Model> models;
+    private final String defaultRepo;
+
+    // Gathered lazily. Racing readers may each gather a list, but they are all equal.
+    private volatile List<TurboIssue> issues = null;
+    private volatile List<TurboLabel> labels = null;
+    private volatile List<TurboMilestone> milestones = null;
+    private volatile List<TurboUser> users = null;
+
+    /**
+     * @param version
+     * @param models      the models by repo id, which must not be modified after this call
+     * @param defaultRepo
+     */
+    MultiModelSnapshot(long version, HashMap<String, Model> models, String defaultRepo) {
+        this.version = version;
+        this.models = Collections.unmodifiableMap(models);
+        this.defaultRepo = defaultRepo;
+    }
+
+    /**
+     * @return the version of the MultiModel this is a snapshot of
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public Model get(String repoId) {
+        return models.get(repoId);
+    }
+
+    public Collection<Model> getModels() {
+        return models.values();
+    }
+
+    /**
+     * @return the issue with id {@code issueId} in {@code repoId}, if any
+     */
+    public Optional<TurboIssue> getIssue(String repoId, int issueId) {
+        Model model = models.get(repoId);
+        return model == null ? Optional.empty() : model.getIssueById(issueId);
+    }
+
+    @Override
+    public String getDefaultRepo() {
+        return defaultRepo;
+    }
+
+    @Override
+    public List<TurboIssue> getIssues() {
+        if (issues == null) {
+            issues = gather(Model::getIssues);
+        }
+        return issues;
+    }
+
+    @Override
+    public List<TurboLabel> getLabels() {
+        if (labels == null) {
+            labels = gather(Model::getLabels);
+        }
+        return labels;
+    }
+
+    @Override
+    public List<TurboMilestone> getMilestones() {
+        if (milestones == null) {
+            milestones = gather(Model::getMilestones);
+        }
+        return milestones;
+    }
+
+    @Override
+    public List<TurboUser> getUsers() {
+        if (users == null) {
+            users = gather(Model::getUsers);
+        }
+        return users;
+    }
+
+    private <T> List<T> gather(Function<Model, List<T>> items) {
+        List<T> result = new ArrayList<>();
+        models.values().forEach(m -> result.addAll(items.apply(m)));
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public boolean isUserInRepo(String repoId, String userName) {
+        List<TurboUser> usersOfRepo = getUsersOfRepo(repoId);
+        return usersOfRepo.stream()
+                .filter(userOfRepo -> userOfRepo.getRealName().toLowerCase().contains(userName.toLowerCase()) ||
+                        userOfRepo.getLoginName().toLowerCase().contains(userName.toLowerCase()))
+                .findFirst()
+                .isPresent();
+    }
+
+    @Override
+    public Optional<Model> getModelById(String repoId) {
+        return Optional.ofNullable(models.get(repoId));
+    }
+
+    @Override
+    public Optional<TurboUser> getAssigneeOfIssue(TurboIssue issue) {
+        return getModelById(issue.getRepoId())
+                .flatMap(m -> m.getAssigneeOfIssue(issue));
+    }
+
+    @Override
+    public Optional<TurboUser> getAuthorOfIssue(TurboIssue issue) {
+        return getModelById(issue.getRepoId())
+                .flatMap(m -> m.getCreatorOfIssue(issue));
+    }
+
+    @Override
+    public List<TurboLabel> getLabelsOfIssue(TurboIssue issue, Predicate<TurboLabel> predicate) {
+        return getModelById(issue.getRepoId())
+                .flatMap(m -> Optional.of(m.getLabelsOfIssue(issue)))
+                .get().stream()
+                .filter(predicate)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<TurboUser> getUsersOfRepo(String repoId) {
+        Optional<Model> model = getModelById(repoId);
+        return model.isPresent() ? model.get().getUsers() : new ArrayList<>();
+    }
+
+    @Override
+    public List<TurboLabel> getLabelsOfIssue(TurboIssue issue) {
+        return getModelById(issue.getRepoId())
+                .flatMap(m -> Optional.of(m.getLabelsOfIssue(issue)))
+                .get();
+    }
+
+    @Override
+    public Optional<TurboMilestone> getMilestoneOfIssue(TurboIssue issue) {
+        return getModelById(issue.getRepoId())
+                .flatMap(m -> m.getMilestoneOfIssue(issue));
+    }
+}
@@ -2,13 +2,27 @@ package backend.resource;
 
 import static util.Utility.replaceNull;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.egit.github.core.Issue;
 import org.eclipse.egit.github.core.Label;
@@ -22,6 +36,12 @@ import util.Utility;
 
 /**
  * The guidelines in this class apply to all TurboResources.
+ * <p>
+ * Many thousands of issues are held at a time, so their fields are laid out compactly. Repo ids, user
+ * names and label names are interned, so each distinct one is stored once. Times are stored as the
+ * nanoseconds since the epoch in UTC (covering the years 1678 to 2261), optional values as nullable
+ * fields, and labels as an array which is replaced rather than modified. Long descriptions are stored
+ * compressed. The getters convert to the usual types.
  */
 public class TurboIssue {
     private static final Logger logger = HTLog.get(TurboIssue.class);
@@ -29,6 +49,14 @@ public class TurboIssue {
     public static final String STATE_CLOSED = "closed";
     public static final String STATE_OPEN = "open";
 
+    private static final Interner<String> IDENTIFIERS = Interners.newWeakInterner();
+    private static final String[] NO_LABELS = new String[0];
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    // Descriptions of at least this many characters are stored compressed
+    private static final int MIN_COMPRESSED_DESCRIPTION_LENGTH = 512;
+
     /**
      * Serialized fields.
      * <p>
@@ -41,19 +69,20 @@ public class TurboIssue {
     // Immutable
     private final int id;
     private final String creator;
-    private final LocalDateTime createdAt;
+    private final long createdAt;
     private final boolean isPullRequest;
 
 
     // Mutable
     private String title;
-    private String description;
-    private LocalDateTime updatedAt;
+    private String description; // Null if the description is compressed
+    private byte[] compressedDescription; // Null unless the description is compressed
+    private long updatedAt;
     private int commentCount;
     private boolean isOpen;
-    private Optional<String> assignee;
-    private List<String> labels;
-    private Optional<Integer> milestone;
+    private String assignee; // Nullable
+    private String[] labels;
+    private Integer milestone; // Nullable
 
     /**
      * Metadata associated with issues that is not serialized.
@@ -63,14 +92,14 @@ public class TurboIssue {
 
     private final String repoId;
     private IssueMetadata metadata;
-    private Optional<LocalDateTime> markedReadAt;
+    private long markedReadAt = NO_TIME;
 
     /* This field records the most recently modified time of the issue's labels or state. Any method that updates
-       the labels must also update this field. If this is empty, updatedAt time is used instead */
-    private Optional<LocalDateTime> labelsLastModifiedAt = Optional.empty();
-    private Optional<LocalDateTime> milestoneLastModifiedAt = Optional.empty();
-    private Optional<LocalDateTime> stateLastModifiedAt = Optional.empty();
-    private Optional<LocalDateTime> assigneeLastModifiedAt = Optional.empty();
+       the labels must also update this field. If this is NO_TIME, updatedAt time is used instead */
+    private long labelsLastModifiedAt = NO_TIME;
+    private long milestoneLastModifiedAt = NO_TIME;
+    private long stateLastModifiedAt = NO_TIME;
+    private long assigneeLastModifiedAt = NO_TIME;
 
 
     @SuppressWarnings("unused")
@@ -82,13 +111,13 @@ public class TurboIssue {
     public TurboIssue(String repoId, int id, String title) {
         this.id = id;
         this.creator = "";
-        this.createdAt = LocalDateTime.now();
+        this.createdAt = toNanos(LocalDateTime.now());
         this.isPullRequest = false;
 
         mutableFieldDefaults();
 
         this.title = title;
-        this.repoId = repoId;
+        this.repoId = intern(repoId);
     }
 
     /**
@@ -97,14 +126,39 @@ public class TurboIssue {
     public TurboIssue(String repoId, int id, String title,
                       String creator, LocalDateTime createdAt, boolean isPullRequest) {
         this.id = id;
-        this.creator = creator;
-        this.createdAt = createdAt;
+        this.creator = intern(creator);
+        this.createdAt = toNanos(createdAt);
         this.isPullRequest = isPullRequest;
 
         mutableFieldDefaults();
 
         this.title = title;
-        this.repoId = repoId;
+        this.repoId = intern(repoId);
+    }
+
+    /**
+     * Constructor for issues restored from a store, taking all serialized fields.
+     */
+    public TurboIssue(String repoId, int id, String title,
+                      String creator, LocalDateTime createdAt, boolean isPullRequest,
+                      String description, LocalDateTime updatedAt, int commentCount, boolean isOpen,
+                      Optional<String> assignee, List<String> labels, Optional<Integer> milestone) {
+        this.id = id;
+        this.creator = intern(creator);
+        this.createdAt = toNanos(createdAt);
+        this.isPullRequest = isPullRequest;
+
+        this.title = title;
+        setDescriptionField(description);
+        this.updatedAt = toNanos(replaceNull(updatedAt, createdAt));
+        this.commentCount = commentCount;
+        this.isOpen = isOpen;
+        this.assignee = intern(assignee.orElse(null));
+        this.labels = internLabels(labels);
+        this.milestone = milestone.orElse(null);
+
+        this.metadata = IssueMetadata.empty();
+        this.repoId = intern(repoId);
     }
 
     // Copy constructor
@@ -116,19 +170,20 @@ public class TurboIssue {
         this.isPullRequest = issue.isPullRequest;
 
         this.description = issue.description;
-        this.updatedAt = replaceNull(issue.updatedAt, this.createdAt);
+        this.compressedDescription = issue.compressedDescription;
+        this.updatedAt = issue.updatedAt == NO_TIME ? this.createdAt : issue.updatedAt;
         this.commentCount = issue.commentCount;
         this.isOpen = issue.isOpen;
         this.assignee = issue.assignee;
-        this.labels = new ArrayList<>(issue.labels);
+        this.labels = issue.labels;
         this.milestone = issue.milestone;
 
         this.metadata = issue.metadata;
         this.repoId = issue.repoId;
         this.markedReadAt = issue.markedReadAt;
-        this.labelsLastModifiedAt = Optional.of(issue.getLabelsLastModifiedAt());
-        this.stateLastModifiedAt = Optional.of(issue.getStateLastModifiedAt());
-        this.milestoneLastModifiedAt = Optional.of(issue.getMilestoneLastModifiedAt());
+        this.labelsLastModifiedAt = orElse(issue.labelsLastModifiedAt, issue.updatedAt);
+        this.stateLastModifiedAt = orElse(issue.stateLastModifiedAt, issue.updatedAt);
+        this.milestoneLastModifiedAt = orElse(issue.milestoneLastModifiedAt, issue.updatedAt);
     }
 
     public TurboIssue(String repoId, Issue issue) {
@@ -136,50 +191,48 @@ public class TurboIssue {
         this.title = issue.getTitle() == null
                 ? ""
                 : issue.getTitle();
-        this.creator = issue.getUser().getLogin();
-        this.createdAt = Utility.dateToLocalDateTime(issue.getCreatedAt());
+        this.creator = intern(issue.getUser().getLogin());
+        this.createdAt = toNanos(Utility.dateToLocalDateTime(issue.getCreatedAt()));
         this.isPullRequest = isPullRequest(issue);
 
-        this.description = issue.getBody() == null
+        setDescriptionField(issue.getBody() == null
                 ? ""
-                : issue.getBody();
+                : issue.getBody());
         this.updatedAt = issue.getUpdatedAt() != null ?
-                Utility.dateToLocalDateTime(issue.getUpdatedAt()) : this.createdAt;
+                toNanos(Utility.dateToLocalDateTime(issue.getUpdatedAt())) : this.createdAt;
         this.commentCount = issue.getComments();
         this.isOpen = issue.getState().equals(STATE_OPEN);
         this.assignee = issue.getAssignee() == null
-                ? Optional.empty()
-                : Optional.of(issue.getAssignee().getLogin());
-        this.labels = issue.getLabels().stream()
+                ? null
+                : intern(issue.getAssignee().getLogin());
+        this.labels = internLabels(issue.getLabels().stream()
                 .map(Label::getName)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
         this.milestone = issue.getMilestone() == null
-                ? Optional.empty()
-                : Optional.of(issue.getMilestone().getNumber());
+                ? null
+                : issue.getMilestone().getNumber();
 
         this.metadata = IssueMetadata.empty();
-        this.repoId = repoId;
-        this.markedReadAt = Optional.empty();
+        this.repoId = intern(repoId);
     }
 
     public TurboIssue(String repoId, SerializableIssue issue) {
         this.id = issue.getId();
-        this.creator = issue.getCreator();
-        this.createdAt = issue.getCreatedAt();
+        this.creator = intern(issue.getCreator());
+        this.createdAt = toNanos(issue.getCreatedAt());
         this.isPullRequest = issue.isPullRequest();
 
         this.title = issue.getTitle();
-        this.description = issue.getDescription();
-        this.updatedAt = replaceNull(issue.getUpdatedAt(), this.createdAt);
+        setDescriptionField(issue.getDescription());
+        this.updatedAt = toNanos(replaceNull(issue.getUpdatedAt(), issue.getCreatedAt()));
         this.commentCount = issue.getCommentCount();
         this.isOpen = issue.isOpen();
-        this.assignee = issue.getAssignee();
-        this.labels = issue.getLabels();
-        this.milestone = issue.getMilestone();
+        this.assignee = intern(issue.getAssignee().orElse(null));
+        this.labels = internLabels(issue.getLabels());
+        this.milestone = issue.getMilestone().orElse(null);
 
         this.metadata = IssueMetadata.empty();
-        this.repoId = repoId;
-        this.markedReadAt = Optional.empty();
+        this.repoId = intern(repoId);
     }
 
     @SuppressWarnings("unused")
@@ -192,15 +245,98 @@ public class TurboIssue {
     private void mutableFieldDefaults() {
         this.title = "";
         this.description = "";
-        this.updatedAt = replaceNull(this.createdAt, LocalDateTime.now());
+        this.updatedAt = this.createdAt == NO_TIME ? toNanos(LocalDateTime.now()) : this.createdAt;
         this.commentCount = 0;
         this.isOpen = true;
-        this.assignee = Optional.empty();
-        this.labels = new ArrayList<>();
-        this.milestone = Optional.empty();
+        this.assignee = null;
+        this.labels = NO_LABELS;
+        this.milestone = null;
 
         this.metadata = IssueMetadata.empty();
-        this.markedReadAt = Optional.empty();
+        this.markedReadAt = NO_TIME;
+    }
+
+    private static String intern(String identifier) {
+        return identifier == null ? null : IDENTIFIERS.intern(identifier);
+    }
+
+    private static String[] internLabels(List<String> labels) {
+        if (labels == null || labels.isEmpty()) {
+            return NO_LABELS;
+        }
+        String[] result = new String[labels.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = intern(labels.get(i));
+        }
+        return result;
+    }
+
+    private static long toNanos(LocalDateTime time) {
+        if (time == null) {
+            return NO_TIME;
+        }
+        return Math.addExact(Math.multiplyExact(time.toEpochSecond(ZoneOffset.UTC), NANOS_PER_SECOND),
+                             time.getNano());
+    }
+
+    private static LocalDateTime fromNanos(long nanos) {
+        if (nanos == NO_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND),
+                                           (int) Math.floorMod(nanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+
+    private static long orElse(long time, long otherTime) {
+        return time == NO_TIME ? otherTime : time;
+    }
+
+    private void setDescriptionField(String description) {
+        if (description == null || description.length() < MIN_COMPRESSED_DESCRIPTION_LENGTH) {
+            this.description = description;
+            this.compressedDescription = null;
+        } else {
+            this.description = null;
+            this.compressedDescription = compress(description);
+        }
+    }
+
+    private static byte[] compress(String text) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(text.getBytes(StandardCharsets.UTF_8));
+            deflater.finish();
+            ByteArrayOutputStream result = new ByteArrayOutputStream(text.length() / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                result.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return result.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String decompress(byte[] compressed) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream result = new ByteArrayOutputStream(compressed.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && inflater.needsInput()) {
+                    break;
+                }
+                result.write(buffer, 0, length);
+            }
+            return new String(result.toByteArray(), StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            // Only this class compresses descriptions, so this should not happen
+            throw new IllegalStateException("Corrupt compressed description", e);
+        } finally {
+            inflater.end();
+        }
     }
 
     /**
@@ -239,8 +375,8 @@ public class TurboIssue {
         if (thisIssueLabelsModifiedAt.isBefore(otherIssueLabelsModifiedAt)) {
             logger.info(String.format("Issue %s's labels %s are stale, replacing with %s",
                                       this, this.getLabels(), otherIssue.getLabels()));
-            this.labels = otherIssue.getLabels();
-            this.labelsLastModifiedAt = Optional.of(otherIssue.getLabelsLastModifiedAt());
+            this.labels = otherIssue.labels;
+            this.labelsLastModifiedAt = orElse(otherIssue.labelsLastModifiedAt, otherIssue.updatedAt);
         }
     }
 
@@ -254,8 +390,8 @@ public class TurboIssue {
         if (thisIssueAssigneeModifiedAt.isBefore(otherIssueAssigneeModifiedAt)) {
             logger.info(String.format("Issue %s's assignee %s is stale, replacing with %s",
                         this, this.getAssignee(), otherIssue.getAssignee()));
-            this.assignee = otherIssue.getAssignee();
-            this.assigneeLastModifiedAt = Optional.of(otherIssueAssigneeModifiedAt);
+            this.assignee = otherIssue.assignee;
+            this.assigneeLastModifiedAt = orElse(otherIssue.assigneeLastModifiedAt, otherIssue.updatedAt);
         }
 
     }
@@ -272,23 +408,57 @@ public class TurboIssue {
     }
 
     /**
-     * Takes lists of TurboIssues and reconciles the changes between them,
-     * returning a list of TurboIssues with updates from the second.
+     * The issues resulting from {@link #merge}, along with the ids of those which were added or modified.
+     */
+    public static final class MergeResult {
+        public final List<TurboIssue> issues;
+        public final Set<Integer> added;
+        public final Set<Integer> modified;
+
+        private MergeResult(List<TurboIssue> issues, Set<Integer> added, Set<Integer> modified) {
+            this.issues = issues;
+            this.added = Collections.unmodifiableSet(added);
+            this.modified = Collections.unmodifiableSet(modified);
+        }
+    }
+
+    /**
+     * Merges changed issues and updated pull requests into a list of issues in time linear in the
+     * sizes of the lists. Issues are matched by id through an index, rather than by searching the list.
+     * <p>
+     * Changed issues replace their existing counterparts, reconciled with them (see
+     * {@link #reconcile(TurboIssue)}), or are added at the end. Pull requests update their corresponding
+     * issues (see {@link #combineWithPullRequest}). Issues which are neither changed nor updated by a pull
+     * request are shared with {@code existing} rather than copied. The original list and issue instances
+     * are not mutated.
      *
      * @param existing
      * @param changed
+     * @param pullRequests
+     * @return the merged issues, in the order of {@code existing}
      */
-    public static List<TurboIssue> reconcile(List<TurboIssue> existing, List<TurboIssue> changed) {
-        List<TurboIssue> existingCopy = new ArrayList<>(existing);
+    public static MergeResult merge(List<TurboIssue> existing, List<TurboIssue> changed,
+                                    List<PullRequest> pullRequests) {
+        List<TurboIssue> merged = new ArrayList<>(existing.size() + changed.size());
+        merged.addAll(existing);
+        Map<Integer, Integer> indexById = new HashMap<>(existing.size() * 4 / 3 + 1);
+        for (int i = 0; i < merged.size(); i++) {
+            indexById.put(merged.get(i).getId(), i);
+        }
+        Set<Integer> added = new HashSet<>();
+        Set<Integer> modified = new HashSet<>();
+
         for (TurboIssue issue : changed) {
             int id = issue.getId();
+            TurboIssue newIssue = new TurboIssue(issue);
 
-            Optional<Integer> correspondingIssueIndex = findIssueWithId(existingCopy, id);
-            if (!correspondingIssueIndex.isPresent()) {
-                existingCopy.add(new TurboIssue(issue));
+            Integer index = indexById.get(id);
+            if (index == null) {
+                indexById.put(id, merged.size());
+                merged.add(newIssue);
+                added.add(id);
             } else {
-                TurboIssue existingIssue = existingCopy.get(correspondingIssueIndex.get());
-                TurboIssue newIssue = new TurboIssue(issue);
+                TurboIssue existingIssue = merged.get(index);
 
                 // newIssue is constructed from an external Issue object.
                 // It won't have the transient state that its TurboIssue
@@ -296,10 +466,42 @@ public class TurboIssue {
                 newIssue.transferTransientState(existingIssue);
                 newIssue.reconcile(existingIssue);
 
-                existingCopy.set(correspondingIssueIndex.get(), newIssue);
+                merged.set(index, newIssue);
+                if (!added.contains(id)) {
+                    modified.add(id);
+                }
             }
         }
-        return existingCopy;
+
+        for (PullRequest pullRequest : pullRequests) {
+            int id = pullRequest.getNumber();
+
+            Integer index = indexById.get(id);
+            if (index == null) {
+                logger.error("No corresponding issue for pull request " + pullRequest);
+                continue;
+            }
+            TurboIssue issue = merged.get(index);
+            if (issue.isUpdatedBy(pullRequest)) {
+                merged.set(index, issue.combineWithPullRequest(pullRequest));
+                if (!added.contains(id)) {
+                    modified.add(id);
+                }
+            }
+        }
+
+        return new MergeResult(merged, added, modified);
+    }
+
+    /**
+     * Takes lists of TurboIssues and reconciles the changes between them,
+     * returning a list of TurboIssues with updates from the second.
+     *
+     * @param existing
+     * @param changed
+     */
+    public static List<TurboIssue> reconcile(List<TurboIssue> existing, List<TurboIssue> changed) {
+        return merge(existing, changed, Collections.emptyList()).issues;
     }
 
     /**
@@ -312,22 +514,15 @@ public class TurboIssue {
      */
     public static List<TurboIssue> combineWithPullRequests(List<TurboIssue> issues,
                                                            List<PullRequest> pullRequests) {
-        List<TurboIssue> issuesCopy = new ArrayList<>(issues);
-
-        for (PullRequest pullRequest : pullRequests) {
-            int id = pullRequest.getNumber();
-
-            Optional<Integer> corresponding = findIssueWithId(issuesCopy, id);
-            if (corresponding.isPresent()) {
-                TurboIssue issue = issuesCopy.get(corresponding.get());
-                issuesCopy.set(corresponding.get(), issue.combineWithPullRequest(pullRequest));
-            } else {
-                String errorMsg = "No corresponding issue for pull request " + pullRequest;
-                logger.error(errorMsg);
-            }
-        }
+        return merge(issues, Collections.emptyList(), pullRequests).issues;
+    }
 
-        return issuesCopy;
+    /**
+     * @return true if {@link #combineWithPullRequest} would change this issue
+     */
+    private boolean isUpdatedBy(PullRequest pullRequest) {
+        return pullRequest.getUpdatedAt() != null
+                && Utility.dateToLocalDateTime(pullRequest.getUpdatedAt()).isAfter(getUpdatedAt());
     }
 
     /**
@@ -425,7 +620,7 @@ public class TurboIssue {
     }
 
     public LocalDateTime getCreatedAt() {
-        return createdAt;
+        return fromNanos(createdAt);
     }
 
     public boolean isPullRequest() {
@@ -441,19 +636,27 @@ public class TurboIssue {
     }
 
     public String getDescription() {
-        return description;
+        return compressedDescription == null ? description : decompress(compressedDescription);
+    }
+
+    /**
+     * @return the object the description is stored in, which is replaced whenever the description is set
+     * and shared by copies of this issue, so that changes to the description can be detected by reference
+     */
+    Object getDescriptionContent() {
+        return compressedDescription == null ? description : compressedDescription;
     }
 
     public void setDescription(String description) {
-        this.description = description;
+        setDescriptionField(description);
     }
 
     public LocalDateTime getUpdatedAt() {
-        return updatedAt;
+        return fromNanos(updatedAt);
     }
 
     public void setUpdatedAt(LocalDateTime updatedAt) {
-        this.updatedAt = replaceNull(updatedAt, this.createdAt);
+        this.updatedAt = updatedAt == null ? this.createdAt : toNanos(updatedAt);
     }
 
     public int getCommentCount() {
@@ -470,79 +673,84 @@ public class TurboIssue {
 
     public void setOpen(boolean isOpen) {
         this.isOpen = isOpen;
-        stateLastModifiedAt = Optional.of(LocalDateTime.now());
+        stateLastModifiedAt = toNanos(LocalDateTime.now());
     }
 
     public Optional<String> getAssignee() {
-        return assignee;
+        return Optional.ofNullable(assignee);
     }
 
     public void setAssignee(TurboUser assignee) {
         setAssignee(assignee.getLoginName());
-        this.assigneeLastModifiedAt = Optional.of(LocalDateTime.now());
+        this.assigneeLastModifiedAt = toNanos(LocalDateTime.now());
     }
 
     public void setAssignee(String assignee) {
-        this.assignee = Optional.ofNullable(assignee);
-        this.assigneeLastModifiedAt = Optional.of(LocalDateTime.now());
+        this.assignee = intern(assignee);
+        this.assigneeLastModifiedAt = toNanos(LocalDateTime.now());
     }
 
     public void removeAssignee() {
-        this.assignee = Optional.empty();
-        this.assigneeLastModifiedAt = Optional.of(LocalDateTime.now());
+        this.assignee = null;
+        this.assigneeLastModifiedAt = toNanos(LocalDateTime.now());
     }
 
+    /**
+     * @return the names of the labels of the issue, which do not change with later changes to the issue
+     */
     public List<String> getLabels() {
-        return labels;
+        return Collections.unmodifiableList(Arrays.asList(labels));
     }
 
     public void setLabels(List<String> labels) {
-        this.labels = labels;
-        this.labelsLastModifiedAt = Optional.of(LocalDateTime.now());
+        this.labels = internLabels(labels);
+        this.labelsLastModifiedAt = toNanos(LocalDateTime.now());
     }
 
     public LocalDateTime getLabelsLastModifiedAt() {
-        return this.labelsLastModifiedAt.orElse(getUpdatedAt());
+        return fromNanos(orElse(labelsLastModifiedAt, updatedAt));
     }
 
     public LocalDateTime getMilestoneLastModifiedAt() {
-        return this.milestoneLastModifiedAt.orElse(getUpdatedAt());
+        return fromNanos(orElse(milestoneLastModifiedAt, updatedAt));
     }
 
     public LocalDateTime getStateLastModifiedAt() {
-        return stateLastModifiedAt.orElse(getUpdatedAt());
+        return fromNanos(orElse(stateLastModifiedAt, updatedAt));
     }
 
     public LocalDateTime getAssigneeLastModifiedAt() {
-        return this.assigneeLastModifiedAt.orElse(getUpdatedAt());
+        return fromNanos(orElse(assigneeLastModifiedAt, updatedAt));
     }
 
     public void addLabel(String label) {
-        this.labels.add(label);
-        this.labelsLastModifiedAt = Optional.of(LocalDateTime.now());
+        String[] newLabels = Arrays.copyOf(labels, labels.length + 1);
+        newLabels[labels.length] = intern(label);
+        this.labels = newLabels;
+        this.labelsLastModifiedAt = toNanos(LocalDateTime.now());
     }
 
     public void addLabel(TurboLabel label) {
         addLabel(label.getFullName());
-        this.labelsLastModifiedAt = Optional.of(LocalDateTime.now());
+        this.labelsLastModifiedAt = toNanos(LocalDateTime.now());
     }
 
     public Optional<Integer> getMilestone() {
-        return milestone;
+        return Optional.ofNullable(milestone);
     }
 
     public void setMilestoneById(Integer milestone) {
-        this.milestone = Optional.of(milestone);
-        this.milestoneLastModifiedAt = Optional.of(LocalDateTime.now());
+        this.milestone = milestone;
+        this.milestoneLastModifiedAt = toNanos(LocalDateTime.now());
     }
 
     public void setMilestone(TurboMilestone milestone) {
         setMilestoneById(milestone.getId());
-        this.milestoneLastModifiedAt = Optional.of(LocalDateTime.now());
+        this.milestoneLastModifiedAt = toNanos(LocalDateTime.now());
     }
 
     public void removeMilestone() {
-        this.milestone = Optional.empty();
+        this.milestone = null;
     }
 
     public IssueMetadata getMetadata() {
@@ -554,19 +762,15 @@ public class TurboIssue {
     }
 
     public Optional<LocalDateTime> getMarkedReadAt() {
-        return markedReadAt;
+        return Optional.ofNullable(fromNanos(markedReadAt));
     }
 
     public void setMarkedReadAt(Optional<LocalDateTime> markedReadAt) {
-        this.markedReadAt = markedReadAt;
+        this.markedReadAt = markedReadAt == null ? NO_TIME : toNanos(markedReadAt.orElse(null));
     }
 
     public boolean isCurrentlyRead() {
-        if (!getMarkedReadAt().isPresent()) {
-            return false;
-        }
-
-        return getMarkedReadAt().get().isAfter(getUpdatedAt());
+        return markedReadAt != NO_TIME && markedReadAt > updatedAt;
     }
 
     public void markAsRead(Preferences prefs) {
@@ -592,31 +796,33 @@ public class TurboIssue {
         return commentCount == issue.commentCount &&
                 id == issue.id && isOpen == issue.isOpen &&
                 isPullRequest == issue.isPullRequest &&
-                !(assignee != null ? !assignee.equals(issue.assignee) : issue.assignee != null) &&
-                !(createdAt != null ? !createdAt.equals(issue.createdAt) : issue.createdAt != null) &&
-                !(creator != null ? !creator.equals(issue.creator) : issue.creator != null) &&
-                !(description != null ? !description.equals(issue.description) : issue.description != null) &&
-                !(labels != null ? !labels.equals(issue.labels) : issue.labels != null) &&
-                !(milestone != null ? !milestone.equals(issue.milestone) : issue.milestone != null) &&
-                !(title != null ? !title.equals(issue.title) : issue.title != null) &&
-                !(updatedAt != null ? !updatedAt.equals(issue.updatedAt) : issue.updatedAt != null) &&
-                !(markedReadAt != null ? !markedReadAt.equals(issue.markedReadAt) : issue.markedReadAt != null);
+                createdAt == issue.createdAt &&
+                updatedAt == issue.updatedAt &&
+                markedReadAt == issue.markedReadAt &&
+                Objects.equals(assignee, issue.assignee) &&
+                Objects.equals(creator, issue.creator) &&
+                Objects.equals(description, issue.description) &&
+                Arrays.equals(compressedDescription, issue.compressedDescription) &&
+                Arrays.equals(labels, issue.labels) &&
+                Objects.equals(milestone, issue.milestone) &&
+                Objects.equals(title, issue.title);
     }
 
     @Override
     public int hashCode() {
         int result = id;
         result = 31 * result + (creator != null ? creator.hashCode() : 0);
-        result = 31 * result + (createdAt != null ? createdAt.hashCode() : 0);
+        result = 31 * result + Long.hashCode(createdAt);
         result = 31 * result + (isPullRequest ? 1 : 0);
         result = 31 * result + (title != null ? title.hashCode() : 0);
         result = 31 * result + (description != null ? description.hashCode() : 0);
-        result = 31 * result + (updatedAt != null ? updatedAt.hashCode() : 0);
-        result = 31 * result + (markedReadAt != null ? markedReadAt.hashCode() : 0);
+        result = 31 * result + Arrays.hashCode(compressedDescription);
+        result = 31 * result + Long.hashCode(updatedAt);
+        result = 31 * result + Long.hashCode(markedReadAt);
         result = 31 * result + commentCount;
         result = 31 * result + (isOpen ? 1 : 0);
         result = 31 * result + (assignee != null ? assignee.hashCode() : 0);
-        result = 31 * result + (labels != null ? labels.hashCode() : 0);
+        result = 31 * result + Arrays.hashCode(labels);
         result = 31 * result + (milestone != null ? milestone.hashCode() : 0);
         return result;
     }
@@ -26,11 +26,17 @@ public class TurboLabel implements Comparable<TurboLabel> {
     public static final String GROUP_PATTERN = String.format(
             "^([^\\%1$s\\%2$s]+)(\\%1$s|\\%2$s)([^\\%1$s\\%2$s]*)", EXCLUSIVE_DELIMITER, NONEXCLUSIVE_DELIMITER);
 
+    private static final Pattern GROUP_REGEX = Pattern.compile(GROUP_PATTERN);
+
     private final String fullName;
     private final String shortName;
     private final String groupName;
     private final Grouping grouping;
 
+    // Lower-cased forms of the names above, computed once so that label qualifiers do not redo it per issue
+    private final String lowerCaseShortName;
+    private final String lowerCaseGroupName;
+
     private final String colour;
     private final String repoId;
 
@@ -42,6 +48,8 @@ public class TurboLabel implements Comparable<TurboLabel> {
         this.groupName = splitted[0];
         this.grouping = determineGrouping(splitted[1]);
         this.shortName = splitted[2];
+        this.lowerCaseGroupName = groupName.toLowerCase();
+        this.lowerCaseShortName = shortName.toLowerCase();
 
         this.colour = colour;
         this.repoId = repoId;
@@ -77,8 +85,7 @@ public class TurboLabel implements Comparable<TurboLabel> {
      * @return String array of group name, group delimiter and short name
      */
     private static String[] splitKeyword(String keyword) {
-        Pattern p = Pattern.compile(GROUP_PATTERN);
-        Matcher m = p.matcher(keyword);
+        Matcher m = GROUP_REGEX.matcher(keyword);
 
         if (!m.find()) return new String[] { "", "", keyword };
 
@@ -184,6 +191,20 @@ public class TurboLabel implements Comparable<TurboLabel> {
         return shortName;
     }
 
+    /**
+     * @return the group name in lower case
+     */
+    public String getLowerCaseGroupName() {
+        return lowerCaseGroupName;
+    }
+
+    /**
+     * @return the short name in lower case
+     */
+    public String getLowerCaseShortName() {
+        return lowerCaseShortName;
+    }
+
     public boolean isInExclusiveGroup() {
         return grouping == Grouping.EXCLUSIVE;
     }
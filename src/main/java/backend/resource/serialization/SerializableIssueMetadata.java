@@ -0,0 +1,54 @@
+package backend.resource.serialization;
+
+import backend.IssueMetadata;
+import github.ReviewComment;
+import github.TurboIssueEvent;
+import org.eclipse.egit.github.core.Comment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The events and comments of an issue, with the ETags they were retrieved with so that they can be
+ * revalidated. Properties computed from them are left out, as they depend on the current user.
+ * Review comments are kept apart from other comments so that their type survives serialization.
+ */
+public class SerializableIssueMetadata {
+    public final int id;
+    public final List<TurboIssueEvent> events;
+    public final List<Comment> comments;
+    public final List<ReviewComment> reviewComments;
+    public final String eventsETag;
+    public final String commentsETag;
+
+    public SerializableIssueMetadata(int id, IssueMetadata metadata) {
+        this.id = id;
+        this.events = metadata.getEvents();
+        this.comments = metadata.getComments().stream()
+                .filter(comment -> !(comment instanceof ReviewComment))
+                .collect(Collectors.toList());
+        this.reviewComments = metadata.getComments().stream()
+                .filter(comment -> comment instanceof ReviewComment)
+                .map(comment -> (ReviewComment) comment)
+                .collect(Collectors.toList());
+        this.eventsETag = metadata.getEventsETag();
+        this.commentsETag = metadata.getCommentsETag();
+    }
+
+    /**
+     * @return the stored metadata as an intermediate instance, see {@link IssueMetadata#intermediate}
+     */
+    public IssueMetadata toIntermediate() {
+        List<Comment> allComments = new ArrayList<>();
+        if (comments != null) {
+            allComments.addAll(comments);
+        }
+        if (reviewComments != null) {
+            allComments.addAll(reviewComments);
+        }
+        return IssueMetadata.intermediate(events == null ? new ArrayList<>() : events, allComments,
+                                          eventsETag == null ? "" : eventsETag,
+                                          commentsETag == null ? "" : commentsETag);
+    }
+}
@@ -0,0 +1,109 @@
+package backend.resource.serialization;
+
+import backend.UpdateSignature;
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+import backend.resource.TurboLabel;
+import backend.resource.TurboMilestone;
+import backend.resource.TurboUser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The changes made to a Model by one update or local edit, in serializable form.
+ * Issues are added or replaced by id. Labels, milestones, users and the update signature
+ * are replaced as a whole if present, and left as they are if null.
+ * <p>
+ * 100% immutable.
+ */
+public class SerializableModelDelta {
+    public final String repoId;
+    public final UpdateSignature updateSignature;
+
+    public final List<SerializableIssue> issues;
+    public final List<SerializableLabel> labels;
+    public final List<SerializableMilestone> milestones;
+    public final List<SerializableUser> users;
+
+    private SerializableModelDelta(String repoId, UpdateSignature updateSignature, List<SerializableIssue> issues,
+                                   List<SerializableLabel> labels, List<SerializableMilestone> milestones,
+                                   List<SerializableUser> users) {
+        this.repoId = repoId;
+        this.updateSignature = updateSignature;
+        this.issues = issues;
+        this.labels = labels;
+        this.milestones = milestones;
+        this.users = users;
+    }
+
+    /**
+     * Creates the changes which turn {@code oldModel} into {@code newModel}, assuming that
+     * no issues are removed by the update.
+     */
+    public static SerializableModelDelta between(Model oldModel, Model newModel) {
+        List<SerializableIssue> changedIssues = newModel.getIssues().stream()
+                .filter(issue -> !oldModel.getIssueById(issue.getId()).equals(Optional.of(issue)))
+                .map(SerializableIssue::new)
+                .collect(Collectors.toList());
+
+        return new SerializableModelDelta(newModel.getRepoId(), newModel.getUpdateSignature(), changedIssues,
+                                          changedOrNull(oldModel.getLabels(), newModel.getLabels(),
+                                                        SerializableLabel::new),
+                                          changedOrNull(oldModel.getMilestones(), newModel.getMilestones(),
+                                                        SerializableMilestone::new),
+                                          changedOrNull(oldModel.getUsers(), newModel.getUsers(),
+                                                        SerializableUser::new));
+    }
+
+    /**
+     * Creates the changes made by a local edit of {@code issue}.
+     */
+    public static SerializableModelDelta ofIssue(TurboIssue issue) {
+        return new SerializableModelDelta(issue.getRepoId(), null,
+                                          Collections.singletonList(new SerializableIssue(issue)),
+                                          null, null, null);
+    }
+
+    private static <T, S> List<S> changedOrNull(List<T> oldItems, List<T> newItems,
+                                                Function<T, S> serialize) {
+        if (oldItems.equals(newItems)) {
+            return null;
+        }
+        return newItems.stream().map(serialize).collect(Collectors.toList());
+    }
+
+    public boolean isEmpty() {
+        return issues.isEmpty() && labels == null && milestones == null && users == null;
+    }
+
+    /**
+     * Applies these changes to {@code model}.
+     *
+     * @return a new Model with the changes applied
+     */
+    public Model applyTo(Model model) {
+        Map<Integer, TurboIssue> issuesById = new LinkedHashMap<>();
+        model.getIssues().forEach(issue -> issuesById.put(issue.getId(), issue));
+        issues.forEach(issue -> issuesById.put(issue.getId(), new TurboIssue(model.getRepoId(), issue)));
+
+        List<TurboLabel> newLabels = labels == null
+                ? model.getLabels()
+                : labels.stream().map(l -> new TurboLabel(model.getRepoId(), l)).collect(Collectors.toList());
+        List<TurboMilestone> newMilestones = milestones == null
+                ? model.getMilestones()
+                : milestones.stream().map(m -> new TurboMilestone(model.getRepoId(), m)).collect(Collectors.toList());
+        List<TurboUser> newUsers = users == null
+                ? model.getUsers()
+                : users.stream().map(u -> new TurboUser(model.getRepoId(), u)).collect(Collectors.toList());
+
+        return new Model(model.getRepoId(), new ArrayList<>(issuesById.values()), newLabels, newMilestones, newUsers,
+                         updateSignature == null ? model.getUpdateSignature() : updateSignature);
+    }
+}
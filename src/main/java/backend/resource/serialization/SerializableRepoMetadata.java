@@ -0,0 +1,41 @@
+package backend.resource.serialization;
+
+import backend.IssueMetadata;
+import backend.resource.Model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The metadata of the issues of a repository which have had it retrieved.
+ */
+public class SerializableRepoMetadata {
+    public final String repoId;
+    public final List<SerializableIssueMetadata> issues;
+
+    public SerializableRepoMetadata(Model model) {
+        this.repoId = model.getRepoId();
+        this.issues = model.getIssues().stream()
+                .filter(issue -> isRetrieved(issue.getMetadata()))
+                .map(issue -> new SerializableIssueMetadata(issue.getId(), issue.getMetadata()))
+                .collect(Collectors.toList());
+    }
+
+    private static boolean isRetrieved(IssueMetadata metadata) {
+        return !metadata.getEventsETag().isEmpty() || !metadata.getCommentsETag().isEmpty()
+                || !metadata.getEvents().isEmpty() || !metadata.getComments().isEmpty();
+    }
+
+    /**
+     * @return the stored metadata by issue id, as intermediate instances
+     */
+    public Map<Integer, IssueMetadata> toIntermediate() {
+        Map<Integer, IssueMetadata> metadata = new HashMap<>();
+        if (issues != null) {
+            issues.forEach(issue -> metadata.put(issue.id, issue.toIntermediate()));
+        }
+        return metadata;
+    }
+}
@@ -1,6 +1,8 @@
 package backend.stub;
 
+import backend.IssueEdit;
 import backend.UserCredentials;
+import backend.interfaces.RateLimitBudget;
 import backend.interfaces.Repo;
 import backend.resource.TurboIssue;
 import backend.resource.TurboLabel;
@@ -21,13 +23,16 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 public class DummyRepo implements Repo {
 
     private final HashMap<String, DummyRepoState> repoStates = new HashMap<>();
 
     // Only decreases after API retrievals
-    private int apiQuota = 3500;
+    private final AtomicInteger apiQuota = new AtomicInteger(3500);
+    private final RateLimitBudget rateLimitBudget = new RateLimitBudget();
 
     public DummyRepo() {
         if (UI.events == null) {
@@ -94,7 +99,7 @@ public class DummyRepo implements Repo {
         return credentials.username.equals("test") && credentials.password.equals("test");
     }
 
-    private DummyRepoState getRepoState(String repoId) {
+    private synchronized DummyRepoState getRepoState(String repoId) {
         DummyRepoState repoToGet = repoStates.get(repoId);
         if (repoToGet == null) {
             repoToGet = new DummyRepoState(repoId);
@@ -156,17 +161,26 @@ public class DummyRepo implements Repo {
 
         ImmutablePair<List<TurboIssueEvent>, String> result = getRepoState(repoId).getEvents(issueId, currentETag);
 
-        if (!result.getRight().equals(currentETag) || currentETag.length() == 0) apiQuota--;
+        if (!result.getRight().equals(currentETag) || currentETag.length() == 0) apiQuota.decrementAndGet();
 
         return result;
     }
 
     @Override
     public List<Comment> getComments(String repoId, int issueId) {
-        apiQuota--;
+        apiQuota.decrementAndGet();
         return getRepoState(repoId).getComments(issueId);
     }
 
+    @Override
+    public ImmutablePair<List<Comment>, String> getUpdatedComments(String repoId, int issueId, String currentETag) {
+        ImmutablePair<List<Comment>, String> result = getRepoState(repoId).getUpdatedComments(issueId, currentETag);
+
+        if (!result.getRight().equals(currentETag) || currentETag.length() == 0) apiQuota.decrementAndGet();
+
+        return result;
+    }
+
     @Override
     public List<Comment> getAllComments(String repoId, TurboIssue issue) {
         List<Comment> result = getComments(repoId, issue.getId());
@@ -196,6 +210,27 @@ public class DummyRepo implements Repo {
         return getRepoState(repoId).editIssueState(issueId, isOpen);
     }
 
+    @Override
+    public boolean editIssue(String repoId, int issueId, String issueTitle, IssueEdit edit) throws IOException {
+        boolean isEdited = true;
+        if (edit.hasLabels()) {
+            isEdited = setLabels(repoId, issueId, edit.getLabels()).stream()
+                    .map(Label::getName)
+                    .collect(Collectors.toList())
+                    .containsAll(edit.getLabels());
+        }
+        if (edit.hasMilestone()) {
+            isEdited &= setMilestone(repoId, issueId, issueTitle, edit.getMilestone()).equals(edit.getMilestone());
+        }
+        if (edit.hasAssignee()) {
+            isEdited &= setAssignee(repoId, issueId, issueTitle, edit.getAssignee()).equals(edit.getAssignee());
+        }
+        if (edit.hasState()) {
+            isEdited &= editIssueState(repoId, issueId, edit.isOpen());
+        }
+        return isEdited;
+    }
+
     @Override
     public Optional<String> setAssignee(String repoId, int issueId, String issueTitle,
                                         Optional<String> issueAssigneeLoginName) {
@@ -217,7 +252,20 @@ public class DummyRepo implements Repo {
      */
     @Override
     public ImmutablePair<Integer, Long> getRateLimitResetTime() {
-        return new ImmutablePair<>(apiQuota, new Date().getTime() + 2700000);
+        return new ImmutablePair<>(apiQuota.get(), new Date().getTime() + 2700000);
+    }
+
+    @Override
+    public boolean isRateLimitLow(int reserve) {
+        return apiQuota.get() < reserve;
+    }
+
+    /**
+     * Dummy responses carry no rate limit headers, so tasks are never held back.
+     */
+    @Override
+    public RateLimitBudget getRateLimitBudget() {
+        return rateLimitBudget;
     }
 
 }
@@ -293,6 +293,15 @@ public class DummyRepoState {
         return new ArrayList<>();
     }
 
+    protected ImmutablePair<List<Comment>, String> getUpdatedComments(int issueId, String currentETag) {
+        if (currentETag.isEmpty() || updatedComments.contains(issueId)) {
+            // As with events, the same ETag is returned until the comments are updated again
+            updatedComments.remove(issueId);
+            return new ImmutablePair<>(getComments(issueId), UUID.randomUUID().toString());
+        }
+        return new ImmutablePair<>(new ArrayList<>(), currentETag);
+    }
+
     // UpdateEvent methods to directly mutate the repo state
     protected void makeNewIssue() {
         TurboIssue toAdd = makeDummyIssue();
@@ -1,8 +1,10 @@
 package backend.stub;
 
+import backend.IssueEdit;
 import backend.IssueMetadata;
 import backend.UserCredentials;
 import backend.github.*;
+import backend.interfaces.RateLimitBudget;
 import backend.interfaces.RepoSource;
 import backend.resource.Model;
 import backend.resource.TurboIssue;
@@ -15,6 +17,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class DummySource extends RepoSource {
 
@@ -43,9 +46,9 @@ public class DummySource extends RepoSource {
     }
 
     @Override
-    public CompletableFuture<Map<Integer, IssueMetadata>> downloadMetadata(String repoId,
-                                                                           List<TurboIssue> issues) {
-        return addTask(new DownloadMetadataTaskStub(this, dummy, repoId, issues)).response;
+    public CompletableFuture<Map<Integer, IssueMetadata>> downloadMetadata(
+            String repoId, List<TurboIssue> issues, Consumer<Map<Integer, IssueMetadata>> onBatchDownloaded) {
+        return addTask(new DownloadMetadataTaskStub(this, dummy, repoId, issues, onBatchDownloaded)).response;
     }
 
     @Override
@@ -74,9 +77,20 @@ public class DummySource extends RepoSource {
         return Futures.unit(true);
     }
 
+    @Override
+    public CompletableFuture<Boolean> editIssue(TurboIssue issue, IssueEdit edit) {
+        return addTask(new EditIssueTask(this, dummy, issue.getRepoId(), issue.getId(), issue.getTitle(),
+                                         edit)).response;
+    }
+
     @Override
     public CompletableFuture<ImmutablePair<Integer, Long>> getRateLimitResetTime() {
         return addTask(new CheckRateLimitTask(this, dummy)).response;
     }
 
+    @Override
+    protected RateLimitBudget getRateLimitBudget() {
+        return dummy.getRateLimitBudget();
+    }
+
 }
@@ -0,0 +1,101 @@
+package filter.expression;
+
+import backend.interfaces.IModel;
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+import filter.MetaQualifierInfo;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A filter expression prepared for testing against many issues.
+ * <p>
+ * Stripping of meta-qualifiers, injection of the default repository and
+ * interpretation of meta-qualifiers are done once on compilation instead of
+ * once per issue, as {@link Qualifier#process(IModel, FilterExpression, TurboIssue)} does.
+ * <p>
+ * A compiled filter captures the default repository of the model at the time of
+ * compilation, so it should be recompiled on every refresh.
+ */
+public final class CompiledFilter implements Predicate<TurboIssue> {
+
+    private final IModel model;
+    private final FilterExpression expr;
+    private final MetaQualifierInfo info;
+
+    private CompiledFilter(IModel model, FilterExpression expr, MetaQualifierInfo info) {
+        this.model = model;
+        this.expr = expr;
+        this.info = info;
+    }
+
+    /**
+     * Compiles a filter expression against a model.
+     *
+     * @param model the model that issues will be tested against
+     * @param expr  the filter expression to compile
+     * @return the compiled filter
+     * @throws filter.ParseException if the meta-qualifiers of the expression are invalid
+     */
+    public static CompiledFilter compile(IModel model, FilterExpression expr) {
+        FilterExpression exprWithNormalQualifiers = expr.filter(Qualifier::shouldNotBeStripped);
+        List<Qualifier> metaQualifiers = expr.find(Qualifier::isMetaQualifier);
+
+        // Preprocessing for repo qualifier
+        boolean containsRepoQualifier = metaQualifiers.stream()
+                .anyMatch(q -> q.getType() == QualifierType.REPO);
+
+        if (!containsRepoQualifier) {
+            exprWithNormalQualifiers = new Conjunction(
+                    new Qualifier(QualifierType.REPO, model.getDefaultRepo()),
+                    exprWithNormalQualifiers);
+        }
+
+        return new CompiledFilter(model, exprWithNormalQualifiers, new MetaQualifierInfo(metaQualifiers));
+    }
+
+    /**
+     * Determines if an issue satisfies the compiled filter expression.
+     */
+    @Override
+    public boolean test(TurboIssue issue) {
+        return expr.isSatisfiedBy(model, issue, info);
+    }
+
+    /**
+     * Finds the issues of {@code models} which satisfy the compiled filter expression, resolving
+     * indexed qualifiers with set operations on the bitmap indexes of the models. Only the issues
+     * which remain candidates are tested against the other qualifiers.
+     *
+     * @param models models of the repositories in the model compiled against
+     * @return the issues which satisfy the expression, in the order of the models and their issues
+     */
+    public List<TurboIssue> filter(Collection<Model> models) {
+        List<TurboIssue> result = new ArrayList<>();
+        for (Model repoModel : models) {
+            BitSet satisfying = getSatisfyingPositions(repoModel);
+            for (int i = satisfying.nextSetBit(0); i >= 0; i = satisfying.nextSetBit(i + 1)) {
+                result.add(repoModel.getIssueAt(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the issues of a single repository which satisfy the compiled filter expression,
+     * as {@link #filter(Collection)} does.
+     *
+     * @param repoModel the model of a repository in the model compiled against
+     * @return the positions in {@code repoModel.getIssues()} of the issues which satisfy the expression
+     */
+    public BitSet getSatisfyingPositions(Model repoModel) {
+        int size = repoModel.getIssueCount();
+        BitSet candidates = new BitSet(size);
+        candidates.set(0, size);
+        return expr.getSatisfyingPositions(model, repoModel, candidates, info);
+    }
+}
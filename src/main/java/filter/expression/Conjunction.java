@@ -1,11 +1,13 @@
 package filter.expression;
 
 import backend.interfaces.IModel;
+import backend.resource.Model;
 import backend.resource.TurboIssue;
 import filter.MetaQualifierInfo;
 import filter.QualifierApplicationException;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.function.Function;
@@ -55,6 +57,12 @@ public class Conjunction implements FilterExpression {
         return left.isSatisfiedBy(model, issue, info) && right.isSatisfiedBy(model, issue, info);
     }
 
+    @Override
+    public BitSet getSatisfyingPositions(IModel models, Model model, BitSet candidates, MetaQualifierInfo info) {
+        BitSet satisfyingLeft = left.getSatisfyingPositions(models, model, candidates, info);
+        return right.getSatisfyingPositions(models, model, satisfyingLeft, info);
+    }
+
     private boolean containsDuplicateQualifierTypes() {
         List<QualifierType> nonLabelQualifierTypes = getQualifierTypes().stream()
                 .filter(pn -> !pn.equals(QualifierType.LABEL))
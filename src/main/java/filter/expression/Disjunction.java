@@ -1,11 +1,13 @@
 package filter.expression;
 
 import backend.interfaces.IModel;
+import backend.resource.Model;
 import backend.resource.TurboIssue;
 import filter.MetaQualifierInfo;
 import filter.QualifierApplicationException;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -52,6 +54,16 @@ public class Disjunction implements FilterExpression {
         return left.isSatisfiedBy(model, issue, info) || right.isSatisfiedBy(model, issue, info);
     }
 
+    @Override
+    public BitSet getSatisfyingPositions(IModel models, Model model, BitSet candidates, MetaQualifierInfo info) {
+        BitSet satisfyingLeft = left.getSatisfyingPositions(models, model, candidates, info);
+        BitSet remaining = (BitSet) candidates.clone();
+        remaining.andNot(satisfyingLeft);
+        BitSet result = right.getSatisfyingPositions(models, model, remaining, info);
+        result.or(satisfyingLeft);
+        return result;
+    }
+
     @Override
     public boolean canBeAppliedToIssue() {
         return false;
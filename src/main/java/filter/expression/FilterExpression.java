@@ -1,10 +1,12 @@
 package filter.expression;
 
 import backend.interfaces.IModel;
+import backend.resource.Model;
 import backend.resource.TurboIssue;
 import filter.MetaQualifierInfo;
 import filter.QualifierApplicationException;
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -16,6 +18,16 @@ public interface FilterExpression {
 
     boolean isSatisfiedBy(IModel model, TurboIssue issue, MetaQualifierInfo info);
 
+    /**
+     * Determines which issues of a model satisfy this filter expression, out of those at the
+     * positions in {@code candidates}. Qualifiers which the model indexes are resolved with set
+     * operations on its bitmap index, and the rest by testing each candidate. The result is the
+     * same as that of calling {@link #isSatisfiedBy} on each candidate.
+     *
+     * @return a new set of the positions of the satisfying issues
+     */
+    BitSet getSatisfyingPositions(IModel models, Model model, BitSet candidates, MetaQualifierInfo info);
+
     // Filter expressions may only be applied if they contain no ambiguity
     // => they must contain only qualifiers or conjunctions thereof. Disjunctions
     // and negations can't be interpreted in order to be applied.
@@ -0,0 +1,280 @@
+package filter.expression;
+
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * An order of issues by a chain of sort keys, compiled once from the sort keys of a filter expression.
+ * <p>
+ * Issues may be compared one pair at a time, or sorted in bulk with {@link #sort}, which extracts the
+ * value of every key from every issue once before sorting instead of on every comparison.
+ */
+public final class IssueSortOrder implements Comparator<TurboIssue> {
+
+    // Lists at least this long are sorted on multiple threads, where allowed
+    public static final int MIN_PARALLEL_SORT_SIZE = 8192;
+
+    private final List<Key> keys;
+
+    IssueSortOrder(List<Key> keys) {
+        this.keys = new ArrayList<>(keys);
+    }
+
+    @Override
+    public int compare(TurboIssue a, TurboIssue b) {
+        for (Key key : keys) {
+            int result = key.compare(a, b);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Sorts {@code issues} in this order. The sort is stable, and gives the same result as
+     * {@code issues.sort(this)}.
+     *
+     * @param issues
+     * @param isParallelAllowed whether long lists may be sorted on multiple threads
+     */
+    public void sort(List<TurboIssue> issues, boolean isParallelAllowed) {
+        int size = issues.size();
+        if (size < 2 || keys.isEmpty()) {
+            return;
+        }
+
+        Comparator<Integer> byKeys = compareByKeys(issues);
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        if (isParallelAllowed && size >= MIN_PARALLEL_SORT_SIZE) {
+            Arrays.parallelSort(order, byKeys);
+        } else {
+            Arrays.sort(order, byKeys);
+        }
+
+        TurboIssue[] sorted = new TurboIssue[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = issues.get(order[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            issues.set(i, sorted[i]);
+        }
+    }
+
+    /**
+     * Finds the first {@code count} of {@code issues} in this order, without sorting the rest. This gives the
+     * same issues as sorting {@code issues} and then taking the first {@code count}.
+     *
+     * @param issues
+     * @param count
+     * @param isParallelAllowed whether long lists may be sorted on multiple threads, if all are to be returned
+     * @return a new list of the first issues, in order
+     */
+    public List<TurboIssue> selectFirst(List<TurboIssue> issues, int count, boolean isParallelAllowed) {
+        int size = issues.size();
+        if (count >= size) {
+            List<TurboIssue> result = new ArrayList<>(issues);
+            sort(result, isParallelAllowed);
+            return result;
+        } else if (count <= 0) {
+            return new ArrayList<>();
+        } else if (keys.isEmpty()) {
+            return new ArrayList<>(issues.subList(0, count));
+        }
+
+        // Issues which compare equal are kept in order of position, as the sort is stable
+        Comparator<Integer> byKeys = compareByKeys(issues).thenComparing(Comparator.naturalOrder());
+
+        // A heap of the first issues found so far, with the last of them at the top
+        PriorityQueue<Integer> first = new PriorityQueue<>(count, byKeys.reversed());
+        for (int i = 0; i < size; i++) {
+            if (first.size() < count) {
+                first.add(i);
+            } else if (byKeys.compare(i, first.peek()) < 0) {
+                first.poll();
+                first.add(i);
+            }
+        }
+
+        Integer[] order = first.toArray(new Integer[first.size()]);
+        Arrays.sort(order, byKeys);
+        List<TurboIssue> result = new ArrayList<>(order.length);
+        for (int position : order) {
+            result.add(issues.get(position));
+        }
+        return result;
+    }
+
+    /**
+     * @return true if this order is that of a single key which models hold the order of, so that the
+     * first issues of a model can be found with {@link #selectFirst(Model, BitSet, int)}
+     */
+    public boolean isIndexed() {
+        return keys.size() == 1 && keys.get(0).positionsInOrder != null;
+    }
+
+    /**
+     * Finds the first {@code count} issues of a model in this order, out of those at the positions in
+     * {@code candidates}. Issues are visited in the order the model holds, stopping once enough are found.
+     * Should only be called if {@link #isIndexed()}.
+     *
+     * @param model
+     * @param candidates
+     * @param count
+     * @return a new list of the first issues, in the order {@link #sort} would give them
+     */
+    public List<TurboIssue> selectFirst(Model model, BitSet candidates, int count) {
+        assert isIndexed();
+        Key key = keys.get(0);
+        int[] positions = key.positionsInOrder.apply(model);
+        List<TurboIssue> result = new ArrayList<>();
+
+        if (!key.inverted) {
+            for (int i = 0; i < positions.length && result.size() < count; i++) {
+                if (candidates.get(positions[i])) {
+                    result.add(model.getIssueAt(positions[i]));
+                }
+            }
+            return result;
+        }
+
+        // Visit runs of equal issues from the last to the first, keeping each run in order of position
+        int end = positions.length;
+        while (end > 0 && result.size() < count) {
+            int start = end - 1;
+            TurboIssue last = model.getIssueAt(positions[start]);
+            while (start > 0 && key.compare(model.getIssueAt(positions[start - 1]), last) == 0) {
+                start--;
+            }
+            for (int i = start; i < end && result.size() < count; i++) {
+                if (candidates.get(positions[i])) {
+                    result.add(model.getIssueAt(positions[i]));
+                }
+            }
+            end = start;
+        }
+        return result;
+    }
+
+    /**
+     * Extracts the values of all keys from {@code issues}
+     *
+     * @return a comparator of the positions of {@code issues} by the values of their keys
+     */
+    private Comparator<Integer> compareByKeys(List<TurboIssue> issues) {
+        Column[] columns = new Column[keys.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = keys.get(i).extract(issues);
+        }
+        return (i, j) -> {
+            for (Column column : columns) {
+                int result = column.compare(i, j);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        };
+    }
+
+    /**
+     * A key which orders issues by a number extracted from each, in ascending order unless inverted
+     */
+    static Key byNumber(ToLongFunction<TurboIssue> value, boolean inverted) {
+        return byNumber(value, null, inverted);
+    }
+
+    /**
+     * @param positionsInOrder gives the positions of the issues of a model in ascending order of the
+     *                         number, with issues of equal numbers in order of position
+     */
+    static Key byNumber(ToLongFunction<TurboIssue> value, Function<Model, int[]> positionsInOrder,
+                        boolean inverted) {
+        int sign = inverted ? -1 : 1;
+        return new Key(positionsInOrder, inverted) {
+            @Override
+            int compare(TurboIssue a, TurboIssue b) {
+                return sign * Long.compare(value.applyAsLong(a), value.applyAsLong(b));
+            }
+
+            @Override
+            Column extract(List<TurboIssue> issues) {
+                long[] values = new long[issues.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = value.applyAsLong(issues.get(i));
+                }
+                return (i, j) -> sign * Long.compare(values[i], values[j]);
+            }
+        };
+    }
+
+    /**
+     * A key which orders issues by a value extracted from each, in the order of {@code comparator}
+     * unless inverted
+     */
+    static <T> Key byValue(Function<TurboIssue, T> value, Comparator<T> comparator, boolean inverted) {
+        return byValue(value, comparator, null, inverted);
+    }
+
+    /**
+     * @param positionsInOrder gives the positions of the issues of a model in the order of
+     *                         {@code comparator}, with issues of equal values in order of position
+     */
+    static <T> Key byValue(Function<TurboIssue, T> value, Comparator<T> comparator,
+                           Function<Model, int[]> positionsInOrder, boolean inverted) {
+        int sign = inverted ? -1 : 1;
+        return new Key(positionsInOrder, inverted) {
+            @Override
+            int compare(TurboIssue a, TurboIssue b) {
+                return sign * comparator.compare(value.apply(a), value.apply(b));
+            }
+
+            @Override
+            Column extract(List<TurboIssue> issues) {
+                List<T> values = new ArrayList<>(issues.size());
+                for (TurboIssue issue : issues) {
+                    values.add(value.apply(issue));
+                }
+                return (i, j) -> sign * comparator.compare(values.get(i), values.get(j));
+            }
+        };
+    }
+
+    /**
+     * One key of a sort order
+     */
+    abstract static class Key {
+        // Null unless models hold the order of this key
+        private final Function<Model, int[]> positionsInOrder;
+        private final boolean inverted;
+
+        private Key(Function<Model, int[]> positionsInOrder, boolean inverted) {
+            this.positionsInOrder = positionsInOrder;
+            this.inverted = inverted;
+        }
+
+        abstract int compare(TurboIssue a, TurboIssue b);
+
+        /**
+         * @return the values of this key for {@code issues}, compared by position
+         */
+        abstract Column extract(List<TurboIssue> issues);
+    }
+
+    @FunctionalInterface
+    interface Column {
+        int compare(int i, int j);
+    }
+}
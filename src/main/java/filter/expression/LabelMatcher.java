@@ -0,0 +1,34 @@
+package filter.expression;
+
+import backend.resource.TurboLabel;
+
+/**
+ * The content of a label qualifier, parsed once into the group and name it expresses, for matching
+ * against many labels.
+ * <p>
+ * Matching ignores case. A label in a group matches if its group contains the group, and its short name
+ * contains the name, if any. A label outside groups matches only if there is a name but no group, and
+ * the label's name contains the name.
+ */
+final class LabelMatcher {
+
+    private final String group;
+    private final String name;
+
+    LabelMatcher(String input) {
+        // Make use of TurboLabel constructor to parse the input, avoiding duplication
+        TurboLabel inputLabel = new TurboLabel("", input.toLowerCase());
+        this.group = inputLabel.isInGroup() ? inputLabel.getGroupName() : "";
+        this.name = inputLabel.getShortName();
+    }
+
+    boolean matches(TurboLabel label) {
+        if (label.isInGroup()) {
+            return label.getLowerCaseGroupName().contains(group)
+                    && (name.isEmpty() || label.getLowerCaseShortName().contains(name));
+        } else {
+            // Check only the label name
+            return group.isEmpty() && !name.isEmpty() && label.getLowerCaseShortName().contains(name);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
@@ -18,7 +19,11 @@ import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import com.google.common.collect.MapMaker;
+
 import backend.interfaces.IModel;
+import backend.resource.IssueBitmapIndex;
+import backend.resource.Model;
 import backend.resource.TurboIssue;
 import backend.resource.TurboLabel;
 import backend.resource.TurboMilestone;
@@ -44,6 +49,11 @@ public class Qualifier implements FilterExpression {
     private Optional<Integer> number = Optional.empty();
     private List<SortKey> sortKeys = new ArrayList<>();
 
+    // Lower-cased form of content, computed once so matching does not redo it per issue
+    private Optional<String> lowerCaseContent = Optional.empty();
+    // Present for label qualifiers, compiled once from content
+    private Optional<LabelMatcher> labelMatcher = Optional.empty();
+
     // Copy constructor
     public Qualifier(Qualifier other) {
         this.type = other.getType();
@@ -53,6 +63,8 @@ public class Qualifier implements FilterExpression {
             this.date = other.getDate();
         } else if (other.getContent().isPresent()) {
             this.content = other.getContent();
+            this.lowerCaseContent = other.lowerCaseContent;
+            this.labelMatcher = other.labelMatcher;
         } else if (other.getNumberRange().isPresent()) {
             this.numberRange = other.getNumberRange();
         } else if (other.getNumber().isPresent()) {
@@ -67,6 +79,10 @@ public class Qualifier implements FilterExpression {
     public Qualifier(QualifierType type, String content) {
         this.type = type;
         this.content = Optional.of(content);
+        this.lowerCaseContent = Optional.of(content.toLowerCase());
+        if (type == QualifierType.LABEL) {
+            this.labelMatcher = Optional.of(new LabelMatcher(content));
+        }
     }
 
     public Qualifier(QualifierType type, NumberRange numberRange) {
@@ -184,24 +200,12 @@ public class Qualifier implements FilterExpression {
      * Helper function for testing a filter expression against an issue.
      * Ensures that meta-qualifiers are taken care of.
      * Should always be used over isSatisfiedBy.
+     * <p>
+     * When testing many issues against the same expression, compile it once
+     * with {@link CompiledFilter#compile(IModel, FilterExpression)} instead.
      */
     public static boolean process(IModel model, FilterExpression expr, TurboIssue issue) {
-        FilterExpression exprWithNormalQualifiers = expr.filter(Qualifier::shouldNotBeStripped);
-        List<Qualifier> metaQualifiers = expr.find(Qualifier::isMetaQualifier);
-
-        // Preprocessing for repo qualifier
-        boolean containsRepoQualifier = metaQualifiers.stream()
-                .map(Qualifier::getType)
-                .collect(Collectors.toList())
-                .contains(QualifierType.REPO);
-
-        if (!containsRepoQualifier) {
-            exprWithNormalQualifiers = new Conjunction(
-                    new Qualifier(QualifierType.REPO, model.getDefaultRepo()),
-                    exprWithNormalQualifiers);
-        }
-
-        return exprWithNormalQualifiers.isSatisfiedBy(model, issue, new MetaQualifierInfo(metaQualifiers));
+        return CompiledFilter.compile(model, expr).test(issue);
     }
 
     /**
@@ -354,11 +358,11 @@ public class Qualifier implements FilterExpression {
         case ID:
             return idSatisfies(issue);
         case KEYWORD:
-            return keywordSatisfies(issue, info);
+            return keywordSatisfies(model, issue, info);
         case TITLE:
-            return titleSatisfies(issue);
+            return titleSatisfies(model, issue);
         case DESCRIPTION:
-            return bodySatisfies(issue);
+            return bodySatisfies(model, issue);
         case MILESTONE:
             return milestoneSatisfies(model, issue);
         case LABEL:
@@ -568,7 +572,7 @@ public class Qualifier implements FilterExpression {
                 type.equals(other.type);
     }
 
-    private static boolean shouldNotBeStripped(Qualifier q) {
+    static boolean shouldNotBeStripped(Qualifier q) {
         return !shouldBeStripped(q);
     }
 
@@ -617,56 +621,47 @@ public class Qualifier implements FilterExpression {
         return !expr.find(Qualifier::isUpdatedQualifier).isEmpty();
     }
 
-    public Comparator<TurboIssue> getCompoundSortComparator(IModel model, boolean isSortableByNonSelfUpdates) {
-        if (sortKeys.isEmpty()) {
-            return (a, b) -> 0;
-        }
-        return (a, b) -> {
-            for (SortKey key : sortKeys) {
-                Comparator<TurboIssue> comparator =
-                        getSortComparator(model, key.key, key.inverted, isSortableByNonSelfUpdates);
-                int result = comparator.compare(a, b);
-                if (result != 0) {
-                    return result;
-                }
-            }
-            return 0;
-        };
+    /**
+     * Compiles the sort keys of this qualifier into a sort order. Keyword aliases are expanded and
+     * the comparison for each key is chosen once here, instead of on every comparison.
+     */
+    public IssueSortOrder getCompoundSortComparator(IModel model, boolean isSortableByNonSelfUpdates) {
+        return new IssueSortOrder(sortKeys.stream()
+                .map(key -> getSortKey(model, key.key, key.inverted, isSortableByNonSelfUpdates))
+                .collect(Collectors.toList()));
     }
 
-    public static Comparator<TurboIssue> getSortComparator(IModel model,
-                                                           String key,
-                                                           boolean inverted,
-                                                           boolean isSortableByNonSelfUpdates) {
-        Comparator<TurboIssue> comparator = (a, b) -> 0;
-
-        boolean isLabelGroup = false;
+    public static IssueSortOrder getSortComparator(IModel model,
+                                                   String key,
+                                                   boolean inverted,
+                                                   boolean isSortableByNonSelfUpdates) {
+        return new IssueSortOrder(Arrays.asList(getSortKey(model, key, inverted, isSortableByNonSelfUpdates)));
+    }
 
+    private static IssueSortOrder.Key getSortKey(IModel model,
+                                                 String key,
+                                                 boolean inverted,
+                                                 boolean isSortableByNonSelfUpdates) {
         switch (expandKeywordAliases(key)) {
         case "comments":
-            comparator = (a, b) -> a.getCommentCount() - b.getCommentCount();
-            break;
+            return IssueSortOrder.byNumber(TurboIssue::getCommentCount, inverted);
         case "repo":
-            comparator = (a, b) -> a.getRepoId().compareTo(b.getRepoId());
-            break;
+            return IssueSortOrder.byValue(TurboIssue::getRepoId, Comparator.<String>naturalOrder(), inverted);
         case "updated":
         case "date":
-            comparator = (a, b) -> a.getUpdatedAt().compareTo(b.getUpdatedAt());
-            break;
+            return IssueSortOrder.byValue(TurboIssue::getUpdatedAt, Comparator.<LocalDateTime>naturalOrder(),
+                                          Model::getPositionsByUpdatedAt, inverted);
         case "nonSelfUpdate":
             if (isSortableByNonSelfUpdates) {
-                comparator = (a, b) ->
-                        a.getMetadata().getNonSelfUpdatedAt().compareTo(b.getMetadata().getNonSelfUpdatedAt());
+                return IssueSortOrder.byValue(issue -> issue.getMetadata().getNonSelfUpdatedAt(),
+                                              Comparator.<LocalDateTime>naturalOrder(), inverted);
             } else {
-                comparator = (a, b) -> a.getUpdatedAt().compareTo(b.getUpdatedAt());
+                return IssueSortOrder.byValue(TurboIssue::getUpdatedAt, Comparator.<LocalDateTime>naturalOrder(),
+                                              Model::getPositionsByUpdatedAt, inverted);
             }
-            break;
         case "assignee":
         case "as":
-            comparator = (a, b) -> {
-                Optional<String> aAssignee = a.getAssignee();
-                Optional<String> bAssignee = b.getAssignee();
-
+            return IssueSortOrder.byValue(TurboIssue::getAssignee, (aAssignee, bAssignee) -> {
                 if (!aAssignee.isPresent() && !bAssignee.isPresent()) {
                     return 0;
                 } else if (!aAssignee.isPresent()) {
@@ -676,14 +671,10 @@ public class Qualifier implements FilterExpression {
                 } else {
                     return aAssignee.get().compareTo(bAssignee.get());
                 }
-            };
-            break;
+            }, inverted);
         case "milestone":
         case "m":
-            comparator = (a, b) -> {
-                Optional<TurboMilestone> aMilestone = model.getMilestoneOfIssue(a);
-                Optional<TurboMilestone> bMilestone = model.getMilestoneOfIssue(b);
-
+            return IssueSortOrder.byValue(model::getMilestoneOfIssue, (aMilestone, bMilestone) -> {
                 if (!aMilestone.isPresent() && !bMilestone.isPresent()) {
                     return 0;
                 } else if (!aMilestone.isPresent()) {
@@ -693,52 +684,45 @@ public class Qualifier implements FilterExpression {
                 } else {
                     return -(TurboMilestone.getDueDateComparator().compare(aMilestone.get(), bMilestone.get()));
                 }
-            };
-            break;
+            }, inverted);
         case "id":
-            comparator = (a, b) -> a.getId() - b.getId();
-            break;
+            return IssueSortOrder.byNumber(TurboIssue::getId, Model::getPositionsById, inverted);
         case "state":
         case "status":
         case "s":
-            comparator = (a, b) -> Boolean.compare(b.isOpen(), a.isOpen());
-            break;
+            // Open issues first
+            return IssueSortOrder.byNumber(issue -> issue.isOpen() ? 0 : 1, inverted);
         default:
             // Doesn't match anything; assume it's a label group
-            isLabelGroup = true;
-            break;
+            return getLabelGroupSortKey(model, key, inverted);
         }
+    }
 
-        if (isLabelGroup) {
-            // Has a different notion of inversion
-            return getLabelGroupComparator(model, key, inverted);
-        } else {
-            // Use default behaviour for inverting
-            if (!inverted) {
-                return comparator;
-            } else {
-                final Comparator<TurboIssue> finalComparator = comparator;
-                return (a, b) -> -finalComparator.compare(a, b);
-            }
-        }
+    public static IssueSortOrder getLabelGroupComparator(IModel model, String key, boolean inverted) {
+        return new IssueSortOrder(Arrays.asList(getLabelGroupSortKey(model, key, inverted)));
     }
 
-    public static Comparator<TurboIssue> getLabelGroupComparator(IModel model, String key, boolean inverted) {
+    private static IssueSortOrder.Key getLabelGroupSortKey(IModel model, String key, boolean inverted) {
         // Strip trailing ., if any
         final String group = key.replaceAll("\\.$", "");
-        return (a, b) -> {
 
-            // Matches labels belong to the given group
-            Predicate<TurboLabel> sameGroup = l ->
-                    l.isInGroup() && l.getGroupName().equals(group);
+        // Matches labels belong to the given group
+        Predicate<TurboLabel> sameGroup = l ->
+                l.isInGroup() && l.getGroupName().equals(group);
 
-            Comparator<TurboLabel> labelComparator = (x, y) -> x.compareTo(y);
+        Comparator<TurboLabel> labelComparator = (x, y) -> x.compareTo(y);
 
-            List<TurboLabel> aLabels = model.getLabelsOfIssue(a, sameGroup);
-            List<TurboLabel> bLabels = model.getLabelsOfIssue(b, sameGroup);
-            Collections.sort(aLabels, labelComparator);
-            Collections.sort(bLabels, labelComparator);
+        // The sorted labels of each issue in the group, found once per issue when issues are compared
+        // one pair at a time. Issues are compared by identity, and are not kept from being garbage collected.
+        Map<TurboIssue, List<TurboLabel>> sortKeys = new MapMaker().weakKeys().makeMap();
+        Function<TurboIssue, List<TurboLabel>> sortKey = issue -> sortKeys.computeIfAbsent(issue, i -> {
+            List<TurboLabel> labels = model.getLabelsOfIssue(i, sameGroup);
+            Collections.sort(labels, labelComparator);
+            return labels;
+        });
 
+        // Has a different notion of inversion
+        return IssueSortOrder.byValue(sortKey, (aLabels, bLabels) -> {
             // Put empty lists at the back
             if (aLabels.isEmpty() && bLabels.isEmpty()) {
                 return 0;
@@ -770,7 +754,7 @@ public class Qualifier implements FilterExpression {
                 }
             }
             return 0;
-        };
+        }, false);
     }
 
     private boolean idSatisfies(TurboIssue issue) {
@@ -862,7 +846,7 @@ public class Qualifier implements FilterExpression {
     private boolean stateSatisfies(TurboIssue issue) {
         if (!content.isPresent()) throw new SemanticException(type);
 
-        String content = expandKeywordAliases(this.content.get().toLowerCase());
+        String content = expandKeywordAliases(lowerCaseContent.get());
         if (content.contains("open")) {
             return issue.isOpen();
         } else if (content.contains("closed")) {
@@ -878,9 +862,13 @@ public class Qualifier implements FilterExpression {
 
         if (!assignee.isPresent()) return false;
 
-        String content = this.content.get().toLowerCase();
-        String login = assignee.get().getLoginName() == null ? "" : assignee.get().getLoginName().toLowerCase();
-        String name = assignee.get().getRealName() == null ? "" : assignee.get().getRealName().toLowerCase();
+        return userMatches(assignee.get());
+    }
+
+    private boolean userMatches(TurboUser user) {
+        String content = lowerCaseContent.get();
+        String login = user.getLoginName() == null ? "" : user.getLoginName().toLowerCase();
+        String name = user.getRealName() == null ? "" : user.getRealName().toLowerCase();
 
         return login.contains(content) || name.contains(content);
     }
@@ -889,7 +877,7 @@ public class Qualifier implements FilterExpression {
         if (!content.isPresent()) return false;
         Optional<TurboUser> author = model.getAuthorOfIssue(issue);
 
-        String content = this.content.get().toLowerCase();
+        String content = lowerCaseContent.get();
         String login = issue.getCreator().toLowerCase();
         String name = author.map(TurboUser::getRealName).orElse("").toLowerCase();
 
@@ -901,36 +889,7 @@ public class Qualifier implements FilterExpression {
     }
 
     public static boolean labelMatches(String input, String candidate) {
-
-        // Make use of TurboLabel constructor to parse the input, avoiding duplication
-        TurboLabel inputLabel = new TurboLabel("", input.toLowerCase());
-        TurboLabel candidateLabel = new TurboLabel("", candidate.toLowerCase());
-
-        String group = "";
-        if (inputLabel.isInGroup()) {
-            group = inputLabel.getGroupName();
-        }
-        String labelName = inputLabel.getShortName();
-
-        if (candidateLabel.isInGroup()) {
-            if (labelName.isEmpty()) {
-                // Check the group
-                if (candidateLabel.getGroupName().contains(group)) {
-                    return true;
-                }
-            } else {
-                if (candidateLabel.getGroupName().contains(group)
-                        && candidateLabel.getShortName().contains(labelName)) {
-                    return true;
-                }
-            }
-        } else {
-            // Check only the label name
-            if (group.isEmpty() && !labelName.isEmpty() && candidateLabel.getShortName().contains(labelName)) {
-                return true;
-            }
-        }
-        return false;
+        return new LabelMatcher(input).matches(new TurboLabel("", candidate));
     }
 
     private boolean labelsSatisfy(IModel model, TurboIssue issue) {
@@ -942,54 +901,151 @@ public class Qualifier implements FilterExpression {
         // it does not express.
 
         for (TurboLabel label : model.getLabelsOfIssue(issue)) {
-            if (labelMatches(content.get(), label.getFullName())) {
+            if (labelMatcher.get().matches(label)) {
                 return true;
             }
         }
         return false;
     }
 
+    @Override
+    public BitSet getSatisfyingPositions(IModel models, Model model, BitSet candidates, MetaQualifierInfo info) {
+        if (candidates.isEmpty()) return new BitSet();
+
+        Optional<BitSet> indexed = getIndexedPositions(model, candidates);
+        if (indexed.isPresent()) {
+            indexed.get().and(candidates);
+            return indexed.get();
+        }
+
+        BitSet result = new BitSet();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (isSatisfiedBy(models, model.getIssueAt(i), info)) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Resolves this qualifier with the bitmap index of a model, in the same way as the methods
+     * for testing single issues do, where the qualifier type is indexed.
+     *
+     * @param model
+     * @param candidates the positions of the issues being tested, which are not modified
+     * @return the positions of the issues of {@code model} which satisfy this qualifier, possibly
+     * including positions which are not candidates, or empty if the qualifier type is not indexed
+     */
+    private Optional<BitSet> getIndexedPositions(Model model, BitSet candidates) {
+        assert type != null;
+
+        if (isEmpty()) return Optional.of((BitSet) candidates.clone());
+        if (isFalse()) return Optional.of(new BitSet());
+
+        IssueBitmapIndex index = model.getBitmapIndex();
+        switch (type) {
+        case LABEL:
+            if (!content.isPresent()) return Optional.of(new BitSet());
+            return Optional.of(index.getWithLabels(name -> model.getLabelByActualName(name)
+                    .map(labelMatcher.get()::matches)
+                    .orElse(false)));
+        case MILESTONE:
+            if (!content.isPresent()) return Optional.of(new BitSet());
+            return Optional.of(index.getWithMilestones(id -> model.getMilestoneById(id)
+                    .map(milestone -> milestone.getTitle().toLowerCase().contains(lowerCaseContent.get()))
+                    .orElse(false)));
+        case ASSIGNEE:
+            if (!content.isPresent()) return Optional.of(new BitSet());
+            return Optional.of(index.getWithAssignees(login -> model.getUserByLogin(login)
+                    .map(this::userMatches)
+                    .orElse(false)));
+        case STATE:
+            if (!content.isPresent()) throw new SemanticException(type);
+            String state = expandKeywordAliases(lowerCaseContent.get());
+            if (state.contains("open")) {
+                return Optional.of(index.getOpen());
+            } else if (state.contains("closed")) {
+                return Optional.of(complement(index.getOpen(), candidates));
+            } else {
+                throw new SemanticException(type);
+            }
+        case TYPE:
+            if (!content.isPresent()) throw new SemanticException(type);
+            switch (expandKeywordAliases(lowerCaseContent.get())) {
+            case "issue":
+                return Optional.of(complement(index.getPullRequests(), candidates));
+            case "pr":
+                return Optional.of(index.getPullRequests());
+            default:
+                throw new SemanticException(type);
+            }
+        case REPO:
+            if (!content.isPresent()) throw new SemanticException(type);
+            return Optional.of(index.getInRepo(content.get()));
+        default:
+            return Optional.empty();
+        }
+    }
+
+    private static BitSet complement(BitSet positions, BitSet candidates) {
+        BitSet result = (BitSet) candidates.clone();
+        result.andNot(positions);
+        return result;
+    }
+
     private boolean milestoneSatisfies(IModel model, TurboIssue issue) {
         if (!content.isPresent()) return false;
         Optional<TurboMilestone> milestone = model.getMilestoneOfIssue(issue);
 
         if (!milestone.isPresent()) return false;
 
-        String contents = content.get().toLowerCase();
+        String contents = lowerCaseContent.get();
         String title = milestone.get().getTitle().toLowerCase();
 
         return title.contains(contents);
     }
 
-    private boolean keywordSatisfies(TurboIssue issue, MetaQualifierInfo info) {
+    private boolean keywordSatisfies(IModel model, TurboIssue issue, MetaQualifierInfo info) {
 
         if (info.getIn().isPresent()) {
             switch (expandKeywordAliases(info.getIn().get())) {
             case "title":
-                return titleSatisfies(issue);
+                return titleSatisfies(model, issue);
             case "description":
-                return bodySatisfies(issue);
+                return bodySatisfies(model, issue);
             default:
                 throw new SemanticException(QualifierType.IN);
             }
         } else {
-            return titleSatisfies(issue) || bodySatisfies(issue);
+            return titleSatisfies(model, issue) || bodySatisfies(model, issue);
         }
     }
 
-    private boolean bodySatisfies(TurboIssue issue) {
+    /**
+     * Matches against the text index of the issue's model where there is one, which gives the
+     * same result as the substring check it falls back to
+     */
+    private boolean bodySatisfies(IModel model, TurboIssue issue) {
         if (!content.isPresent()) return false;
-        return issue.getDescription().toLowerCase().contains(content.get().toLowerCase());
+        Optional<Model> modelOfIssue = model.getModelById(issue.getRepoId());
+        if (modelOfIssue.isPresent()) {
+            return modelOfIssue.get().isDescriptionMatch(issue, lowerCaseContent.get());
+        }
+        return issue.getDescription().toLowerCase().contains(lowerCaseContent.get());
     }
 
-    private boolean titleSatisfies(TurboIssue issue) {
+    private boolean titleSatisfies(IModel model, TurboIssue issue) {
         if (!content.isPresent()) return false;
-        return issue.getTitle().toLowerCase().contains(content.get().toLowerCase());
+        Optional<Model> modelOfIssue = model.getModelById(issue.getRepoId());
+        if (modelOfIssue.isPresent()) {
+            return modelOfIssue.get().isTitleMatch(issue, lowerCaseContent.get());
+        }
+        return issue.getTitle().toLowerCase().contains(lowerCaseContent.get());
     }
 
     private boolean typeSatisfies(TurboIssue issue) {
         if (!content.isPresent()) throw new SemanticException(type);
-        String content = this.content.get().toLowerCase();
+        String content = lowerCaseContent.get();
         switch (expandKeywordAliases(content)) {
         case "issue":
             return !issue.isPullRequest();
@@ -1,5 +1,6 @@
 package github;
 
+import backend.interfaces.RateLimitBudget;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import org.apache.commons.io.input.NullInputStream;
@@ -16,17 +17,44 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.zip.GZIPInputStream;
 
 public class GitHubClientEx extends GitHubClient {
     private static final Logger logger = HTLog.get(GitHubClientEx.class);
 
     protected static final int CONNECTION_TIMEOUT = 30000;
 
-    // Request method for HEAD API call
-    protected static final String METHOD_HEAD = "HEAD";
+    protected static final String HEADER_RATE_LIMIT_RESET = "X-RateLimit-Reset";
+
+    protected static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+    protected static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+    protected static final String ENCODING_GZIP = "gzip";
+
+    // The number of idle connections kept alive for each host, which should cover the pages
+    // downloaded in parallel (see ParallelPageFetcher)
+    protected static final int MAX_IDLE_CONNECTIONS_PER_HOST = 10;
+
+    static {
+        // HttpURLConnection keeps connections alive in a pool shared by the whole JVM, which is
+        // bounded per host by this property. It is read when the pool is first used.
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections", String.valueOf(MAX_IDLE_CONNECTIONS_PER_HOST));
+        }
+    }
+
+    private final RateLimitBudget rateLimitBudget = new RateLimitBudget();
+    private final RequestMetrics requestMetrics = new RequestMetrics();
+
+    // The times requests which have not been responded to yet were started at
+    private final Map<HttpURLConnection, Long> requestStartTimes =
+            Collections.synchronizedMap(new WeakHashMap<>());
 
     public GitHubClientEx() {
         super();
@@ -37,25 +65,25 @@ public class GitHubClientEx extends GitHubClient {
     }
 
     /**
-     * Extends superclass method with connection timeout parameters.
+     * Extends superclass method with connection timeout parameters, and starts timing the request.
      */
     @Override
     protected HttpURLConnection createConnection(String uri) throws IOException {
         HttpURLConnection connection = super.createConnection(uri);
         connection.setConnectTimeout(CONNECTION_TIMEOUT);
         connection.setReadTimeout(CONNECTION_TIMEOUT);
+        requestStartTimes.put(connection, System.currentTimeMillis());
         return connection;
     }
 
     /**
-     * Creates a HEAD request connection to the URI
-     *
-     * @param uri
-     * @return connection
-     * @throws IOException
+     * Extends superclass method to request compressed responses, which getStream decodes.
      */
-    protected HttpURLConnection createHead(String uri) throws IOException {
-        return createConnection(uri, METHOD_HEAD);
+    @Override
+    protected HttpURLConnection configureRequest(HttpURLConnection request) {
+        super.configureRequest(request);
+        request.setRequestProperty(HEADER_ACCEPT_ENCODING, ENCODING_GZIP);
+        return request;
     }
 
     /**
@@ -133,6 +161,64 @@ public class GitHubClientEx extends GitHubClient {
         }
     }
 
+    /**
+     * Extends superclass method to keep the budget of requests up to date from every response,
+     * including the time the rate limit resets and whether the request failed.
+     */
+    @Override
+    protected GitHubClient updateRateLimits(HttpURLConnection request) {
+        super.updateRateLimits(request);
+        long resetTime = request.getHeaderFieldLong(HEADER_RATE_LIMIT_RESET, 0) * 1000; // seconds to milliseconds
+        rateLimitBudget.update(getRemainingRequests(), getRequestLimit(), resetTime);
+        try {
+            int code = request.getResponseCode();
+            rateLimitBudget.recordResponse(code, System.currentTimeMillis());
+            recordTiming(request, code);
+        } catch (IOException e) {
+            logger.warn("Unable to read response code: " + e.getLocalizedMessage());
+        }
+        return this;
+    }
+
+    private void recordTiming(HttpURLConnection request, int code) {
+        Long startTime = requestStartTimes.remove(request);
+        if (startTime == null) {
+            return;
+        }
+        long millis = System.currentTimeMillis() - startTime;
+        boolean isCompressed = isCompressed(request);
+        requestMetrics.record(code, millis, isCompressed);
+        logger.debug(String.format("%s %s took %d ms, responded with %d%s",
+                                   request.getRequestMethod(), request.getURL().getFile(), millis, code,
+                                   isCompressed ? " (gzip)" : ""));
+    }
+
+    public RateLimitBudget getRateLimitBudget() {
+        return rateLimitBudget;
+    }
+
+    public RequestMetrics getRequestMetrics() {
+        return requestMetrics;
+    }
+
+    /**
+     * Retrieves the number of remaining requests for the hour, as well as the next reset time.
+     * These are taken from the headers of the last response if there was one. Otherwise, they are
+     * retrieved from the Rate Limit API endpoint, which does not count towards the API limit.
+     *
+     * @return A pair consisting of the number of requests remaining for the hour and the next reset time.
+     * @throws IOException
+     */
+    public ImmutablePair<Integer, Long> getRateLimitResetTime() throws IOException {
+        Optional<ImmutablePair<Integer, Long>> rateLimits = rateLimitBudget.getRateLimits();
+        if (rateLimits.isPresent() && rateLimits.get().right > System.currentTimeMillis()) {
+            return rateLimits.get();
+        }
+        ImmutablePair<Integer, Long> requested = requestRateLimitResetTime();
+        rateLimitBudget.update(requested.left, -1, requested.right);
+        return requested;
+    }
+
     /**
      * Accesses the Rate Limit API endpoint to retrieve the number of remaining requests for the hour,
      * as well as the next reset time. Calling this function itself does not count towards the API limit.
@@ -141,7 +227,7 @@ public class GitHubClientEx extends GitHubClient {
      * @throws IOException
      */
     @SuppressWarnings("unchecked")
-    public ImmutablePair<Integer, Long> getRateLimitResetTime() throws IOException {
+    private ImmutablePair<Integer, Long> requestRateLimitResetTime() throws IOException {
         HttpURLConnection httpRequest = createGet("/rate_limit");
         if (isOk(httpRequest.getResponseCode())) {
             // We extract from rate, which is similar to resources.core
@@ -162,14 +248,22 @@ public class GitHubClientEx extends GitHubClient {
     }
 
     /**
-     * Gets a pair of HTTP connection and corresponding response from a header-only API call
+     * Gets a page of items, sending {@code etag} in an If-None-Match header if present.
+     * The server then only returns a body if the ETag of the page has changed.
      *
      * @param request for the API call
-     * @return a pair of HTTP connection and response for the API call
+     * @param etag    the last-known ETag of the page, without quotes
+     * @return a pair of HTTP connection and response for the API call. The body of the response
+     * is null if the page was not modified.
      * @throws IOException
      */
-    public ImmutablePair<HttpURLConnection, GitHubResponse> head(GitHubRequest request) throws IOException {
-        HttpURLConnection httpRequest = createHead(request.generateUri());
+    public ImmutablePair<HttpURLConnection, GitHubResponse> getIfNoneMatch(GitHubRequest request,
+                                                                         Optional<String> etag)
+            throws IOException {
+        HttpURLConnection httpRequest = createGet(request.generateUri());
+        if (etag.isPresent()) {
+            httpRequest.setRequestProperty("If-None-Match", "\"" + etag.get() + "\"");
+        }
         String accept = request.getResponseContentType();
         if (accept != null) {
             httpRequest.setRequestProperty(HEADER_ACCEPT, accept);
@@ -182,7 +276,11 @@ public class GitHubClientEx extends GitHubClient {
 
         logger.info(String.format("%s responded with %d %s",
                                   httpRequest.getURL().getPath(), code, httpRequest.getResponseMessage()));
-        if (isOk(code) || code == HttpURLConnection.HTTP_NOT_MODIFIED || isEmpty(code)) {
+        if (isOk(code)) {
+            return new ImmutablePair<>(httpRequest,
+                                       new GitHubResponse(httpRequest, getBody(request, getStream(httpRequest))));
+        }
+        if (isNotModified(code) || isEmpty(code)) {
             return new ImmutablePair<>(httpRequest, new GitHubResponse(httpRequest, null));
         }
 
@@ -190,6 +288,17 @@ public class GitHubClientEx extends GitHubClient {
                               httpRequest.getResponseMessage());
     }
 
+    /**
+     * Checks whether the rate limit reported by the last response leaves fewer than {@code reserve}
+     * requests. The rate limit is not considered low before it is known.
+     *
+     * @param reserve
+     * @return true if fewer than {@code reserve} requests remain
+     */
+    public boolean isRateLimitLow(int reserve) {
+        return rateLimitBudget.isLow(reserve);
+    }
+
     /**
      * Overridden to make public.
      */
@@ -209,12 +318,33 @@ public class GitHubClientEx extends GitHubClient {
     }
 
     /**
-     * Overridden to make public.
+     * Overridden to make public, and to decode gzip-encoded responses.
+     * The stream must be read to the end and closed for the connection to be kept alive.
      */
     @Override
     @SuppressWarnings("PMD")
     public InputStream getStream(HttpURLConnection request) throws IOException {
-        return super.getStream(request);
+        InputStream stream = super.getStream(request);
+        if (stream == null || !isCompressed(request)) {
+            return stream;
+        }
+        // Bodies are only decoded if they start with the gzip magic number, since responses
+        // without a body (e.g. 204) and some intermediaries still declare the encoding
+        PushbackInputStream pushbackStream = new PushbackInputStream(stream, 2);
+        int firstByte = pushbackStream.read();
+        int secondByte = firstByte == -1 ? -1 : pushbackStream.read();
+        if (secondByte != -1) {
+            pushbackStream.unread(secondByte);
+        }
+        if (firstByte != -1) {
+            pushbackStream.unread(firstByte);
+        }
+        boolean isGzip = secondByte != -1 && (firstByte | secondByte << 8) == GZIPInputStream.GZIP_MAGIC;
+        return isGzip ? new GZIPInputStream(pushbackStream) : pushbackStream;
+    }
+
+    private static boolean isCompressed(HttpURLConnection request) {
+        return ENCODING_GZIP.equalsIgnoreCase(request.getHeaderField(HEADER_CONTENT_ENCODING));
     }
 
     /**
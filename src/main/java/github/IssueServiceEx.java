@@ -4,14 +4,24 @@ import static org.eclipse.egit.github.core.client.IGitHubConstants.*;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
 
+import com.google.gson.reflect.TypeToken;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.eclipse.egit.github.core.Comment;
 import org.eclipse.egit.github.core.IRepositoryIdProvider;
 import org.eclipse.egit.github.core.Issue;
 import org.eclipse.egit.github.core.IssueEvent;
 import org.eclipse.egit.github.core.client.GitHubRequest;
+import org.eclipse.egit.github.core.client.GitHubResponse;
+import org.eclipse.egit.github.core.client.PagedRequest;
 import org.eclipse.egit.github.core.service.IssueService;
 
+import util.Utility;
+
 public class IssueServiceEx extends IssueService {
 
     private final GitHubClientEx ghClient;
@@ -70,4 +80,47 @@ public class IssueServiceEx extends IssueService {
         request.setType(IssueEvent[].class);
         return ghClient.getEvent(request, eTag);
     }
+
+    /**
+     * Retrieves the comments of an issue together with the new ETag if they are updated,
+     * and an empty list with the current ETag if they are not.
+     * Only the first page of comments is requested conditionally. Comments spanning more pages
+     * are retrieved in full with an empty ETag, as the ETag of the first page does not change
+     * with the rest.
+     *
+     * @param repository The repository from which to retrieve the issue
+     * @param issueId    The numeric ID of the issue
+     * @param eTag       The eTag to be added to the request header, or an empty string
+     * @return list of comments and their ETag
+     * @throws IOException
+     */
+    @SuppressWarnings("unchecked")
+    public ImmutablePair<List<Comment>, String> getUpdatedComments(IRepositoryIdProvider repository, int issueId,
+                                                                   String eTag) throws IOException {
+        PagedRequest<Comment> request = createPagedRequest(PagedRequest.PAGE_FIRST, PagedRequest.PAGE_SIZE);
+        StringBuilder uri = new StringBuilder(SEGMENT_REPOS);
+        uri.append('/').append(repository.generateId())
+                .append(SEGMENT_ISSUES).append('/').append(issueId)
+                .append(SEGMENT_COMMENTS);
+        request.setUri(uri);
+        request.setType(new TypeToken<List<Comment>>() {}.getType());
+
+        ImmutablePair<HttpURLConnection, GitHubResponse> response =
+                ghClient.getIfNoneMatch(request, eTag.isEmpty() ? Optional.empty() : Optional.of(eTag));
+        HttpURLConnection connection = response.getLeft();
+        GitHubResponse page = response.getRight();
+
+        if (ghClient.isNotModified(connection.getResponseCode())) {
+            return new ImmutablePair<>(new ArrayList<>(), eTag);
+        }
+        if (page.getBody() == null) {
+            return new ImmutablePair<>(new ArrayList<>(), "");
+        }
+        if (page.getNext() != null) {
+            return new ImmutablePair<>(getComments(repository, issueId), "");
+        }
+        String updatedETag = connection.getHeaderField("ETag");
+        return new ImmutablePair<>(new ArrayList<>((List<Comment>) page.getBody()),
+                                   updatedETag == null ? "" : Utility.stripQuotes(updatedETag));
+    }
 }
@@ -0,0 +1,166 @@
+package github;
+
+import org.apache.logging.log4j.Logger;
+import org.eclipse.egit.github.core.IResourceProvider;
+import org.eclipse.egit.github.core.client.GitHubResponse;
+import org.eclipse.egit.github.core.client.PagedRequest;
+import org.eclipse.egit.github.core.util.UrlUtils;
+import util.HTLog;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import static org.eclipse.egit.github.core.client.IGitHubConstants.PARAM_PAGE;
+
+/**
+ * Downloads all pages of a paged request. The first page is requested on its own, as its Link header
+ * tells the number of pages. The remaining pages are then requested concurrently, and the items of all
+ * pages are reassembled in order.
+ * <p>
+ * While the rate limit is low, pages are requested one at a time, so that the remaining requests
+ * are not used up in a burst.
+ *
+ * @param <V> The type of the items on the pages
+ */
+public class ParallelPageFetcher<V> {
+
+    private static final Logger logger = HTLog.get(ParallelPageFetcher.class);
+
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    // Below this many remaining requests, pages are requested one at a time
+    private static final int RATE_LIMIT_RESERVE = 100;
+
+    private final GitHubClientEx client;
+    private final int parallelism;
+    private final Object throttle = new Object();
+
+    /**
+     * @param client      the client to request pages with
+     * @param parallelism the maximum number of pages requested at the same time
+     */
+    public ParallelPageFetcher(GitHubClientEx client, int parallelism) {
+        assert parallelism > 0;
+
+        this.client = client;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Gets the items of all pages of a request.
+     *
+     * @param request      the request for the first page
+     * @param onPageLoaded called with the number of items loaded so far and the number of pages
+     *                     each time a page is loaded. May be called from several threads.
+     * @return the items of all pages in order. If a page after the first cannot be loaded,
+     * the items of the pages before it.
+     * @throws IOException if the first page cannot be loaded
+     */
+    public List<V> getAll(PagedRequest<V> request, BiConsumer<Integer, Integer> onPageLoaded) throws IOException {
+        GitHubResponse firstResponse = client.get(request);
+        List<V> result = new ArrayList<>(getItems(firstResponse));
+
+        String lastUri = firstResponse.getLast();
+        int lastPage = Math.max(1, parsePageNumber(lastUri));
+        onPageLoaded.accept(result.size(), lastPage);
+        if (lastPage == 1) {
+            return result;
+        }
+
+        AtomicInteger loadedCount = new AtomicInteger(result.size());
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, lastPage - 1));
+        List<Future<Collection<V>>> pages = new ArrayList<>();
+        for (int page = 2; page <= lastPage; page++) {
+            PagedRequest<V> pageRequest = createPageRequest(request, lastUri, page);
+            pages.add(pool.submit(() -> {
+                Collection<V> items = getPage(pageRequest);
+                onPageLoaded.accept(loadedCount.addAndGet(items.size()), lastPage);
+                return items;
+            }));
+        }
+        pool.shutdown();
+
+        try {
+            for (Future<Collection<V>> page : pages) {
+                result.addAll(page.get());
+            }
+        } catch (ExecutionException e) {
+            logger.error("Unable to get all pages of " + request.getUri(), e.getCause());
+            pool.shutdownNow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+        }
+        return result;
+    }
+
+    private Collection<V> getPage(PagedRequest<V> request) throws IOException {
+        if (client.isRateLimitLow(RATE_LIMIT_RESERVE)) {
+            synchronized (throttle) {
+                return getItems(client.get(request));
+            }
+        }
+        return getItems(client.get(request));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<V> getItems(GitHubResponse response) {
+        Object body = response.getBody();
+        if (body instanceof Collection) {
+            return (Collection<V>) body;
+        } else if (body instanceof IResourceProvider) {
+            return ((IResourceProvider<V>) body).getResources();
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Creates the request for a page from the link to the last page, which differs from
+     * the links to other pages only in the page number.
+     */
+    private PagedRequest<V> createPageRequest(PagedRequest<V> firstRequest, String lastUri, int page) {
+        String pageUri;
+        try {
+            pageUri = new URL(lastUri).getFile();
+        } catch (MalformedURLException e) {
+            pageUri = lastUri;
+        }
+
+        PagedRequest<V> request = new PagedRequest<>(page, firstRequest.getPageSize());
+        request.setUri(pageUri.replaceAll("([?&])" + PARAM_PAGE + "=\\d+", "$1" + PARAM_PAGE + "=" + page));
+        request.setType(firstRequest.getType());
+        request.setArrayType(firstRequest.getArrayType());
+        request.setResponseContentType(firstRequest.getResponseContentType());
+        return request;
+    }
+
+    /**
+     * Parses the page number from a page URI
+     *
+     * @param uri
+     * @return page number, or -1 if there is none
+     */
+    private static int parsePageNumber(String uri) {
+        if (uri == null || uri.isEmpty()) {
+            return -1;
+        }
+        try {
+            String param = UrlUtils.getParam(new URI(uri), PARAM_PAGE);
+            return param == null ? -1 : Integer.parseInt(param);
+        } catch (URISyntaxException | NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package github;
+
+/**
+ * Aggregates the timing of the requests made by a GitHubClientEx. The time of a request is measured
+ * from creating its connection until the status line and headers of the response have arrived,
+ * which covers connecting (unless a kept-alive connection is reused) and the server's processing.
+ */
+public class RequestMetrics {
+
+    // Mutable state -- all access to these fields must be synchronized!
+    private long requestCount = 0;
+    private long totalMillis = 0;
+    private long maxMillis = 0;
+    private long compressedResponses = 0;
+    private long failedRequests = 0;
+
+    /**
+     * @param code         the HTTP status code of the response
+     * @param millis       the time the request took
+     * @param isCompressed whether the body of the response was gzip-encoded
+     */
+    public synchronized void record(int code, long millis, boolean isCompressed) {
+        requestCount++;
+        totalMillis += millis;
+        maxMillis = Math.max(maxMillis, millis);
+        if (isCompressed) {
+            compressedResponses++;
+        }
+        if (code >= 400) {
+            failedRequests++;
+        }
+    }
+
+    public synchronized long getRequestCount() {
+        return requestCount;
+    }
+
+    public synchronized long getAverageMillis() {
+        return requestCount == 0 ? 0 : totalMillis / requestCount;
+    }
+
+    public synchronized long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public synchronized long getCompressedResponses() {
+        return compressedResponses;
+    }
+
+    public synchronized long getFailedRequests() {
+        return failedRequests;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d requests (%d failed, %d compressed), average %d ms, max %d ms",
+                             requestCount, failedRequests, compressedResponses, getAverageMillis(), maxMillis);
+    }
+}
@@ -5,7 +5,7 @@ import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.egit.github.core.IRepositoryIdProvider;
-import org.eclipse.egit.github.core.client.GitHubRequest;
+import org.eclipse.egit.github.core.client.GitHubResponse;
 import org.eclipse.egit.github.core.client.NoSuchPageException;
 import org.eclipse.egit.github.core.client.PageIterator;
 import org.eclipse.egit.github.core.client.PagedRequest;
@@ -14,10 +14,17 @@ import util.Utility;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.eclipse.egit.github.core.client.IGitHubConstants.CONTENT_TYPE_JSON;
 import static org.eclipse.egit.github.core.client.IGitHubConstants.SEGMENT_REPOS;
@@ -44,6 +51,17 @@ public class UpdateService<T> extends GitHubService {
     // Cached results of calling getUpdatedItems
     protected ArrayList<T> updatedItems = null;
 
+    // The items of recently received pages, by page URI, shared by all UpdateServices. They are
+    // reused when a page is not modified but other pages of the same request are.
+    private static final int MAX_CACHED_PAGES = 64;
+    private static final Map<String, Page<?>> pageCache =
+            new LinkedHashMap<String, Page<?>>(MAX_CACHED_PAGES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Page<?>> eldest) {
+                    return size() > MAX_CACHED_PAGES;
+                }
+            };
+
     /**
      * @param client    an authenticated GitHubClient
      * @param apiSuffix the API URI for the type of item; defined by subclasses
@@ -76,7 +94,11 @@ public class UpdateService<T> extends GitHubService {
     }
 
     /**
-     * Retrieves the requested items from GitHub
+     * Retrieves the requested items from GitHub.
+     * <p>
+     * Each page is requested with the ETag it had at the last update, so that unchanged pages
+     * are answered with 304 Not Modified. If any page changed, the items of all pages are returned,
+     * taking those of unchanged pages from the page cache where possible.
      *
      * @param repoId the repository to get the items from
      * @return a list of requested items
@@ -92,17 +114,19 @@ public class UpdateService<T> extends GitHubService {
 
         logger.info(String.format("Updating %s with ETag %s", resourceDesc, lastETags));
         try {
-            PagedRequest<T> headerRequest = createUpdatedRequest(repoId);
-            Optional<ImmutablePair<List<String>, HttpURLConnection>> etags = getPagedEtags(headerRequest, client);
+            PagedRequest<T> request = createUpdatedRequest(repoId);
+            Optional<ImmutablePair<List<Page<T>>, HttpURLConnection>> pages = getPages(repoId, request);
 
-            if (!etags.isPresent()) {
+            if (!pages.isPresent()) {
                 /* Respond as if we succeeded and there were no updates.
                    The assumption is that updates are cheap and we can do them as frequently as needed. */
                 logger.warn(String.format("%s: error getting updated items", getClass().getSimpleName()));
             } else {
-                updatedETags = combineETags(etags.get().getLeft());
-                result = downloadUpdatedItems(repoId, resourceDesc, updatedETags);
-                updateCheckTime(etags.get().getRight());
+                updatedETags = combineETags(pages.get().getLeft().stream()
+                                                    .map(page -> page.etag)
+                                                    .collect(Collectors.toList()));
+                result = downloadUpdatedItems(request, resourceDesc, pages.get().getLeft(), updatedETags);
+                updateCheckTime(pages.get().getRight());
             }
         } catch (IOException e) {
             logger.error(e.getLocalizedMessage(), e);
@@ -113,19 +137,34 @@ public class UpdateService<T> extends GitHubService {
         return result;
     }
 
-    private ArrayList<T> downloadUpdatedItems(IRepositoryIdProvider repoId,
+    @SuppressWarnings("unchecked")
+    private ArrayList<T> downloadUpdatedItems(PagedRequest<T> request,
                                               String resourceDesc,
+                                              List<Page<T>> pages,
                                               Optional<String> updatedETags) throws IOException {
         ArrayList<T> result = new ArrayList<>();
 
         if (!updatedETags.isPresent() || updatedETags.get().equals(lastETags)) {
             logger.info("Nothing to update");
-        } else {
-            PagedRequest<T> request = createUpdatedRequest(repoId);
-            result = new ArrayList<>(getPagedItems(resourceDesc, new PageIterator<>(request, client)));
-            logger.info(String.format("New ETag for %s: %s", resourceDesc, updatedETags));
+            return result;
         }
 
+        int pageNumber = 0;
+        for (Page<T> page : pages) {
+            Optional<Collection<T>> items = page.items.isPresent()
+                    ? page.items
+                    : getCachedPage(page.uri, page.etag).map(cached -> (Collection<T>) cached);
+            if (!items.isPresent()) {
+                // Not modified, but no longer cached
+                request.setUri(page.uri);
+                items = Optional.of((Collection<T>) client.get(request).getBody());
+                cachePage(page.uri, page.etag, items.get());
+            }
+            result.addAll(items.get());
+            logger.info(resourceDesc + " | page " + (pageNumber++) + ": " + items.get().size() + " items");
+        }
+        logger.info(String.format("New ETag for %s: %s", resourceDesc, updatedETags));
+
         return result;
     }
 
@@ -140,35 +179,103 @@ public class UpdateService<T> extends GitHubService {
     }
 
     /**
-     * Gets a list of ETags for all pages returned from an API request and
-     * also return the connection used to get the ETags so that their last check time
-     * can be recorded elsewhere
+     * Splits ETags combined by {@link #combineETags} into the ETags of each page
+     */
+    private static List<String> splitETags(String etags) {
+        if (etags == null || etags.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return Arrays.asList(etags.split("#"));
+    }
+
+    /**
+     * Requests all pages returned from an API request, each with the ETag it had at the last update.
+     * Also returns the connection used to get the first page so that its last check time
+     * can be recorded elsewhere.
      *
-     * @param request
-     * @param client
-     * @return a Optional list of ETags for all pages returned from an API request and
-     * corresponding HTTP connection or an empty Optional if an error occurs
+     * @param repoId
+     * @param request the request for the first page
+     * @return an Optional list of pages and the connection for the first page,
+     * or an empty Optional if an error occurs
      */
-    private Optional<ImmutablePair<List<String>, HttpURLConnection>> getPagedEtags(
-            GitHubRequest request, GitHubClientEx client) {
+    @SuppressWarnings("unchecked")
+    private Optional<ImmutablePair<List<Page<T>>, HttpURLConnection>> getPages(
+            IRepositoryIdProvider repoId, PagedRequest<T> request) {
+
+        List<String> lastPageETags = splitETags(lastETags);
+        List<Page<T>> pages = new ArrayList<>();
+        HttpURLConnection firstConnection = null;
+        String uri = request.generateUri();
 
-        PageHeaderIterator iter = new PageHeaderIterator(request, client, "ETag");
-        List<String> etags = new ArrayList<>();
-        HttpURLConnection connection = null;
+        while (uri != null) {
+            Optional<String> lastETag = pages.size() < lastPageETags.size()
+                    ? Optional.of(lastPageETags.get(pages.size()))
+                    : Optional.empty();
+            request.setUri(uri);
 
-        while (iter.hasNext()) {
+            ImmutablePair<HttpURLConnection, GitHubResponse> response;
             try {
-                etags.add(Utility.stripQuotes(iter.next()));
-                if (connection == null) {
-                    connection = iter.getLastConnection();
-                }
-            } catch (NoSuchPageException e) {
-                logger.error("No such page exception at " + iter.getRequest().generateUri());
+                response = client.getIfNoneMatch(request, lastETag);
+            } catch (IOException e) {
+                logger.error("Unable to get page at " + uri, e);
                 return Optional.empty();
             }
+            if (firstConnection == null) {
+                firstConnection = response.getLeft();
+            }
+
+            Optional<Collection<T>> items = Optional.ofNullable((Collection<T>) response.getRight().getBody());
+            String etag = Optional.ofNullable(response.getRight().getHeader("ETag"))
+                    .map(Utility::stripQuotes)
+                    .orElse(lastETag.orElse(""));
+            if (items.isPresent()) {
+                cachePage(uri, etag, items.get());
+            }
+            pages.add(new Page<>(uri, etag, items));
+
+            uri = getNextPageUri(repoId, response.getRight(), items.isPresent(), pages.size(), lastPageETags.size());
+        }
+
+        return Optional.of(new ImmutablePair<>(pages, firstConnection));
+    }
+
+    /**
+     * Returns the URI of the page after {@code response}, or null if it is the last page.
+     * A Not Modified response may not link to the next page, in which case the number of pages
+     * at the last update is assumed to be unchanged.
+     */
+    private String getNextPageUri(IRepositoryIdProvider repoId, GitHubResponse response, boolean hasBody,
+                                  int pagesSoFar, int lastPageCount) {
+        String next = response.getNext();
+        if (next != null) {
+            try {
+                return new URL(next).getFile();
+            } catch (MalformedURLException e) {
+                return next;
+            }
+        }
+        if (!hasBody && pagesSoFar < lastPageCount) {
+            PagedRequest<T> firstRequest = createUpdatedRequest(repoId);
+            PagedRequest<T> nextRequest = new PagedRequest<>(pagesSoFar + 1, firstRequest.getPageSize());
+            nextRequest.setUri(firstRequest.getUri());
+            nextRequest.setParams(firstRequest.getParams());
+            return nextRequest.generateUri();
+        }
+        return null;
+    }
+
+    private static Optional<Collection<?>> getCachedPage(String uri, String etag) {
+        synchronized (pageCache) {
+            return Optional.ofNullable(pageCache.get(uri))
+                    .filter(page -> page.etag.equals(etag))
+                    .flatMap(page -> page.items);
         }
+    }
 
-        return Optional.of(new ImmutablePair<>(etags, connection));
+    private static void cachePage(String uri, String etag, Collection<?> items) {
+        synchronized (pageCache) {
+            pageCache.put(uri, new Page<>(uri, etag, Optional.of(items)));
+        }
     }
 
     /**
@@ -223,4 +330,19 @@ public class UpdateService<T> extends GitHubService {
         String date = connection.getHeaderField("Date");
         updatedCheckTime = Utility.parseHTTPLastModifiedDate(date);
     }
+
+    /**
+     * A page of items with its ETag. The items are absent if the page was not modified.
+     */
+    private static class Page<T> {
+        public final String uri;
+        public final String etag;
+        public final Optional<Collection<T>> items;
+
+        public Page(String uri, String etag, Optional<Collection<T>> items) {
+            this.uri = uri;
+            this.etag = etag;
+            this.items = items;
+        }
+    }
 }
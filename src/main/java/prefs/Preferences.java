@@ -257,6 +257,46 @@ public class Preferences { // NOPMD
         save();
     }
 
+    /**
+     * Sets whether repositories are stored in the binary format instead of JSON.
+     * Takes effect on the next start of the application.
+     */
+    public void setBinaryStoreEnabled(boolean isBinaryStoreEnabled) {
+        userConfig.setBinaryStoreEnabled(isBinaryStoreEnabled);
+        save();
+    }
+
+    public boolean isBinaryStoreEnabled() {
+        return userConfig.isBinaryStoreEnabled();
+    }
+
+    public void setStoreThreads(int storeThreads) {
+        userConfig.setStoreThreads(storeThreads);
+        save();
+    }
+
+    public int getStoreThreads() {
+        return userConfig.getStoreThreads();
+    }
+
+    public void setPageDownloadParallelism(int pageDownloadParallelism) {
+        userConfig.setPageDownloadParallelism(pageDownloadParallelism);
+        save();
+    }
+
+    public int getPageDownloadParallelism() {
+        return userConfig.getPageDownloadParallelism();
+    }
+
+    public void setMetadataConcurrency(int metadataConcurrency) {
+        userConfig.setMetadataConcurrency(metadataConcurrency);
+        save();
+    }
+
+    public int getMetadataConcurrency() {
+        return userConfig.getMetadataConcurrency();
+    }
+
     public Optional<RepositoryId> getLastViewedRepository() {
         if (sessionConfig.getLastViewedRepository().isEmpty()) {
             return Optional.empty();
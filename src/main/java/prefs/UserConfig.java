@@ -4,4 +4,48 @@ package prefs;
  * Represents user-defined settings.
  */
 public class UserConfig {
+
+    // Whether repositories are stored in the binary format instead of JSON
+    private boolean binaryStoreEnabled = false;
+
+    // The maximum number of repositories read from or written to the store at the same time
+    private int storeThreads = 4;
+
+    // The maximum number of pages of issues downloaded at the same time for a repository
+    private int pageDownloadParallelism = 4;
+
+    // The maximum number of requests made at the same time when downloading the metadata of issues
+    private int metadataConcurrency = 8;
+
+    public boolean isBinaryStoreEnabled() {
+        return binaryStoreEnabled;
+    }
+
+    public void setBinaryStoreEnabled(boolean binaryStoreEnabled) {
+        this.binaryStoreEnabled = binaryStoreEnabled;
+    }
+
+    public int getStoreThreads() {
+        return storeThreads;
+    }
+
+    public void setStoreThreads(int storeThreads) {
+        this.storeThreads = storeThreads;
+    }
+
+    public int getPageDownloadParallelism() {
+        return pageDownloadParallelism;
+    }
+
+    public void setPageDownloadParallelism(int pageDownloadParallelism) {
+        this.pageDownloadParallelism = pageDownloadParallelism;
+    }
+
+    public int getMetadataConcurrency() {
+        return metadataConcurrency;
+    }
+
+    public void setMetadataConcurrency(int metadataConcurrency) {
+        this.metadataConcurrency = metadataConcurrency;
+    }
 }
@@ -354,7 +354,7 @@ public class MenuControl extends MenuBar {
                 // we trigger the notification timeout action first before refreshing
                 ui.hideNotification();
             }
-            ui.logic.refresh();
+            ui.refreshNow();
         });
         refreshMenuItem.setAccelerator(REFRESH);
         return refreshMenuItem;
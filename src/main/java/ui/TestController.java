@@ -1,6 +1,8 @@
 package ui;
 
 import backend.RepoIO;
+import backend.binary.BinaryStore;
+import backend.github.GitHubSource;
 import backend.interfaces.RepoStore;
 import backend.json.JSONStore;
 import backend.json.JSONStoreStub;
@@ -145,22 +147,29 @@ public final class TestController {
     /**
      * Creates a RepoIO for the application that uses different components
      * depending on various test options: --test, --testjson etc.
+     * Outside of test mode, the store is chosen according to {@code prefs}.
      */
-    public static RepoIO createApplicationRepoIO() {
+    public static RepoIO createApplicationRepoIO(Preferences prefs) {
         if (isTestMode()) {
             return createTestingRepoIO(isTestJSONEnabled() ? Optional.of(new JSONStoreStub()) : Optional.empty());
         } else {
-            return new RepoIO(Optional.empty(), Optional.empty(), Optional.empty());
+            int storeThreads = Math.max(1, prefs.getStoreThreads());
+            RepoStore store = prefs.isBinaryStoreEnabled()
+                    ? new BinaryStore(new JSONStore(storeThreads), storeThreads)
+                    : new JSONStore(storeThreads);
+            GitHubSource source = new GitHubSource(Math.max(1, prefs.getPageDownloadParallelism()),
+                                                   Math.max(1, prefs.getMetadataConcurrency()));
+            return new RepoIO(Optional.of(source), Optional.of(store), Optional.empty());
         }
     }
 
     /**
      * Creates a partially stubbed RepoIO used for testing.
-     * @param jsonStoreToBeUsed store to be used with RepoIO,
-     *                          defaults to a new instance of JSONStore if this value is empty
+     * @param storeToBeUsed store to be used with RepoIO,
+     *                      defaults to a new instance of JSONStore if this value is empty
      */
-    public static RepoIO createTestingRepoIO(Optional<JSONStore> jsonStoreToBeUsed) {
-        return new RepoIO(Optional.of(new DummySource()), jsonStoreToBeUsed,
+    public static RepoIO createTestingRepoIO(Optional<RepoStore> storeToBeUsed) {
+        return new RepoIO(Optional.of(new DummySource()), storeToBeUsed,
                           Optional.of(RepoStore.TEST_DIRECTORY));
     }
 
@@ -1,6 +1,7 @@
 package ui;
 
 import backend.Logic;
+import backend.RefreshScheduler;
 import backend.UIManager;
 import browserview.BrowserComponent;
 import browserview.BrowserComponentStub;
@@ -48,7 +49,6 @@ import javax.swing.*;
 import java.awt.Rectangle;
 import java.lang.reflect.Method;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 
 import static ui.components.KeyboardShortcuts.SHOW_ISSUE_PICKER;
 import static ui.components.KeyboardShortcuts.SHOW_REPO_PICKER;
@@ -63,7 +63,6 @@ public class UI extends Application implements EventDispatcher {
     private static HWND mainWindowHandle;
     private final GlobalHotkey globalHotkey = new GlobalHotkey(this);
 
-    private static final int REFRESH_PERIOD = 60;
 
     /**
      * Minimum Java Version Required by HT.
@@ -96,7 +95,7 @@ public class UI extends Application implements EventDispatcher {
     public static StatusUI status;
     public static EventDispatcher events;
     public EventBus eventBus;
-    private TickingTimer refreshTimer;
+    private RefreshScheduler refreshScheduler;
     public GUIController guiController;
     private NotificationController notificationController;
     public UndoController undoController;
@@ -180,6 +179,7 @@ public class UI extends Application implements EventDispatcher {
         boolean isAFirstTimeUser = logic.getStoredRepos().isEmpty();
         logic.openPrimaryRepository(repoId);
         logic.setDefaultRepo(repoId);
+        refreshScheduler.setUsedRepos(getCurrentlyUsedRepos());
         triggerEvent(new PrimaryRepoChangedEvent(repoId));
 
         triggerEvent(new BoardSavedEvent()); // Initializes boards
@@ -247,9 +247,11 @@ public class UI extends Application implements EventDispatcher {
         // we can pass them in the form of an array.
         logic = new Logic(uiManager, prefs, Optional.empty(), Optional.empty());
         // TODO clear cache if necessary
-        refreshTimer = new TickingTimer("Refresh Timer", REFRESH_PERIOD,
-                                        status::updateTimeToRefresh, logic::refresh, TimeUnit.SECONDS);
-        refreshTimer.start();
+        refreshScheduler = new RefreshScheduler(logic::getOpenRepositories, logic::refresh,
+                                                status::updateTimeToRefresh);
+        registerEvent((UpdateRateLimitsEventHandler) e ->
+                refreshScheduler.updateRateLimits(e.remainingRequests, e.nextRefreshInMillisecs));
+        refreshScheduler.start();
         undoController = new UndoController(notificationController);
     }
 
@@ -315,6 +317,10 @@ public class UI extends Application implements EventDispatcher {
             panels.saveSession();
         }
         if (!TestController.isTestMode() || TestController.isCloseOnQuit()) {
+            if (refreshScheduler != null) {
+                refreshScheduler.stop();
+            }
+            logic.onAppQuit();
             updateManager.onAppQuit();
             Platform.exit();
             System.exit(0);
@@ -343,6 +349,10 @@ public class UI extends Application implements EventDispatcher {
         mainStage.show();
         mainStage.setOnCloseRequest(e -> quit());
         mainStage.focusedProperty().addListener((unused, wasFocused, isFocused) -> {
+            // The scheduler is created after the stage is first shown
+            if (refreshScheduler != null) {
+                refreshScheduler.setIdle(!isFocused);
+            }
             if (!isFocused) {
                 return;
             }
@@ -354,8 +364,7 @@ public class UI extends Application implements EventDispatcher {
                     boolean shouldRefresh = browserComponent.hasBviewChanged();
                     if (shouldRefresh) {
                         logger.info("Browser view has changed; refreshing");
-                        logic.refresh();
-                        refreshTimer.restart();
+                        refreshNow();
                     }
                 }
             });
@@ -408,6 +417,13 @@ public class UI extends Application implements EventDispatcher {
         return notificationPane;
     }
 
+    /**
+     * Refreshes all open repositories now instead of when they are next due.
+     */
+    public void refreshNow() {
+        refreshScheduler.refreshNow();
+    }
+
     public Set<String> getCurrentlyUsedRepos() {
         Set<String> currentlyUsedRepos = new HashSet<>();
         String defaultRepo = logic.getDefaultRepo();
@@ -421,7 +437,9 @@ public class UI extends Application implements EventDispatcher {
     }
 
     public void removeUnusedModelsAndUpdate() {
-        logic.removeUnusedModels(Utility.convertSetToLowerCase(getCurrentlyUsedRepos()));
+        Set<String> usedRepos = Utility.convertSetToLowerCase(getCurrentlyUsedRepos());
+        logic.removeUnusedModels(usedRepos);
+        refreshScheduler.setUsedRepos(usedRepos);
 
         triggerEvent(new UnusedStoredReposChangedEvent());
     }
@@ -0,0 +1,14 @@
+package util.exceptions;
+
+public class BinaryLoadException extends RepoStoreException {
+
+    private static final long serialVersionUID = 3125785925937245128L;
+
+    public BinaryLoadException() {
+        super();
+    }
+
+    public BinaryLoadException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,152 @@
+package tests;
+
+import backend.IssueMetadata;
+import backend.github.DownloadMetadataTask;
+import backend.interfaces.Repo;
+import backend.interfaces.RepoTask;
+import backend.interfaces.TaskRunner;
+import backend.resource.TurboIssue;
+import github.IssueEventType;
+import github.TurboIssueEvent;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.eclipse.egit.github.core.Comment;
+import org.eclipse.egit.github.core.User;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DownloadMetadataTaskTests {
+
+    private static final String REPO = "test/test";
+
+    private final TaskRunner taskRunner = new TaskRunner() {
+        @Override
+        public <R> RepoTask<R> addTask(RepoTask<R> task) {
+            task.run();
+            return task;
+        }
+
+        @Override
+        public void execute(Runnable r) {
+            r.run();
+        }
+    };
+
+    /**
+     * Tests that the metadata of every issue is passed on in exactly one batch of bounded size,
+     * and that the task completes with the metadata of all issues
+     */
+    @Test
+    public void run_manyIssues_metadataPassedOnInBatches() throws ExecutionException, InterruptedException {
+        Repo repo = createRepo();
+        List<TurboIssue> issues = createIssues(45, false);
+        List<Map<Integer, IssueMetadata>> batches = Collections.synchronizedList(new ArrayList<>());
+
+        DownloadMetadataTask task = new DownloadMetadataTask(taskRunner, repo, REPO, issues, 4, batches::add);
+        task.run();
+        Map<Integer, IssueMetadata> result = task.response.get();
+
+        assertEquals(45, result.size());
+        Set<Integer> batchedIds = new HashSet<>();
+        int batchedCount = 0;
+        for (Map<Integer, IssueMetadata> batch : batches) {
+            assertTrue(batch.size() <= 20);
+            batchedIds.addAll(batch.keySet());
+            batchedCount += batch.size();
+        }
+        assertEquals(result.keySet(), batchedIds);
+        assertEquals(45, batchedCount);
+        verify(repo, times(45)).getUpdatedComments(anyString(), anyInt(), anyString());
+        verify(repo, never()).getReviewComments(anyString(), anyInt());
+    }
+
+    /**
+     * Tests that review comments are requested for pull requests and included in their metadata
+     */
+    @Test
+    public void run_pullRequests_reviewCommentsRequested() throws ExecutionException, InterruptedException {
+        Repo repo = createRepo();
+        List<TurboIssue> issues = createIssues(3, true);
+
+        DownloadMetadataTask task = new DownloadMetadataTask(taskRunner, repo, REPO, issues);
+        task.run();
+
+        assertEquals(3, task.response.get().size());
+        verify(repo, times(3)).getReviewComments(anyString(), anyInt());
+    }
+
+    /**
+     * Tests that an issue whose metadata cannot be downloaded is left out without affecting others
+     */
+    @Test
+    public void run_requestFails_otherIssuesDownloaded() throws ExecutionException, InterruptedException {
+        Repo repo = createRepo();
+        when(repo.getUpdatedComments(REPO, 2, "")).thenThrow(new RuntimeException());
+        List<TurboIssue> issues = createIssues(3, false);
+
+        DownloadMetadataTask task = new DownloadMetadataTask(taskRunner, repo, REPO, issues);
+        task.run();
+
+        assertEquals(new HashSet<>(Arrays.asList(1, 3)), task.response.get().keySet());
+    }
+
+    /**
+     * Tests that events and comments are kept when they are unchanged since their ETags were returned,
+     * e.g. after being loaded from the store
+     */
+    @Test
+    public void run_unchangedETags_metadataKept() throws ExecutionException, InterruptedException {
+        Repo repo = createRepo();
+        TurboIssueEvent event = new TurboIssueEvent(new User().setLogin("a"), IssueEventType.Closed, new Date());
+        Comment comment = new Comment().setBody("comment").setCreatedAt(new Date()).setUser(new User().setLogin("a"));
+        TurboIssue issue = createIssues(1, false).get(0);
+        issue.setMetadata(IssueMetadata.intermediate(Arrays.asList(event), Arrays.asList(comment),
+                                                     "etag", "etag"));
+
+        DownloadMetadataTask task = new DownloadMetadataTask(taskRunner, repo, REPO, Arrays.asList(issue));
+        task.run();
+
+        IssueMetadata metadata = task.response.get().get(1);
+        assertEquals(1, metadata.getEvents().size());
+        assertEquals(1, metadata.getComments().size());
+        assertEquals("etag", metadata.getCommentsETag());
+        verify(repo).getUpdatedComments(REPO, 1, "etag");
+    }
+
+    private static Repo createRepo() {
+        Repo repo = mock(Repo.class);
+        when(repo.getUpdatedEvents(anyString(), anyInt(), anyString()))
+                .thenReturn(new ImmutablePair<>(new ArrayList<TurboIssueEvent>(), "etag"));
+        when(repo.getUpdatedComments(anyString(), anyInt(), anyString()))
+                .thenReturn(new ImmutablePair<>(new ArrayList<Comment>(), "etag"));
+        when(repo.getReviewComments(anyString(), anyInt())).thenReturn(new ArrayList<>());
+        return repo;
+    }
+
+    private static List<TurboIssue> createIssues(int count, boolean arePullRequests) {
+        List<TurboIssue> issues = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            issues.add(new TurboIssue(REPO, i, "Issue " + i, "creator", LocalDateTime.now(), arePullRequests));
+        }
+        return issues;
+    }
+}
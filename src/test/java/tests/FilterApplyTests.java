@@ -24,8 +24,9 @@ public class FilterApplyTests {
     private final IModel empty;
 
     public FilterApplyTests() {
-        empty = new MultiModel(mock(Preferences.class));
-        empty.setDefaultRepo(REPO);
+        MultiModel models = new MultiModel(mock(Preferences.class));
+        models.setDefaultRepo(REPO);
+        empty = models;
     }
 
     @Test
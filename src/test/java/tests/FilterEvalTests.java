@@ -19,10 +19,12 @@ import backend.resource.*;
 import filter.ParseException;
 import filter.Parser;
 import filter.SemanticException;
+import filter.expression.CompiledFilter;
 import filter.expression.FilterExpression;
 import filter.expression.Qualifier;
 import filter.expression.QualifierType;
 import prefs.Preferences;
+import ui.TestController;
 
 import static filter.expression.Qualifier.USER_WARNING_ERROR_FORMAT;
 
@@ -35,8 +37,9 @@ public class FilterEvalTests {
     public static final String REPO = "test/test";
 
     public FilterEvalTests() {
-        empty = new MultiModel(mock(Preferences.class));
-        empty.setDefaultRepo(REPO);
+        MultiModel models = new MultiModel(mock(Preferences.class));
+        models.setDefaultRepo(REPO);
+        empty = models;
     }
 
     @Test
@@ -872,6 +875,98 @@ public class FilterEvalTests {
     }
 
 
+    @Test
+    public void compiledFilter_reusedAcrossIssues_matchesProcess() {
+        TurboIssue issue1 = new TurboIssue(REPO, 1, "Crash on start");
+        TurboIssue issue2 = new TurboIssue(REPO, 2, "crash on exit");
+        TurboIssue issue3 = new TurboIssue(REPO, 3, "Typo");
+        TurboIssue otherRepoIssue = new TurboIssue("other/repo", 4, "crash");
+        issue2.setOpen(false);
+
+        FilterExpression expr = Parser.parse("CRASH in:title sort:id count:5");
+        CompiledFilter compiledFilter = CompiledFilter.compile(empty, expr);
+
+        for (TurboIssue issue : Arrays.asList(issue1, issue2, issue3, otherRepoIssue)) {
+            assertEquals(Qualifier.process(empty, expr, issue), compiledFilter.test(issue));
+        }
+        assertTrue(compiledFilter.test(issue1));
+        assertTrue(compiledFilter.test(issue2));
+        assertFalse(compiledFilter.test(issue3));
+        // The default repository is injected when there is no repo qualifier
+        assertFalse(compiledFilter.test(otherRepoIssue));
+
+        CompiledFilter explicitRepo = CompiledFilter.compile(empty, Parser.parse("crash repo:other/repo"));
+        assertTrue(explicitRepo.test(otherRepoIssue));
+        assertFalse(explicitRepo.test(issue1));
+    }
+
+    @Test
+    public void compiledFilter_filterModels_sameAsTestingEachIssue() {
+        MultiModel models = new MultiModel(TestController.createTestPreferences());
+        for (String repoId : Arrays.asList(REPO, "other/repo")) {
+            List<TurboIssue> issues = new ArrayList<>();
+            for (int id = 1; id <= 12; id++) {
+                TurboIssue issue = new TurboIssue(repoId, id, "Issue " + id, "alice", LocalDateTime.now(), id % 4 == 0);
+                issue.setOpen(id % 3 != 0);
+                issue.setLabels(id % 2 == 0 ? Arrays.asList("type.bug", "p.high") : Arrays.asList("type.feature"));
+                if (id % 5 != 0) {
+                    issue.setMilestoneById(1 + id % 2);
+                }
+                if (id % 3 == 1) {
+                    issue.setAssignee(id % 2 == 0 ? "bob" : "carol");
+                }
+                issues.add(issue);
+            }
+            models.queuePendingRepository(repoId);
+            models.addPending(new Model(repoId, issues,
+                    Arrays.asList(new TurboLabel(repoId, "type.bug"), new TurboLabel(repoId, "type.feature")),
+                    Arrays.asList(new TurboMilestone(repoId, 1, "v1.0"), new TurboMilestone(repoId, 2, "v2.0")),
+                    Arrays.asList(new TurboUser(repoId, "bob", "Bob Smith"), new TurboUser(repoId, "carol"))));
+        }
+        models.setDefaultRepo(REPO);
+        MultiModelSnapshot snapshot = models.getSnapshot();
+
+        for (String filter : Arrays.asList("", "label:bug", "label:type.", "label:p.high", "milestone:v1",
+                                           "assignee:smith", "state:open", "state:closed", "type:pr",
+                                           "type:issue", "label:bug OR milestone:v2 -state:closed",
+                                           "NOT (label:feature assignee:carol)", "repo:other/repo label:bug",
+                                           "issue 1 label:bug", "-id:>5 (is:open OR milestone:v2)",
+                                           "state:open repo:test/test OR repo:other/repo -type:pr")) {
+            CompiledFilter compiledFilter = CompiledFilter.compile(snapshot, Parser.parse(filter));
+            List<TurboIssue> expected = new ArrayList<>();
+            snapshot.getIssues().stream().filter(compiledFilter).forEach(expected::add);
+
+            assertEquals(filter, expected, compiledFilter.filter(snapshot.getModels()));
+        }
+    }
+
+    @Test
+    public void compiledFilter_filterModelsWithEditedIssues_sameAsTestingEachIssue() {
+        TurboIssue issue1 = new TurboIssue(REPO, 1, "Crash");
+        TurboIssue issue2 = new TurboIssue(REPO, 2, "Typo");
+        issue1.setLabels(Arrays.asList("type.bug"));
+        MultiModel models = (MultiModel) TestUtils.singletonModel(new Model(REPO,
+                new ArrayList<>(Arrays.asList(issue1, issue2)),
+                new ArrayList<>(Arrays.asList(new TurboLabel(REPO, "type.bug"))),
+                new ArrayList<>(), new ArrayList<>()));
+        CompiledFilter compiledFilter = CompiledFilter.compile(models, Parser.parse("label:bug is:open"));
+        assertEquals(Arrays.asList(issue1), compiledFilter.filter(models.getSnapshot().getModels()));
+
+        models.replaceIssueLabels(REPO, 2, Arrays.asList("type.bug"));
+        models.editIssueState(REPO, 1, false);
+
+        MultiModelSnapshot snapshot = models.getSnapshot();
+        List<TurboIssue> filtered = compiledFilter.filter(snapshot.getModels());
+        assertEquals(1, filtered.size());
+        assertEquals(2, filtered.get(0).getId());
+    }
+
+    @Test
+    public void compiledFilter_multipleInQualifiers_failsOnCompile() {
+        thrown.expect(ParseException.class);
+        CompiledFilter.compile(empty, Parser.parse("crash in:title in:desc"));
+    }
+
     /**
      * Tests the filter string in the context of an empty model
      */
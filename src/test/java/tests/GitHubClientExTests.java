@@ -1,23 +1,19 @@
 package tests;
 
 import github.GitHubClientEx;
-import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.eclipse.egit.github.core.Milestone;
-import org.eclipse.egit.github.core.client.GitHubResponse;
-import org.eclipse.egit.github.core.client.PagedRequest;
+import org.eclipse.egit.github.core.client.GitHubRequest;
 import org.junit.Test;
 import org.mockserver.client.server.MockServerClient;
 import org.mockserver.integration.ClientAndServer;
 import org.mockserver.model.HttpRequest;
-import org.mockserver.model.Parameter;
 import org.mockserver.verify.VerificationTimes;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.net.HttpURLConnection;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
 
-import static org.eclipse.egit.github.core.client.IGitHubConstants.CONTENT_TYPE_JSON;
 import static org.eclipse.egit.github.core.client.IGitHubConstants.SEGMENT_REPOS;
 import static org.junit.Assert.assertEquals;
 import static org.mockserver.model.HttpRequest.request;
@@ -25,64 +21,49 @@ import static org.mockserver.model.HttpResponse.response;
 
 public class GitHubClientExTests {
     /**
-     * Tests that head request to nonexistent repo throws an exception
-     *
-     * @throws IOException
-     */
-    @Test(expected = IOException.class)
-    public void testInvalidHeadRequest() throws IOException {
-        GitHubClientEx client = new GitHubClientEx();
-
-        PagedRequest<Milestone> request = new PagedRequest<>();
-        Map<String, String> params = new HashMap<>();
-        params.put("state", "all");
-
-        String path = SEGMENT_REPOS + "/nonexistentrepo";
-        request.setUri(path);
-        request.setResponseContentType(CONTENT_TYPE_JSON);
-        request.setParams(params);
-
-        client.head(request);
-    }
-
-    /**
-     * Tests that GitHubClientEx' head method makes a HTTP HEAD request and receive a corresponding
-     * header response from a mocked server
+     * Tests that GitHubClientEx requests compressed responses, decodes them transparently
+     * and records the timing of each request
      *
      * @throws IOException
      */
     @Test
-    public void testValidHeadRequest() throws IOException {
+    public void testCompressedGetRequest() throws IOException {
         MockServerClient mockServer = ClientAndServer.startClientAndServer(8888);
         HttpRequest expectedRequest = request()
-                .withMethod("HEAD")
-                .withPath(TestUtils.API_PREFIX + "/repos/repo")
-                .withQueryStringParameters(
-                        new Parameter("state", "all"),
-                        new Parameter("per_page", "100"),
-                        new Parameter("page", "1")
-                );
-        String eTagValue = "aaf65fc6b10d5afbdc9cd0aa6e6ada4c";
+                .withMethod("GET")
+                .withPath(TestUtils.API_PREFIX + "/repos/repo/milestones/1")
+                .withHeader("Accept-Encoding", "gzip");
 
         mockServer
                 .when(expectedRequest)
-                .respond(response().withHeader("ETag", eTagValue));
-
-        PagedRequest<Milestone> request = new PagedRequest<>();
-        Map<String, String> params = new HashMap<>();
-        params.put("state", "all");
+                .respond(response()
+                                 .withHeader("Content-Encoding", "gzip")
+                                 .withHeader("Content-Type", "application/json")
+                                 .withBody(gzip("{\"number\": 1, \"title\": \"v1.0\"}")));
 
         GitHubClientEx client = new GitHubClientEx("localhost", 8888, "http");
-
-        String path = SEGMENT_REPOS + "/repo";
-        request.setUri(path);
-        request.setResponseContentType(CONTENT_TYPE_JSON);
-        request.setParams(params);
-        ImmutablePair<HttpURLConnection, GitHubResponse> result = client.head(request);
+        GitHubRequest request = new GitHubRequest();
+        request.setUri(SEGMENT_REPOS + "/repo/milestones/1");
+        request.setType(Milestone.class);
+        Milestone milestone = (Milestone) client.get(request).getBody();
 
         mockServer.verify(expectedRequest, VerificationTimes.exactly(1));
-        assertEquals(eTagValue, result.getRight().getHeader("ETag"));
+        assertEquals(1, milestone.getNumber());
+        assertEquals("v1.0", milestone.getTitle());
+        assertEquals(1, client.getRequestMetrics().getRequestCount());
+        assertEquals(1, client.getRequestMetrics().getCompressedResponses());
+        assertEquals(0, client.getRequestMetrics().getFailedRequests());
+        // The only request recorded is both the slowest and the average
+        assertEquals(client.getRequestMetrics().getMaxMillis(), client.getRequestMetrics().getAverageMillis());
 
         mockServer.stop();
     }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(buffer)) {
+            gzipStream.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return buffer.toByteArray();
+    }
 }
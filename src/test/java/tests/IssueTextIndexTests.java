@@ -0,0 +1,137 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import backend.resource.IssueTextIndex;
+import backend.resource.Model;
+import backend.resource.TurboIssue;
+
+public class IssueTextIndexTests {
+
+    private static final String REPO = "test/test";
+
+    private static TurboIssue createIssue(int id, String title, String description) {
+        TurboIssue issue = new TurboIssue(REPO, id, title, "creator", LocalDateTime.of(2015, 1, 1, 0, 0), false);
+        issue.setDescription(description);
+        return issue;
+    }
+
+    private static List<TurboIssue> createIssues() {
+        return new ArrayList<>(Arrays.asList(
+                createIssue(1, "Filter should show issues", "Steps to reproduce: open a `panel`..."),
+                createIssue(2, "Crash on Windows 10", "NullPointerException in UpdateController"),
+                createIssue(3, "Label colours", ""),
+                createIssue(4, "a b c", "x-y z")));
+    }
+
+    @Test
+    public void getTitleMatches_substrings_sameAsContains() {
+        IssueTextIndex index = IssueTextIndex.build(createIssues());
+
+        assertEquals(new HashSet<>(Arrays.asList(1)), index.getTitleMatches("ilter sho"));
+        assertEquals(new HashSet<>(Arrays.asList(1, 2, 3)), index.getTitleMatches("o"));
+        assertEquals(new HashSet<>(Arrays.asList(2)), index.getTitleMatches("windows 1"));
+        assertEquals(new HashSet<>(Arrays.asList(4)), index.getTitleMatches("a b"));
+        assertEquals(new HashSet<>(Arrays.asList(1, 2, 3, 4)), index.getTitleMatches(" "));
+        assertEquals(new HashSet<>(Arrays.asList(1, 2, 3, 4)), index.getTitleMatches(""));
+        assertTrue(index.getTitleMatches("filtershould").isEmpty());
+        assertTrue(index.getTitleMatches("windows  10").isEmpty());
+    }
+
+    @Test
+    public void getDescriptionMatches_punctuation_sameAsContains() {
+        IssueTextIndex index = IssueTextIndex.build(createIssues());
+
+        assertEquals(new HashSet<>(Arrays.asList(1)), index.getDescriptionMatches("`panel`."));
+        assertEquals(new HashSet<>(Arrays.asList(1)), index.getDescriptionMatches("..."));
+        assertEquals(new HashSet<>(Arrays.asList(4)), index.getDescriptionMatches("-"));
+        assertEquals(new HashSet<>(Arrays.asList(2)), index.getDescriptionMatches("pointerexception in update"));
+        assertTrue(index.getDescriptionMatches("`panel`!").isEmpty());
+    }
+
+    @Test
+    public void getMatches_randomText_sameAsContains() {
+        Random random = new Random(0);
+        String[] words = {"filter", "panel", "Issue", "issues", "x", "10", "-", "`code`", "the", "ISSUE-42"};
+        List<TurboIssue> issues = new ArrayList<>();
+        for (int id = 1; id <= 200; id++) {
+            issues.add(createIssue(id, words(random, words, 5), words(random, words, 30)));
+        }
+        IssueTextIndex index = IssueTextIndex.build(issues);
+
+        for (int i = 0; i < 200; i++) {
+            String text = words(random, words, 3).toLowerCase();
+            int start = random.nextInt(text.length());
+            String query = text.substring(start, start + random.nextInt(text.length() - start + 1));
+
+            Set<Integer> titleMatches = new HashSet<>();
+            Set<Integer> descriptionMatches = new HashSet<>();
+            for (TurboIssue issue : issues) {
+                if (issue.getTitle().toLowerCase().contains(query)) {
+                    titleMatches.add(issue.getId());
+                }
+                if (issue.getDescription().toLowerCase().contains(query)) {
+                    descriptionMatches.add(issue.getId());
+                }
+            }
+            assertEquals(query, titleMatches, index.getTitleMatches(query));
+            assertEquals(query, descriptionMatches, index.getDescriptionMatches(query));
+        }
+    }
+
+    @Test
+    public void isTitleIndexed_issueChangedAfterIndexing_notIndexed() {
+        List<TurboIssue> issues = createIssues();
+        IssueTextIndex index = IssueTextIndex.build(issues);
+        TurboIssue copy = new TurboIssue(issues.get(0));
+
+        assertTrue(index.isTitleIndexed(copy));
+        assertTrue(index.isDescriptionIndexed(copy));
+
+        issues.get(0).setTitle("Renamed");
+        copy.setDescription("Changed");
+
+        assertFalse(index.isTitleIndexed(issues.get(0)));
+        assertTrue(index.isDescriptionIndexed(issues.get(0)));
+        assertFalse(index.isDescriptionIndexed(copy));
+        assertFalse(index.isTitleIndexed(createIssue(5, "New", "")));
+    }
+
+    @Test
+    public void isTitleMatch_issuesChangedAfterIndexing_matchesCurrentText() {
+        List<TurboIssue> issues = createIssues();
+        Model model = new Model(REPO, issues, new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        assertTrue(model.isTitleMatch(issues.get(0), "filter"));
+
+        issues.get(0).setTitle("Sorting is slow");
+        assertFalse(model.isTitleMatch(issues.get(0), "filter"));
+        assertTrue(model.isTitleMatch(issues.get(0), "sort"));
+
+        TurboIssue edited = new TurboIssue(issues.get(1));
+        edited.setDescription("Fixed by filtering");
+        Model newModel = model.withIssues(Arrays.asList(edited));
+        assertTrue(newModel.isDescriptionMatch(edited, "filter"));
+        assertFalse(newModel.isDescriptionMatch(issues.get(2), "filter"));
+        assertTrue(newModel.isTitleMatch(edited, "crash"));
+    }
+
+    private static String words(Random random, String[] words, int count) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            result.append(words[random.nextInt(words.length)]).append(random.nextInt(5) == 0 ? ", " : " ");
+        }
+        return result.toString();
+    }
+}
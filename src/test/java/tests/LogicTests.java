@@ -1,5 +1,6 @@
 package tests;
 
+import backend.IssueMetadata;
 import backend.Logic;
 import backend.RepoIO;
 import backend.UIManager;
@@ -13,15 +14,19 @@ import org.junit.rules.ExpectedException;
 import org.mockito.InOrder;
 import prefs.Preferences;
 import ui.UI;
+import ui.components.StatusUIStub;
 import util.events.EventDispatcher;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
@@ -479,6 +484,43 @@ public class LogicTests {
                 .replaceIssueAssignee(anyString(), anyInt(), any(Optional.class));
     }
 
+    /**
+     * Tests that the first retrieval of metadata after stored metadata is loaded revalidates it,
+     * i.e. sends the issues with the ETags of the stored metadata
+     */
+    @Test
+    public void getIssueMetadata_storedMetadata_sendsStoredETags() throws ExecutionException, InterruptedException {
+        UI.status = new StatusUIStub();
+        String repoId = "testowner/testrepo";
+        TurboIssue issue = new TurboIssue(repoId, 1, "Issue title");
+        TurboIssue otherIssue = new TurboIssue(repoId, 2, "Issue title");
+        Map<Integer, IssueMetadata> stored = new HashMap<>();
+        stored.put(1, IssueMetadata.intermediate(new ArrayList<>(), new ArrayList<>(), "eventsETag", "commentsETag"));
+        TurboIssue issueWithStoredMetadata = new TurboIssue(issue);
+        issueWithStoredMetadata.setMetadata(stored.get(1).full("").invalidate());
+
+        when(mockedRepoIO.loadStoredMetadata(repoId)).thenReturn(CompletableFuture.completedFuture(stored));
+        when(mockedMultiModel.insertStoredMetadata(eq(repoId), eq(stored), anyString()))
+                .thenReturn(Arrays.asList(issueWithStoredMetadata));
+        when(mockedMultiModel.getModelById(repoId)).thenReturn(Optional.empty());
+        List<List<TurboIssue>> retrieved = new ArrayList<>();
+        when(mockedRepoIO.getIssueMetadata(eq(repoId), anyListOf(TurboIssue.class), any())).then(invocation -> {
+            @SuppressWarnings("unchecked")
+            List<TurboIssue> issues = (List<TurboIssue>) invocation.getArguments()[1];
+            retrieved.add(issues);
+            return CompletableFuture.completedFuture(new HashMap<>());
+        });
+
+        assertTrue(logic.getIssueMetadata(repoId, Arrays.asList(issue, otherIssue)).get());
+
+        assertEquals(1, retrieved.size());
+        List<TurboIssue> issues = retrieved.get(0);
+        assertEquals(2, issues.size());
+        assertEquals("eventsETag", issues.get(0).getMetadata().getEventsETag());
+        assertEquals("commentsETag", issues.get(0).getMetadata().getCommentsETag());
+        assertEquals("", issues.get(1).getMetadata().getEventsETag());
+    }
+
     private void mockRepoIOReplaceIssueLabelsResult(boolean replaceResult) {
         when(mockedRepoIO.replaceIssueLabels(any(TurboIssue.class), anyListOf(String.class)))
                 .thenReturn(CompletableFuture.completedFuture(replaceResult));
@@ -15,6 +15,7 @@ import util.Utility;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -100,6 +101,34 @@ public class MilestoneUpdateServiceTests {
                      service.getUpdatedCheckTime());
     }
 
+    /**
+     * Tests that a page which is answered with 304 Not Modified is not downloaded again
+     * when another page has changed, but taken from the pages received by earlier updates
+     */
+    @Test
+    public void getUpdatedItems_unmodifiedPageReceivedBefore_itemsReused() {
+        GitHubClientEx client = new GitHubClientEx("localhost", 8888, "http");
+        RepositoryId repoId = RepositoryId.createFromId("teammates/repo");
+        assertEquals(188, new MilestoneUpdateService(client, "ffffff#ffffff").getUpdatedItems(repoId).size());
+
+        // From now on the first page can only be received as not modified
+        List<Header> notModifiedHeaders = TestUtils.parseHeaderRecord(page1Header).stream()
+                .filter(header -> !header.getName().equals("Content-Encoding")
+                        && !header.getName().equals("Transfer-Encoding"))
+                .collect(Collectors.toList());
+        mockServer.clear(createMockServerRequest("GET", 1));
+        mockServer
+                .when(createMockServerRequest("GET", 1))
+                .respond(response().withStatusCode(304).withHeaders(notModifiedHeaders));
+
+        String previousETags = "4c0ad3c08dc706b76d8277a88a4c037e#ffffff";
+        String expectedETags = "4c0ad3c08dc706b76d8277a88a4c037e#4b56f029e953e9983344b9e0b60d9a71";
+        MilestoneUpdateService service = new MilestoneUpdateService(client, previousETags);
+
+        assertEquals(188, service.getUpdatedItems(repoId).size());
+        assertEquals(expectedETags, service.getUpdatedETags());
+    }
+
     private static HttpRequest createMockServerRequest(String method, int page) {
         return TestUtils.createMockServerRequest(method, page, "teammates/repo", "19369035", "/milestones");
     }
@@ -225,6 +225,12 @@ public class ModelTests {
         assertEquals(Optional.<TurboIssue>empty(), modelUpdated.getIssueById(DummyRepoState.NO_OF_DUMMY_ISSUES + 1));
         assertEquals("Issue 10", modelUpdated.getIssueById(10).get().getTitle());
 
+        List<TurboIssue> issues = modelUpdated.getIssues();
+        assertEquals(issues.size(), modelUpdated.getIssueCount());
+        for (int i = 0; i < issues.size(); i++) {
+            assertEquals(issues.get(i), modelUpdated.getIssueAt(i));
+        }
+
         // Labels
 
         try {
@@ -416,4 +422,47 @@ public class ModelTests {
         assertEquals(1, result.get().getId());
         assertEquals(newAssignee, result.get().getAssignee().get());
     }
+
+    /**
+     * Tests that edits through the model leave it unchanged, and that lookups return the
+     * edited issue in the model created with it
+     */
+    @Test
+    public void withIssues_afterEdits_returnsEditedIssue() {
+        String repoId = "testowner/testrepo";
+        TurboIssue issue = LogicTests.createIssueWithLabels(1, Arrays.asList("label1"));
+        TurboIssue otherIssue = LogicTests.createIssueWithLabels(2, Arrays.asList("label1"));
+        Model model = new Model(repoId, Arrays.asList(issue, otherIssue), new ArrayList<>(),
+                                new ArrayList<>(), new ArrayList<>());
+
+        TurboIssue edited = model.replaceIssueLabels(1, Arrays.asList("label2")).get();
+        Model editedModel = model.withIssues(Arrays.asList(edited));
+        edited = editedModel.replaceIssueMilestone(1, Optional.of(2)).get();
+        editedModel = editedModel.withIssues(Arrays.asList(edited));
+
+        assertTrue(issue == model.getIssueById(1).get());
+        assertEquals(Arrays.asList("label1"), issue.getLabels());
+        assertEquals(Optional.empty(), issue.getMilestone());
+
+        TurboIssue result = editedModel.getIssueById(1).get();
+        assertTrue(edited == result);
+        assertEquals(Arrays.asList("label2"), result.getLabels());
+        assertEquals(Optional.of(2), result.getMilestone());
+        assertTrue(otherIssue == editedModel.getIssueById(2).get());
+        assertEquals(Arrays.asList(result, otherIssue), editedModel.getIssues());
+    }
+
+    /**
+     * Tests that lookups by a duplicated key return the first matching element, as a list scan would
+     */
+    @Test
+    public void getMilestoneByTitle_duplicateTitles_returnsFirst() {
+        String repoId = "testowner/testrepo";
+        List<TurboMilestone> milestones = Arrays.asList(new TurboMilestone(repoId, 1, "v1"),
+                                                        new TurboMilestone(repoId, 2, "v1"));
+        Model model = new Model(repoId, new ArrayList<>(), new ArrayList<>(), milestones, new ArrayList<>());
+
+        assertEquals(1, model.getMilestoneByTitle("v1").get().getId());
+        assertEquals(2, model.getMilestoneById(2).get().getId());
+    }
 }
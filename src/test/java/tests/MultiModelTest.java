@@ -2,8 +2,11 @@ package tests;
 
 import backend.RepoIO;
 import backend.json.JSONStoreStub;
+import backend.resource.IssueChanges;
 import backend.resource.Model;
 import backend.resource.MultiModel;
+import backend.resource.MultiModelSnapshot;
+import backend.resource.TurboIssue;
 import backend.resource.TurboUser;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -15,6 +18,8 @@ import util.events.EventDispatcherStub;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
@@ -164,6 +169,7 @@ public class MultiModelTest {
         Model mockedModel = mock(Model.class);
         when(mockedModel.getRepoId()).thenReturn(repoId);
         when(mockedModel.getIssues()).thenReturn(new ArrayList<>());
+        when(mockedModel.replaceIssueLabels(issueId, labels)).thenReturn(Optional.empty());
 
         MultiModel models = new MultiModel(mock(Preferences.class));
         models.queuePendingRepository(repoId);
@@ -186,6 +192,7 @@ public class MultiModelTest {
         Model mockedModel = mock(Model.class);
         when(mockedModel.getRepoId()).thenReturn(repoId);
         when(mockedModel.getIssues()).thenReturn(new ArrayList<>());
+        when(mockedModel.replaceIssueMilestone(issueId, milestoneId)).thenReturn(Optional.empty());
 
         MultiModel models = new MultiModel(mock(Preferences.class));
         models.queuePendingRepository(repoId);
@@ -207,6 +214,8 @@ public class MultiModelTest {
         Model mockedModel = mock(Model.class);
         when(mockedModel.getRepoId()).thenReturn(repoId);
         when(mockedModel.getIssues()).thenReturn(new ArrayList<>());
+        when(mockedModel.editIssueState(issueId, true)).thenReturn(Optional.empty());
+        when(mockedModel.editIssueState(issueId, false)).thenReturn(Optional.empty());
 
         MultiModel models = new MultiModel(mock(Preferences.class));
         models.queuePendingRepository(repoId);
@@ -232,6 +241,7 @@ public class MultiModelTest {
         Model mockedModel = mock(Model.class);
         when(mockedModel.getRepoId()).thenReturn(repoId);
         when(mockedModel.getIssues()).thenReturn(new ArrayList<>());
+        when(mockedModel.replaceIssueAssignee(issueId, assignee)).thenReturn(Optional.empty());
 
         MultiModel models = new MultiModel(mock(Preferences.class));
         models.queuePendingRepository(repoId);
@@ -240,4 +250,80 @@ public class MultiModelTest {
         models.replaceIssueAssignee(repoId, issueId, assignee);
         verify(mockedModel).replaceIssueAssignee(issueId, assignee);
     }
+
+    @Test
+    public void getChangesSince_issueEdits_changesTracked() {
+        MultiModel models = createModelsWithIssues(REPO, 1, 2);
+        long version = models.getVersion();
+
+        models.editIssueState(REPO, 1, false);
+        models.replaceIssueLabels(REPO, 2, Arrays.asList("label1"));
+
+        Optional<IssueChanges> changes = models.getChangesSince(version);
+        assertTrue(changes.isPresent());
+        assertEquals(new HashSet<>(Arrays.asList(1, 2)), changes.get().getModified(REPO));
+        assertTrue(changes.get().getAdded(REPO).isEmpty());
+        assertTrue(models.getChangesSince(models.getVersion()).get().isEmpty());
+    }
+
+    @Test
+    public void getChangesSince_replaceWithChanges_changesMerged() {
+        MultiModel models = createModelsWithIssues(REPO, 1, 2);
+        long version = models.getVersion();
+
+        Model updated = new Model(REPO, Arrays.asList(new TurboIssue(REPO, 1, "Issue 1"),
+                                                      new TurboIssue(REPO, 2, "Issue 2"),
+                                                      new TurboIssue(REPO, 3, "Issue 3")),
+                                  new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        models.replace(updated, IssueChanges.of(REPO, Arrays.asList(3), Arrays.asList(1), Collections.emptySet()));
+        models.editIssueState(REPO, 3, false);
+
+        IssueChanges changes = models.getChangesSince(version).get();
+        assertEquals(new HashSet<>(Arrays.asList(3)), changes.getAdded(REPO));
+        assertEquals(new HashSet<>(Arrays.asList(1)), changes.getModified(REPO));
+        assertTrue(changes.isChanged(REPO, 3));
+        assertFalse(changes.isChanged(REPO, 2));
+    }
+
+    @Test
+    public void getChangesSince_untrackedChange_noChanges() {
+        MultiModel models = createModelsWithIssues(REPO, 1);
+        long version = models.getVersion();
+
+        models.replace(new Model(REPO));
+
+        assertTrue(models.getVersion() > version);
+        assertFalse(models.getChangesSince(version).isPresent());
+        assertTrue(models.getChangesSince(models.getVersion()).get().isEmpty());
+    }
+
+    @Test
+    public void getSnapshot_issueEdited_earlierSnapshotUnchanged() {
+        MultiModel models = createModelsWithIssues(REPO, 1, 2);
+        MultiModelSnapshot before = models.getSnapshot();
+        TurboIssue issue1 = before.getIssue(REPO, 1).get();
+        TurboIssue issue2 = before.getIssue(REPO, 2).get();
+
+        models.replaceIssueLabels(REPO, 1, Arrays.asList("label1"));
+        MultiModelSnapshot after = models.getSnapshot();
+
+        assertTrue(after.getVersion() > before.getVersion());
+        assertTrue(issue1.getLabels().isEmpty());
+        assertTrue(before.getIssue(REPO, 1).get() == issue1);
+        assertEquals(Arrays.asList("label1"), after.getIssue(REPO, 1).get().getLabels());
+        assertTrue(after.getIssue(REPO, 2).get() == issue2);
+        assertTrue(after.getIssues() == after.getIssues());
+        assertEquals(2, after.getIssues().size());
+    }
+
+    private MultiModel createModelsWithIssues(String repoId, int... issueIds) {
+        List<TurboIssue> issues = new ArrayList<>();
+        for (int issueId : issueIds) {
+            issues.add(new TurboIssue(repoId, issueId, "Issue " + issueId));
+        }
+        MultiModel models = new MultiModel(mock(Preferences.class));
+        models.queuePendingRepository(repoId);
+        models.addPending(new Model(repoId, issues, new ArrayList<>(), new ArrayList<>(), new ArrayList<>()));
+        return models;
+    }
 }
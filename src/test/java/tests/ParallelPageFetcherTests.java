@@ -0,0 +1,122 @@
+package tests;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import github.GitHubClientEx;
+import github.ParallelPageFetcher;
+import org.eclipse.egit.github.core.Milestone;
+import org.eclipse.egit.github.core.client.PagedRequest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockserver.client.server.MockServerClient;
+import org.mockserver.junit.MockServerRule;
+import org.mockserver.model.Header;
+import org.mockserver.model.HttpRequest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.eclipse.egit.github.core.client.IGitHubConstants.CONTENT_TYPE_JSON;
+import static org.junit.Assert.assertEquals;
+import static org.mockserver.model.HttpResponse.response;
+
+public class ParallelPageFetcherTests {
+    @Rule
+    public MockServerRule mockServerRule = new MockServerRule(8888, this);
+
+    private final MockServerClient mockServer = new MockServerClient("localhost", 8888);
+    private static final String resourceDir = "tests/PagedMilestonesSample/";
+
+    private final String page1Header;
+    private final String page1;
+    private final String page2Header;
+    private final String page2;
+
+    public ParallelPageFetcherTests() throws IOException {
+        page1Header = TestUtils.readFileFromResource(this, resourceDir + "page1-header.txt");
+        page1 = TestUtils.readFileFromResource(this, resourceDir + "page1.json");
+        page2Header = TestUtils.readFileFromResource(this, resourceDir + "page2-header.txt");
+        page2 = TestUtils.readFileFromResource(this, resourceDir + "page2.json");
+    }
+
+    @Before
+    public void setUpMockServer() {
+        List<Header> page1Headers = TestUtils.parseHeaderRecord(page1Header);
+        List<Header> page2Headers = TestUtils.parseHeaderRecord(page2Header);
+
+        mockServer
+                .when(createMockServerRequest(1))
+                .respond(response().withHeaders(page1Headers).withBody(page1));
+
+        mockServer
+                .when(createMockServerRequest(2))
+                .respond(response().withHeaders(page2Headers).withBody(page2));
+    }
+
+    /**
+     * Tests that getAll follows the last page link of the first page to get the remaining pages,
+     * returns the items of all pages in order and reports progress once per page
+     */
+    @Test
+    public void getAll_twoPages_allItemsInOrder() throws IOException {
+        GitHubClientEx client = new GitHubClientEx("localhost", 8888, "http");
+        ParallelPageFetcher<Milestone> fetcher = new ParallelPageFetcher<>(client, 4);
+        List<Integer> loadedCounts = Collections.synchronizedList(new ArrayList<>());
+
+        List<Milestone> milestones = fetcher.getAll(createMilestonesRequest(),
+                                                    (loadedCount, lastPage) -> {
+                                                        assertEquals(2, lastPage.intValue());
+                                                        loadedCounts.add(loadedCount);
+                                                    });
+
+        assertEquals(188, milestones.size());
+        assertEquals(2, loadedCounts.size());
+        assertEquals(188, loadedCounts.get(1).intValue());
+
+        List<Milestone> expected = new ArrayList<>();
+        expected.addAll(parseMilestones(page1));
+        expected.addAll(parseMilestones(page2));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getNumber(), milestones.get(i).getNumber());
+        }
+    }
+
+    /**
+     * Tests that getAll returns the items of the first page if the other pages cannot be loaded
+     */
+    @Test
+    public void getAll_laterPageMissing_firstPageReturned() throws IOException {
+        mockServer.clear(createMockServerRequest(2));
+        GitHubClientEx client = new GitHubClientEx("localhost", 8888, "http");
+
+        List<Milestone> milestones = new ParallelPageFetcher<Milestone>(client, 2)
+                .getAll(createMilestonesRequest(), (loadedCount, lastPage) -> {});
+
+        assertEquals(100, milestones.size());
+    }
+
+    private static List<Milestone> parseMilestones(String json) {
+        return new Gson().fromJson(json, new TypeToken<ArrayList<Milestone>>() {}.getType());
+    }
+
+    private static PagedRequest<Milestone> createMilestonesRequest() {
+        PagedRequest<Milestone> request = new PagedRequest<>();
+        Map<String, String> params = new HashMap<>();
+        params.put("state", "all");
+        request.setUri("/repos/teammates/repo/milestones");
+        request.setParams(params);
+        request.setResponseContentType(CONTENT_TYPE_JSON);
+        request.setType(new TypeToken<Milestone>() {}.getType());
+        request.setArrayType(new TypeToken<ArrayList<Milestone>>() {}.getType());
+        return request;
+    }
+
+    private static HttpRequest createMockServerRequest(int page) {
+        return TestUtils.createMockServerRequest("GET", page, "teammates/repo", "19369035", "/milestones");
+    }
+}
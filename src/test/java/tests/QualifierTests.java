@@ -1,6 +1,7 @@
 package tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
@@ -17,6 +18,7 @@ import backend.interfaces.IModel;
 import backend.resource.*;
 import filter.Parser;
 import filter.expression.FilterExpression;
+import filter.expression.IssueSortOrder;
 import filter.expression.Qualifier;
 import filter.expression.QualifierType;
 
@@ -493,13 +495,13 @@ public class QualifierTests {
             issues.add(new TurboIssue(FilterEvalTests.REPO, i, ""));
         }
 
-        issues.get(0).getLabels().addAll(Arrays.asList("test.1"));
-        issues.get(1).getLabels().addAll(Arrays.asList("test.2"));
-        issues.get(2).getLabels().addAll(Arrays.asList("test.a"));
-        issues.get(3).getLabels().addAll(Arrays.asList("test.1", "test.2"));
-        issues.get(4).getLabels().addAll(Arrays.asList("test.a", "test.2"));
-        issues.get(5).getLabels().addAll(Arrays.asList("test.1", "test.2", "test.a"));
-        issues.get(6).getLabels().addAll(Arrays.asList("something"));
+        issues.get(0).setLabels(Arrays.asList("test.1"));
+        issues.get(1).setLabels(Arrays.asList("test.2"));
+        issues.get(2).setLabels(Arrays.asList("test.a"));
+        issues.get(3).setLabels(Arrays.asList("test.1", "test.2"));
+        issues.get(4).setLabels(Arrays.asList("test.a", "test.2"));
+        issues.get(5).setLabels(Arrays.asList("test.1", "test.2", "test.a"));
+        issues.get(6).setLabels(Arrays.asList("something"));
         // issues.get(7) has no labels
 
         for (int i = 0; i < 8; i++) {
@@ -554,16 +556,126 @@ public class QualifierTests {
 
     }
 
+    @Test
+    public void sortOrder_manyIssuesWithTies_sameAsListSort() {
+        Random random = new Random(0);
+        String repo = FilterEvalTests.REPO;
+        List<TurboLabel> labels = Arrays.asList(new TurboLabel(repo, "test.1"), new TurboLabel(repo, "test.2"),
+                                                new TurboLabel(repo, "other"));
+        List<TurboMilestone> milestones = Arrays.asList(new TurboMilestone(repo, 1, "v1"),
+                                                        new TurboMilestone(repo, 2, "v2"));
+        List<TurboIssue> issues = new ArrayList<>();
+        for (int i = 0; i < IssueSortOrder.MIN_PARALLEL_SORT_SIZE * 2; i++) {
+            TurboIssue issue = new TurboIssue(repo, i, "");
+            issue.setCommentCount(random.nextInt(4));
+            issue.setOpen(random.nextBoolean());
+            issue.setMilestoneById(random.nextInt(3) == 0 ? null : 1 + random.nextInt(2));
+            issue.setLabels(labels.stream()
+                                    .filter(label -> random.nextBoolean())
+                                    .map(TurboLabel::getFullName)
+                                    .collect(Collectors.toList()));
+            if (random.nextBoolean()) {
+                issue.setAssignee("user" + random.nextInt(3));
+            }
+            issues.add(issue);
+        }
+        IModel model = TestUtils.singletonModel(
+                new Model(repo, issues, labels, milestones, new ArrayList<>()));
+
+        Qualifier sortQualifier = Parser.parse("sort:~comments,status,m,test,as")
+                .find(Qualifier::isMetaQualifier).get(0);
+        IssueSortOrder sortOrder = sortQualifier.getCompoundSortComparator(model, false);
+
+        List<TurboIssue> expected = new ArrayList<>(issues);
+        expected.sort(sortOrder);
+        for (boolean isParallelAllowed : Arrays.asList(false, true)) {
+            List<TurboIssue> sorted = new ArrayList<>(issues);
+            sortOrder.sort(sorted, isParallelAllowed);
+            assertEquals(getIds(expected), getIds(sorted));
+        }
+    }
+
+    @Test
+    public void selectFirst_issuesWithTies_sameAsSortThenLimit() {
+        Random random = new Random(0);
+        List<TurboIssue> issues = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            TurboIssue issue = new TurboIssue(FilterEvalTests.REPO, random.nextInt(1000), "");
+            issue.setCommentCount(random.nextInt(5));
+            issue.setOpen(random.nextBoolean());
+            issues.add(issue);
+        }
+        IModel model = TestUtils.singletonModel(
+                new Model(FilterEvalTests.REPO, issues, new ArrayList<>(), new ArrayList<>(), new ArrayList<>()));
+
+        for (String sortKeys : Arrays.asList("~comments,status", "comments", "~id")) {
+            IssueSortOrder sortOrder = Parser.parse("sort:" + sortKeys)
+                    .find(Qualifier::isMetaQualifier).get(0)
+                    .getCompoundSortComparator(model, false);
+            List<TurboIssue> sorted = new ArrayList<>(issues);
+            sorted.sort(sortOrder);
+            for (int count : Arrays.asList(0, 1, 7, 250, 499, 500, 501)) {
+                List<TurboIssue> first = sortOrder.selectFirst(issues, count, false);
+                assertEquals(sortKeys + " count:" + count,
+                             getIds(sorted.subList(0, Math.min(count, sorted.size()))), getIds(first));
+            }
+        }
+    }
+
+    @Test
+    public void selectFirst_indexedOrder_sameAsSortThenLimit() {
+        Random random = new Random(0);
+        String repo = FilterEvalTests.REPO;
+        LocalDateTime now = LocalDateTime.of(2015, 6, 1, 0, 0);
+        List<TurboIssue> issues = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            TurboIssue issue = new TurboIssue(repo, random.nextInt(200), "");
+            issue.setUpdatedAt(now.minusHours(random.nextInt(20)));
+            issues.add(issue);
+        }
+        Model repoModel = new Model(repo, issues, new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        IModel model = TestUtils.singletonModel(repoModel);
+
+        BitSet candidates = new BitSet();
+        for (int i = 0; i < issues.size(); i++) {
+            candidates.set(i, random.nextInt(3) != 0);
+        }
+        List<TurboIssue> candidateIssues = new ArrayList<>();
+        candidates.stream().forEach(i -> candidateIssues.add(issues.get(i)));
+
+        for (String sortKey : Arrays.asList("id", "~id", "updated", "~date")) {
+            IssueSortOrder sortOrder = Parser.parse("sort:" + sortKey)
+                    .find(Qualifier::isMetaQualifier).get(0)
+                    .getCompoundSortComparator(model, false);
+            assertTrue(sortOrder.isIndexed());
+
+            List<TurboIssue> sorted = new ArrayList<>(candidateIssues);
+            sorted.sort(sortOrder);
+            for (int count : Arrays.asList(0, 1, 10, 150, 300)) {
+                List<TurboIssue> first = sortOrder.selectFirst(repoModel, candidates, count);
+                assertEquals(sortKey + " count:" + count,
+                             getIds(sorted.subList(0, Math.min(count, sorted.size()))), getIds(first));
+            }
+        }
+
+        assertFalse(Qualifier.getSortComparator(model, "comments", false, false).isIndexed());
+        assertFalse(Parser.parse("sort:id,comments").find(Qualifier::isMetaQualifier).get(0)
+                            .getCompoundSortComparator(model, false).isIndexed());
+    }
+
     /**
      * Ensures that TurboIssues are ordered in a particular way given some sorting criteria
      */
     private void assertSorted(List<TurboIssue> issues, List<Integer> expectedIds,
                               IModel model, String sortCriteria,
                               boolean isInverted, boolean isNonSelfUpdate) {
-        Collections.sort(issues,
-                         Qualifier.getSortComparator(model, sortCriteria, isInverted, isNonSelfUpdate));
+        IssueSortOrder sortOrder = Qualifier.getSortComparator(model, sortCriteria, isInverted, isNonSelfUpdate);
+        List<TurboIssue> bulkSorted = new ArrayList<>(issues);
+        sortOrder.sort(bulkSorted, false);
+        Collections.sort(issues, sortOrder);
 
         assertEquals(expectedIds, getIds(issues));
+        assertEquals(expectedIds, getIds(bulkSorted));
     }
 
     /**
@@ -0,0 +1,86 @@
+package tests;
+
+import backend.interfaces.RateLimitBudget;
+import backend.interfaces.TaskPriority;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RateLimitBudgetTests {
+
+    private static final long NOW = 1_000_000_000L;
+    private static final long HOUR = 60 * 60 * 1000;
+
+    private final RateLimitBudget budget = new RateLimitBudget();
+
+    @Test
+    public void getDelay_unknownRateLimit_noDelay() {
+        for (TaskPriority priority : TaskPriority.values()) {
+            assertEquals(0, budget.getDelay(priority, NOW));
+        }
+        assertFalse(budget.getRateLimits().isPresent());
+        assertFalse(budget.isLow(100));
+    }
+
+    @Test
+    public void getDelay_fewRequestsRemaining_lowerPrioritiesHeldBackUntilReset() {
+        budget.update(300, 5000, NOW + HOUR);
+
+        assertEquals(0, budget.getDelay(TaskPriority.INTERACTIVE, NOW));
+        assertEquals(0, budget.getDelay(TaskPriority.VISIBLE, NOW));
+        assertEquals(HOUR, budget.getDelay(TaskPriority.BACKGROUND, NOW));
+        assertEquals(HOUR, budget.getDelay(TaskPriority.HIDDEN, NOW));
+
+        budget.update(0, 5000, NOW + HOUR);
+        assertEquals(HOUR, budget.getDelay(TaskPriority.VISIBLE, NOW));
+        assertEquals(0, budget.getDelay(TaskPriority.INTERACTIVE, NOW));
+    }
+
+    @Test
+    public void acquire_burstOfTasks_pacedByRefillRate() {
+        budget.update(3600, 5000, NOW + HOUR);
+
+        int started = 0;
+        while (budget.getDelay(TaskPriority.VISIBLE, NOW) == 0) {
+            budget.acquire(TaskPriority.VISIBLE, NOW);
+            started++;
+        }
+        assertEquals(10, started);
+
+        // 3600 requests over an hour refill one token a second
+        long delay = budget.getDelay(TaskPriority.VISIBLE, NOW);
+        assertTrue(delay > 0 && delay <= 1000);
+        assertEquals(0, budget.getDelay(TaskPriority.VISIBLE, NOW + 1000));
+        assertEquals(0, budget.getDelay(TaskPriority.INTERACTIVE, NOW));
+    }
+
+    @Test
+    public void recordResponse_failures_backOffGrowsAndResets() {
+        budget.recordResponse(502, NOW);
+        long firstDelay = budget.getDelay(TaskPriority.VISIBLE, NOW);
+        assertTrue(firstDelay >= 1000 && firstDelay <= 2000);
+        assertEquals(0, budget.getDelay(TaskPriority.INTERACTIVE, NOW));
+
+        budget.recordResponse(503, NOW);
+        budget.recordResponse(500, NOW);
+        assertTrue(budget.getDelay(TaskPriority.VISIBLE, NOW) >= 4000);
+
+        budget.recordResponse(200, NOW);
+        assertEquals(0, budget.getDelay(TaskPriority.VISIBLE, NOW));
+    }
+
+    @Test
+    public void recordResponse_rateLimitExceeded_heldBackUntilReset() {
+        budget.update(0, 5000, NOW + HOUR);
+        budget.recordResponse(403, NOW);
+
+        assertEquals(HOUR, budget.getDelay(TaskPriority.VISIBLE, NOW));
+        assertEquals(Optional.of(new ImmutablePair<>(0, NOW + HOUR)), budget.getRateLimits());
+        assertTrue(budget.isLow(1));
+    }
+}
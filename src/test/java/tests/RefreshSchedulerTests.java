@@ -0,0 +1,104 @@
+package tests;
+
+import backend.RefreshScheduler;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RefreshSchedulerTests {
+
+    private final List<String> openRepos = new ArrayList<>(Arrays.asList("busy/repo", "dormant/repo"));
+    private final List<Collection<String>> refreshes = new ArrayList<>();
+    private final Map<String, Boolean> changes = new HashMap<>();
+
+    private final RefreshScheduler scheduler = new RefreshScheduler(
+            () -> openRepos,
+            repoIds -> {
+                refreshes.add(new ArrayList<>(repoIds));
+                return CompletableFuture.completedFuture(changes);
+            },
+            secondsToRefresh -> {});
+
+    public RefreshSchedulerTests() {
+        scheduler.setUsedRepos(Arrays.asList("busy/repo", "dormant/repo"));
+    }
+
+    @Test
+    public void recordRefresh_changes_intervalsAdapted() {
+        assertEquals(RefreshScheduler.DEFAULT_INTERVAL, scheduler.getRefreshInterval("busy/repo"));
+
+        scheduler.recordRefresh("busy/repo", true);
+        scheduler.recordRefresh("dormant/repo", false);
+
+        assertTrue(scheduler.getRefreshInterval("busy/repo") < RefreshScheduler.DEFAULT_INTERVAL);
+        assertTrue(scheduler.getRefreshInterval("dormant/repo") > RefreshScheduler.DEFAULT_INTERVAL);
+    }
+
+    @Test
+    public void recordRefresh_repeatedChanges_intervalBounded() {
+        for (int i = 0; i < 20; i++) {
+            scheduler.recordRefresh("busy/repo", true);
+            scheduler.recordRefresh("dormant/repo", false);
+        }
+
+        long busyInterval = scheduler.getRefreshInterval("busy/repo");
+        long dormantInterval = scheduler.getRefreshInterval("dormant/repo");
+        assertTrue(busyInterval > 0);
+        assertTrue(dormantInterval < 60 * 60);
+
+        scheduler.recordRefresh("busy/repo", true);
+        assertEquals(busyInterval, scheduler.getRefreshInterval("busy/repo"));
+    }
+
+    @Test
+    public void getRefreshInterval_unusedOrIdle_intervalStretched() {
+        scheduler.setUsedRepos(Arrays.asList("Busy/Repo"));
+        assertTrue(scheduler.getRefreshInterval("dormant/repo") > scheduler.getRefreshInterval("busy/repo"));
+
+        long activeInterval = scheduler.getRefreshInterval("busy/repo");
+        scheduler.setIdle(true);
+        assertTrue(scheduler.getRefreshInterval("busy/repo") > activeInterval);
+    }
+
+    @Test
+    public void getRefreshInterval_lowRateLimit_intervalStretched() {
+        long resetTime = System.currentTimeMillis() + 30 * 60 * 1000;
+
+        scheduler.updateRateLimits(5000, resetTime);
+        assertEquals(RefreshScheduler.DEFAULT_INTERVAL, scheduler.getRefreshInterval("busy/repo"));
+
+        scheduler.updateRateLimits(50, resetTime);
+        assertTrue(scheduler.getRefreshInterval("busy/repo") > RefreshScheduler.DEFAULT_INTERVAL);
+
+        scheduler.updateRateLimits(0, resetTime);
+        assertTrue(scheduler.getRefreshInterval("busy/repo") >= 29 * 60);
+    }
+
+    @Test
+    public void refreshNow_allOpenReposRefreshed() {
+        changes.put("busy/repo", true);
+
+        scheduler.refreshNow();
+
+        assertEquals(1, refreshes.size());
+        assertEquals(2, refreshes.get(0).size());
+        assertTrue(scheduler.getRefreshInterval("busy/repo") < RefreshScheduler.DEFAULT_INTERVAL);
+        assertTrue(scheduler.getRefreshInterval("dormant/repo") > RefreshScheduler.DEFAULT_INTERVAL);
+    }
+
+    @Test
+    public void tick_nothingDue_noRefresh() {
+        scheduler.tick();
+
+        assertTrue(refreshes.isEmpty());
+    }
+}
@@ -1,7 +1,9 @@
 package tests;
 
+import backend.IssueEdit;
 import backend.RepoIO;
 import backend.control.RepoOpControl;
+import backend.control.RepoOpStats;
 import backend.github.GitHubModelUpdatesData;
 import backend.github.GitHubRepoTask;
 import backend.interfaces.Repo;
@@ -15,6 +17,7 @@ import util.AtomicMaxInteger;
 import util.Futures;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -24,10 +27,14 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class RepoOpControlTest {
@@ -134,6 +141,132 @@ public class RepoOpControlTest {
         assertEquals(3, counter.getMax());
     }
 
+    @Test
+    public void getStats_opsOnSameRepo_queueDepthAndLatencyRecorded() throws ExecutionException, InterruptedException {
+        AtomicMaxInteger counter = new AtomicMaxInteger(0);
+        RepoOpControl control = new RepoOpControl(stubbedRepoIO(counter), mock(MultiModel.class));
+
+        CompletableFuture<Model> first = control.openRepository(REPO);
+        CompletableFuture<Model> second = control.openRepository(REPO);
+        assertEquals(2, control.getStats(REPO).queueDepth);
+
+        first.get();
+        second.get();
+        // The operations are only counted once their results have been passed on
+        control.shutdown().get();
+        RepoOpStats stats = control.getStats(REPO);
+
+        assertEquals(0, stats.queueDepth);
+        assertEquals(2, stats.completedOps);
+        assertTrue(stats.averageRunTime >= 900);
+        assertTrue(stats.averageWaitTime >= 400);
+        assertEquals(0, control.getStats(REPO + 1).completedOps);
+    }
+
+    @Test
+    public void shutdown_queuedOpsCompleted_laterOpsRejected() throws ExecutionException, InterruptedException {
+        AtomicMaxInteger counter = new AtomicMaxInteger(0);
+        RepoOpControl control = new RepoOpControl(stubbedRepoIO(counter), mock(MultiModel.class));
+
+        CompletableFuture<Model> queued = control.openRepository(REPO);
+        CompletableFuture<Void> terminated = control.shutdown();
+        CompletableFuture<Model> rejected = control.openRepository(REPO);
+        terminated.get();
+
+        assertTrue(queued.isDone());
+        assertTrue(rejected.isCompletedExceptionally());
+        assertEquals(1, control.getStats(REPO).completedOps);
+    }
+
+    @Test
+    public void editIssueOnServer_burstOfEdits_coalescedIntoOneRequest()
+            throws ExecutionException, InterruptedException {
+        AtomicMaxInteger counter = new AtomicMaxInteger(0);
+        RepoIO repoIO = stubbedRepoIO(counter);
+        List<IssueEdit> edits = new ArrayList<>();
+        when(repoIO.editIssue(any(TurboIssue.class), any(IssueEdit.class))).then(invocation -> {
+            edits.add((IssueEdit) invocation.getArguments()[1]);
+            return CompletableFuture.completedFuture(true);
+        });
+        RepoOpControl control = new RepoOpControl(repoIO, mock(MultiModel.class));
+
+        // The edits queue up behind an operation in progress
+        CompletableFuture<Model> opened = control.openRepository(REPO);
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        results.add(control.replaceIssueLabelsOnServer(issue, Arrays.asList("type.bug"), original -> {}));
+        results.add(control.replaceIssueLabelsOnServer(issue, Arrays.asList("type.bug", "priority.high"),
+                                                      original -> {}));
+        results.add(control.replaceIssueMilestoneOnServer(issue, milestone, original -> {}));
+        results.add(control.editIssueStateOnServer(issue, false, original -> {}));
+        assertEquals(2, control.getStats(REPO).queueDepth);
+
+        opened.get();
+        for (CompletableFuture<Boolean> result : results) {
+            assertTrue(result.get());
+        }
+
+        assertEquals(1, edits.size());
+        IssueEdit edit = edits.get(0);
+        assertEquals(Arrays.asList("type.bug", "priority.high"), edit.getLabels());
+        assertEquals(milestone, edit.getMilestone());
+        assertFalse(edit.isOpen());
+        assertFalse(edit.hasAssignee());
+        verify(repoIO, never()).replaceIssueLabels(any(TurboIssue.class), any());
+        verify(repoIO, times(1)).editIssue(any(TurboIssue.class), any(IssueEdit.class));
+    }
+
+    @Test
+    public void editIssueOnServer_failedBurstOfEdits_revertedOnceToValuesBeforeBurst()
+            throws ExecutionException, InterruptedException {
+        RepoIO repoIO = stubbedRepoIO(new AtomicMaxInteger(0));
+        when(repoIO.replaceIssueLabels(any(TurboIssue.class), any()))
+                .thenReturn(CompletableFuture.completedFuture(false));
+        RepoOpControl control = new RepoOpControl(repoIO, mock(MultiModel.class));
+        TurboIssue labelledIssue = new TurboIssue(REPO, 3, "Issue 3");
+        labelledIssue.setLabels(Arrays.asList("type.feature"));
+        TurboIssue relabelledIssue = new TurboIssue(labelledIssue);
+        relabelledIssue.setLabels(Arrays.asList("type.bug"));
+        List<IssueEdit> firstReverts = new ArrayList<>();
+        List<IssueEdit> secondReverts = new ArrayList<>();
+
+        CompletableFuture<Model> opened = control.openRepository(REPO);
+        CompletableFuture<Boolean> first = control.replaceIssueLabelsOnServer(
+                labelledIssue, Arrays.asList("type.bug"), firstReverts::add);
+        CompletableFuture<Boolean> second = control.replaceIssueLabelsOnServer(
+                relabelledIssue, Arrays.asList("type.bug", "priority.high"), secondReverts::add);
+
+        opened.get();
+        assertFalse(first.get());
+        assertFalse(second.get());
+
+        assertTrue(firstReverts.isEmpty());
+        assertEquals(1, secondReverts.size());
+        IssueEdit original = secondReverts.get(0);
+        assertEquals(Arrays.asList("type.feature"), original.getLabels());
+        assertFalse(original.hasMilestone());
+        assertFalse(original.hasAssignee());
+        assertFalse(original.hasState());
+        verify(repoIO, times(1)).replaceIssueLabels(any(TurboIssue.class), any());
+    }
+
+    @Test
+    public void editIssueOnServer_editsOfDifferentIssues_notCoalesced()
+            throws ExecutionException, InterruptedException {
+        RepoIO repoIO = mock(RepoIO.class);
+        when(repoIO.replaceIssueLabels(any(TurboIssue.class), any()))
+                .thenReturn(CompletableFuture.completedFuture(true));
+        RepoOpControl control = new RepoOpControl(repoIO, mock(MultiModel.class));
+
+        CompletableFuture<Boolean> first = control.replaceIssueLabelsOnServer(issue, Arrays.asList("type.bug"),
+                                                                                 original -> {});
+        CompletableFuture<Boolean> second = control.replaceIssueLabelsOnServer(
+                new TurboIssue(REPO, 2, "Issue 2"), Arrays.asList("type.bug"), original -> {});
+
+        assertTrue(first.get());
+        assertTrue(second.get());
+        verify(repoIO, times(2)).replaceIssueLabels(any(TurboIssue.class), any());
+    }
+
     @Test
     public void replaceIssueMilestoneLocally() throws ExecutionException, InterruptedException {
         int issueId = 1;
@@ -209,7 +342,7 @@ public class RepoOpControlTest {
 
         TurboIssue returnedIssue = new TurboIssue("testrepo/testrepo", 1, "Issue title");
         RepoOpControl repoOpControl = new RepoOpControl(mockedRepoIO, mock(MultiModel.class));
-        boolean result = repoOpControl.editIssueStateOnServer(returnedIssue, false).join();
+        boolean result = repoOpControl.editIssueStateOnServer(returnedIssue, false, original -> {}).join();
         assertEquals(true, result);
     }
 
@@ -1,13 +1,27 @@
 package tests;
 
+import backend.IssueMetadata;
 import backend.RepoIO;
+import backend.binary.BinaryStore;
+import backend.json.JSONModelReader;
 import backend.interfaces.RepoStore;
+import backend.interfaces.StoreTask;
 import backend.json.JSONStore;
 import backend.json.JSONStoreStub;
 import backend.resource.Model;
+import backend.resource.TurboIssue;
+import backend.resource.serialization.SerializableModel;
+import backend.resource.serialization.SerializableModelDelta;
+import backend.resource.serialization.SerializableRepoMetadata;
 import backend.stub.DummyRepoState;
+import com.google.gson.Gson;
+import github.IssueEventType;
+import github.ReviewComment;
+import github.TurboIssueEvent;
 import guitests.UITest;
 
+import org.eclipse.egit.github.core.Comment;
+import org.eclipse.egit.github.core.User;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -17,14 +31,30 @@ import ui.UI;
 import ui.components.StatusUIStub;
 import util.events.EventDispatcherStub;
 import util.events.testevents.UpdateDummyRepoEvent;
+import util.exceptions.JSONLoadException;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class StoreTests {
@@ -152,6 +182,289 @@ public class StoreTests {
         assertEquals(false, Files.exists(Paths.get("store/test/dummy1-dummy1.json")));
     }
 
+    @Test
+    public void binaryStore_saveAndLoad_modelPreserved() throws InterruptedException, ExecutionException {
+        Model model = downloadDummyRepo("dummy1/dummy1");
+
+        BinaryStore binaryStore = new BinaryStore();
+        assertFalse(binaryStore.saveRepository("dummy1/dummy1", new SerializableModel(model)).get());
+        assertTrue(Files.exists(Paths.get("store/test/dummy1-dummy1.bin")));
+
+        Model loaded = binaryStore.loadRepository("dummy1/dummy1").get();
+        assertEquals(model, loaded);
+        assertEquals(model.getUpdateSignature(), loaded.getUpdateSignature());
+        assertEquals(model.getIssues().get(0).getLabels(), loaded.getIssues().get(0).getLabels());
+        assertEquals(model.getIssues().get(0).getUpdatedAt(), loaded.getIssues().get(0).getUpdatedAt());
+        assertEquals(model.getMilestones().get(0).getDueDate(), loaded.getMilestones().get(0).getDueDate());
+    }
+
+    @Test
+    public void binaryStore_jsonStored_migrated() throws InterruptedException, ExecutionException {
+        Model model = downloadDummyRepo("dummy1/dummy1");
+        assertFalse(new JSONStore().saveRepository("dummy1/dummy1", new SerializableModel(model)).get());
+
+        BinaryStore binaryStore = new BinaryStore();
+        assertEquals(Arrays.asList("dummy1/dummy1"), binaryStore.getStoredRepos());
+        assertTrue(Files.exists(Paths.get("store/test/dummy1-dummy1.bin")));
+        // The JSON file is deleted, so it cannot be loaded in place of the binary file once it is stale
+        assertFalse(Files.exists(Paths.get("store/test/dummy1-dummy1.json")));
+        assertEquals(model, binaryStore.loadRepository("dummy1/dummy1").get());
+    }
+
+    @Test
+    public void binaryStore_corruptedBinary_fallsBackToJson() throws InterruptedException, ExecutionException,
+            IOException {
+        Model model = downloadDummyRepo("dummy1/dummy1");
+        assertFalse(new JSONStore().saveRepository("dummy1/dummy1", new SerializableModel(model)).get());
+        BinaryStore binaryStore = new BinaryStore();
+        assertFalse(binaryStore.saveRepository("dummy1/dummy1", new SerializableModel(model)).get());
+
+        // Flip a byte in the middle of the file so that the checksum no longer matches
+        Path binaryFile = Paths.get("store/test/dummy1-dummy1.bin");
+        byte[] bytes = Files.readAllBytes(binaryFile);
+        bytes[bytes.length / 2] ^= 0xFF;
+        Files.write(binaryFile, bytes);
+
+        assertEquals(model, binaryStore.loadRepository("dummy1/dummy1").get());
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void binaryStore_corruptedWithoutJson_loadFails() throws InterruptedException, ExecutionException,
+            IOException {
+        new File(RepoStore.TEST_DIRECTORY).mkdirs();
+        Files.write(Paths.get("store/test/testrepo-testrepo.bin"), "abcde".getBytes("UTF-8"));
+
+        new BinaryStore().loadRepository("testrepo/testrepo").get();
+    }
+
+    @Test
+    public void binaryStore_corruptedStringLength_notListed() throws IOException {
+        new File(RepoStore.TEST_DIRECTORY).mkdirs();
+        // A valid magic number and format version, followed by a repo id longer than the file
+        ByteBuffer header = ByteBuffer.allocate(3 * Integer.BYTES)
+                .putInt(0x48544253).putInt(1).putInt(Integer.MAX_VALUE - 16);
+        Files.write(Paths.get("store/test/testrepo-testrepo.bin"), header.array());
+
+        assertTrue(new BinaryStore().getStoredRepos().isEmpty());
+    }
+
+    @Test
+    public void binaryStore_removeRepo_bothFilesDeleted() throws InterruptedException, ExecutionException {
+        Model model = downloadDummyRepo("dummy1/dummy1");
+        assertFalse(new JSONStore().saveRepository("dummy1/dummy1", new SerializableModel(model)).get());
+        BinaryStore binaryStore = new BinaryStore();
+        binaryStore.getStoredRepos();
+
+        assertFalse(binaryStore.removeStoredRepo("dummy1/dummy1").get());
+
+        assertFalse(Files.exists(Paths.get("store/test/dummy1-dummy1.json")));
+        assertFalse(Files.exists(Paths.get("store/test/dummy1-dummy1.bin")));
+    }
+
+    @Test
+    public void jsonModelReader_readModel_sameAsGson() throws InterruptedException, ExecutionException,
+            JSONLoadException {
+        Model model = downloadDummyRepo("dummy1/dummy1");
+        assertFalse(new JSONStore().saveRepository("dummy1/dummy1", new SerializableModel(model)).get());
+
+        Path jsonFile = Paths.get("store/test/dummy1-dummy1.json");
+        assertEquals("dummy1/dummy1", JSONModelReader.readRepoId(jsonFile));
+
+        Model loaded = JSONModelReader.read(jsonFile);
+        assertEquals(model, loaded);
+        for (TurboIssue issue : model.getIssues()) {
+            TurboIssue loadedIssue = loaded.getIssueById(issue.getId()).get();
+            assertEquals(issue.getTitle(), loadedIssue.getTitle());
+            assertEquals(issue.getUpdatedAt(), loadedIssue.getUpdatedAt());
+            assertEquals(issue.getAssignee(), loadedIssue.getAssignee());
+            assertEquals(issue.getLabels(), loadedIssue.getLabels());
+            assertEquals(issue.getMilestone(), loadedIssue.getMilestone());
+        }
+    }
+
+    @Test
+    public void jsonModelReader_repoIdAfterIssues_modelRead() throws InterruptedException, ExecutionException,
+            IOException, JSONLoadException {
+        Model model = downloadDummyRepo("dummy1/dummy1");
+        String json = new Gson().toJson(new SerializableModel(model));
+        // Move repoId from the start to the end of the object
+        String repoIdField = "\"repoId\":\"dummy1/dummy1\",";
+        assertTrue(json.contains(repoIdField));
+        json = json.replace(repoIdField, "");
+        json = json.substring(0, json.length() - 1) + ",\"repoId\":\"dummy1/dummy1\"}";
+
+        new File(RepoStore.TEST_DIRECTORY).mkdirs();
+        Path jsonFile = Paths.get("store/test/dummy1-dummy1.json");
+        Files.write(jsonFile, json.getBytes("UTF-8"));
+
+        assertEquals("dummy1/dummy1", JSONModelReader.readRepoId(jsonFile));
+        assertEquals(model, JSONModelReader.read(jsonFile));
+    }
+
+    @Test
+    public void journal_changesSaved_replayedOnLoad() throws InterruptedException, ExecutionException {
+        Model model = downloadDummyRepo("dummy1/dummy1");
+        JSONStore jsonStore = new JSONStore();
+        assertFalse(jsonStore.saveRepository("dummy1/dummy1", new SerializableModel(model)).get());
+
+        TurboIssue edited = retitleFirstIssue(model, "journaled title");
+        Model editedModel = replaceFirstIssue(model, edited);
+        assertFalse(jsonStore.saveRepositoryChanges("dummy1/dummy1", SerializableModelDelta.ofIssue(edited),
+                                                    editedModel).get());
+
+        assertTrue(Files.exists(Paths.get("store/test/dummy1-dummy1.json.journal")));
+        Model loaded = jsonStore.loadRepository("dummy1/dummy1").get();
+        assertEquals(editedModel, loaded);
+        assertEquals("journaled title", loaded.getIssueById(edited.getId()).get().getTitle());
+    }
+
+    @Test
+    public void journal_pastThreshold_compactedIntoSnapshot() throws InterruptedException, ExecutionException {
+        Model model = downloadDummyRepo("dummy1/dummy1");
+        BinaryStore binaryStore = new BinaryStore();
+        binaryStore.setJournalCompactionThreshold(0);
+        assertFalse(binaryStore.saveRepository("dummy1/dummy1", new SerializableModel(model)).get());
+
+        TurboIssue edited = retitleFirstIssue(model, "compacted title");
+        Model editedModel = replaceFirstIssue(model, edited);
+        assertFalse(binaryStore.saveRepositoryChanges("dummy1/dummy1", SerializableModelDelta.ofIssue(edited),
+                                                      editedModel).get());
+
+        // Compaction is done by the time the changes are stored
+        assertFalse(Files.exists(Paths.get("store/test/dummy1-dummy1.bin.journal")));
+        Model loaded = binaryStore.loadRepository("dummy1/dummy1").get();
+        assertEquals("compacted title", loaded.getIssueById(edited.getId()).get().getTitle());
+    }
+
+    @Test
+    public void journal_truncatedEntry_discarded() throws InterruptedException, ExecutionException, IOException {
+        Model model = downloadDummyRepo("dummy1/dummy1");
+        JSONStore jsonStore = new JSONStore();
+        assertFalse(jsonStore.saveRepository("dummy1/dummy1", new SerializableModel(model)).get());
+
+        TurboIssue edited = retitleFirstIssue(model, "complete entry");
+        assertFalse(jsonStore.saveRepositoryChanges("dummy1/dummy1", SerializableModelDelta.ofIssue(edited),
+                                                    replaceFirstIssue(model, edited)).get());
+
+        // Simulate a crash in the middle of appending the next entry
+        Path journal = Paths.get("store/test/dummy1-dummy1.json.journal");
+        long completeSize = Files.size(journal);
+        Files.write(journal, "{\"repoId\":\"dummy1/dumm".getBytes("UTF-8"), StandardOpenOption.APPEND);
+
+        Model loaded = jsonStore.loadRepository("dummy1/dummy1").get();
+        assertEquals("complete entry", loaded.getIssueById(edited.getId()).get().getTitle());
+        assertEquals(completeSize, Files.size(journal));
+    }
+
+    @Test
+    public void metadata_saved_loadedWithETags() throws InterruptedException, ExecutionException {
+        Model model = downloadDummyRepo("dummy1/dummy1");
+        Date date = new Date(1420070400000L);
+        Comment comment = new Comment().setBody("comment").setCreatedAt(date).setUser(new User().setLogin("a"));
+        ReviewComment reviewComment = new ReviewComment();
+        reviewComment.setBody("review").setCreatedAt(date).setUser(new User().setLogin("b"));
+        TurboIssueEvent event = new TurboIssueEvent(new User().setLogin("c"), IssueEventType.Closed, date);
+        TurboIssue issue = model.getIssues().get(0);
+        issue.setMetadata(IssueMetadata.intermediate(Arrays.asList(event), Arrays.asList(comment, reviewComment),
+                                                     "events", "comments"));
+
+        JSONStore jsonStore = new JSONStore();
+        assertFalse(jsonStore.saveRepository("dummy1/dummy1", new SerializableModel(model)).get());
+        assertFalse(jsonStore.saveMetadata("dummy1/dummy1", new SerializableRepoMetadata(model)).get());
+        assertTrue(Files.exists(Paths.get("store/test/dummy1-dummy1.metadata")));
+
+        Map<Integer, IssueMetadata> loaded = jsonStore.loadMetadata("dummy1/dummy1").get();
+        assertEquals(1, loaded.size());
+        IssueMetadata metadata = loaded.get(issue.getId());
+        assertEquals("events", metadata.getEventsETag());
+        assertEquals("comments", metadata.getCommentsETag());
+        assertEquals(date, metadata.getEvents().get(0).getDate());
+        assertEquals(IssueEventType.Closed, metadata.getEvents().get(0).getType());
+        assertEquals(2, metadata.getComments().size());
+        assertEquals(date, metadata.getComments().get(0).getCreatedAt());
+        assertTrue(metadata.getComments().get(1) instanceof ReviewComment);
+
+        assertFalse(jsonStore.removeStoredRepo("dummy1/dummy1").get());
+        assertFalse(Files.exists(Paths.get("store/test/dummy1-dummy1.metadata")));
+    }
+
+    @Test
+    public void metadata_noneStored_emptyMapLoaded() throws InterruptedException, ExecutionException {
+        assertTrue(new JSONStore().loadMetadata("dummy1/dummy1").get().isEmpty());
+    }
+
+    @Test
+    public void storeExecutor_differentRepos_runInParallel() throws InterruptedException, ExecutionException,
+            TimeoutException {
+        BlockableJSONStore store = new BlockableJSONStore();
+        CountDownLatch release = store.block("dummy1/dummy1");
+
+        // Completes although the store is still busy with dummy1/dummy1
+        Model model = downloadDummyRepo("dummy2/dummy2");
+        assertFalse(store.saveRepository("dummy2/dummy2", new SerializableModel(model)).get(5, TimeUnit.SECONDS));
+
+        release.countDown();
+    }
+
+    @Test
+    public void storeExecutor_pendingSaves_coalesced() throws InterruptedException, ExecutionException {
+        Model model = downloadDummyRepo("dummy1/dummy1");
+        TurboIssue edited = retitleFirstIssue(model, "latest title");
+        Model editedModel = replaceFirstIssue(model, edited);
+
+        BlockableJSONStore store = new BlockableJSONStore();
+        CountDownLatch release = store.block("dummy1/dummy1");
+        CompletableFuture<Boolean> firstSave = store.saveRepository("dummy1/dummy1", new SerializableModel(model));
+        CompletableFuture<Boolean> secondSave = store.saveRepository("dummy1/dummy1",
+                                                                     new SerializableModel(editedModel));
+        release.countDown();
+
+        assertFalse(firstSave.get());
+        assertFalse(secondSave.get());
+        assertEquals("latest title",
+                     store.loadRepository("dummy1/dummy1").get().getIssueById(edited.getId()).get().getTitle());
+    }
+
+    /**
+     * A JSONStore whose tasks for a repository can be held up.
+     */
+    private static class BlockableJSONStore extends JSONStore {
+
+        public CountDownLatch block(String repoId) {
+            CountDownLatch release = new CountDownLatch(1);
+            addTask(new StoreTask(repoId) {
+                @Override
+                public void run() {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            return release;
+        }
+    }
+
+    private TurboIssue retitleFirstIssue(Model model, String title) {
+        TurboIssue edited = new TurboIssue(model.getIssues().get(0));
+        edited.setTitle(title);
+        return edited;
+    }
+
+    private Model replaceFirstIssue(Model model, TurboIssue issue) {
+        List<TurboIssue> issues = new ArrayList<>(model.getIssues());
+        issues.set(0, issue);
+        return new Model(model.getRepoId(), issues, model.getLabels(), model.getMilestones(), model.getUsers(),
+                         model.getUpdateSignature());
+    }
+
+    private Model downloadDummyRepo(String repoId) throws InterruptedException, ExecutionException {
+        RepoIO testIO = TestController.createTestingRepoIO(Optional.of(new JSONStoreStub()));
+        testIO.setRepoOpControl(TestUtils.createRepoOpControlWithEmptyModels(testIO));
+        return testIO.openRepository(repoId).get();
+    }
+
     @After
     public void cleanup() {
         UITest.clearTestFolder();
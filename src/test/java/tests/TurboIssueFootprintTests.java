@@ -0,0 +1,96 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.logging.log4j.Logger;
+import org.eclipse.egit.github.core.Issue;
+import org.eclipse.egit.github.core.Label;
+import org.eclipse.egit.github.core.Milestone;
+import org.eclipse.egit.github.core.User;
+import org.junit.Test;
+
+import backend.resource.TurboIssue;
+import util.HTLog;
+
+/**
+ * Measures the heap used by issues as they are loaded from GitHub, where every string of every
+ * issue is a separate instance.
+ */
+public class TurboIssueFootprintTests {
+
+    private static final Logger logger = HTLog.get(TurboIssueFootprintTests.class);
+
+    private static final int ISSUE_COUNT = 20000;
+    private static final int USER_COUNT = 50;
+    private static final int LABEL_COUNT = 30;
+    private static final String[] WORDS = {
+        "the", "panel", "filter", "should", "show", "issues", "when", "repository", "is", "loaded",
+        "error", "after", "update", "label", "milestone", "assignee", "test", "fails", "on", "windows",
+        "steps", "to", "reproduce", "expected", "actual", "behaviour", "see", "screenshot", "```", "`code`",
+    };
+
+    /**
+     * Reports the bytes per issue for descriptions of up to a few KB, which is typical. The heap usage
+     * measured after garbage collection varies with GC timing and JVM flags, so it is not asserted on.
+     */
+    @Test
+    public void footprint_issuesFromGitHub_bytesPerIssueReported() {
+        Random random = new Random(0);
+        long before = usedHeap();
+        List<TurboIssue> issues = IntStream.range(1, ISSUE_COUNT + 1)
+                .mapToObj(id -> new TurboIssue(new String("owner/repo"), createIssue(id, random)))
+                .collect(Collectors.toList());
+        long after = usedHeap();
+
+        long bytesPerIssue = (after - before) / ISSUE_COUNT;
+        logger.info(String.format("%d issues take up %d bytes per issue", issues.size(), bytesPerIssue));
+        assertEquals(ISSUE_COUNT, issues.size());
+    }
+
+    private static Issue createIssue(int id, Random random) {
+        Issue issue = new Issue();
+        issue.setNumber(id);
+        issue.setTitle(words(random, 4 + random.nextInt(8)));
+        issue.setBody(words(random, random.nextInt(400)));
+        issue.setUser(new User().setLogin("user" + random.nextInt(USER_COUNT)));
+        if (random.nextBoolean()) {
+            issue.setAssignee(new User().setLogin("user" + random.nextInt(USER_COUNT)));
+        }
+        if (random.nextBoolean()) {
+            issue.setMilestone(new Milestone().setNumber(1 + random.nextInt(10)));
+        }
+        List<Label> labels = new ArrayList<>();
+        for (int i = random.nextInt(4); i > 0; i--) {
+            labels.add(new Label().setName("type." + random.nextInt(LABEL_COUNT)));
+        }
+        issue.setLabels(labels);
+        issue.setState(random.nextBoolean() ? TurboIssue.STATE_OPEN : TurboIssue.STATE_CLOSED);
+        issue.setCreatedAt(new Date(1400000000000L + id * 60000L));
+        issue.setUpdatedAt(new Date(1450000000000L + id * 60000L));
+        issue.setComments(random.nextInt(20));
+        return issue;
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            result.append(WORDS[random.nextInt(WORDS.length)]).append(i % 12 == 11 ? '\n' : ' ');
+        }
+        return result.toString();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -205,6 +206,35 @@ public class TurboIssueTests {
         assertEquals(originalLabels, updatedList.get(0).getLabels());
     }
 
+    /**
+     * Tests that merging shares unchanged issues with the original list and reports
+     * which issues were added or modified
+     */
+    @Test
+    public void merge_changedIssuesAndPullRequests_unchangedIssuesShared() {
+        TurboIssue issue1 = createIssueWithUpdatedAt(1, LocalDateTime.of(2015, 2, 17, 2, 10));
+        TurboIssue issue2 = createIssueWithUpdatedAt(2, LocalDateTime.of(2015, 2, 18, 2, 10));
+        TurboIssue issue3 = createIssueWithUpdatedAt(3, LocalDateTime.of(2015, 2, 19, 2, 10));
+        List<TurboIssue> existing = Arrays.asList(issue1, issue2, issue3);
+
+        TurboIssue changedIssue2 = createIssueWithUpdatedAt(2, LocalDateTime.of(2015, 3, 1, 2, 10));
+        TurboIssue newIssue4 = createIssueWithUpdatedAt(4, LocalDateTime.of(2015, 3, 2, 2, 10));
+        PullRequest pr3 = createPullRequestWithUpdatedAt(3, LocalDateTime.of(2015, 2, 19, 2, 9));
+        PullRequest pr4 = createPullRequestWithUpdatedAt(4, LocalDateTime.of(2015, 3, 3, 2, 10));
+
+        TurboIssue.MergeResult result = TurboIssue.merge(existing, Arrays.asList(changedIssue2, newIssue4),
+                                                         Arrays.asList(pr3, pr4));
+
+        assertEquals(4, result.issues.size());
+        assertTrue(result.issues.get(0) == issue1);
+        assertTrue(result.issues.get(2) == issue3);
+        assertEquals(changedIssue2.getUpdatedAt(), result.issues.get(1).getUpdatedAt());
+        assertEquals(LocalDateTime.of(2015, 3, 3, 2, 10), result.issues.get(3).getUpdatedAt());
+        assertEquals(new HashSet<>(Arrays.asList(4)), result.added);
+        assertEquals(new HashSet<>(Arrays.asList(2)), result.modified);
+        assertEquals(LocalDateTime.of(2015, 3, 2, 2, 10), newIssue4.getUpdatedAt());
+    }
+
     /**
      * Checks that matched issues are sorted according to number of query match
      */
@@ -28,6 +28,18 @@ public class TurboLabelTest {
         testWithDelimiter(TurboLabel.NONEXCLUSIVE_DELIMITER, false);
     }
 
+    @Test
+    public void getLowerCaseNames_mixedCaseLabels_lowerCaseGroupAndShortNames() {
+        TurboLabel grouped = new TurboLabel(REPO, "Priority.HIGH");
+        assertEquals("Priority", grouped.getGroupName());
+        assertEquals("priority", grouped.getLowerCaseGroupName());
+        assertEquals("high", grouped.getLowerCaseShortName());
+
+        TurboLabel ungrouped = new TurboLabel(REPO, "Urgent");
+        assertEquals("", ungrouped.getLowerCaseGroupName());
+        assertEquals("urgent", ungrouped.getLowerCaseShortName());
+    }
+
     @Test
     public void consistentStyle() {
         // Ensures that default labels share the same style
@@ -0,0 +1,85 @@
+package tests;
+
+import backend.Logic;
+import backend.UpdateController;
+import backend.resource.Model;
+import backend.resource.MultiModel;
+import backend.resource.TurboIssue;
+import filter.Parser;
+import filter.expression.FilterExpression;
+import org.junit.Test;
+import ui.GuiElement;
+import ui.TestController;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UpdateControllerTests {
+
+    private static final String REPO = "test/test";
+    private static final String OTHER_REPO = "other/repo";
+
+    private final Logic logic = mock(Logic.class);
+
+    public UpdateControllerTests() {
+        Random random = new Random(0);
+        MultiModel models = new MultiModel(TestController.createTestPreferences());
+        for (String repoId : Arrays.asList(REPO, OTHER_REPO)) {
+            List<TurboIssue> issues = new ArrayList<>();
+            for (int id = 1; id <= 300; id++) {
+                TurboIssue issue = new TurboIssue(repoId, id, "Issue " + id, "alice",
+                                                  LocalDateTime.of(2015, 1, 1, 0, 0), random.nextBoolean());
+                issue.setUpdatedAt(LocalDateTime.of(2015, 6, 1, 0, 0).minusHours(random.nextInt(50)));
+                issue.setOpen(random.nextBoolean());
+                issue.setCommentCount(random.nextInt(5));
+                issue.setLabels(random.nextBoolean() ? Arrays.asList("type.bug") : Arrays.asList("type.feature"));
+                issues.add(issue);
+            }
+            models.queuePendingRepository(repoId);
+            models.addPending(new Model(repoId, issues, new ArrayList<>(), new ArrayList<>(), new ArrayList<>()));
+        }
+        models.setDefaultRepo(REPO);
+        when(logic.getModels()).thenReturn(models);
+    }
+
+    @Test
+    public void processFilters_concurrentAndSingleThreaded_sameOrderedResults() {
+        List<FilterExpression> filterExprs = Arrays.asList(
+                Parser.parse("is:open"),
+                Parser.parse("label:bug sort:~comments,id"),
+                Parser.parse("repo:test/test;other/repo is:pr sort:~updated count:20"),
+                Parser.parse("is:closed sort:id count:5"),
+                Parser.parse("repo:other/repo label:feature sort:comments,~id"),
+                Parser.parse("is:open"));
+
+        UpdateController singleThreaded = new UpdateController(logic, 1);
+        UpdateController concurrent = new UpdateController(logic, 4);
+
+        Map<FilterExpression, List<TurboIssue>> expected = getIssues(singleThreaded.processFilters(filterExprs));
+        assertEquals(filterExprs.size() - 1, expected.size());
+        assertEquals(20, expected.get(filterExprs.get(2)).size());
+        assertEquals(expected, getIssues(concurrent.processFilters(filterExprs)));
+
+        // Filters are processed on the calling thread after the filter pool is shut down
+        concurrent.shutdown();
+        assertEquals(expected, getIssues(concurrent.processFilters(filterExprs)));
+    }
+
+    private static Map<FilterExpression, List<TurboIssue>> getIssues(Map<FilterExpression, List<GuiElement>> result) {
+        Map<FilterExpression, List<TurboIssue>> issues = new HashMap<>();
+        result.forEach((filterExpr, elements) -> issues.put(filterExpr, elements.stream()
+                .map(GuiElement::getIssue)
+                .collect(Collectors.toList())));
+        return issues;
+    }
+}